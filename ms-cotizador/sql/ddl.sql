@@ -21,7 +21,8 @@ CREATE TABLE copromocion (
     descripcion VARCHAR(255) NOT NULL,
     nombre VARCHAR(100) NOT NULL,
     vigencia_desde DATE NOT NULL,
-    vigencia_hasta DATE NOT NULL
+    vigencia_hasta DATE NOT NULL,
+    version INT UNSIGNED NOT NULL DEFAULT 0
 ) ENGINE=InnoDB;
 
 -- Tabla de detalles de promoción
@@ -76,7 +77,7 @@ CREATE TABLE copc_parte (
 
 -- Tabla de cotizaciones
 CREATE TABLE cocotizacion (
-    folio INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+    folio INT UNSIGNED PRIMARY KEY,
     fecha VARCHAR(20) NOT NULL,    
     impuestos DECIMAL(20,2) NOT NULL,
     subtotal DECIMAL(20,2) NOT NULL,
@@ -105,7 +106,7 @@ CREATE TABLE coproveedor (
 
 -- Tabla de pedidos
 CREATE TABLE copedido (
-    num_pedido INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+    num_pedido INT UNSIGNED PRIMARY KEY,
     cve_proveedor VARCHAR(50) NOT NULL,
     fecha_emision DATE NOT NULL,
     fecha_entrega DATE NOT NULL,
@@ -127,10 +128,74 @@ CREATE TABLE codetalle_pedido (
     FOREIGN KEY (id_componente) REFERENCES cocomponente(id_componente)
 ) ENGINE=InnoDB;
 
+-- Tabla de secuencias para generación de llaves por bloques (folios, números de pedido y eventos).
+-- siguiente_valor es el siguiente id libre y es la única fuente de llaves de esas tablas (sus
+-- columnas no son AUTO_INCREMENT). Un script que inserte filas debe reservar sus ids antes:
+--   UPDATE cosecuencia SET siguiente_valor = LAST_INSERT_ID(siguiente_valor) + <n> WHERE nombre = 'cocotizacion';
+--   SELECT LAST_INSERT_ID();  -- primer id reservado; se usan los <n> siguientes
+-- Bases creadas con una versión anterior: ejecutar sql/migracion_llaves_por_bloques.sql con la
+-- aplicación detenida; mientras quede una columna AUTO_INCREMENT la aplicación no arranca.
+CREATE TABLE cosecuencia (
+    nombre VARCHAR(50) PRIMARY KEY,
+    siguiente_valor BIGINT NOT NULL
+) ENGINE=InnoDB;
+
+INSERT INTO cosecuencia (nombre, siguiente_valor) VALUES ('cocotizacion', 1), ('copedido', 1), ('cooutbox_evento', 1);
+
+-- Tabla de claves de idempotencia para creación de cotizaciones
+CREATE TABLE coidempotencia_cotizacion (
+    clave VARCHAR(100) PRIMARY KEY,
+    huella VARCHAR(64) NOT NULL,
+    estado VARCHAR(15) NOT NULL,
+    respuesta TEXT NULL,
+    fecha_creacion DATETIME NOT NULL,
+    fecha_expiracion DATETIME NOT NULL
+) ENGINE=InnoDB;
+
+-- Tabla outbox de eventos de dominio (pedidos creados). Se escribe en la misma transacción
+-- que el cambio de negocio; un despachador la drena por lotes hacia los destinos configurados
+-- con entrega al menos una vez (los consumidores deben descartar duplicados por id).
+-- estado: PENDIENTE, ENVIADO o FALLIDO (agotó outbox.despachador.max-intentos; se conserva
+-- para revisión y se reencola regresándolo a PENDIENTE).
+CREATE TABLE cooutbox_evento (
+    id BIGINT PRIMARY KEY,
+    tipo_agregado VARCHAR(30) NOT NULL,
+    id_agregado VARCHAR(50) NOT NULL,
+    tipo_evento VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    fecha_creacion DATETIME NOT NULL,
+    estado VARCHAR(15) NOT NULL DEFAULT 'PENDIENTE',
+    intentos INT NOT NULL DEFAULT 0,
+    fecha_siguiente_intento DATETIME NOT NULL,
+    fecha_envio DATETIME NULL,
+    ultimo_error VARCHAR(500) NULL
+) ENGINE=InnoDB;
+
+-- Resumen de surtido por proveedor, mantenido de forma incremental al guardar pedidos
+-- (un UPSERT por proveedor y transacción) y reconstruible desde copedido bajo demanda.
+-- Las sumas permiten derivar promedios sin recorrer la tabla de pedidos.
+CREATE TABLE coresumen_surtido_proveedor (
+    cve_proveedor VARCHAR(50) PRIMARY KEY,
+    pedidos BIGINT NOT NULL DEFAULT 0,
+    renglones BIGINT NOT NULL DEFAULT 0,
+    importe_total DECIMAL(24,2) NOT NULL DEFAULT 0,
+    suma_nivel_surtido BIGINT NOT NULL DEFAULT 0,
+    suma_dias_entrega BIGINT NOT NULL DEFAULT 0,
+    entregas_tardias BIGINT NOT NULL DEFAULT 0,
+    fecha_ultimo_pedido DATE NULL,
+    fecha_actualizacion DATETIME NOT NULL,
+    FOREIGN KEY (cve_proveedor) REFERENCES coproveedor(cve) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
 -- Crear índices para mejorar el rendimiento
 CREATE INDEX idx_componente_tipo ON cocomponente (id_tipo_componente);
 CREATE INDEX idx_promocion ON cocomponente (id_promocion);
 CREATE INDEX idx_pcpartes_pc ON copc_parte (id_pc);
 CREATE INDEX idx_detalle_cotizacion_cotizacion ON codetalle_cotizacion (folio, num_detalle);
 CREATE INDEX idx_detalle_pedido_pedido ON codetalle_pedido (num_pedido);
-CREATE INDEX idx_detalle_promocion_promocion ON codetalle_promocion (id_promocion);
\ No newline at end of file
+CREATE INDEX idx_detalle_cotizacion_componente ON codetalle_cotizacion (id_componente, folio);
+CREATE INDEX idx_detalle_pedido_componente ON codetalle_pedido (id_componente, num_pedido);
+CREATE INDEX idx_pedido_proveedor_fecha ON copedido (cve_proveedor, fecha_emision, num_pedido);
+CREATE INDEX idx_detalle_promocion_promocion ON codetalle_promocion (id_promocion);
+CREATE INDEX idx_idempotencia_expiracion ON coidempotencia_cotizacion (fecha_expiracion);
+CREATE INDEX idx_outbox_pendientes ON cooutbox_evento (estado, fecha_siguiente_intento, id);
\ No newline at end of file
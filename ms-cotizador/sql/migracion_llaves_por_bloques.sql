@@ -0,0 +1,24 @@
+-- Migración de bases creadas antes de la generación de folios y números de pedido por bloques.
+-- Retira AUTO_INCREMENT de cocotizacion.folio y copedido.num_pedido, crea cosecuencia y la
+-- sincroniza con los datos existentes. Es idempotente.
+-- Ejecutar con todas las instancias del cotizador detenidas y antes de arrancar la nueva versión:
+--   mysql -u cotizador_user -p cotizador < sql/migracion_llaves_por_bloques.sql
+-- Mientras una columna conserve AUTO_INCREMENT la aplicación no arranca (SecuenciasConfig).
+
+-- Tabla de secuencias para generación de llaves por bloques (ver sql/ddl.sql)
+CREATE TABLE IF NOT EXISTS cosecuencia (
+    nombre VARCHAR(50) PRIMARY KEY,
+    siguiente_valor BIGINT NOT NULL
+) ENGINE=InnoDB;
+
+INSERT IGNORE INTO cosecuencia (nombre, siguiente_valor) VALUES ('cocotizacion', 1), ('copedido', 1), ('cooutbox_evento', 1);
+
+-- cosecuencia es la única fuente de llaves: un INSERT sin llave debe fallar
+ALTER TABLE cocotizacion MODIFY folio INT UNSIGNED NOT NULL;
+ALTER TABLE copedido MODIFY num_pedido INT UNSIGNED NOT NULL;
+
+-- El siguiente valor parte de los ids ya usados; GREATEST nunca retrocede una secuencia
+UPDATE cosecuencia SET siguiente_valor = GREATEST(siguiente_valor,
+    (SELECT COALESCE(MAX(folio), 0) + 1 FROM cocotizacion)) WHERE nombre = 'cocotizacion';
+UPDATE cosecuencia SET siguiente_valor = GREATEST(siguiente_valor,
+    (SELECT COALESCE(MAX(num_pedido), 0) + 1 FROM copedido)) WHERE nombre = 'copedido';
@@ -0,0 +1,23 @@
+package mx.com.qtx.cotizador.config;
+
+import java.time.Clock;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Reloj de la aplicación.
+ * <p>
+ * Los componentes que dependen de la hora actual (por ejemplo, la vigencia de promociones)
+ * reciben este {@link Clock} en lugar de leer la hora del sistema, de modo que las pruebas
+ * pueden fijarla o adelantarla.
+ * </p>
+ */
+@Configuration
+public class RelojConfig {
+    
+    @Bean
+    public Clock reloj() {
+        return Clock.systemDefaultZone();
+    }
+}
@@ -0,0 +1,78 @@
+package mx.com.qtx.cotizador.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Sincroniza la tabla {@code cosecuencia} con los datos existentes al arrancar.
+ * <p>
+ * Folios y números de pedido se generan por bloques con un generador de tabla (pooled-lo),
+ * lo que permite a Hibernate agrupar los INSERT en lotes JDBC; con IDENTITY cada INSERT
+ * debe ejecutarse de inmediato para conocer la llave. {@code cosecuencia} es la única
+ * fuente de llaves: las columnas no son AUTO_INCREMENT, de modo que un INSERT sin llave
+ * falla en lugar de tomar un id que Hibernate ya reservó en un bloque. Los scripts deben
+ * reservar sus ids en {@code cosecuencia} (ver {@code sql/ddl.sql}).
+ * </p>
+ * <p>
+ * Antes de atender peticiones, el siguiente valor de cada secuencia se eleva a MAX(id)+1
+ * por si se cargaron filas con ids explícitos sin reservarlos. El ajuste usa GREATEST, por
+ * lo que nunca retrocede una secuencia y es seguro aunque otras instancias ya tengan bloques
+ * asignados. Si una base anterior conserva AUTO_INCREMENT en alguna de las columnas la
+ * aplicación no arranca: debe aplicarse antes {@code sql/migracion_llaves_por_bloques.sql}.
+ * </p>
+ */
+@Configuration
+public class SecuenciasConfig implements SmartInitializingSingleton {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SecuenciasConfig.class);
+    
+    // Nombre de secuencia → (tabla, columna de llave)
+    private static final Map<String, String[]> SECUENCIAS = Map.of(
+            "cocotizacion", new String[] {"cocotizacion", "folio"},
+            "copedido", new String[] {"copedido", "num_pedido"},
+            "cooutbox_evento", new String[] {"cooutbox_evento", "id"});
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public SecuenciasConfig(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<String> conAutoIncremento = new ArrayList<>();
+        SECUENCIAS.forEach((nombre, tablaColumna) -> {
+            String tabla = tablaColumna[0];
+            String columna = tablaColumna[1];
+            jdbcTemplate.update("INSERT IGNORE INTO cosecuencia (nombre, siguiente_valor) VALUES (?, 1)", nombre);
+            jdbcTemplate.update("UPDATE cosecuencia SET siguiente_valor = GREATEST(siguiente_valor, "
+                    + "(SELECT COALESCE(MAX(" + columna + "), 0) + 1 FROM " + tabla + ")) WHERE nombre = ?", nombre);
+            Long siguiente = jdbcTemplate.queryForObject(
+                    "SELECT siguiente_valor FROM cosecuencia WHERE nombre = ?", Long.class, nombre);
+            logger.info("Secuencia {} sincronizada, siguiente valor: {}", nombre, siguiente);
+            if (esAutoIncremento(tabla, columna)) {
+                conAutoIncremento.add(tabla + "." + columna);
+            }
+        });
+        if (!conAutoIncremento.isEmpty()) {
+            // Un INSERT externo sin llave podría tomar un id ya reservado por la aplicación en un bloque
+            throw new IllegalStateException("Columnas que siguen siendo AUTO_INCREMENT: " + conAutoIncremento
+                    + ". Detener la aplicación y ejecutar sql/migracion_llaves_por_bloques.sql");
+        }
+    }
+    
+    private boolean esAutoIncremento(String tabla, String columna) {
+        Integer columnas = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE() "
+                + "AND TABLE_NAME = ? AND COLUMN_NAME = ? AND EXTRA LIKE '%auto_increment%'",
+                Integer.class, tabla, columna);
+        return columnas != null && columnas > 0;
+    }
+}
@@ -6,8 +6,11 @@ import lombok.extern.slf4j.Slf4j;
 import mx.com.qtx.cotizador.dto.common.response.ApiResponse;
 import mx.com.qtx.cotizador.dto.componente.request.ComponenteCreateRequest;
 import mx.com.qtx.cotizador.dto.componente.request.ComponenteUpdateRequest;
+import mx.com.qtx.cotizador.dto.componente.request.ReasignacionPromocionRequest;
 import mx.com.qtx.cotizador.dto.componente.response.ComponenteResponse;
+import mx.com.qtx.cotizador.dto.componente.response.ReasignacionPromocionResponse;
 import mx.com.qtx.cotizador.servicio.componente.ComponenteServicio;
+import mx.com.qtx.cotizador.servicio.componente.ReasignacionPromocionServicio;
 import mx.com.qtx.cotizador.util.HttpStatusMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -37,6 +40,7 @@ import java.util.List;
 public class ComponenteController {
     
     private final ComponenteServicio componenteServicio;
+    private final ReasignacionPromocionServicio reasignacionPromocionServicio;
     
     /**
      * Caso de uso 1.1: Agregar componente
@@ -101,6 +105,26 @@ public class ComponenteController {
         return ResponseEntity.status(httpStatus).body(respuesta);
     }
     
+    /**
+     * Reasignación masiva de promoción
+     * ADMIN y GERENTE pueden mover componentes a otra promoción filtrando por tipo, marca o ids
+     */
+    @PostMapping("/promocion/reasignar")
+    @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE')")
+    public ResponseEntity<ApiResponse<ReasignacionPromocionResponse>> reasignarPromocion(
+            @Valid @RequestBody ReasignacionPromocionRequest request) {
+        
+        log.info("Iniciando reasignación masiva a la promoción: {}", request.getIdPromocion());
+        
+        ApiResponse<ReasignacionPromocionResponse> respuesta = reasignacionPromocionServicio.reasignar(request);
+        
+        // Mapear el código de error a HTTP status
+        HttpStatus httpStatus = HttpStatusMapper.mapearCodigoAHttpStatus(respuesta.getCodigo());
+        
+        log.info("Operación completada. Código: {}, HttpStatus: {}", respuesta.getCodigo(), httpStatus);
+        return ResponseEntity.status(httpStatus).body(respuesta);
+    }
+    
     /**
      * Caso de uso 1.4: Consultar componentes - Obtener todos
      * Todos los roles pueden consultar componentes
@@ -8,9 +8,12 @@ import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
 import mx.com.qtx.cotizador.dto.common.response.ApiResponse;
+import mx.com.qtx.cotizador.dto.common.response.PaginaResponse;
 import mx.com.qtx.cotizador.dto.cotizacion.request.CotizacionCreateRequest;
 import mx.com.qtx.cotizador.dto.cotizacion.response.CotizacionResponse;
+import mx.com.qtx.cotizador.dto.cotizacion.response.CotizacionResumenResponse;
 import mx.com.qtx.cotizador.servicio.cotizacion.CotizacionServicio;
+import mx.com.qtx.cotizador.servicio.cotizacion.IdempotenciaCotizacionServicio;
 import mx.com.qtx.cotizador.util.HttpStatusMapper;
 
 import java.util.List;
@@ -35,28 +38,39 @@ public class CotizacionController {
     private static final Logger logger = LoggerFactory.getLogger(CotizacionController.class);
     
     private final CotizacionServicio cotizacionServicio;
+    private final IdempotenciaCotizacionServicio idempotenciaServicio;
     
-    public CotizacionController(CotizacionServicio cotizacionServicio) {
+    public CotizacionController(CotizacionServicio cotizacionServicio,
+                                IdempotenciaCotizacionServicio idempotenciaServicio) {
         this.cotizacionServicio = cotizacionServicio;
+        this.idempotenciaServicio = idempotenciaServicio;
     }
     
     /**
      * Crea una nueva cotización usando la lógica de dominio.
      * Permisos: ADMIN, GERENTE, VENDEDOR
      * 
+     * Si se envía el encabezado {@code Idempotency-Key}, los reintentos con la misma clave
+     * devuelven la cotización original sin volver a crearla.
+     * 
      * @param request DTO con los datos para crear la cotización
+     * @param idempotencyKey Clave de idempotencia opcional generada por el cliente
      * @return ResponseEntity con la cotización creada o error correspondiente
      */
     @PostMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE', 'VENDEDOR')")
     public ResponseEntity<ApiResponse<CotizacionResponse>> crearCotizacion(
-            @Valid @RequestBody CotizacionCreateRequest request) {
+            @Valid @RequestBody CotizacionCreateRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         
         logger.info("Creando cotización con tipo: {}, impuestos: {}, detalles: {}", 
                    request.getTipoCotizador(), request.getImpuestos(), request.getDetalles().size());
         
         // Delegar al servicio
-        ApiResponse<CotizacionResponse> response = cotizacionServicio.guardarCotizacion(request);
+        ApiResponse<CotizacionResponse> response = idempotencyKey == null
+                ? cotizacionServicio.guardarCotizacion(request)
+                : idempotenciaServicio.ejecutar(idempotencyKey, request,
+                        () -> cotizacionServicio.guardarCotizacion(request));
         
         // Mapear código de respuesta a HTTP Status
         return ResponseEntity
@@ -130,4 +144,32 @@ public class CotizacionController {
                 .status(HttpStatusMapper.mapearCodigoAHttpStatus(response.getCodigo()))
                 .body(response);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Busca de forma paginada las cotizaciones que incluyen un componente.
+     * Útil para avisos de retiro y análisis de impacto de cambios de precio.
+     * Permisos: Todos los roles (para reportes y consultas)
+     * 
+     * @param idComponente ID del componente a buscar
+     * @param pagina Número de página (base 0)
+     * @param tamano Tamaño de página
+     * @return ResponseEntity con la página de resúmenes de cotización o error correspondiente
+     */
+    @GetMapping("/buscar/componente/{idComponente}")
+    public ResponseEntity<ApiResponse<PaginaResponse<CotizacionResumenResponse>>> buscarPorComponente(
+            @PathVariable String idComponente,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "20") int tamano) {
+        
+        logger.info("Buscando cotizaciones por componente: {} (página {}, tamaño {})", idComponente, pagina, tamano);
+        
+        // Delegar al servicio
+        ApiResponse<PaginaResponse<CotizacionResumenResponse>> response = 
+            cotizacionServicio.buscarCotizacionesPorComponentePaginado(idComponente, pagina, tamano);
+        
+        // Mapear código de respuesta a HTTP Status
+        return ResponseEntity
+                .status(HttpStatusMapper.mapearCodigoAHttpStatus(response.getCodigo()))
+                .body(response);
+    }
+}
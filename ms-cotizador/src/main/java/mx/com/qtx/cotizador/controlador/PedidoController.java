@@ -3,25 +3,45 @@ package mx.com.qtx.cotizador.controlador;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import mx.com.qtx.cotizador.dto.common.response.ApiResponse;
+import mx.com.qtx.cotizador.dto.common.response.PaginaResponse;
 import mx.com.qtx.cotizador.dto.pedido.request.GenerarPedidoRequest;
+import mx.com.qtx.cotizador.dto.pedido.request.GenerarPedidosLoteRequest;
+import mx.com.qtx.cotizador.dto.pedido.response.LotePedidosResponse;
 import mx.com.qtx.cotizador.dto.pedido.response.PedidoResponse;
+import mx.com.qtx.cotizador.dto.pedido.response.PedidoResumenResponse;
+import mx.com.qtx.cotizador.dto.pedido.response.ResultadoPedidoLoteResponse;
+import mx.com.qtx.cotizador.dto.pedido.response.ResumenSurtidoProveedorResponse;
+import mx.com.qtx.cotizador.servicio.pedido.GeneracionPedidosLoteServicio;
 import mx.com.qtx.cotizador.servicio.pedido.PedidoServicio;
+import mx.com.qtx.cotizador.servicio.pedido.ResumenSurtidoServicio;
+import mx.com.qtx.cotizador.servicio.pedido.exportacion.ExportacionPedidosServicio;
+import mx.com.qtx.cotizador.servicio.pedido.exportacion.FormatoExportacion;
 import mx.com.qtx.cotizador.util.HttpStatusMapper;
 
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 /**
  * Controlador REST para la gestión de pedidos
  * 
  * Implementa los casos de uso:
- * - 5.2 Generar pedido (desde cotización)
+ * - 5.2 Generar pedido (desde cotización), individual o en lote asíncrono
  * - 5.3 Consultar pedidos
+ * - Exportación de pedidos por proveedor (CSV o ancho fijo, opcionalmente comprimida)
+ * - Resumen de surtido por proveedor
  * 
  * Arquitectura consistente:
  * - Servicios retornan ApiResponse<T>
@@ -45,9 +65,18 @@ public class PedidoController {
     private static final Logger logger = LoggerFactory.getLogger(PedidoController.class);
     
     private final PedidoServicio pedidoServicio;
+    private final GeneracionPedidosLoteServicio generacionLoteServicio;
+    private final ExportacionPedidosServicio exportacionServicio;
+    private final ResumenSurtidoServicio resumenSurtidoServicio;
     
-    public PedidoController(PedidoServicio pedidoServicio) {
+    public PedidoController(PedidoServicio pedidoServicio,
+                            GeneracionPedidosLoteServicio generacionLoteServicio,
+                            ExportacionPedidosServicio exportacionServicio,
+                            ResumenSurtidoServicio resumenSurtidoServicio) {
         this.pedidoServicio = pedidoServicio;
+        this.generacionLoteServicio = generacionLoteServicio;
+        this.exportacionServicio = exportacionServicio;
+        this.resumenSurtidoServicio = resumenSurtidoServicio;
     }
     
     /**
@@ -76,6 +105,163 @@ public class PedidoController {
         return ResponseEntity.status(httpStatus).body(respuestaServicio);
     }
     
+    /**
+     * Caso de uso 5.2: Generar pedidos en lote desde varias cotizaciones
+     * El lote se procesa de forma asíncrona; la respuesta trae el ID para consultar su avance
+     * Permisos: ADMIN, GERENTE, VENDEDOR, INVENTARIO
+     * 
+     * @param request DTO con la lista de pedidos a generar
+     * @return ResponseEntity con ApiResponse<LotePedidosResponse>
+     */
+    @PostMapping("/lotes")
+    @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE', 'VENDEDOR', 'INVENTARIO')")
+    public ResponseEntity<ApiResponse<LotePedidosResponse>> enviarLotePedidos(
+            @Valid @RequestBody GenerarPedidosLoteRequest request) {
+        
+        logger.info("Recibiendo lote de generación de {} pedidos", request.getPedidos().size());
+        
+        // Llamar al servicio para encolar el lote
+        ApiResponse<LotePedidosResponse> respuestaServicio = generacionLoteServicio.enviarLote(request);
+        
+        // Mapear el código de error a HTTP status (202 cuando el lote se aceptó)
+        HttpStatus httpStatus = "0".equals(respuestaServicio.getCodigo())
+                ? HttpStatus.ACCEPTED
+                : HttpStatusMapper.mapearCodigoAHttpStatus(respuestaServicio.getCodigo());
+        
+        logger.info("Operación completada. Código: {}, HttpStatus: {}", 
+                   respuestaServicio.getCodigo(), httpStatus);
+        return ResponseEntity.status(httpStatus).body(respuestaServicio);
+    }
+    
+    /**
+     * Caso de uso 5.2: Consultar el estado y avance de un lote de pedidos
+     * Permisos: ADMIN, GERENTE, VENDEDOR, INVENTARIO
+     * 
+     * @param idLote ID del lote
+     * @return ResponseEntity con ApiResponse<LotePedidosResponse>
+     */
+    @GetMapping("/lotes/{idLote}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE', 'VENDEDOR', 'INVENTARIO')")
+    public ResponseEntity<ApiResponse<LotePedidosResponse>> consultarLotePedidos(@PathVariable String idLote) {
+        
+        logger.info("Consultando lote de pedidos: {}", idLote);
+        
+        // Llamar al servicio para consultar el lote
+        ApiResponse<LotePedidosResponse> respuestaServicio = generacionLoteServicio.consultarLote(idLote);
+        
+        // Mapear el código de error a HTTP status
+        HttpStatus httpStatus = HttpStatusMapper.mapearCodigoAHttpStatus(respuestaServicio.getCodigo());
+        
+        logger.info("Operación completada. Código: {}, HttpStatus: {}", 
+                   respuestaServicio.getCodigo(), httpStatus);
+        return ResponseEntity.status(httpStatus).body(respuestaServicio);
+    }
+    
+    /**
+     * Caso de uso 5.2: Consultar de forma paginada los resultados de un lote de pedidos
+     * Permisos: ADMIN, GERENTE, VENDEDOR, INVENTARIO
+     * 
+     * @param idLote ID del lote
+     * @param pagina Número de página (base 0)
+     * @param tamano Tamaño de página
+     * @return ResponseEntity con ApiResponse<PaginaResponse<ResultadoPedidoLoteResponse>>
+     */
+    @GetMapping("/lotes/{idLote}/resultados")
+    @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE', 'VENDEDOR', 'INVENTARIO')")
+    public ResponseEntity<ApiResponse<PaginaResponse<ResultadoPedidoLoteResponse>>> consultarResultadosLote(
+            @PathVariable String idLote,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "20") int tamano) {
+        
+        logger.info("Consultando resultados del lote de pedidos: {} (página {}, tamaño {})", idLote, pagina, tamano);
+        
+        // Llamar al servicio para consultar los resultados
+        ApiResponse<PaginaResponse<ResultadoPedidoLoteResponse>> respuestaServicio = 
+            generacionLoteServicio.consultarResultados(idLote, pagina, tamano);
+        
+        // Mapear el código de error a HTTP status
+        HttpStatus httpStatus = HttpStatusMapper.mapearCodigoAHttpStatus(respuestaServicio.getCodigo());
+        
+        logger.info("Operación completada. Código: {}, HttpStatus: {}", 
+                   respuestaServicio.getCodigo(), httpStatus);
+        return ResponseEntity.status(httpStatus).body(respuestaServicio);
+    }
+    
+    /**
+     * Caso de uso 5.2: Cancelar un lote de pedidos en proceso
+     * Permisos: ADMIN, GERENTE, VENDEDOR, INVENTARIO
+     * 
+     * @param idLote ID del lote
+     * @return ResponseEntity con ApiResponse<LotePedidosResponse>
+     */
+    @DeleteMapping("/lotes/{idLote}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE', 'VENDEDOR', 'INVENTARIO')")
+    public ResponseEntity<ApiResponse<LotePedidosResponse>> cancelarLotePedidos(@PathVariable String idLote) {
+        
+        logger.info("Cancelando lote de pedidos: {}", idLote);
+        
+        // Llamar al servicio para cancelar el lote
+        ApiResponse<LotePedidosResponse> respuestaServicio = generacionLoteServicio.cancelarLote(idLote);
+        
+        // Mapear el código de error a HTTP status
+        HttpStatus httpStatus = HttpStatusMapper.mapearCodigoAHttpStatus(respuestaServicio.getCodigo());
+        
+        logger.info("Operación completada. Código: {}, HttpStatus: {}", 
+                   respuestaServicio.getCodigo(), httpStatus);
+        return ResponseEntity.status(httpStatus).body(respuestaServicio);
+    }
+    
+    /**
+     * Exportar los pedidos de un proveedor en un rango de fechas de emisión como archivo
+     * Permisos: Todos los roles (datos filtrados según el rol)
+     * 
+     * El archivo se escribe en la respuesta conforme se lee de la base de datos; los errores
+     * de validación se responden como ApiResponse antes de iniciar la descarga.
+     * 
+     * @param cveProveedor Clave del proveedor
+     * @param desde Fecha de emisión inicial (inclusive, yyyy-MM-dd)
+     * @param hasta Fecha de emisión final (inclusive, yyyy-MM-dd)
+     * @param formato CSV o ANCHO_FIJO
+     * @param gzip Si el archivo se comprime con gzip
+     * @return ResponseEntity con el archivo, o con ApiResponse si la solicitud es inválida
+     */
+    @GetMapping("/exportacion")
+    public ResponseEntity<?> exportarPedidosProveedor(
+            @RequestParam(required = false) String cveProveedor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "CSV") String formato,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        
+        logger.info("Exportando pedidos del proveedor {} del {} al {} (formato {}, gzip {})",
+                   cveProveedor, desde, hasta, formato, gzip);
+        
+        // Validar antes de comprometer la respuesta
+        ApiResponse<FormatoExportacion> validacion = exportacionServicio.validar(cveProveedor, desde, hasta, formato);
+        if (!"0".equals(validacion.getCodigo())) {
+            HttpStatus httpStatus = HttpStatusMapper.mapearCodigoAHttpStatus(validacion.getCodigo());
+            logger.info("Operación completada. Código: {}, HttpStatus: {}", validacion.getCodigo(), httpStatus);
+            return ResponseEntity.status(httpStatus).body(validacion);
+        }
+        
+        FormatoExportacion formatoExportacion = validacion.getDatos();
+        String nombreArchivo = exportacionServicio.nombreArchivo(cveProveedor, desde, hasta, formatoExportacion, gzip);
+        StreamingResponseBody cuerpo = salida -> {
+            long renglones = exportacionServicio.exportar(cveProveedor, desde, hasta, formatoExportacion, gzip,
+                    Channels.newChannel(salida));
+            logger.info("Exportación {} completada: {} renglones", nombreArchivo, renglones);
+        };
+        
+        MediaType tipoContenido = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : new MediaType(MediaType.parseMediaType(formatoExportacion.getTipoContenido()), StandardCharsets.UTF_8);
+        return ResponseEntity.ok()
+                .contentType(tipoContenido)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(nombreArchivo).build().toString())
+                .body(cuerpo);
+    }
+    
     /**
      * Caso de uso 5.3: Consultar pedido específico por ID
      * Permisos: Todos los roles (datos filtrados según el rol)
@@ -120,4 +306,102 @@ public class PedidoController {
                    respuestaServicio.getCodigo(), httpStatus);
         return ResponseEntity.status(httpStatus).body(respuestaServicio);
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Consultar de forma paginada los pedidos que incluyen un componente
+     * Permisos: Todos los roles (datos filtrados según el rol)
+     * 
+     * @param idComponente ID del componente a buscar
+     * @param pagina Número de página (base 0)
+     * @param tamano Tamaño de página
+     * @return ResponseEntity con ApiResponse<PaginaResponse<PedidoResumenResponse>>
+     */
+    @GetMapping("/buscar/componente/{idComponente}")
+    public ResponseEntity<ApiResponse<PaginaResponse<PedidoResumenResponse>>> buscarPedidosPorComponente(
+            @PathVariable String idComponente,
+            @RequestParam(defaultValue = "0") int pagina,
+            @RequestParam(defaultValue = "20") int tamano) {
+        
+        logger.info("Consultando pedidos con componente: {} (página {}, tamaño {})", idComponente, pagina, tamano);
+        
+        // Llamar al servicio para buscar los pedidos
+        ApiResponse<PaginaResponse<PedidoResumenResponse>> respuestaServicio = 
+            pedidoServicio.buscarPedidosPorComponente(idComponente, pagina, tamano);
+        
+        // Mapear el código de error a HTTP status
+        HttpStatus httpStatus = HttpStatusMapper.mapearCodigoAHttpStatus(respuestaServicio.getCodigo());
+        
+        logger.info("Operación completada. Código: {}, HttpStatus: {}", 
+                   respuestaServicio.getCodigo(), httpStatus);
+        return ResponseEntity.status(httpStatus).body(respuestaServicio);
+    }
+    
+    /**
+     * Consultar el resumen de surtido de todos los proveedores
+     * Permisos: Todos los roles (datos filtrados según el rol)
+     * 
+     * @return ResponseEntity con ApiResponse<List<ResumenSurtidoProveedorResponse>>
+     */
+    @GetMapping("/surtido/proveedores")
+    public ResponseEntity<ApiResponse<List<ResumenSurtidoProveedorResponse>>> consultarResumenSurtido() {
+        
+        logger.info("Consultando resumen de surtido de proveedores");
+        
+        // Llamar al servicio para consultar los resúmenes
+        ApiResponse<List<ResumenSurtidoProveedorResponse>> respuestaServicio = resumenSurtidoServicio.consultarTodos();
+        
+        // Mapear el código de error a HTTP status
+        HttpStatus httpStatus = HttpStatusMapper.mapearCodigoAHttpStatus(respuestaServicio.getCodigo());
+        
+        logger.info("Operación completada. Código: {}, HttpStatus: {}", 
+                   respuestaServicio.getCodigo(), httpStatus);
+        return ResponseEntity.status(httpStatus).body(respuestaServicio);
+    }
+    
+    /**
+     * Consultar el resumen de surtido de un proveedor
+     * Permisos: Todos los roles (datos filtrados según el rol)
+     * 
+     * @param cveProveedor Clave del proveedor
+     * @return ResponseEntity con ApiResponse<ResumenSurtidoProveedorResponse>
+     */
+    @GetMapping("/surtido/proveedores/{cveProveedor}")
+    public ResponseEntity<ApiResponse<ResumenSurtidoProveedorResponse>> consultarResumenSurtidoProveedor(
+            @PathVariable String cveProveedor) {
+        
+        logger.info("Consultando resumen de surtido del proveedor: {}", cveProveedor);
+        
+        // Llamar al servicio para consultar el resumen
+        ApiResponse<ResumenSurtidoProveedorResponse> respuestaServicio = resumenSurtidoServicio.consultar(cveProveedor);
+        
+        // Mapear el código de error a HTTP status
+        HttpStatus httpStatus = HttpStatusMapper.mapearCodigoAHttpStatus(respuestaServicio.getCodigo());
+        
+        logger.info("Operación completada. Código: {}, HttpStatus: {}", 
+                   respuestaServicio.getCodigo(), httpStatus);
+        return ResponseEntity.status(httpStatus).body(respuestaServicio);
+    }
+    
+    /**
+     * Reconstruir desde los pedidos el resumen de surtido de todos los proveedores
+     * Permisos: ADMIN, GERENTE
+     * 
+     * @return ResponseEntity con ApiResponse<List<ResumenSurtidoProveedorResponse>>
+     */
+    @PostMapping("/surtido/proveedores/reconstruir")
+    @PreAuthorize("hasAnyRole('ADMIN', 'GERENTE')")
+    public ResponseEntity<ApiResponse<List<ResumenSurtidoProveedorResponse>>> reconstruirResumenSurtido() {
+        
+        logger.info("Reconstruyendo resumen de surtido de proveedores");
+        
+        // Llamar al servicio para reconstruir los resúmenes
+        ApiResponse<List<ResumenSurtidoProveedorResponse>> respuestaServicio = resumenSurtidoServicio.reconstruir();
+        
+        // Mapear el código de error a HTTP status
+        HttpStatus httpStatus = HttpStatusMapper.mapearCodigoAHttpStatus(respuestaServicio.getCodigo());
+        
+        logger.info("Operación completada. Código: {}, HttpStatus: {}", 
+                   respuestaServicio.getCodigo(), httpStatus);
+        return ResponseEntity.status(httpStatus).body(respuestaServicio);
+    }
+}
\ No newline at end of file
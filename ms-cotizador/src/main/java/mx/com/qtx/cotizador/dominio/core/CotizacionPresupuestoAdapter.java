@@ -1,20 +1,37 @@
 package mx.com.qtx.cotizador.dominio.core;
 
+import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import mx.com.qtx.cotizador.dominio.pedidos.IPresupuesto;
 import mx.com.qtx.cotizador.dominio.pedidos.excepciones.PresupuestoNoCargadoExcepcion;
 
+/**
+ * Adapta una {@link Cotizacion} a {@link IPresupuesto}.
+ * Los detalles se indexan por id de componente una sola vez al construir el adaptador,
+ * de modo que cada consulta por artículo es O(1) y no copia la lista de detalles.
+ */
 public class CotizacionPresupuestoAdapter implements IPresupuesto {
 
     private Cotizacion cotizacionAdaptee; // El objeto que adaptamos (la cotización)
+    private final Map<String, DetalleCotizacion> detallesPorId; // Primer detalle de cada componente
+    private final Map<String, Integer> cantidades; // Cantidad por componente (último detalle)
 
     public CotizacionPresupuestoAdapter(Cotizacion cotizacionAdaptee) throws PresupuestoNoCargadoExcepcion {
         if(cotizacionAdaptee == null){
             throw new PresupuestoNoCargadoExcepcion();
-        }        
+        }
         this.cotizacionAdaptee = cotizacionAdaptee;
+        this.detallesPorId = new HashMap<>();
+        Map<String, Integer> cantidadesXId = new LinkedHashMap<>();
+        for (DetalleCotizacion detalle : cotizacionAdaptee.getDetalles()) {
+            detallesPorId.putIfAbsent(detalle.getIdComponente(), detalle);
+            cantidadesXId.put(detalle.getIdComponente(), detalle.getCantidad());
+        }
+        this.cantidades = Collections.unmodifiableMap(cantidadesXId);
     }
 
     @Override
@@ -25,10 +42,6 @@ public class CotizacionPresupuestoAdapter implements IPresupuesto {
 
     @Override
     public Map<String, Integer> getCantidadesXIdArticulo() {
-        Map<String, Integer> cantidades = new HashMap<>();
-        for (DetalleCotizacion detalle : cotizacionAdaptee.getDetalles()) {
-            cantidades.put(detalle.getIdComponente(), detalle.getCantidad());
-        }
         return cantidades;
     }
 
@@ -49,13 +62,20 @@ public class CotizacionPresupuestoAdapter implements IPresupuesto {
         return datos;
     }
 
+    @Override
+    public BigDecimal getPrecioBaseArticulo(String idArticulo) {
+        DetalleCotizacion detalle = this.getDetallePorId(idArticulo);
+        return (detalle != null && detalle.getPrecioBase() != null) ? detalle.getPrecioBase() : BigDecimal.ZERO;
+    }
+
+    @Override
+    public BigDecimal getImporteTotalLineaArticulo(String idArticulo) {
+        DetalleCotizacion detalle = this.getDetallePorId(idArticulo);
+        return (detalle != null && detalle.getImporteCotizado() != null) ? detalle.getImporteCotizado() : BigDecimal.ZERO;
+    }
+
     //Metodo para buscar un detalle de cotizacion por el id de componente
     private DetalleCotizacion getDetallePorId(String idArticulo) {
-        return cotizacionAdaptee
-            .getDetalles()
-            .stream()
-            .filter(x -> x.getIdComponente().equals(idArticulo))
-            .findFirst()
-            .orElse(null);  
+        return detallesPorId.get(idArticulo);
     }
-} 
\ No newline at end of file
+}
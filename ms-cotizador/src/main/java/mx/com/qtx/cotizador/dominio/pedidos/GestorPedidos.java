@@ -66,25 +66,15 @@ public class GestorPedidos {
         // Lógica para extraer datos del presupuesto y crear detalles del pedido
         Pedido nuevoPedido = new Pedido(numPedido, fechaEmision, 
             fechaEntrega, nivelSurtido, prov);
+        // Acceso tipado por artículo: el presupuesto resuelve cada consulta sin recorrer sus
+        // detalles ni construir mapas intermedios, por lo que la generación es lineal
         Map<String, Integer> cantidades = this.presupuestoActual.getCantidadesXIdArticulo();
         for (Map.Entry<String, Integer> entry : cantidades.entrySet()) {
             String idArticulo = entry.getKey();
             Integer cantidad = entry.getValue();
             String descripcion = this.presupuestoActual.getDescripcionArticulo(idArticulo);
-            // Obtener datos adicionales (como precio) del método getDatosArticulo
-            Map<String, Object> datosArticulo = this.presupuestoActual.getDatosArticulo(idArticulo);
-            // Asumimos que 'precioBase' o similar está en los datos. Necesita manejo cuidadoso.
-            BigDecimal precioUnitario = BigDecimal.ZERO; // Valor por defecto
-            BigDecimal importeTotal = BigDecimal.ZERO;
-            if (datosArticulo.containsKey("precioBase") 
-                    && datosArticulo.get("precioBase") instanceof BigDecimal) {
-                precioUnitario = (BigDecimal) datosArticulo.get("precioBase");
-            }
-            if (datosArticulo.containsKey("importeTotalLinea") 
-                    && datosArticulo.get("importeTotalLinea") instanceof BigDecimal ) {
-                 // Calcular precio unitario si solo tenemos el total
-                 importeTotal = (BigDecimal) datosArticulo.get("importeTotalLinea");
-            }
+            BigDecimal precioUnitario = this.presupuestoActual.getPrecioBaseArticulo(idArticulo);
+            BigDecimal importeTotal = this.presupuestoActual.getImporteTotalLineaArticulo(idArticulo);
 
             nuevoPedido.agregarDetallePedido(idArticulo, descripcion, cantidad, 
                 precioUnitario, importeTotal);
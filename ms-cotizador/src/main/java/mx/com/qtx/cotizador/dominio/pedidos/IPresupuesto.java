@@ -1,5 +1,6 @@
 package mx.com.qtx.cotizador.dominio.pedidos;
 
+import java.math.BigDecimal;
 import java.util.Map;
 
 /**
@@ -33,4 +34,29 @@ public interface IPresupuesto {
      * @return Un mapa con datos adicionales del artículo, o un mapa vacío/null si no hay datos.
      */
     Map<String, Object> getDatosArticulo(String idArticulo); // Object es genérico, podría refinarse
+
+    /**
+     * Obtiene el precio base de un artículo específico.
+     * La implementación por omisión lo extrae de {@link #getDatosArticulo(String)}; las implementaciones
+     * que indexan sus artículos deben sobrescribirlo para evitar construir el mapa en cada consulta.
+     *
+     * @param idArticulo El identificador único del artículo.
+     * @return El precio base del artículo, o cero si no está disponible.
+     */
+    default BigDecimal getPrecioBaseArticulo(String idArticulo) {
+        Map<String, Object> datos = getDatosArticulo(idArticulo);
+        return (datos != null && datos.get("precioBase") instanceof BigDecimal precio) ? precio : BigDecimal.ZERO;
+    }
+
+    /**
+     * Obtiene el importe total de la línea de un artículo específico.
+     * La implementación por omisión lo extrae de {@link #getDatosArticulo(String)}.
+     *
+     * @param idArticulo El identificador único del artículo.
+     * @return El importe total de la línea, o cero si no está disponible.
+     */
+    default BigDecimal getImporteTotalLineaArticulo(String idArticulo) {
+        Map<String, Object> datos = getDatosArticulo(idArticulo);
+        return (datos != null && datos.get("importeTotalLinea") instanceof BigDecimal importe) ? importe : BigDecimal.ZERO;
+    }
 } 
\ No newline at end of file
@@ -1,7 +1,11 @@
 package mx.com.qtx.cotizador.dominio.promos;
 
 import java.math.BigDecimal;
+import java.util.Collections;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
 
 /**
  * @author hp835
@@ -11,11 +15,17 @@ import java.util.Map;
 public class PromDsctoXcantidad extends PromAcumulable {
 
 	private Map<Integer,Double> mapCantidadVsDscto;
+	// Fracción de descuento (porcentaje / 100) por cantidad mínima, precalculada una vez
+	private NavigableMap<Integer,BigDecimal> fraccionesXcantidad;
 
 
 	public PromDsctoXcantidad(Promocion promoBase, Map<Integer, Double> mapCantidadVsDscto) {
 		super("Dscto con base en tabla de cantidades y descuentos" + mapCantidadVsDscto, "Dscto x cantidad", promoBase);
 		this.mapCantidadVsDscto = mapCantidadVsDscto;
+		NavigableMap<Integer,BigDecimal> fracciones = new TreeMap<>();
+		mapCantidadVsDscto.forEach((cantidad, dscto) ->
+			fracciones.put(cantidad, new BigDecimal(dscto).divide(new BigDecimal(100))));
+		this.fraccionesXcantidad = Collections.unmodifiableNavigableMap(fracciones);
 	}
 
 	/**
@@ -28,15 +38,12 @@ public class PromDsctoXcantidad extends PromAcumulable {
 		BigDecimal baseCalculo = this.promoBase.calcularImportePromocion(cant, precioBase);
 		
 		
-		int keyDscto = this.mapCantidadVsDscto.keySet()
-											  .stream()
-											  .sorted()                           // ordena asc
-											  .filter(k -> k <= cant)             // elimina llaves mayores que la cantidad
-											  .sorted((n,n2) -> n <= n2 ? 1 : -1) // Ordena elementos filtrados dsc
-											  .findFirst()                        // toma el primero, devuele optional
-											  .get();                             // toma el valor
-		
-		BigDecimal porcDscto = new BigDecimal(mapCantidadVsDscto.get(keyDscto)).divide(new BigDecimal(100));
+		// Escala aplicable: la mayor cantidad mínima que no excede la cantidad pedida
+		Map.Entry<Integer,BigDecimal> escala = this.fraccionesXcantidad.floorEntry(cant);
+		if (escala == null) {
+			throw new NoSuchElementException("Sin escala de descuento para la cantidad " + cant);
+		}
+		BigDecimal porcDscto = escala.getValue();
 
 		BigDecimal importeDscto = baseCalculo.multiply(porcDscto);
 		return baseCalculo.subtract(importeDscto);
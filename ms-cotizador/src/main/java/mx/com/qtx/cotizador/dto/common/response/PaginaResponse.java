@@ -0,0 +1,44 @@
+package mx.com.qtx.cotizador.dto.common.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.util.List;
+
+/**
+ * DTO de respuesta para resultados paginados.
+ * Contiene los elementos de la página solicitada y los datos de navegación.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaginaResponse<T> {
+    
+    /**
+     * Elementos de la página actual
+     */
+    private List<T> contenido;
+    
+    /**
+     * Número de página (base 0)
+     */
+    private Integer pagina;
+    
+    /**
+     * Tamaño de página solicitado
+     */
+    private Integer tamano;
+    
+    /**
+     * Total de elementos disponibles
+     */
+    private Long totalElementos;
+    
+    /**
+     * Total de páginas disponibles
+     */
+    private Integer totalPaginas;
+}
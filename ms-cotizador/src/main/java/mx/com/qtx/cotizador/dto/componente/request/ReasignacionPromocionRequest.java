@@ -0,0 +1,34 @@
+package mx.com.qtx.cotizador.dto.componente.request;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO de request para reasignar masivamente la promoción de los componentes
+ * 
+ * Los filtros se combinan (todos deben cumplirse) y se requiere al menos uno,
+ * para evitar reasignar por error el catálogo completo.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReasignacionPromocionRequest {
+    
+    @NotNull(message = "El ID de la promoción es requerido")
+    private Integer idPromocion;
+    
+    // Filtros opcionales
+    private String tipoComponente;
+    
+    @Size(max = 50, message = "La marca no puede exceder 50 caracteres")
+    private String marca;
+    
+    private List<String> ids;
+}
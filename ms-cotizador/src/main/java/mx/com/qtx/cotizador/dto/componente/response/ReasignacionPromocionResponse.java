@@ -0,0 +1,21 @@
+package mx.com.qtx.cotizador.dto.componente.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO de respuesta de una reasignación masiva de promoción
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReasignacionPromocionResponse {
+    
+    private Integer idPromocion;
+    
+    // Componentes que cambiaron de promoción (los que ya la tenían no se cuentan)
+    private int componentesActualizados;
+}
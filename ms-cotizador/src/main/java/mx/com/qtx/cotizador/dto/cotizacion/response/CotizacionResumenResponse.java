@@ -0,0 +1,44 @@
+package mx.com.qtx.cotizador.dto.cotizacion.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO de respuesta con los datos de encabezado de una cotización.
+ * Se obtiene mediante proyección directa en la consulta, sin cargar los detalles.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CotizacionResumenResponse {
+    
+    /**
+     * Folio único de la cotización
+     */
+    private Integer folio;
+    
+    /**
+     * Fecha de la cotización
+     */
+    private String fecha;
+    
+    /**
+     * Subtotal de la cotización (antes de impuestos)
+     */
+    private BigDecimal subtotal;
+    
+    /**
+     * Total de impuestos aplicados
+     */
+    private BigDecimal impuestos;
+    
+    /**
+     * Total final de la cotización
+     */
+    private BigDecimal total;
+}
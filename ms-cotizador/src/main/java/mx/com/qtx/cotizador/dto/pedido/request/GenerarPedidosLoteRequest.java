@@ -0,0 +1,27 @@
+package mx.com.qtx.cotizador.dto.pedido.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO de request para generar pedidos en lote a partir de varias cotizaciones
+ * 
+ * Cada elemento tiene las mismas validaciones que una generación individual.
+ * El número máximo de pedidos por lote se valida en el servicio (pedido.lote.max-pedidos).
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerarPedidosLoteRequest {
+    
+    @NotEmpty(message = "La lista de pedidos a generar es requerida")
+    @Valid
+    private List<GenerarPedidoRequest> pedidos;
+}
@@ -0,0 +1,58 @@
+package mx.com.qtx.cotizador.dto.pedido.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO de respuesta con el estado y avance de un lote de generación de pedidos
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LotePedidosResponse {
+    
+    /**
+     * Identificador del lote
+     */
+    private String idLote;
+    
+    /**
+     * Estado del lote: EN_COLA, EN_PROCESO, COMPLETADO o CANCELADO
+     */
+    private String estado;
+    
+    /**
+     * Número de pedidos solicitados en el lote
+     */
+    private Integer total;
+    
+    /**
+     * Número de pedidos ya procesados (exitosos + fallidos)
+     */
+    private Integer procesados;
+    
+    /**
+     * Número de pedidos generados y persistidos
+     */
+    private Integer exitosos;
+    
+    /**
+     * Número de pedidos que no pudieron generarse
+     */
+    private Integer fallidos;
+    
+    /**
+     * Fecha y hora de recepción del lote
+     */
+    private LocalDateTime fechaCreacion;
+    
+    /**
+     * Fecha y hora de término del lote (nula mientras está en proceso)
+     */
+    private LocalDateTime fechaFin;
+}
@@ -0,0 +1,51 @@
+package mx.com.qtx.cotizador.dto.pedido.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * DTO de respuesta con los datos de encabezado de un pedido
+ * 
+ * Se obtiene mediante proyección directa en la consulta, sin cargar los detalles
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PedidoResumenResponse {
+    
+    /**
+     * Número único del pedido
+     */
+    private Integer numPedido;
+    
+    /**
+     * Fecha de emisión del pedido
+     */
+    private LocalDate fechaEmision;
+    
+    /**
+     * Fecha de entrega programada
+     */
+    private LocalDate fechaEntrega;
+    
+    /**
+     * Nivel de surtido del pedido (0-100)
+     */
+    private Integer nivelSurtido;
+    
+    /**
+     * Clave del proveedor asociado
+     */
+    private String cveProveedor;
+    
+    /**
+     * Total del pedido
+     */
+    private BigDecimal total;
+}
@@ -0,0 +1,51 @@
+package mx.com.qtx.cotizador.dto.pedido.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * DTO de respuesta con el resultado de un elemento de un lote de generación de pedidos
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResultadoPedidoLoteResponse {
+    
+    /**
+     * Posición del elemento en la solicitud del lote (base 0)
+     */
+    private Integer indice;
+    
+    /**
+     * ID de la cotización origen
+     */
+    private Integer cotizacionId;
+    
+    /**
+     * Clave del proveedor solicitado
+     */
+    private String cveProveedor;
+    
+    /**
+     * Indica si el pedido se generó y persistió
+     */
+    private Boolean exitoso;
+    
+    /**
+     * Número del pedido generado (nulo si falló)
+     */
+    private Long numPedido;
+    
+    /**
+     * Código de resultado según el enum Errores
+     */
+    private String codigo;
+    
+    /**
+     * Mensaje descriptivo del resultado
+     */
+    private String mensaje;
+}
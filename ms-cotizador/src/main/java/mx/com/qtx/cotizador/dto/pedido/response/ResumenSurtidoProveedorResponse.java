@@ -0,0 +1,70 @@
+package mx.com.qtx.cotizador.dto.pedido.response;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * DTO de respuesta con los indicadores de surtido acumulados de un proveedor
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResumenSurtidoProveedorResponse {
+    
+    /**
+     * Clave del proveedor
+     */
+    private String cveProveedor;
+    
+    /**
+     * Nombre del proveedor
+     */
+    private String nombreProveedor;
+    
+    /**
+     * Número de pedidos emitidos al proveedor
+     */
+    private Long pedidos;
+    
+    /**
+     * Número total de renglones (detalles) de esos pedidos
+     */
+    private Long renglones;
+    
+    /**
+     * Importe total de los pedidos
+     */
+    private BigDecimal importeTotal;
+    
+    /**
+     * Nivel de surtido promedio de los pedidos
+     */
+    private BigDecimal nivelSurtidoPromedio;
+    
+    /**
+     * Días promedio entre la emisión y la entrega comprometida
+     */
+    private BigDecimal diasEntregaPromedio;
+    
+    /**
+     * Pedidos cuya entrega comprometida excede el plazo máximo configurado
+     */
+    private Long entregasTardias;
+    
+    /**
+     * Fecha de emisión del pedido más reciente
+     */
+    private LocalDate fechaUltimoPedido;
+    
+    /**
+     * Fecha y hora de la última actualización del resumen
+     */
+    private LocalDateTime fechaActualizacion;
+}
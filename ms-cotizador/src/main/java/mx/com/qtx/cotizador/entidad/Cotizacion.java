@@ -7,6 +7,7 @@ import java.util.ArrayList;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 import jakarta.persistence.Column;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.CascadeType;
@@ -18,7 +19,10 @@ import jakarta.persistence.GenerationType;
 public class Cotizacion {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "secuenciaCotizacion")
+    @TableGenerator(name = "secuenciaCotizacion", table = "cosecuencia",
+                    pkColumnName = "nombre", valueColumnName = "siguiente_valor",
+                    pkColumnValue = "cocotizacion", allocationSize = 50)
     private Integer folio;
     
     @Column(name = "fecha")
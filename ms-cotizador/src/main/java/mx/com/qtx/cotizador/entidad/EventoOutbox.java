@@ -0,0 +1,171 @@
+package mx.com.qtx.cotizador.entidad;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
+
+@Entity
+@Table(name = "cooutbox_evento")
+public class EventoOutbox {
+    
+    public static final String PENDIENTE = "PENDIENTE";
+    public static final String ENVIADO = "ENVIADO";
+    public static final String FALLIDO = "FALLIDO";
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "secuenciaOutbox")
+    @TableGenerator(name = "secuenciaOutbox", table = "cosecuencia",
+                    pkColumnName = "nombre", valueColumnName = "siguiente_valor",
+                    pkColumnValue = "cooutbox_evento", allocationSize = 50)
+    @Column(name = "id")
+    private Long id;
+    
+    @Column(name = "tipo_agregado")
+    private String tipoAgregado;
+    
+    @Column(name = "id_agregado")
+    private String idAgregado;
+    
+    @Column(name = "tipo_evento")
+    private String tipoEvento;
+    
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+    
+    @Column(name = "fecha_creacion")
+    private LocalDateTime fechaCreacion;
+    
+    @Column(name = "estado")
+    private String estado;
+    
+    @Column(name = "intentos")
+    private int intentos;
+    
+    @Column(name = "fecha_siguiente_intento")
+    private LocalDateTime fechaSiguienteIntento;
+    
+    @Column(name = "fecha_envio")
+    private LocalDateTime fechaEnvio;
+    
+    @Column(name = "ultimo_error")
+    private String ultimoError;
+    
+    // Constructores
+    public EventoOutbox() {
+        // Constructor vacío requerido por JPA
+    }
+    
+    public EventoOutbox(String tipoAgregado, String idAgregado, String tipoEvento, String payload, LocalDateTime fechaCreacion) {
+        this.tipoAgregado = tipoAgregado;
+        this.idAgregado = idAgregado;
+        this.tipoEvento = tipoEvento;
+        this.payload = payload;
+        this.fechaCreacion = fechaCreacion;
+        this.estado = PENDIENTE;
+        this.intentos = 0;
+        this.fechaSiguienteIntento = fechaCreacion;
+    }
+    
+    // Getters y setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getTipoAgregado() {
+        return tipoAgregado;
+    }
+    
+    public void setTipoAgregado(String tipoAgregado) {
+        this.tipoAgregado = tipoAgregado;
+    }
+    
+    public String getIdAgregado() {
+        return idAgregado;
+    }
+    
+    public void setIdAgregado(String idAgregado) {
+        this.idAgregado = idAgregado;
+    }
+    
+    public String getTipoEvento() {
+        return tipoEvento;
+    }
+    
+    public void setTipoEvento(String tipoEvento) {
+        this.tipoEvento = tipoEvento;
+    }
+    
+    public String getPayload() {
+        return payload;
+    }
+    
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+    
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+    
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+    
+    public String getEstado() {
+        return estado;
+    }
+    
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+    
+    public int getIntentos() {
+        return intentos;
+    }
+    
+    public void setIntentos(int intentos) {
+        this.intentos = intentos;
+    }
+    
+    public LocalDateTime getFechaSiguienteIntento() {
+        return fechaSiguienteIntento;
+    }
+    
+    public void setFechaSiguienteIntento(LocalDateTime fechaSiguienteIntento) {
+        this.fechaSiguienteIntento = fechaSiguienteIntento;
+    }
+    
+    public LocalDateTime getFechaEnvio() {
+        return fechaEnvio;
+    }
+    
+    public void setFechaEnvio(LocalDateTime fechaEnvio) {
+        this.fechaEnvio = fechaEnvio;
+    }
+    
+    public String getUltimoError() {
+        return ultimoError;
+    }
+    
+    public void setUltimoError(String ultimoError) {
+        this.ultimoError = ultimoError;
+    }
+    
+    public boolean isEnviado() {
+        return ENVIADO.equals(estado);
+    }
+    
+    public boolean isFallido() {
+        return FALLIDO.equals(estado);
+    }
+}
@@ -0,0 +1,109 @@
+package mx.com.qtx.cotizador.entidad;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "coidempotencia_cotizacion")
+public class IdempotenciaCotizacion {
+    
+    public static final String EN_PROCESO = "EN_PROCESO";
+    public static final String COMPLETADA = "COMPLETADA";
+    
+    @Id
+    @Column(name = "clave")
+    private String clave;
+    
+    @Column(name = "huella")
+    private String huella;
+    
+    @Column(name = "estado")
+    private String estado;
+    
+    @Column(name = "respuesta", columnDefinition = "TEXT")
+    private String respuesta;
+    
+    @Column(name = "fecha_creacion")
+    private LocalDateTime fechaCreacion;
+    
+    @Column(name = "fecha_expiracion")
+    private LocalDateTime fechaExpiracion;
+    
+    // Constructores
+    public IdempotenciaCotizacion() {
+        // Constructor vacío requerido por JPA
+    }
+    
+    public IdempotenciaCotizacion(String clave, String huella, LocalDateTime fechaCreacion, LocalDateTime fechaExpiracion) {
+        this.clave = clave;
+        this.huella = huella;
+        this.estado = EN_PROCESO;
+        this.fechaCreacion = fechaCreacion;
+        this.fechaExpiracion = fechaExpiracion;
+    }
+    
+    // Getters y setters
+    public String getClave() {
+        return clave;
+    }
+    
+    public void setClave(String clave) {
+        this.clave = clave;
+    }
+    
+    public String getHuella() {
+        return huella;
+    }
+    
+    public void setHuella(String huella) {
+        this.huella = huella;
+    }
+    
+    public String getEstado() {
+        return estado;
+    }
+    
+    public void setEstado(String estado) {
+        this.estado = estado;
+    }
+    
+    public String getRespuesta() {
+        return respuesta;
+    }
+    
+    public void setRespuesta(String respuesta) {
+        this.respuesta = respuesta;
+    }
+    
+    public LocalDateTime getFechaCreacion() {
+        return fechaCreacion;
+    }
+    
+    public void setFechaCreacion(LocalDateTime fechaCreacion) {
+        this.fechaCreacion = fechaCreacion;
+    }
+    
+    public LocalDateTime getFechaExpiracion() {
+        return fechaExpiracion;
+    }
+    
+    public void setFechaExpiracion(LocalDateTime fechaExpiracion) {
+        this.fechaExpiracion = fechaExpiracion;
+    }
+    
+    public boolean isCompletada() {
+        return COMPLETADA.equals(estado);
+    }
+    
+    public boolean isExpirada(LocalDateTime ahora) {
+        return fechaExpiracion != null && fechaExpiracion.isBefore(ahora);
+    }
+    
+    public boolean isAbandonada(LocalDateTime finArrendamiento) {
+        return EN_PROCESO.equals(estado) && fechaCreacion != null && fechaCreacion.isBefore(finArrendamiento);
+    }
+}
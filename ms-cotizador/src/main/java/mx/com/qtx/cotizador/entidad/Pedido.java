@@ -15,13 +15,17 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 
 @Entity
 @Table(name = "copedido")
 public class Pedido {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "secuenciaPedido")
+    @TableGenerator(name = "secuenciaPedido", table = "cosecuencia",
+                    pkColumnName = "nombre", valueColumnName = "siguiente_valor",
+                    pkColumnValue = "copedido", allocationSize = 50)
     @Column(name = "num_pedido")
     private Integer numPedido;
     
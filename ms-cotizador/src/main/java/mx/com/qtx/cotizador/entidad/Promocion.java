@@ -34,6 +34,10 @@ public class Promocion {
     @Column(name = "vigencia_hasta")
     private LocalDate vigenciaHasta;
     
+    // Se incrementa en cada modificación; identifica la versión compilada en caché
+    @Column(name = "version")
+    private int version;
+    
     @OneToMany(mappedBy = "promocion", cascade = CascadeType.ALL)
     private List<DetallePromocion> detalles = new ArrayList<>();
     
@@ -86,6 +90,14 @@ public class Promocion {
         this.vigenciaHasta = vigenciaHasta;
     }
     
+    public int getVersion() {
+        return version;
+    }
+    
+    public void setVersion(int version) {
+        this.version = version;
+    }
+    
     public List<DetallePromocion> getDetalles() {
         return detalles;
     }
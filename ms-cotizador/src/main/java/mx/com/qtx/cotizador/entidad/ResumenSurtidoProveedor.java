@@ -0,0 +1,121 @@
+package mx.com.qtx.cotizador.entidad;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "coresumen_surtido_proveedor")
+public class ResumenSurtidoProveedor {
+    
+    @Id
+    @Column(name = "cve_proveedor")
+    private String cveProveedor;
+    
+    @Column(name = "pedidos")
+    private long pedidos;
+    
+    @Column(name = "renglones")
+    private long renglones;
+    
+    @Column(name = "importe_total")
+    private BigDecimal importeTotal;
+    
+    @Column(name = "suma_nivel_surtido")
+    private long sumaNivelSurtido;
+    
+    @Column(name = "suma_dias_entrega")
+    private long sumaDiasEntrega;
+    
+    @Column(name = "entregas_tardias")
+    private long entregasTardias;
+    
+    @Column(name = "fecha_ultimo_pedido")
+    private LocalDate fechaUltimoPedido;
+    
+    @Column(name = "fecha_actualizacion")
+    private LocalDateTime fechaActualizacion;
+    
+    // Constructores
+    public ResumenSurtidoProveedor() {
+        // Constructor vacío requerido por JPA
+    }
+    
+    // Getters y setters
+    public String getCveProveedor() {
+        return cveProveedor;
+    }
+    
+    public void setCveProveedor(String cveProveedor) {
+        this.cveProveedor = cveProveedor;
+    }
+    
+    public long getPedidos() {
+        return pedidos;
+    }
+    
+    public void setPedidos(long pedidos) {
+        this.pedidos = pedidos;
+    }
+    
+    public long getRenglones() {
+        return renglones;
+    }
+    
+    public void setRenglones(long renglones) {
+        this.renglones = renglones;
+    }
+    
+    public BigDecimal getImporteTotal() {
+        return importeTotal;
+    }
+    
+    public void setImporteTotal(BigDecimal importeTotal) {
+        this.importeTotal = importeTotal;
+    }
+    
+    public long getSumaNivelSurtido() {
+        return sumaNivelSurtido;
+    }
+    
+    public void setSumaNivelSurtido(long sumaNivelSurtido) {
+        this.sumaNivelSurtido = sumaNivelSurtido;
+    }
+    
+    public long getSumaDiasEntrega() {
+        return sumaDiasEntrega;
+    }
+    
+    public void setSumaDiasEntrega(long sumaDiasEntrega) {
+        this.sumaDiasEntrega = sumaDiasEntrega;
+    }
+    
+    public long getEntregasTardias() {
+        return entregasTardias;
+    }
+    
+    public void setEntregasTardias(long entregasTardias) {
+        this.entregasTardias = entregasTardias;
+    }
+    
+    public LocalDate getFechaUltimoPedido() {
+        return fechaUltimoPedido;
+    }
+    
+    public void setFechaUltimoPedido(LocalDate fechaUltimoPedido) {
+        this.fechaUltimoPedido = fechaUltimoPedido;
+    }
+    
+    public LocalDateTime getFechaActualizacion() {
+        return fechaActualizacion;
+    }
+    
+    public void setFechaActualizacion(LocalDateTime fechaActualizacion) {
+        this.fechaActualizacion = fechaActualizacion;
+    }
+}
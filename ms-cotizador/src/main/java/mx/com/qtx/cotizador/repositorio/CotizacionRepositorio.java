@@ -1,13 +1,17 @@
 package mx.com.qtx.cotizador.repositorio;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import mx.com.qtx.cotizador.dto.cotizacion.response.CotizacionResumenResponse;
 import mx.com.qtx.cotizador.entidad.Cotizacion;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -61,12 +65,110 @@ public interface CotizacionRepositorio extends JpaRepository<Cotizacion, Integer
      * <p>
      * Utiliza una consulta JPQL personalizada para conectar las cotizaciones con sus detalles
      * y filtrar aquellas que contienen el componente especificado. Esta consulta implica
-     * un join entre las tablas de cotizaciones y detalles.
+     * un join entre las tablas de cotizaciones y detalles; cada cotización se retorna una sola vez
+     * aunque el componente aparezca en varios de sus detalles.
      * </p>
      * 
      * @param idComponente Identificador único del componente a buscar en las cotizaciones
      * @return Lista de cotizaciones que incluyen el componente especificado
      */
-    @Query("SELECT c FROM Cotizacion c JOIN c.detalles d WHERE d.componente.id = :idComponente")
+    @Query("SELECT DISTINCT c FROM Cotizacion c JOIN c.detalles d WHERE d.componente.id = :idComponente")
     List<Cotizacion> findCotizacionesByComponente(@Param("idComponente") String idComponente);
+    
+    /**
+     * Obtiene los folios distintos de las cotizaciones que incluyen un componente.
+     * <p>
+     * La consulta se resuelve únicamente sobre la tabla de detalles, apoyada en el índice
+     * (id_componente, folio), sin cargar cotizaciones ni detalles. Los folios se retornan
+     * ordenados de forma ascendente.
+     * </p>
+     * 
+     * @param idComponente Identificador único del componente
+     * @return Folios ordenados de las cotizaciones que incluyen el componente
+     */
+    @Query("SELECT DISTINCT d.id.folio FROM DetalleCotizacion d WHERE d.componente.id = :idComponente ORDER BY d.id.folio")
+    List<Integer> findFoliosByComponente(@Param("idComponente") String idComponente);
+    
+    /**
+     * Obtiene los datos de encabezado de las cotizaciones indicadas mediante proyección.
+     * 
+     * @param folios Folios de las cotizaciones a consultar
+     * @return Resúmenes de las cotizaciones encontradas, ordenados por folio
+     */
+    @Query("""
+        SELECT new mx.com.qtx.cotizador.dto.cotizacion.response.CotizacionResumenResponse(
+                c.folio, c.fecha, c.subtotal, c.impuestos, c.total)
+        FROM Cotizacion c
+        WHERE c.folio IN :folios
+        ORDER BY c.folio
+    """)
+    List<CotizacionResumenResponse> findResumenesByFolios(@Param("folios") Collection<Integer> folios);
+    
+    /**
+     * Obtiene los periodos (yyyy-MM) que tienen cotizaciones anteriores a la fecha de corte.
+     * 
+     * @param fechaCorte Fecha límite exclusiva en formato yyyy-MM-dd
+     * @return Periodos mensuales ordenados de forma ascendente
+     */
+    @Query("SELECT DISTINCT SUBSTRING(c.fecha, 1, 7) FROM Cotizacion c WHERE c.fecha < :fechaCorte ORDER BY SUBSTRING(c.fecha, 1, 7)")
+    List<String> findPeriodosAnterioresA(@Param("fechaCorte") String fechaCorte);
+    
+    /**
+     * Obtiene un lote de folios de un periodo mensual, recorriendo por llave (folio).
+     * <p>
+     * Evita el uso de OFFSET: cada lote inicia después del último folio procesado,
+     * por lo que el costo no crece conforme se avanza en el periodo.
+     * </p>
+     * 
+     * @param periodo Periodo en formato yyyy-MM
+     * @param fechaCorte Fecha límite exclusiva en formato yyyy-MM-dd
+     * @param ultimoFolio Último folio procesado (exclusivo)
+     * @param pageable Tamaño del lote
+     * @return Folios ordenados de forma ascendente
+     */
+    @Query("""
+        SELECT c.folio FROM Cotizacion c
+        WHERE c.fecha LIKE CONCAT(:periodo, '%') AND c.fecha < :fechaCorte AND c.folio > :ultimoFolio
+        ORDER BY c.folio
+    """)
+    List<Integer> findFoliosDePeriodo(@Param("periodo") String periodo,
+                                      @Param("fechaCorte") String fechaCorte,
+                                      @Param("ultimoFolio") Integer ultimoFolio,
+                                      Pageable pageable);
+    
+    /**
+     * Carga cotizaciones con sus detalles y componentes en una sola consulta.
+     * 
+     * @param folios Folios de las cotizaciones a cargar
+     * @return Cotizaciones con detalles inicializados
+     */
+    @Query("""
+        SELECT DISTINCT c FROM Cotizacion c
+        LEFT JOIN FETCH c.detalles d
+        LEFT JOIN FETCH d.componente
+        WHERE c.folio IN :folios
+        ORDER BY c.folio
+    """)
+    List<Cotizacion> findConDetallesByFolios(@Param("folios") Collection<Integer> folios);
+    
+    /**
+     * Elimina los detalles de las cotizaciones indicadas (borrado masivo).
+     * 
+     * @param folios Folios de las cotizaciones
+     * @return Número de detalles eliminados
+     */
+    @Modifying
+    @Query("DELETE FROM DetalleCotizacion d WHERE d.id.folio IN :folios")
+    int deleteDetallesByFolios(@Param("folios") Collection<Integer> folios);
+    
+    /**
+     * Elimina las cotizaciones indicadas (borrado masivo). Los detalles deben
+     * eliminarse antes con {@link #deleteDetallesByFolios(Collection)}.
+     * 
+     * @param folios Folios de las cotizaciones
+     * @return Número de cotizaciones eliminadas
+     */
+    @Modifying
+    @Query("DELETE FROM Cotizacion c WHERE c.folio IN :folios")
+    int deleteByFolios(@Param("folios") Collection<Integer> folios);
 }
@@ -0,0 +1,32 @@
+package mx.com.qtx.cotizador.repositorio;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import mx.com.qtx.cotizador.entidad.EventoOutbox;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EventoOutboxRepositorio extends JpaRepository<EventoOutbox, Long> {
+    
+    // Bloquear el siguiente lote de eventos pendientes en orden de id; SKIP LOCKED permite
+    // que varias instancias del despachador tomen lotes en paralelo sin repartirse el mismo evento
+    @Query(value = """
+        SELECT * FROM cooutbox_evento
+        WHERE estado = 'PENDIENTE' AND fecha_siguiente_intento <= :ahora
+        ORDER BY id
+        LIMIT :limite
+        FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<EventoOutbox> bloquearPendientes(@Param("ahora") LocalDateTime ahora, @Param("limite") int limite);
+    
+    // Eliminar eventos ya entregados antes de la fecha límite (borrado masivo)
+    @Modifying
+    @Query("DELETE FROM EventoOutbox e WHERE e.estado = 'ENVIADO' AND e.fechaEnvio < :limite")
+    int deleteEnviadosAntesDe(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,33 @@
+package mx.com.qtx.cotizador.repositorio;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import mx.com.qtx.cotizador.entidad.IdempotenciaCotizacion;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotenciaCotizacionRepositorio extends JpaRepository<IdempotenciaCotizacion, String> {
+    
+    // Eliminar claves cuya vigencia ya terminó (borrado masivo)
+    @Modifying
+    @Query("DELETE FROM IdempotenciaCotizacion i WHERE i.fechaExpiracion < :ahora")
+    int deleteExpiradas(@Param("ahora") LocalDateTime ahora);
+    
+    // Reservar de nuevo una clave vencida, o una en proceso con la misma huella cuyo arrendamiento
+    // terminó (la instancia que la tomó no la completó ni la liberó). Regresa 1 si la tomó esta ejecución
+    @Modifying
+    @Query("UPDATE IdempotenciaCotizacion i SET i.huella = :huella, i.estado = 'EN_PROCESO', i.respuesta = NULL, " +
+           "i.fechaCreacion = :ahora, i.fechaExpiracion = :expiracion " +
+           "WHERE i.clave = :clave AND (i.fechaExpiracion < :ahora " +
+           "OR (i.estado = 'EN_PROCESO' AND i.huella = :huella AND i.fechaCreacion < :finArrendamiento))")
+    int tomarAbandonada(@Param("clave") String clave,
+                        @Param("huella") String huella,
+                        @Param("ahora") LocalDateTime ahora,
+                        @Param("expiracion") LocalDateTime expiracion,
+                        @Param("finArrendamiento") LocalDateTime finArrendamiento);
+}
@@ -5,9 +5,11 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import mx.com.qtx.cotizador.dto.pedido.response.PedidoResumenResponse;
 import mx.com.qtx.cotizador.entidad.Pedido;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -24,7 +26,21 @@ public interface PedidoRepositorio extends JpaRepository<Pedido, Integer> {
     // Encontrar pedidos por rango de fechas de entrega
     List<Pedido> findByFechaEntregaBetween(LocalDate inicio, LocalDate fin);
     
-    // Buscar pedidos que contengan un componente específico (usando JPQL)
-    @Query("SELECT p FROM Pedido p JOIN p.detalles d WHERE d.componente.id = :idComponente")
+    // Buscar pedidos que contengan un componente específico (usando JPQL, sin duplicados)
+    @Query("SELECT DISTINCT p FROM Pedido p JOIN p.detalles d WHERE d.componente.id = :idComponente")
     List<Pedido> findPedidosByComponente(@Param("idComponente") String idComponente);
+    
+    // Números de pedido distintos que contienen un componente (solo tabla de detalles, ordenados)
+    @Query("SELECT DISTINCT d.id.idPedido FROM DetallePedido d WHERE d.componente.id = :idComponente ORDER BY d.id.idPedido")
+    List<Integer> findNumPedidosByComponente(@Param("idComponente") String idComponente);
+    
+    // Proyección de encabezados de pedido sin cargar detalles
+    @Query("""
+        SELECT new mx.com.qtx.cotizador.dto.pedido.response.PedidoResumenResponse(
+                p.numPedido, p.fechaEmision, p.fechaEntrega, p.nivelSurtido, p.proveedor.cve, p.total)
+        FROM Pedido p
+        WHERE p.numPedido IN :numPedidos
+        ORDER BY p.numPedido
+    """)
+    List<PedidoResumenResponse> findResumenesByNumPedidos(@Param("numPedidos") Collection<Integer> numPedidos);
 }
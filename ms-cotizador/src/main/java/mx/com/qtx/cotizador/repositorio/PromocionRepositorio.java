@@ -1,6 +1,9 @@
 package mx.com.qtx.cotizador.repositorio;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import mx.com.qtx.cotizador.entidad.Promocion;
 
@@ -14,4 +17,17 @@ public interface PromocionRepositorio extends JpaRepository<Promocion, Integer>
      * @return La promoción encontrada o null si no existe.
      */
     Promocion findByNombre(String nombre);
+    
+    /**
+     * Incrementa la versión de una promoción en la base de datos ({@code version = version + 1}).
+     * El renglón queda bloqueado hasta terminar la transacción, de modo que dos modificaciones
+     * concurrentes obtienen versiones distintas. Limpia el contexto de persistencia: la entidad
+     * debe leerse de nuevo para ver la versión incrementada.
+     * 
+     * @param idPromocion Id de la promoción
+     * @return Número de renglones actualizados (0 si la promoción no existe)
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Promocion p SET p.version = p.version + 1 WHERE p.idPromocion = :idPromocion")
+    int incrementarVersion(@Param("idPromocion") Integer idPromocion);
 }
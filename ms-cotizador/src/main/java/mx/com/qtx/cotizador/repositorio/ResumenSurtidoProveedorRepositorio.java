@@ -0,0 +1,68 @@
+package mx.com.qtx.cotizador.repositorio;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import mx.com.qtx.cotizador.entidad.ResumenSurtidoProveedor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Repository
+public interface ResumenSurtidoProveedorRepositorio extends JpaRepository<ResumenSurtidoProveedor, String> {
+    
+    // Sumar los incrementos de un proveedor, creando su renglón si aún no existe
+    @Modifying
+    @Query(value = """
+        INSERT INTO coresumen_surtido_proveedor
+            (cve_proveedor, pedidos, renglones, importe_total, suma_nivel_surtido, suma_dias_entrega,
+             entregas_tardias, fecha_ultimo_pedido, fecha_actualizacion)
+        VALUES (:cve, :pedidos, :renglones, :importe, :sumaNivel, :sumaDias, :tardias, :fechaUltimo, :ahora) AS nuevo
+        ON DUPLICATE KEY UPDATE
+            pedidos = coresumen_surtido_proveedor.pedidos + nuevo.pedidos,
+            renglones = coresumen_surtido_proveedor.renglones + nuevo.renglones,
+            importe_total = coresumen_surtido_proveedor.importe_total + nuevo.importe_total,
+            suma_nivel_surtido = coresumen_surtido_proveedor.suma_nivel_surtido + nuevo.suma_nivel_surtido,
+            suma_dias_entrega = coresumen_surtido_proveedor.suma_dias_entrega + nuevo.suma_dias_entrega,
+            entregas_tardias = coresumen_surtido_proveedor.entregas_tardias + nuevo.entregas_tardias,
+            fecha_ultimo_pedido = GREATEST(COALESCE(coresumen_surtido_proveedor.fecha_ultimo_pedido, nuevo.fecha_ultimo_pedido),
+                                           nuevo.fecha_ultimo_pedido),
+            fecha_actualizacion = nuevo.fecha_actualizacion
+    """, nativeQuery = true)
+    int acumular(@Param("cve") String cveProveedor,
+                 @Param("pedidos") long pedidos,
+                 @Param("renglones") long renglones,
+                 @Param("importe") BigDecimal importe,
+                 @Param("sumaNivel") long sumaNivelSurtido,
+                 @Param("sumaDias") long sumaDiasEntrega,
+                 @Param("tardias") long entregasTardias,
+                 @Param("fechaUltimo") LocalDate fechaUltimoPedido,
+                 @Param("ahora") LocalDateTime ahora);
+    
+    // Recalcular todos los resúmenes desde copedido y codetalle_pedido en una sola sentencia;
+    // debe ejecutarse después de vaciar la tabla
+    @Modifying
+    @Query(value = """
+        INSERT INTO coresumen_surtido_proveedor
+            (cve_proveedor, pedidos, renglones, importe_total, suma_nivel_surtido, suma_dias_entrega,
+             entregas_tardias, fecha_ultimo_pedido, fecha_actualizacion)
+        SELECT p.cve_proveedor,
+               COUNT(*),
+               COALESCE(SUM(d.renglones), 0),
+               SUM(p.total),
+               SUM(p.nivel_surtido),
+               SUM(DATEDIFF(p.fecha_entrega, p.fecha_emision)),
+               SUM(CASE WHEN DATEDIFF(p.fecha_entrega, p.fecha_emision) > :diasEntregaMax THEN 1 ELSE 0 END),
+               MAX(p.fecha_emision),
+               :ahora
+        FROM copedido p
+        LEFT JOIN (SELECT num_pedido, COUNT(*) AS renglones FROM codetalle_pedido GROUP BY num_pedido) d
+               ON d.num_pedido = p.num_pedido
+        GROUP BY p.cve_proveedor
+    """, nativeQuery = true)
+    int reconstruir(@Param("diasEntregaMax") int diasEntregaMax, @Param("ahora") LocalDateTime ahora);
+}
@@ -0,0 +1,201 @@
+package mx.com.qtx.cotizador.security.client;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker por instancia de ms-seguridad que abre por errores y por lentitud
+ * Cuenta como mala toda llamada fallida o que tardó más que el umbral de lentitud; cuando
+ * la proporción de llamadas malas en la ventana supera el umbral, el circuito se abre y las
+ * llamadas se rechazan de inmediato. Vencida la espera se permite una sola llamada de prueba:
+ * si sale bien el circuito se cierra, si no vuelve a abrirse con el doble de espera (hasta
+ * el máximo), de modo que una caída larga no recibe pruebas con la misma frecuencia.
+ * También conserva las latencias recientes de las llamadas exitosas para estimar su p95.
+ */
+class AdaptiveCircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final int LATENCY_SAMPLES = 128;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+    private static final int P95_RECOMPUTE_EVERY = 16;
+
+    private final boolean enabled;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final long initialOpenNanos;
+    private final long maxOpenNanos;
+    private final LongSupplier clock;
+
+    // Ventana circular de resultados (true = llamada mala), protegida por el monitor
+    private final boolean[] window;
+    private int position;
+    private int recorded;
+    private int badCalls;
+
+    // Latencias recientes de llamadas exitosas, protegidas por el monitor
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyPosition;
+    private int latencyCount;
+    private int sinceRecompute;
+    private volatile long p95Nanos;
+
+    private volatile State state = State.CLOSED;
+    private long openUntilNanos;
+    private long openNanos;
+    private boolean probeInFlight;
+
+    AdaptiveCircuitBreaker(boolean enabled, int windowSize, int minimumCalls, double failureRateThreshold,
+                           long slowCallMs, long openMs, long maxOpenMs) {
+        this(enabled, windowSize, minimumCalls, failureRateThreshold, slowCallMs, openMs, maxOpenMs, System::nanoTime);
+    }
+
+    AdaptiveCircuitBreaker(boolean enabled, int windowSize, int minimumCalls, double failureRateThreshold,
+                           long slowCallMs, long openMs, long maxOpenMs, LongSupplier clock) {
+        this.enabled = enabled;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallMs * 1_000_000L;
+        this.initialOpenNanos = openMs * 1_000_000L;
+        this.maxOpenNanos = Math.max(openMs, maxOpenMs) * 1_000_000L;
+        this.clock = clock;
+    }
+
+    /**
+     * Indica si se permite una llamada; en semiabierto sólo una de prueba a la vez
+     */
+    boolean tryAcquire() {
+        if (!enabled || state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (clock.getAsLong() - openUntilNanos < 0) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = false;
+            }
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (probeInFlight) {
+                return false;
+            }
+            probeInFlight = true;
+            return true;
+        }
+    }
+
+    /**
+     * Registra el resultado de una llamada permitida
+     *
+     * @param failure      true si la llamada falló por causa de ms-seguridad o de la red
+     * @param latencyNanos Duración de la llamada
+     */
+    synchronized void onResult(boolean failure, long latencyNanos) {
+        if (!failure) {
+            recordLatency(latencyNanos);
+        }
+        if (enabled) {
+            recordOutcome(failure || latencyNanos >= slowCallNanos);
+        }
+    }
+
+    /**
+     * Registra una llamada cancelada (venció el plazo o ganó la llamada de cobertura)
+     * Sólo cuenta como mala si ya había superado el umbral de lentitud. Su latencia no entra
+     * en el p95: es sólo el tiempo hasta la cancelación, no lo que habría tardado la llamada.
+     */
+    synchronized void onCancel(long latencyNanos) {
+        if (!enabled) {
+            return;
+        }
+        if (latencyNanos >= slowCallNanos) {
+            recordOutcome(true);
+        } else if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    State getState() {
+        return state;
+    }
+
+    /**
+     * @return p95 de las latencias recientes en nanosegundos, o 0 si aún no hay suficientes
+     */
+    long getP95Nanos() {
+        return p95Nanos;
+    }
+
+    /**
+     * Registra una llamada en la ventana (o resuelve la prueba en semiabierto)
+     *
+     * @param bad true si la llamada falló o fue lenta
+     */
+    private void recordOutcome(boolean bad) {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            if (bad) {
+                open(Math.min(maxOpenNanos, openNanos * 2));
+            } else {
+                close();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // Resultado tardío de una llamada iniciada antes de abrir
+            return;
+        }
+
+        if (recorded == window.length) {
+            if (window[position]) {
+                badCalls--;
+            }
+        } else {
+            recorded++;
+        }
+        window[position] = bad;
+        if (bad) {
+            badCalls++;
+        }
+        position = (position + 1) % window.length;
+
+        if (recorded >= minimumCalls && badCalls >= failureRateThreshold * recorded) {
+            open(initialOpenNanos);
+        }
+    }
+
+    private void open(long durationNanos) {
+        openNanos = Math.max(initialOpenNanos, durationNanos);
+        openUntilNanos = clock.getAsLong() + openNanos;
+        state = State.OPEN;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        openNanos = 0;
+        position = 0;
+        recorded = 0;
+        badCalls = 0;
+        Arrays.fill(window, false);
+    }
+
+    private void recordLatency(long latencyNanos) {
+        latencies[latencyPosition] = latencyNanos;
+        latencyPosition = (latencyPosition + 1) % LATENCY_SAMPLES;
+        if (latencyCount < LATENCY_SAMPLES) {
+            latencyCount++;
+        }
+        if (latencyCount == MIN_LATENCY_SAMPLES
+                || (latencyCount > MIN_LATENCY_SAMPLES && ++sinceRecompute >= P95_RECOMPUTE_EVERY)) {
+            sinceRecompute = 0;
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            p95Nanos = sorted[(int) Math.ceil(0.95 * latencyCount) - 1];
+        }
+    }
+}
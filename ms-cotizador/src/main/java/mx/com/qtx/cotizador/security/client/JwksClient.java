@@ -1,15 +1,18 @@
 package mx.com.qtx.cotizador.security.client;
 
 import mx.com.qtx.cotizador.security.dto.JwksResponse;
+import mx.com.qtx.cotizador.security.metrics.SecurityMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
 import org.springframework.retry.annotation.Backoff;
 import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 
@@ -26,13 +29,16 @@ public class JwksClient {
     private final WebClient webClient;
     private final String jwksUrl;
     private final Duration timeout;
+    private final SecurityMetrics securityMetrics;
 
     public JwksClient(
             @Value("${jwt.ms-seguridad.base-url}") String baseUrl,
             @Value("${jwt.ms-seguridad.context-path}") String contextPath,
-            @Value("${jwt.ms-seguridad.timeout:15000}") int timeoutMs) {
+            @Value("${jwt.ms-seguridad.timeout:15000}") int timeoutMs,
+            SecurityMetrics securityMetrics) {
         this.jwksUrl = baseUrl + contextPath + "/keys/jwks";
         this.timeout = Duration.ofMillis(timeoutMs);
+        this.securityMetrics = securityMetrics;
         this.webClient = WebClient.builder()
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024)) // 1MB max
                 .build();
@@ -61,6 +67,7 @@ public class JwksClient {
                     .retrieve()
                     .bodyToMono(JwksResponse.class)
                     .timeout(timeout)
+                    .transform(securityMetrics.timeRemoteCall("jwks"))
                     .block();
 
             if (response == null || !response.hasValidKeys()) {
@@ -79,6 +86,45 @@ public class JwksClient {
         }
     }
 
+    /**
+     * Obtiene el JWKS con una petición condicional (If-None-Match)
+     * Sin reintentos ni bloqueo: quien la invoca decide cuándo volver a intentar
+     * 
+     * @param etag ETag de la última respuesta recibida, o null si no hay
+     * @return resultado con el JWKS nuevo, o marcado como no modificado si ms-seguridad responde 304
+     */
+    public Mono<JwksFetchResult> fetchJwksConditional(String etag) {
+        logger.debug("Obteniendo JWKS condicional desde: {} (ETag: {})", jwksUrl, etag);
+        
+        return webClient
+                .get()
+                .uri(jwksUrl)
+                .headers(headers -> {
+                    if (etag != null) {
+                        headers.setIfNoneMatch(etag);
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                        return Mono.just(JwksFetchResult.notModified(etag));
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.releaseBody().then(Mono.error(new JwksClientException(
+                                "ms-seguridad respondió " + response.statusCode().value() + " al obtener JWKS")));
+                    }
+                    String newEtag = response.headers().asHttpHeaders().getETag();
+                    return response.bodyToMono(JwksResponse.class)
+                            .filter(JwksResponse::hasValidKeys)
+                            .switchIfEmpty(Mono.error(new JwksClientException(
+                                    "JWKS response inválido o vacío desde: " + jwksUrl)))
+                            .map(jwks -> JwksFetchResult.modified(jwks, newEtag));
+                })
+                .timeout(timeout)
+                .transform(securityMetrics.timeRemoteCall("jwks"))
+                .onErrorMap(e -> !(e instanceof JwksClientException),
+                        e -> new JwksClientException("Error de comunicación con ms-seguridad", e));
+    }
+
     /**
      * Verifica la conectividad con ms-seguridad
      * 
@@ -126,6 +172,41 @@ public class JwksClient {
         }
     }
 
+    /**
+     * Resultado de una petición JWKS condicional
+     */
+    public static class JwksFetchResult {
+        private final JwksResponse jwks;
+        private final String etag;
+        private final boolean notModified;
+
+        private JwksFetchResult(JwksResponse jwks, String etag, boolean notModified) {
+            this.jwks = jwks;
+            this.etag = etag;
+            this.notModified = notModified;
+        }
+
+        public static JwksFetchResult modified(JwksResponse jwks, String etag) {
+            return new JwksFetchResult(jwks, etag, false);
+        }
+
+        public static JwksFetchResult notModified(String etag) {
+            return new JwksFetchResult(null, etag, true);
+        }
+
+        public JwksResponse getJwks() {
+            return jwks;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public boolean isNotModified() {
+            return notModified;
+        }
+    }
+
     /**
      * Información de salud del cliente JWKS
      */
@@ -0,0 +1,305 @@
+package mx.com.qtx.cotizador.security.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mx.com.qtx.cotizador.security.metrics.SecurityMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Protege las llamadas a ms-seguridad para que una degradación no bloquee los hilos del cotizador
+ * <ul>
+ *   <li>Cada llamada tiene un plazo total ({@code session.validation.timeout-ms}) que comparten
+ *       sus reintentos y la llamada de cobertura: cada intento sólo dispone de lo que resta.</li>
+ *   <li>Cada instancia tiene un {@link AdaptiveCircuitBreaker}; con el circuito abierto la llamada
+ *       falla de inmediato y quien la hizo usa su respaldo (la entrada vencida del caché).</li>
+ *   <li>Si hay una segunda instancia configurada, las consultas idempotentes que tardan más que el
+ *       p95 reciente de la instancia principal se repiten contra ella y gana la primera respuesta.
+ *       Si la principal falla antes (5xx, 429 o conexión), la cobertura sale de inmediato con el
+ *       plazo restante. Si la principal tiene el circuito abierto, la segunda atiende sola.</li>
+ * </ul>
+ */
+@Component
+@Profile({"default", "docker"})
+public class RemoteCallGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(RemoteCallGuard.class);
+
+    // Valores por omisión de la configuración, compartidos por @Value y por withDefaults
+    static final long DEFAULT_ATTEMPT_TIMEOUT_MS = 15000;
+    static final long DEFAULT_DEADLINE_MS = 3000;
+    static final int DEFAULT_MAX_RETRIES = 2;
+    static final long DEFAULT_RETRY_DELAY_MS = 200;
+    static final String DEFAULT_HEDGE_BASE_URL = "";
+    static final long DEFAULT_HEDGE_MIN_DELAY_MS = 50;
+    static final boolean DEFAULT_BREAKER_ENABLED = true;
+    static final int DEFAULT_WINDOW_SIZE = 50;
+    static final int DEFAULT_MINIMUM_CALLS = 20;
+    static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+    static final long DEFAULT_SLOW_CALL_MS = 1000;
+    static final long DEFAULT_OPEN_MS = 1000;
+    static final long DEFAULT_MAX_OPEN_MS = 30000;
+
+    private final List<Instance> instances = new ArrayList<>();
+    private final SecurityMetrics securityMetrics;
+    private final long attemptTimeoutNanos;
+    private final long deadlineNanos;
+    private final int maxRetries;
+    private final Duration retryDelay;
+    private final long hedgeMinDelayNanos;
+    private final Counter rejected;
+    private final Counter hedgesLaunched;
+    private final Counter hedgesWon;
+
+    public RemoteCallGuard(
+            @Value("${jwt.ms-seguridad.base-url}") String baseUrl,
+            @Value("${jwt.ms-seguridad.context-path}") String contextPath,
+            @Value("${jwt.ms-seguridad.timeout:" + DEFAULT_ATTEMPT_TIMEOUT_MS + "}") long attemptTimeoutMs,
+            @Value("${session.validation.timeout-ms:" + DEFAULT_DEADLINE_MS + "}") long deadlineMs,
+            @Value("${session.validation.max-retries:" + DEFAULT_MAX_RETRIES + "}") int maxRetries,
+            @Value("${session.validation.retry-delay-ms:" + DEFAULT_RETRY_DELAY_MS + "}") long retryDelayMs,
+            @Value("${session.validation.hedge.base-url:" + DEFAULT_HEDGE_BASE_URL + "}") String hedgeBaseUrl,
+            @Value("${session.validation.hedge.min-delay-ms:" + DEFAULT_HEDGE_MIN_DELAY_MS + "}") long hedgeMinDelayMs,
+            @Value("${session.validation.circuit-breaker.enabled:" + DEFAULT_BREAKER_ENABLED + "}") boolean breakerEnabled,
+            @Value("${session.validation.circuit-breaker.window-size:" + DEFAULT_WINDOW_SIZE + "}") int windowSize,
+            @Value("${session.validation.circuit-breaker.minimum-calls:" + DEFAULT_MINIMUM_CALLS + "}") int minimumCalls,
+            @Value("${session.validation.circuit-breaker.failure-rate-threshold:" + DEFAULT_FAILURE_RATE_THRESHOLD + "}")
+            double failureRateThreshold,
+            @Value("${session.validation.circuit-breaker.slow-call-ms:" + DEFAULT_SLOW_CALL_MS + "}") long slowCallMs,
+            @Value("${session.validation.circuit-breaker.open-ms:" + DEFAULT_OPEN_MS + "}") long openMs,
+            @Value("${session.validation.circuit-breaker.max-open-ms:" + DEFAULT_MAX_OPEN_MS + "}") long maxOpenMs,
+            SecurityMetrics securityMetrics,
+            MeterRegistry meterRegistry) {
+        this.securityMetrics = securityMetrics;
+        this.attemptTimeoutNanos = attemptTimeoutMs * 1_000_000L;
+        this.deadlineNanos = deadlineMs * 1_000_000L;
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryDelay = Duration.ofMillis(retryDelayMs);
+        this.hedgeMinDelayNanos = hedgeMinDelayMs * 1_000_000L;
+
+        instances.add(new Instance("principal", baseUrl + contextPath, new AdaptiveCircuitBreaker(
+                breakerEnabled, windowSize, minimumCalls, failureRateThreshold, slowCallMs, openMs, maxOpenMs)));
+        if (hedgeBaseUrl != null && !hedgeBaseUrl.isBlank()) {
+            instances.add(new Instance("cobertura", hedgeBaseUrl + contextPath, new AdaptiveCircuitBreaker(
+                    breakerEnabled, windowSize, minimumCalls, failureRateThreshold, slowCallMs, openMs, maxOpenMs)));
+        }
+
+        for (Instance instance : instances) {
+            Gauge.builder("cotizador.seguridad.circuito.estado", instance.breaker, b -> b.getState().ordinal())
+                    .description("Estado del circuito hacia ms-seguridad (0 cerrado, 1 abierto, 2 semiabierto)")
+                    .tag("instancia", instance.name)
+                    .register(meterRegistry);
+            Gauge.builder("cotizador.seguridad.llamadas.p95", instance.breaker, b -> b.getP95Nanos() / 1_000_000.0)
+                    .description("p95 reciente de las llamadas exitosas, base del retraso de cobertura")
+                    .tag("instancia", instance.name)
+                    .baseUnit("milliseconds")
+                    .register(meterRegistry);
+        }
+        this.rejected = Counter.builder("cotizador.seguridad.circuito.rechazos")
+                .description("Llamadas rechazadas de inmediato con el circuito abierto")
+                .register(meterRegistry);
+        this.hedgesLaunched = Counter.builder("cotizador.seguridad.cobertura")
+                .description("Llamadas de cobertura a la segunda instancia de ms-seguridad")
+                .tag("resultado", "lanzada")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("cotizador.seguridad.cobertura")
+                .description("Llamadas de cobertura a la segunda instancia de ms-seguridad")
+                .tag("resultado", "ganada")
+                .register(meterRegistry);
+
+        logger.info("RemoteCallGuard inicializado - plazo: {}ms, reintentos: {}, instancia de cobertura: {}, " +
+                    "circuit breaker: {} (ventana {}, mínimo {}, umbral {}, lenta desde {}ms, apertura {}-{}ms)",
+                    deadlineMs, this.maxRetries, instances.size() > 1 ? hedgeBaseUrl : "no", breakerEnabled,
+                    windowSize, minimumCalls, failureRateThreshold, slowCallMs, openMs, maxOpenMs);
+    }
+
+    /**
+     * Protección con los valores por omisión, para clientes creados fuera de Spring
+     *
+     * @param attemptTimeoutMs Plazo de cada intento
+     * @param deadlineMs       Plazo total de la llamada, compartido por reintentos y cobertura
+     */
+    static RemoteCallGuard withDefaults(String baseUrl, String contextPath, long attemptTimeoutMs, long deadlineMs) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new RemoteCallGuard(baseUrl, contextPath, attemptTimeoutMs, deadlineMs,
+                DEFAULT_MAX_RETRIES, DEFAULT_RETRY_DELAY_MS, DEFAULT_HEDGE_BASE_URL, DEFAULT_HEDGE_MIN_DELAY_MS,
+                DEFAULT_BREAKER_ENABLED, DEFAULT_WINDOW_SIZE, DEFAULT_MINIMUM_CALLS, DEFAULT_FAILURE_RATE_THRESHOLD,
+                DEFAULT_SLOW_CALL_MS, DEFAULT_OPEN_MS, DEFAULT_MAX_OPEN_MS,
+                new SecurityMetrics(meterRegistry), meterRegistry);
+    }
+
+    /**
+     * Ejecuta una llamada a ms-seguridad con plazo, reintentos, circuit breaker y cobertura
+     *
+     * @param operation Nombre de la operación para las métricas
+     * @param hedge     true si la operación es idempotente y puede repetirse en la segunda instancia
+     * @param request   Construye la petición a partir de la URL base de la instancia (con context path)
+     * @return Resultado de la primera instancia que responda
+     */
+    public <T> Mono<T> call(String operation, boolean hedge, Function<String, Mono<T>> request) {
+        return Mono.defer(() -> {
+            long deadline = System.nanoTime() + deadlineNanos;
+
+            Instance primary = null;
+            for (Instance instance : instances) {
+                if (instance.breaker.tryAcquire()) {
+                    primary = instance;
+                    break;
+                }
+            }
+            if (primary == null) {
+                rejected.increment();
+                return Mono.<T>error(new SessionValidationClient.SessionValidationException(
+                        "Circuito abierto: ms-seguridad no disponible"));
+            }
+
+            Instance secondary = hedge ? other(primary) : null;
+            if (secondary == null) {
+                return attempt(primary, request, deadline);
+            }
+
+            Carrera carrera = new Carrera();
+            Mono<T> call = attempt(primary, request, deadline)
+                    .onErrorResume(e -> primaryFailed(e, secondary, request, deadline, carrera));
+            long delay = Math.max(hedgeMinDelayNanos, primary.breaker.getP95Nanos());
+            if (delay < deadlineNanos) {
+                call = Mono.firstWithSignal(call, hedged(secondary, request, deadline, delay, carrera));
+            }
+            return call;
+        }).transform(securityMetrics.timeRemoteCall(operation));
+    }
+
+    /**
+     * Falla de la instancia principal: si es recuperable (5xx, 429, conexión o plazo del intento) y la
+     * cobertura no ha salido, la lanza de inmediato con el plazo restante; si ya salió, espera su
+     * resultado. Las respuestas 4xx son decisiones de ms-seguridad y se propagan tal cual.
+     */
+    private <T> Mono<T> primaryFailed(Throwable error, Instance secondary, Function<String, Mono<T>> request,
+                                      long deadline, Carrera carrera) {
+        if (!isFailure(error)) {
+            return Mono.error(error);
+        }
+        if (carrera.lanzar()) {
+            if (deadline - System.nanoTime() <= 0 || !secondary.breaker.tryAcquire()) {
+                return Mono.error(error);
+            }
+            hedgesLaunched.increment();
+            return attempt(secondary, request, deadline)
+                    .doOnSuccess(result -> hedgesWon.increment());
+        }
+        Throwable last = carrera.fallar(error);
+        return last != null ? Mono.error(last) : Mono.never();
+    }
+
+    /**
+     * Repite la llamada en la segunda instancia tras el retraso; si falla sólo decide el resultado
+     * cuando la principal ya falló también
+     */
+    private <T> Mono<T> hedged(Instance instance, Function<String, Mono<T>> request, long deadline, long delayNanos,
+                               Carrera carrera) {
+        return Mono.delay(Duration.ofNanos(delayNanos))
+                .then(Mono.defer(() -> {
+                    if (!carrera.lanzar()) {
+                        return Mono.<T>never();
+                    }
+                    if (!instance.breaker.tryAcquire()) {
+                        Throwable last = carrera.fallar(new SessionValidationClient.SessionValidationException(
+                                "Circuito abierto: ms-seguridad no disponible"));
+                        return last != null ? Mono.<T>error(last) : Mono.<T>never();
+                    }
+                    hedgesLaunched.increment();
+                    return attempt(instance, request, deadline)
+                            .doOnSuccess(result -> hedgesWon.increment())
+                            .onErrorResume(e -> {
+                                Throwable last = carrera.fallar(e);
+                                return last != null ? Mono.error(last) : Mono.never();
+                            });
+                }));
+    }
+
+    /**
+     * Intento contra una instancia: cada reintento usa sólo el plazo restante
+     */
+    private <T> Mono<T> attempt(Instance instance, Function<String, Mono<T>> request, long deadline) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return Mono.defer(() -> request.apply(instance.baseUrl).timeout(attemptTimeout(deadline)))
+                    .retryWhen(Retry.backoff(maxRetries, retryDelay)
+                            .filter(e -> e instanceof WebClientRequestException
+                                    && deadline - System.nanoTime() > retryDelay.toNanos())
+                            .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                    .doOnSuccess(result -> instance.breaker.onResult(false, System.nanoTime() - start))
+                    .doOnError(e -> instance.breaker.onResult(isFailure(e), System.nanoTime() - start))
+                    .doOnCancel(() -> instance.breaker.onCancel(System.nanoTime() - start));
+        });
+    }
+
+    private Duration attemptTimeout(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        return Duration.ofNanos(Math.max(1_000_000L, Math.min(attemptTimeoutNanos, remaining)));
+    }
+
+    private Instance other(Instance instance) {
+        for (Instance candidate : instances) {
+            if (candidate != instance) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Las respuestas 4xx (salvo 429) son decisiones de ms-seguridad, no fallas de la instancia
+     */
+    private static boolean isFailure(Throwable error) {
+        if (error instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return true;
+    }
+
+    private record Instance(String name, String baseUrl, AdaptiveCircuitBreaker breaker) {
+    }
+
+    /**
+     * Estado compartido entre la llamada principal y su cobertura: la cobertura sale una sola vez
+     * (por retraso o por falla de la principal) y un error sólo se propaga cuando ya no queda otra
+     * llamada en curso; en ese caso gana el primer error registrado.
+     */
+    private static final class Carrera {
+
+        private boolean lanzada;
+        private int enCurso = 1;
+        private Throwable error;
+
+        synchronized boolean lanzar() {
+            if (lanzada) {
+                return false;
+            }
+            lanzada = true;
+            enCurso++;
+            return true;
+        }
+
+        synchronized Throwable fallar(Throwable falla) {
+            if (error == null) {
+                error = falla;
+            }
+            return --enCurso == 0 ? error : null;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package mx.com.qtx.cotizador.security.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import mx.com.qtx.cotizador.security.dto.SessionRevocationMessage;
+import mx.com.qtx.cotizador.security.service.RevokedSessionFilter;
+import mx.com.qtx.cotizador.security.service.SessionCacheService;
+import mx.com.qtx.cotizador.security.service.VerifiedTokenCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+
+/**
+ * Suscriptor del flujo de revocaciones de sesión de ms-seguridad (server-sent events)
+ * Mantiene una conexión HTTP de larga duración y, por cada sesión revocada, invalida
+ * de inmediato las entradas del caché de sesiones y de tokens verificados.
+ * Mientras la suscripción está activa el caché de sesiones usa su TTL largo; si se
+ * pierde vuelve al TTL corto y se reconecta con backoff exponencial.
+ */
+@Component
+@Profile({"default", "docker"})
+public class SessionRevocationListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionRevocationListener.class);
+
+    static final String EVENT_CONNECTED = "connected";
+    static final String EVENT_SESSION_REVOKED = "session-revoked";
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> EVENT_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    private final SessionCacheService sessionCacheService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final RevokedSessionFilter revokedSessionFilter;
+    private final ObjectMapper objectMapper;
+    private final WebClient webClient;
+    private final String revocationsUrl;
+    private final boolean enabled;
+    private final Duration idleTimeout;
+    private final Duration reconnectMinDelay;
+    private final Duration reconnectMaxDelay;
+
+    private volatile Disposable subscription;
+
+    public SessionRevocationListener(
+            SessionCacheService sessionCacheService,
+            VerifiedTokenCache verifiedTokenCache,
+            RevokedSessionFilter revokedSessionFilter,
+            ObjectMapper objectMapper,
+            @Value("${jwt.ms-seguridad.base-url}") String baseUrl,
+            @Value("${jwt.ms-seguridad.context-path}") String contextPath,
+            @Value("${session.revocation.enabled:true}") boolean enabled,
+            @Value("${session.revocation.idle-timeout-ms:45000}") long idleTimeoutMs,
+            @Value("${session.revocation.reconnect-min-ms:1000}") long reconnectMinMs,
+            @Value("${session.revocation.reconnect-max-ms:30000}") long reconnectMaxMs) {
+        this.sessionCacheService = sessionCacheService;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.revokedSessionFilter = revokedSessionFilter;
+        this.objectMapper = objectMapper;
+        this.revocationsUrl = baseUrl + contextPath + "/session/revocations";
+        this.enabled = enabled;
+        this.idleTimeout = Duration.ofMillis(idleTimeoutMs);
+        this.reconnectMinDelay = Duration.ofMillis(reconnectMinMs);
+        this.reconnectMaxDelay = Duration.ofMillis(reconnectMaxMs);
+        this.webClient = WebClient.builder()
+                .defaultHeader("User-Agent", "ms-cotizador/1.0")
+                .defaultHeader("X-Service", "ms-cotizador")
+                .build();
+
+        logger.info("SessionRevocationListener inicializado - habilitado: {}, URL: {}", enabled, revocationsUrl);
+    }
+
+    /**
+     * Inicia la suscripción una vez que la aplicación está lista
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || subscription != null) {
+            return;
+        }
+
+        subscription = webClient.get()
+                .uri(revocationsUrl)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .retrieve()
+                .bodyToFlux(EVENT_TYPE)
+                // Sin latidos durante el periodo de inactividad la conexión se da por perdida
+                .timeout(idleTimeout)
+                // Un cierre normal del servidor también obliga a reconectar
+                .concatWith(Flux.error(() -> new IllegalStateException("Flujo de revocaciones cerrado por ms-seguridad")))
+                .doOnNext(this::handleEvent)
+                .doOnError(this::onDisconnected)
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, reconnectMinDelay)
+                        .maxBackoff(reconnectMaxDelay)
+                        .transientErrors(true))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Disposable current = subscription;
+        if (current != null) {
+            current.dispose();
+        }
+        sessionCacheService.setPushConnected(false);
+    }
+
+    /**
+     * Procesa un evento del flujo de revocaciones
+     */
+    void handleEvent(ServerSentEvent<String> event) {
+        if (EVENT_CONNECTED.equals(event.event())) {
+            // Las revocaciones ocurridas sin conexión se perdieron: se parte de un caché vacío
+            sessionCacheService.clearCache();
+            verifiedTokenCache.clear();
+            sessionCacheService.setPushConnected(true);
+            logger.info("Suscripción al flujo de revocaciones de sesión establecida");
+            return;
+        }
+
+        if (!EVENT_SESSION_REVOKED.equals(event.event()) || event.data() == null) {
+            return;
+        }
+
+        try {
+            SessionRevocationMessage message = objectMapper.readValue(event.data(), SessionRevocationMessage.class);
+            if (message.getSessionIds() == null) {
+                return;
+            }
+            for (String sessionId : message.getSessionIds()) {
+                sessionCacheService.invalidateSession(sessionId);
+                verifiedTokenCache.invalidateSession(sessionId);
+                revokedSessionFilter.markRevoked(sessionId);
+            }
+            logger.debug("Revocación recibida para {} sesiones ({})", message.getSessionIds().size(), message.getReason());
+        } catch (Exception e) {
+            logger.warn("Evento de revocación inválido: {}", e.getMessage());
+        }
+    }
+
+    private void onDisconnected(Throwable error) {
+        sessionCacheService.setPushConnected(false);
+        logger.warn("Suscripción al flujo de revocaciones perdida, reintentando: {}", error.getMessage());
+    }
+
+    public boolean isConnected() {
+        return sessionCacheService.isPushConnected();
+    }
+}
\ No newline at end of file
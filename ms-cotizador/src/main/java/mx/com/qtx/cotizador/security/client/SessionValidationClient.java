@@ -1,60 +1,95 @@
 package mx.com.qtx.cotizador.security.client;
 
+import mx.com.qtx.cotizador.security.dto.RevokedSessionSnapshot;
+import mx.com.qtx.cotizador.security.dto.SessionBatchValidationRequest;
+import mx.com.qtx.cotizador.security.dto.SessionBatchValidationResponse;
 import mx.com.qtx.cotizador.security.dto.SessionInfo;
 import mx.com.qtx.cotizador.security.dto.SessionInfoResponse;
 import mx.com.qtx.cotizador.security.dto.SessionValidationResponse;
 import mx.com.qtx.cotizador.security.dto.SessionCloseResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.CircuitBreaker;
-import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientException;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Cliente para comunicación con ms-seguridad para validación de sesiones
- * Implementa retry logic, circuit breaker y manejo de errores para alta disponibilidad
+ * Las llamadas pasan por {@link RemoteCallGuard}: plazo total compartido por los reintentos,
+ * circuit breaker por latencia y errores, y cobertura opcional en una segunda instancia.
+ * Las operaciones tienen una variante asíncrona que no bloquea hilos; las
+ * validaciones de sesión concurrentes se agrupan (micro-batching) en una sola
+ * llamada al endpoint de validación en lote de ms-seguridad.
  */
 @Component
 @Profile({"default", "docker"})
 public class SessionValidationClient {
 
     private static final Logger logger = LoggerFactory.getLogger(SessionValidationClient.class);
+    private static final long BATCH_UNSUPPORTED_RECHECK_MS = 300000;
 
     private final WebClient webClient;
     private final String baseUrl;
     private final String contextPath;
-    private final Duration timeout;
     private final Duration connectTimeout;
+    private final RemoteCallGuard callGuard;
+
+    // Rutas de endpoints específicos (relativas a la URL base de cada instancia)
+    private static final String VALIDATE_SESSION_PATH = "/session/validate";
+    private static final String SESSION_INFO_PATH = "/session/info";
+    private static final String CLOSE_SESSION_PATH = "/session/close";
+    private static final String VALIDATE_BATCH_PATH = "/session/validate/batch";
+    private static final String REVOCATION_SNAPSHOT_PATH = "/session/revocations/snapshot";
+
+    // Agrupación de validaciones concurrentes
+    private final Duration batchWindow;
+    private final int maxBatchSize;
+    private final Object batchLock = new Object();
+    private Map<String, CompletableFuture<Boolean>> pendingBatch = new HashMap<>();
+    private volatile long batchUnsupportedUntil;
+
+    public SessionValidationClient(String baseUrl, String contextPath, int timeoutMs, int connectTimeoutMs) {
+        this(baseUrl, contextPath, timeoutMs, connectTimeoutMs, 5, 100);
+    }
 
-    // URLs de endpoints específicos
-    private final String validateSessionUrl;
-    private final String getSessionInfoUrl;
-    private final String closeSessionUrl;
+    public SessionValidationClient(String baseUrl, String contextPath, int timeoutMs, int connectTimeoutMs,
+                                   long batchWindowMs, int maxBatchSize) {
+        this(baseUrl, contextPath, timeoutMs, connectTimeoutMs, batchWindowMs, maxBatchSize,
+             RemoteCallGuard.withDefaults(baseUrl, contextPath, timeoutMs, timeoutMs));
+    }
 
+    @Autowired
     public SessionValidationClient(
             @Value("${jwt.ms-seguridad.base-url}") String baseUrl,
             @Value("${jwt.ms-seguridad.context-path}") String contextPath,
             @Value("${jwt.ms-seguridad.timeout:15000}") int timeoutMs,
-            @Value("${jwt.ms-seguridad.connect-timeout:5000}") int connectTimeoutMs) {
+            @Value("${jwt.ms-seguridad.connect-timeout:5000}") int connectTimeoutMs,
+            @Value("${session.validation.batch-window-ms:5}") long batchWindowMs,
+            @Value("${session.validation.batch-max-size:100}") int maxBatchSize,
+            RemoteCallGuard callGuard) {
         
         this.baseUrl = baseUrl;
         this.contextPath = contextPath;
-        this.timeout = Duration.ofMillis(timeoutMs);
         this.connectTimeout = Duration.ofMillis(connectTimeoutMs);
-        
-        // Construir URLs de endpoints
-        this.validateSessionUrl = baseUrl + contextPath + "/session/validate";
-        this.getSessionInfoUrl = baseUrl + contextPath + "/session/info";
-        this.closeSessionUrl = baseUrl + contextPath + "/session/close";
+        this.batchWindow = Duration.ofMillis(batchWindowMs);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.callGuard = callGuard;
         
         this.webClient = WebClient.builder()
                 .codecs(configurer -> configurer.defaultCodecs().maxInMemorySize(1024 * 1024)) // 1MB max
@@ -63,8 +98,9 @@ public class SessionValidationClient {
                 .defaultHeader("X-Service", "ms-cotizador")
                 .build();
         
-        logger.info("SessionValidationClient inicializado con base URL: {}, context path: {}, timeout: {}ms, connect timeout: {}ms", 
-                   baseUrl, contextPath, timeoutMs, connectTimeoutMs);
+        logger.info("SessionValidationClient inicializado con base URL: {}, context path: {}, timeout: {}ms, connect timeout: {}ms, " +
+                   "ventana de lote: {}ms, máximo por lote: {}", 
+                   baseUrl, contextPath, timeoutMs, connectTimeoutMs, batchWindowMs, this.maxBatchSize);
     }
 
     /**
@@ -73,53 +109,71 @@ public class SessionValidationClient {
      * @param sessionId ID de la sesión a validar
      * @return true si la sesión está activa, false en caso contrario
      */
-    @Retryable(
-        retryFor = {WebClientException.class, RuntimeException.class},
-        maxAttempts = 3,
-        backoff = @Backoff(delay = 1000, multiplier = 2.0)
-    )
-    @CircuitBreaker(
-        retryFor = {WebClientException.class, RuntimeException.class},
-        maxAttempts = 3,
-        openTimeout = 5000,
-        resetTimeout = 30000
-    )
     public boolean validateSession(String sessionId) {
         if (sessionId == null || sessionId.trim().isEmpty()) {
             logger.warn("Session ID es null o vacío");
             return false;
         }
 
-        logger.debug("Validando sesión: {}", sessionId);
-        
-        try {
-            SessionValidationResponse response = webClient
-                    .get()
-                    .uri(validateSessionUrl + "/{sessionId}", sessionId)
-                    .retrieve()
-                    .bodyToMono(SessionValidationResponse.class)
-                    .timeout(timeout)
-                    .block();
-
-            if (response == null) {
-                logger.warn("Respuesta null al validar sesión: {}", sessionId);
-                return false;
+        return await(validateSessionAsync(sessionId), "Error inesperado al validar sesión");
+    }
+
+    /**
+     * Valida si una sesión está activa sin bloquear el hilo que llama.
+     * Las validaciones concurrentes se agrupan durante unos milisegundos y se
+     * resuelven con una sola llamada al endpoint de validación en lote
+     * 
+     * @param sessionId ID de la sesión a validar
+     * @return Futuro con true si la sesión está activa
+     */
+    public CompletableFuture<Boolean> validateSessionAsync(String sessionId) {
+        if (sessionId == null || sessionId.trim().isEmpty()) {
+            logger.warn("Session ID es null o vacío");
+            return CompletableFuture.completedFuture(false);
+        }
+
+        CompletableFuture<Boolean> future;
+        Map<String, CompletableFuture<Boolean>> fullBatch = null;
+        boolean firstInBatch = false;
+        synchronized (batchLock) {
+            future = pendingBatch.get(sessionId);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                pendingBatch.put(sessionId, future);
+                firstInBatch = pendingBatch.size() == 1;
+                if (pendingBatch.size() >= maxBatchSize) {
+                    fullBatch = pendingBatch;
+                    pendingBatch = new HashMap<>();
+                }
             }
+        }
 
-            boolean isValid = response.isValid();
-            logger.debug("Sesión {} validada: {}", sessionId, isValid);
-            return isValid;
+        if (fullBatch != null) {
+            sendBatch(fullBatch);
+        } else if (firstInBatch) {
+            Mono.delay(batchWindow).subscribe(tick -> flushPendingBatch());
+        }
+        return future;
+    }
 
-        } catch (WebClientResponseException e) {
-            logger.error("Error HTTP al validar sesión {}: {} - {}", sessionId, e.getStatusCode(), e.getResponseBodyAsString());
-            return false;
-        } catch (WebClientException e) {
-            logger.error("Error de comunicación al validar sesión {}: {}", sessionId, e.getMessage());
-            throw new SessionValidationException("Error de comunicación con ms-seguridad", e);
-        } catch (Exception e) {
-            logger.error("Error inesperado al validar sesión {}: {}", sessionId, e.getMessage(), e);
-            throw new SessionValidationException("Error inesperado al validar sesión", e);
+    /**
+     * Valida varias sesiones sin bloquear el hilo que llama
+     * 
+     * @param sessionIds IDs de las sesiones a validar
+     * @return Futuro con el estado de cada sesión
+     */
+    public CompletableFuture<Map<String, Boolean>> validateSessionsAsync(Collection<String> sessionIds) {
+        Map<String, CompletableFuture<Boolean>> futures = new LinkedHashMap<>();
+        for (String sessionId : sessionIds) {
+            futures.computeIfAbsent(sessionId, this::validateSessionAsync);
         }
+
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    Map<String, Boolean> result = new LinkedHashMap<>();
+                    futures.forEach((sessionId, future) -> result.put(sessionId, future.join()));
+                    return result;
+                });
     }
 
     /**
@@ -128,62 +182,54 @@ public class SessionValidationClient {
      * @param sessionId ID de la sesión
      * @return Optional con información de la sesión si existe
      */
-    @Retryable(
-        retryFor = {WebClientException.class, RuntimeException.class},
-        maxAttempts = 3,
-        backoff = @Backoff(delay = 1000, multiplier = 2.0)
-    )
-    @CircuitBreaker(
-        retryFor = {WebClientException.class, RuntimeException.class},
-        maxAttempts = 3,
-        openTimeout = 5000,
-        resetTimeout = 30000
-    )
     public Optional<SessionInfo> getSessionInfo(String sessionId) {
+        return await(getSessionInfoAsync(sessionId), "Error inesperado al obtener información de sesión");
+    }
+
+    /**
+     * Obtiene información detallada de una sesión sin bloquear el hilo que llama
+     * 
+     * @param sessionId ID de la sesión
+     * @return Futuro con la información de la sesión si existe
+     */
+    public CompletableFuture<Optional<SessionInfo>> getSessionInfoAsync(String sessionId) {
         if (sessionId == null || sessionId.trim().isEmpty()) {
             logger.warn("Session ID es null o vacío");
-            return Optional.empty();
+            return CompletableFuture.completedFuture(Optional.empty());
         }
 
         logger.debug("Obteniendo información de sesión: {}", sessionId);
         
-        try {
-            SessionInfoResponse response = webClient
-                    .get()
-                    .uri(getSessionInfoUrl + "/{sessionId}", sessionId)
-                    .retrieve()
-                    .bodyToMono(SessionInfoResponse.class)
-                    .timeout(timeout)
-                    .block();
-
-            if (response == null) {
-                logger.warn("Respuesta null al obtener información de sesión: {}", sessionId);
-                return Optional.empty();
-            }
-
-            if (response.isSuccessful()) {
-                SessionInfo sessionInfo = response.toSessionInfo();
-                logger.debug("Información de sesión {} obtenida exitosamente", sessionId);
-                return Optional.of(sessionInfo);
-            } else {
-                logger.warn("Error al obtener información de sesión {}: {}", sessionId, response.getMessage());
-                return Optional.empty();
-            }
-
-        } catch (WebClientResponseException e) {
-            if (e.getStatusCode().value() == 404) {
-                logger.debug("Sesión no encontrada: {}", sessionId);
-                return Optional.empty();
-            }
-            logger.error("Error HTTP al obtener información de sesión {}: {} - {}", sessionId, e.getStatusCode(), e.getResponseBodyAsString());
-            throw new SessionValidationException("Error HTTP al obtener información de sesión", e);
-        } catch (WebClientException e) {
-            logger.error("Error de comunicación al obtener información de sesión {}: {}", sessionId, e.getMessage());
-            throw new SessionValidationException("Error de comunicación con ms-seguridad", e);
-        } catch (Exception e) {
-            logger.error("Error inesperado al obtener información de sesión {}: {}", sessionId, e.getMessage(), e);
-            throw new SessionValidationException("Error inesperado al obtener información de sesión", e);
-        }
+        return callGuard.call("info", true, base -> webClient
+                        .get()
+                        .uri(base + SESSION_INFO_PATH + "/{sessionId}", sessionId)
+                        .retrieve()
+                        .bodyToMono(SessionInfoResponse.class))
+                .map(response -> {
+                    if (response.isSuccessful()) {
+                        logger.debug("Información de sesión {} obtenida exitosamente", sessionId);
+                        return Optional.of(response.toSessionInfo());
+                    }
+                    logger.warn("Error al obtener información de sesión {}: {}", sessionId, response.getMessage());
+                    return Optional.<SessionInfo>empty();
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.warn("Respuesta null al obtener información de sesión: {}", sessionId);
+                    return Optional.empty();
+                }))
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    if (e.getStatusCode().value() == 404) {
+                        logger.debug("Sesión no encontrada: {}", sessionId);
+                        return Mono.just(Optional.empty());
+                    }
+                    logger.error("Error HTTP al obtener información de sesión {}: {} - {}", sessionId, e.getStatusCode(), e.getResponseBodyAsString());
+                    return Mono.error(new SessionValidationException("Error HTTP al obtener información de sesión", e));
+                })
+                .onErrorMap(e -> !(e instanceof SessionValidationException), e -> {
+                    logger.error("Error de comunicación al obtener información de sesión {}: {}", sessionId, e.getMessage());
+                    return new SessionValidationException("Error de comunicación con ms-seguridad", e);
+                })
+                .toFuture();
     }
 
     /**
@@ -192,56 +238,193 @@ public class SessionValidationClient {
      * @param sessionId ID de la sesión a cerrar
      * @return true si la sesión fue cerrada exitosamente
      */
-    @Retryable(
-        retryFor = {WebClientException.class, RuntimeException.class},
-        maxAttempts = 3,
-        backoff = @Backoff(delay = 1000, multiplier = 2.0)
-    )
-    @CircuitBreaker(
-        retryFor = {WebClientException.class, RuntimeException.class},
-        maxAttempts = 3,
-        openTimeout = 5000,
-        resetTimeout = 30000
-    )
     public boolean closeSession(String sessionId) {
+        return await(closeSessionAsync(sessionId), "Error inesperado al cerrar sesión");
+    }
+
+    /**
+     * Cierra una sesión sin bloquear el hilo que llama
+     * 
+     * @param sessionId ID de la sesión a cerrar
+     * @return Futuro con true si la sesión fue cerrada exitosamente
+     */
+    public CompletableFuture<Boolean> closeSessionAsync(String sessionId) {
         if (sessionId == null || sessionId.trim().isEmpty()) {
             logger.warn("Session ID es null o vacío");
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
         logger.debug("Cerrando sesión: {}", sessionId);
         
-        try {
-            SessionCloseResponse response = webClient
-                    .post()
-                    .uri(closeSessionUrl + "/{sessionId}", sessionId)
-                    .retrieve()
-                    .bodyToMono(SessionCloseResponse.class)
-                    .timeout(timeout)
-                    .block();
-
-            if (response == null) {
-                logger.warn("Respuesta null al cerrar sesión: {}", sessionId);
-                return false;
+        return callGuard.call("cerrar", false, base -> webClient
+                        .post()
+                        .uri(base + CLOSE_SESSION_PATH + "/{sessionId}", sessionId)
+                        .retrieve()
+                        .bodyToMono(SessionCloseResponse.class))
+                .map(response -> {
+                    boolean closed = response.isSuccessful();
+                    logger.debug("Sesión {} cerrada: {}", sessionId, closed);
+                    return closed;
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.warn("Respuesta null al cerrar sesión: {}", sessionId);
+                    return false;
+                }))
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    if (e.getStatusCode().value() == 404) {
+                        logger.debug("Sesión no encontrada al cerrar: {}", sessionId);
+                    } else {
+                        logger.error("Error HTTP al cerrar sesión {}: {} - {}", sessionId, e.getStatusCode(), e.getResponseBodyAsString());
+                    }
+                    return Mono.just(false);
+                })
+                .onErrorMap(e -> !(e instanceof SessionValidationException), e -> {
+                    logger.error("Error de comunicación al cerrar sesión {}: {}", sessionId, e.getMessage());
+                    return new SessionValidationException("Error de comunicación con ms-seguridad", e);
+                })
+                .toFuture();
+    }
+
+    /**
+     * Obtiene la instantánea de sesiones revocadas de ms-seguridad
+     * 
+     * @param since Última versión conocida de la instantánea (0 si ninguna)
+     * @return Futuro con el filtro de Bloom y las revocaciones exactas posteriores a esa versión
+     */
+    public CompletableFuture<RevokedSessionSnapshot> getRevocationSnapshotAsync(long since) {
+        logger.debug("Obteniendo instantánea de sesiones revocadas desde la versión {}", since);
+        
+        return callGuard.call("instantanea", true, base -> webClient
+                        .get()
+                        .uri(base + REVOCATION_SNAPSHOT_PATH + "?since={since}", since)
+                        .retrieve()
+                        .bodyToMono(RevokedSessionSnapshot.class))
+                .switchIfEmpty(Mono.error(() -> new SessionValidationException("Instantánea de sesiones revocadas vacía")))
+                .onErrorMap(e -> !(e instanceof SessionValidationException),
+                        e -> new SessionValidationException("Error obteniendo instantánea de sesiones revocadas", e))
+                .toFuture();
+    }
+
+    /**
+     * Envía el lote pendiente cuando vence la ventana de agrupación
+     */
+    private void flushPendingBatch() {
+        Map<String, CompletableFuture<Boolean>> batch;
+        synchronized (batchLock) {
+            if (pendingBatch.isEmpty()) {
+                return;
             }
+            batch = pendingBatch;
+            pendingBatch = new HashMap<>();
+        }
+        sendBatch(batch);
+    }
 
-            boolean closed = response.isSuccessful();
-            logger.debug("Sesión {} cerrada: {}", sessionId, closed);
-            return closed;
+    /**
+     * Resuelve un lote de validaciones con una sola llamada a ms-seguridad
+     */
+    private void sendBatch(Map<String, CompletableFuture<Boolean>> batch) {
+        List<String> sessionIds = new ArrayList<>(batch.keySet());
+        logger.debug("Validando lote de {} sesiones", sessionIds.size());
+
+        requestBatch(sessionIds).subscribe(
+                sessions -> batch.forEach((sessionId, future) ->
+                        future.complete(Boolean.TRUE.equals(sessions.get(sessionId)))),
+                error -> {
+                    logger.error("Error de comunicación al validar lote de {} sesiones: {}", sessionIds.size(), error.getMessage());
+                    SessionValidationException exception =
+                            new SessionValidationException("Error de comunicación con ms-seguridad", error);
+                    batch.values().forEach(future -> future.completeExceptionally(exception));
+                });
+    }
+
+    private Mono<Map<String, Boolean>> requestBatch(List<String> sessionIds) {
+        if (System.currentTimeMillis() < batchUnsupportedUntil) {
+            return requestIndividually(sessionIds);
+        }
+
+        return callGuard.call("validar_lote", true, base -> webClient
+                        .post()
+                        .uri(base + VALIDATE_BATCH_PATH)
+                        .bodyValue(new SessionBatchValidationRequest(sessionIds))
+                        .retrieve()
+                        .bodyToMono(SessionBatchValidationResponse.class))
+                .flatMap(response -> {
+                    if (!response.isSuccessful() || response.getSessions() == null) {
+                        // Sin decisión sobre las sesiones: no se deben dar por cerradas
+                        logger.warn("Respuesta sin resultados al validar lote de {} sesiones: {}",
+                                sessionIds.size(), response.getMessage());
+                        return Mono.error(new SessionValidationException(
+                                "ms-seguridad no devolvió resultados para el lote de sesiones"));
+                    }
+                    Map<String, Boolean> sessions = new HashMap<>();
+                    for (String sessionId : sessionIds) {
+                        sessions.put(sessionId, response.isSessionActive(sessionId));
+                    }
+                    return Mono.just(sessions);
+                })
+                .switchIfEmpty(Mono.error(() -> {
+                    // Cuerpo vacío: igual que un 5xx, quien valida usa su respaldo en lugar de cerrar sesiones
+                    logger.warn("Respuesta vacía al validar lote de {} sesiones", sessionIds.size());
+                    return new SessionValidationException("ms-seguridad devolvió una respuesta vacía al validar el lote");
+                }))
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    int status = e.getStatusCode().value();
+                    if (e.getStatusCode().is4xxClientError() && status != 429) {
+                        // Un 4xx del lote no dice nada de las sesiones (una versión anterior de
+                        // ms-seguridad responde 401/403/404/405): validar una por una
+                        logger.warn("ms-seguridad rechazó la validación en lote ({}), validando sesiones individualmente", status);
+                        batchUnsupportedUntil = System.currentTimeMillis() + BATCH_UNSUPPORTED_RECHECK_MS;
+                        return requestIndividually(sessionIds);
+                    }
+                    // Sin decisión sobre las sesiones: no se deben dar por cerradas
+                    logger.error("Error HTTP al validar lote de sesiones: {} - {}", e.getStatusCode(), e.getResponseBodyAsString());
+                    return Mono.error(new SessionValidationException("ms-seguridad no disponible", e));
+                });
+    }
 
-        } catch (WebClientResponseException e) {
-            if (e.getStatusCode().value() == 404) {
-                logger.debug("Sesión no encontrada al cerrar: {}", sessionId);
-                return false;
+    private Mono<Map<String, Boolean>> requestIndividually(List<String> sessionIds) {
+        return Flux.fromIterable(sessionIds)
+                .flatMap(sessionId -> requestSingle(sessionId).map(isValid -> Map.entry(sessionId, isValid)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    private Mono<Boolean> requestSingle(String sessionId) {
+        return callGuard.call("validar", true, base -> webClient
+                        .get()
+                        .uri(base + VALIDATE_SESSION_PATH + "/{sessionId}", sessionId)
+                        .retrieve()
+                        .bodyToMono(SessionValidationResponse.class))
+                .map(SessionValidationResponse::isValid)
+                .defaultIfEmpty(false)
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    logger.error("Error HTTP al validar sesión {}: {} - {}", sessionId, e.getStatusCode(), e.getResponseBodyAsString());
+                    return unavailableOrInactive(e, false);
+                });
+    }
+
+    /**
+     * Un 5xx o 429 indica que ms-seguridad no pudo decidir: se propaga como error para que
+     * quien valida use su respaldo (entrada vencida del caché) en lugar de cerrar la sesión
+     */
+    private static <T> Mono<T> unavailableOrInactive(WebClientResponseException e, T inactive) {
+        if (e.getStatusCode().is5xxServerError() || e.getStatusCode().value() == 429) {
+            return Mono.error(new SessionValidationException("ms-seguridad no disponible", e));
+        }
+        return Mono.just(inactive);
+    }
+
+    /**
+     * Espera el resultado de una operación asíncrona desde código síncrono
+     */
+    private static <T> T await(CompletableFuture<T> future, String unexpectedMessage) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SessionValidationException sessionException) {
+                throw sessionException;
             }
-            logger.error("Error HTTP al cerrar sesión {}: {} - {}", sessionId, e.getStatusCode(), e.getResponseBodyAsString());
-            return false;
-        } catch (WebClientException e) {
-            logger.error("Error de comunicación al cerrar sesión {}: {}", sessionId, e.getMessage());
-            throw new SessionValidationException("Error de comunicación con ms-seguridad", e);
-        } catch (Exception e) {
-            logger.error("Error inesperado al cerrar sesión {}: {}", sessionId, e.getMessage(), e);
-            throw new SessionValidationException("Error inesperado al cerrar sesión", e);
+            throw new SessionValidationException(unexpectedMessage, e.getCause());
         }
     }
 
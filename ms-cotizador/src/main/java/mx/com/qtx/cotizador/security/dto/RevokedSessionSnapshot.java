@@ -0,0 +1,142 @@
+package mx.com.qtx.cotizador.security.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * DTO para mapear la instantánea de sesiones revocadas de ms-seguridad
+ * Contiene un filtro de Bloom con las sesiones revocadas recientes y la lista exacta
+ * de las revocadas después de la versión solicitada
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RevokedSessionSnapshot {
+
+    @JsonProperty("version")
+    private long version;
+
+    @JsonProperty("generatedAt")
+    private long generatedAt;
+
+    @JsonProperty("retentionMs")
+    private long retentionMs;
+
+    @JsonProperty("entries")
+    private int entries;
+
+    @JsonProperty("hashAlgorithm")
+    private String hashAlgorithm;
+
+    @JsonProperty("numBits")
+    private int numBits;
+
+    @JsonProperty("numHashes")
+    private int numHashes;
+
+    @JsonProperty("bits")
+    private String bits;
+
+    @JsonProperty("deltaSince")
+    private long deltaSince;
+
+    @JsonProperty("delta")
+    private List<String> delta;
+
+    // Constructor por defecto
+    public RevokedSessionSnapshot() {
+    }
+
+    // Getters y Setters
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getGeneratedAt() {
+        return generatedAt;
+    }
+
+    public void setGeneratedAt(long generatedAt) {
+        this.generatedAt = generatedAt;
+    }
+
+    public long getRetentionMs() {
+        return retentionMs;
+    }
+
+    public void setRetentionMs(long retentionMs) {
+        this.retentionMs = retentionMs;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public void setEntries(int entries) {
+        this.entries = entries;
+    }
+
+    public String getHashAlgorithm() {
+        return hashAlgorithm;
+    }
+
+    public void setHashAlgorithm(String hashAlgorithm) {
+        this.hashAlgorithm = hashAlgorithm;
+    }
+
+    public int getNumBits() {
+        return numBits;
+    }
+
+    public void setNumBits(int numBits) {
+        this.numBits = numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    public void setNumHashes(int numHashes) {
+        this.numHashes = numHashes;
+    }
+
+    public String getBits() {
+        return bits;
+    }
+
+    public void setBits(String bits) {
+        this.bits = bits;
+    }
+
+    public long getDeltaSince() {
+        return deltaSince;
+    }
+
+    public void setDeltaSince(long deltaSince) {
+        this.deltaSince = deltaSince;
+    }
+
+    public List<String> getDelta() {
+        return delta;
+    }
+
+    public void setDelta(List<String> delta) {
+        this.delta = delta;
+    }
+
+    @Override
+    public String toString() {
+        return "RevokedSessionSnapshot{" +
+                "version=" + version +
+                ", entries=" + entries +
+                ", numBits=" + numBits +
+                ", numHashes=" + numHashes +
+                ", deltaSince=" + deltaSince +
+                ", delta=" + (delta != null ? delta.size() : 0) +
+                '}';
+    }
+}
\ No newline at end of file
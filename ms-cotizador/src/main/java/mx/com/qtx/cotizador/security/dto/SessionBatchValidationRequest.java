@@ -0,0 +1,39 @@
+package mx.com.qtx.cotizador.security.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * DTO para solicitar a ms-seguridad la validación de varias sesiones en una sola llamada
+ * Utilizado en la comunicación entre microservicios
+ */
+public class SessionBatchValidationRequest {
+
+    @JsonProperty("sessionIds")
+    private List<String> sessionIds;
+
+    // Constructor por defecto
+    public SessionBatchValidationRequest() {
+    }
+
+    public SessionBatchValidationRequest(List<String> sessionIds) {
+        this.sessionIds = sessionIds;
+    }
+
+    // Getters y Setters
+    public List<String> getSessionIds() {
+        return sessionIds;
+    }
+
+    public void setSessionIds(List<String> sessionIds) {
+        this.sessionIds = sessionIds;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionBatchValidationRequest{" +
+                "sessionIds=" + (sessionIds != null ? sessionIds.size() : 0) +
+                '}';
+    }
+}
\ No newline at end of file
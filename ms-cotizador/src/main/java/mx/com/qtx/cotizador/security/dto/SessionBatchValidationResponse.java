@@ -0,0 +1,86 @@
+package mx.com.qtx.cotizador.security.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * DTO para mapear respuestas de validación de sesiones en lote desde ms-seguridad
+ * Utilizado en la comunicación entre microservicios
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SessionBatchValidationResponse {
+
+    @JsonProperty("sessions")
+    private Map<String, Boolean> sessions;
+
+    @JsonProperty("message")
+    private String message;
+
+    @JsonProperty("timestamp")
+    private LocalDateTime timestamp;
+
+    @JsonProperty("success")
+    private Boolean success;
+
+    // Constructor por defecto
+    public SessionBatchValidationResponse() {
+    }
+
+    // Getters y Setters
+    public Map<String, Boolean> getSessions() {
+        return sessions;
+    }
+
+    public void setSessions(Map<String, Boolean> sessions) {
+        this.sessions = sessions;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Boolean getSuccess() {
+        return success;
+    }
+
+    public void setSuccess(Boolean success) {
+        this.success = success;
+    }
+
+    // Métodos de utilidad
+    public boolean isSuccessful() {
+        return success != null && success;
+    }
+
+    /**
+     * Indica si la sesión viene marcada como activa en la respuesta
+     */
+    public boolean isSessionActive(String sessionId) {
+        return isSuccessful() && sessions != null && Boolean.TRUE.equals(sessions.get(sessionId));
+    }
+
+    @Override
+    public String toString() {
+        return "SessionBatchValidationResponse{" +
+                "sessions=" + (sessions != null ? sessions.size() : 0) +
+                ", message='" + message + '\'' +
+                ", timestamp=" + timestamp +
+                ", success=" + success +
+                '}';
+    }
+}
\ No newline at end of file
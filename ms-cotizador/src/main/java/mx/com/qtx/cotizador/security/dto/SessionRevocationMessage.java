@@ -0,0 +1,62 @@
+package mx.com.qtx.cotizador.security.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO para mapear los eventos del flujo de revocaciones de sesión de ms-seguridad
+ * Cada mensaje lista las sesiones que dejaron de estar activas
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SessionRevocationMessage {
+
+    @JsonProperty("sessionIds")
+    private List<String> sessionIds;
+
+    @JsonProperty("reason")
+    private String reason;
+
+    @JsonProperty("timestamp")
+    private LocalDateTime timestamp;
+
+    // Constructor por defecto
+    public SessionRevocationMessage() {
+    }
+
+    // Getters y Setters
+    public List<String> getSessionIds() {
+        return sessionIds;
+    }
+
+    public void setSessionIds(List<String> sessionIds) {
+        this.sessionIds = sessionIds;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionRevocationMessage{" +
+                "sessionIds=" + (sessionIds != null ? sessionIds.size() : 0) +
+                ", reason='" + reason + '\'' +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
\ No newline at end of file
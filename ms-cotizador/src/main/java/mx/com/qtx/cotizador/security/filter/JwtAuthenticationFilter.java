@@ -4,12 +4,13 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import mx.com.qtx.cotizador.security.metrics.SecurityMetrics;
 import mx.com.qtx.cotizador.security.service.JwtValidationService;
+import mx.com.qtx.cotizador.security.service.VerifiedTokenCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.context.annotation.Profile;
@@ -17,12 +18,11 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Filtro para autenticación JWT
  * Intercepta requests y valida tokens JWT en el header Authorization
+ * y registra cuánto tiempo agrega la autenticación a cada request con token
  */
 @Component
 @Profile({"default", "docker"})
@@ -33,9 +33,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final String BEARER_PREFIX = "Bearer ";
 
     private final JwtValidationService jwtValidationService;
+    private final SecurityMetrics securityMetrics;
 
-    public JwtAuthenticationFilter(JwtValidationService jwtValidationService) {
+    public JwtAuthenticationFilter(JwtValidationService jwtValidationService, SecurityMetrics securityMetrics) {
         this.jwtValidationService = jwtValidationService;
+        this.securityMetrics = securityMetrics;
     }
 
     @Override
@@ -49,20 +51,25 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = extractTokenFromRequest(request);
             
             if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                // Validar token JWT
-                if (jwtValidationService.isTokenValid(token)) {
-                    // Extraer información del usuario
-                    JwtValidationService.UserInfo userInfo = jwtValidationService.extractUserInfo(token);
+                long start = System.nanoTime();
+                SecurityMetrics.FilterOutcome outcome = SecurityMetrics.FilterOutcome.ERROR;
+                try {
+                    // Validar token JWT una sola vez (o reutilizar una verificación previa)
+                    VerifiedTokenCache.VerifiedToken verified = jwtValidationService.verifyToken(token);
                     
                     // Crear authentication
-                    Authentication authentication = createAuthentication(userInfo, request);
+                    Authentication authentication = createAuthentication(verified, request);
                     
                     // Establecer en security context
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                     
-                    logger.debug("Usuario autenticado vía JWT: {}", userInfo.getUsername());
-                } else {
-                    logger.debug("Token JWT inválido en request: {}", request.getRequestURI());
+                    outcome = SecurityMetrics.FilterOutcome.AUTHENTICATED;
+                    logger.debug("Usuario autenticado vía JWT: {}", verified.getUserInfo().getUsername());
+                } catch (JwtValidationService.JwtValidationException e) {
+                    outcome = SecurityMetrics.FilterOutcome.REJECTED;
+                    logger.debug("Token JWT inválido en request {}: {}", request.getRequestURI(), e.getMessage());
+                } finally {
+                    securityMetrics.recordFilter(outcome, System.nanoTime() - start);
                 }
             }
             
@@ -90,16 +97,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     /**
      * Crea un objeto Authentication basado en la información del usuario JWT
      */
-    private Authentication createAuthentication(JwtValidationService.UserInfo userInfo, HttpServletRequest request) {
-        // Extraer roles del usuario
-        List<SimpleGrantedAuthority> authorities = extractAuthorities(userInfo.getRoles());
-        
-        // Crear authentication token
+    private Authentication createAuthentication(VerifiedTokenCache.VerifiedToken verified, HttpServletRequest request) {
+        // Crear authentication token con las autoridades ya calculadas al verificar
         UsernamePasswordAuthenticationToken authentication = 
             new UsernamePasswordAuthenticationToken(
-                userInfo.getUsername(),
+                verified.getUserInfo().getUsername(),
                 null, // No credentials needed for JWT
-                authorities
+                verified.getAuthorities()
             );
         
         // Establecer detalles de la web request
@@ -108,21 +112,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return authentication;
     }
 
-    /**
-     * Extrae las autoridades (roles) de la lista de roles
-     */
-    private List<SimpleGrantedAuthority> extractAuthorities(List<String> roles) {
-        if (roles == null || roles.isEmpty()) {
-            return List.of(new SimpleGrantedAuthority("ROLE_USER"));
-        }
-        
-        return roles.stream()
-                .map(String::trim)
-                .map(role -> role.startsWith("ROLE_") ? role : "ROLE_" + role)
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
-    }
-
     /**
      * Determina si el filtro debe ejecutarse para este request
      * Skip para endpoints que no requieren autenticación
@@ -0,0 +1,144 @@
+package mx.com.qtx.cotizador.security.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import mx.com.qtx.cotizador.security.service.JwksKeyStore;
+import mx.com.qtx.cotizador.security.service.JwtValidationService;
+import mx.com.qtx.cotizador.security.service.SessionCacheService;
+import mx.com.qtx.cotizador.security.service.VerifiedTokenCache;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.OptionalLong;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publica como métricas de Micrometer las estadísticas que ya llevan los servicios de seguridad
+ * (caché de sesiones, caché de tokens verificados, almacén de llaves JWKS y rotación de llaves).
+ * Los contadores leen los acumulados de cada servicio al momento de la consulta, por lo que
+ * la ruta de cada request no paga nada adicional.
+ */
+@Component
+@Profile({"default", "docker"})
+public class SecurityMeterBinder implements MeterBinder {
+
+    private final SessionCacheService sessionCacheService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final JwksKeyStore jwksKeyStore;
+    private final JwtValidationService jwtValidationService;
+
+    public SecurityMeterBinder(SessionCacheService sessionCacheService,
+                               VerifiedTokenCache verifiedTokenCache,
+                               JwksKeyStore jwksKeyStore,
+                               JwtValidationService jwtValidationService) {
+        this.sessionCacheService = sessionCacheService;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.jwksKeyStore = jwksKeyStore;
+        this.jwtValidationService = jwtValidationService;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindSessionCache(registry);
+        bindVerifiedTokenCache(registry);
+        bindKeyStore(registry);
+    }
+
+    /**
+     * SessionCacheService.CacheStats
+     */
+    private void bindSessionCache(MeterRegistry registry) {
+        SessionCacheService s = sessionCacheService;
+        counter(registry, "cotizador.sesiones.cache.consultas", "Consultas a la caché de sesiones",
+                s, x -> x.getCacheStats().getHitCount(), "resultado", "acierto");
+        counter(registry, "cotizador.sesiones.cache.consultas", "Consultas a la caché de sesiones",
+                s, x -> x.getCacheStats().getMissCount(), "resultado", "fallo");
+        counter(registry, "cotizador.sesiones.cache.errores", "Errores al validar sesiones con ms-seguridad",
+                s, x -> x.getCacheStats().getErrorCount());
+        counter(registry, "cotizador.sesiones.cache.desalojos", "Entradas removidas de la caché de sesiones",
+                s, x -> x.getCacheStats().getEvictionCount(), "causa", "tamano");
+        counter(registry, "cotizador.sesiones.cache.desalojos", "Entradas removidas de la caché de sesiones",
+                s, x -> x.getCacheStats().getExpirationCount(), "causa", "expiracion");
+        counter(registry, "cotizador.sesiones.cache.agrupadas", "Validaciones que esperaron una llamada remota en curso",
+                s, x -> x.getCacheStats().getCoalescedCount());
+        counter(registry, "cotizador.sesiones.cache.revalidaciones", "Revalidaciones anticipadas en segundo plano",
+                s, x -> x.getCacheStats().getRefreshCount());
+
+        Gauge.builder("cotizador.sesiones.cache.tamano", s, x -> x.getCacheStats().getSize())
+                .description("Entradas en la caché de sesiones")
+                .register(registry);
+        Gauge.builder("cotizador.sesiones.cache.ttl", s, x -> x.getCacheStats().getTtlMs())
+                .description("TTL efectivo de la caché de sesiones")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("cotizador.sesiones.revocaciones.push", s, x -> x.isPushConnected() ? 1 : 0)
+                .description("1 si la suscripción a revocaciones de ms-seguridad está activa")
+                .register(registry);
+    }
+
+    /**
+     * VerifiedTokenCache.CacheStats
+     */
+    private void bindVerifiedTokenCache(MeterRegistry registry) {
+        VerifiedTokenCache c = verifiedTokenCache;
+        counter(registry, "cotizador.jwt.cache.consultas", "Consultas a la caché de tokens verificados",
+                c, x -> x.getCacheStats().getHitCount(), "resultado", "acierto");
+        counter(registry, "cotizador.jwt.cache.consultas", "Consultas a la caché de tokens verificados",
+                c, x -> x.getCacheStats().getMissCount(), "resultado", "fallo");
+        counter(registry, "cotizador.jwt.cache.desalojos", "Tokens desalojados de la caché por tamaño",
+                c, x -> x.getCacheStats().getEvictionCount());
+        Gauge.builder("cotizador.jwt.cache.tamano", c, x -> x.getCacheStats().getSize())
+                .description("Tokens en la caché de tokens verificados")
+                .register(registry);
+    }
+
+    /**
+     * JwksKeyStore.StoreStats, JwtValidationService.CacheStats y KeyRotationStatus
+     */
+    private void bindKeyStore(MeterRegistry registry) {
+        JwksKeyStore k = jwksKeyStore;
+        counter(registry, "cotizador.jwt.llaves.descargas", "Consultas del JWKS a ms-seguridad",
+                k, x -> x.getStats().getFetchCount());
+        counter(registry, "cotizador.jwt.llaves.descargas.no.modificadas", "Consultas del JWKS respondidas con 304",
+                k, x -> x.getStats().getNotModifiedCount());
+        counter(registry, "cotizador.jwt.llaves.descargas.fallidas", "Consultas del JWKS fallidas",
+                k, x -> x.getStats().getFailureCount());
+        counter(registry, "cotizador.jwt.llaves.descargas.agrupadas", "Búsquedas de llave que esperaron una consulta en curso",
+                k, x -> x.getStats().getCoalescedCount());
+        counter(registry, "cotizador.jwt.kid.desconocidos.aciertos", "Búsquedas resueltas por la caché de KIDs desconocidos",
+                k, x -> x.getStats().getNegativeHitCount());
+        Gauge.builder("cotizador.jwt.kid.desconocidos", k, x -> x.getStats().getUnknownKeyIdCount())
+                .description("KIDs desconocidos recordados")
+                .register(registry);
+
+        JwtValidationService j = jwtValidationService;
+        Gauge.builder("cotizador.jwt.llaves", j, x -> x.getCacheStats().getKeyCount())
+                .description("Llaves públicas cargadas")
+                .register(registry);
+        Gauge.builder("cotizador.jwt.llaves.antiguedad", j, SecurityMeterBinder::oldestKeyAgeMs)
+                .description("Tiempo desde la última verificación de las llaves contra ms-seguridad")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("cotizador.jwt.kid.invalidos", j, x -> x.getKeyRotationConfig().getCurrentInvalidAttempts())
+                .description("Intentos con KIDs inválidos desde la última alerta")
+                .register(registry);
+    }
+
+    private static double oldestKeyAgeMs(JwtValidationService service) {
+        JwtValidationService.KeyRotationStatus status = service.getKeyRotationStatus();
+        OptionalLong oldest = status.getCachedKeyIds().stream()
+                .mapToLong(status::getKeyAgeMs)
+                .max();
+        return oldest.isPresent() ? oldest.getAsLong() : Double.NaN;
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, String description,
+                                    T source, ToDoubleFunction<T> count, String... tags) {
+        FunctionCounter.builder(name, source, count)
+                .description(description)
+                .tags(tags)
+                .register(registry);
+    }
+}
@@ -0,0 +1,136 @@
+package mx.com.qtx.cotizador.security.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Temporizadores de la ruta de autenticación
+ * Mide el costo del filtro JWT por request, la verificación de tokens y las llamadas
+ * a ms-seguridad, con histogramas para consultar percentiles desde Prometheus.
+ * Los temporizadores de la ruta de cada request se crean al inicio para no buscarlos
+ * en el registro en cada medición.
+ */
+@Component
+@Profile({"default", "docker"})
+public class SecurityMetrics {
+
+    public static final String FILTER_TIMER = "cotizador.seguridad.filtro";
+    public static final String JWT_VERIFICATION_TIMER = "cotizador.seguridad.jwt.verificacion";
+    public static final String REMOTE_CALL_TIMER = "cotizador.seguridad.llamadas";
+
+    // Rango de los histogramas locales: desde un acierto de caché hasta una validación remota lenta
+    private static final Duration MIN_EXPECTED = Duration.ofNanos(10_000);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(10);
+
+    /**
+     * Resultado del filtro JWT para un request con token Bearer
+     */
+    public enum FilterOutcome {
+        AUTHENTICATED("autenticado"),
+        REJECTED("rechazado"),
+        ERROR("error");
+
+        private final String tag;
+
+        FilterOutcome(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Map<FilterOutcome, Timer> filterTimers = new EnumMap<>(FilterOutcome.class);
+    private final Timer verificationCachedValid;
+    private final Timer verificationCachedInvalid;
+    private final Timer verificationSignedValid;
+    private final Timer verificationSignedInvalid;
+
+    public SecurityMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (FilterOutcome outcome : FilterOutcome.values()) {
+            filterTimers.put(outcome, localTimer(FILTER_TIMER, "Tiempo de autenticación JWT por request")
+                    .tag("resultado", outcome.tag)
+                    .register(meterRegistry));
+        }
+        this.verificationCachedValid = verificationTimer("cache", "valido");
+        this.verificationCachedInvalid = verificationTimer("cache", "invalido");
+        this.verificationSignedValid = verificationTimer("firma", "valido");
+        this.verificationSignedInvalid = verificationTimer("firma", "invalido");
+    }
+
+    /**
+     * Registra el tiempo que el filtro JWT agregó a un request
+     *
+     * @param outcome Resultado de la autenticación
+     * @param nanos   Duración en nanosegundos
+     */
+    public void recordFilter(FilterOutcome outcome, long nanos) {
+        filterTimers.get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registra el tiempo de verificar un token, incluida la validación de su sesión
+     *
+     * @param cached true si se reutilizó una verificación previa (sin verificar firma)
+     * @param valid  true si el token se aceptó
+     * @param nanos  Duración en nanosegundos
+     */
+    public void recordJwtVerification(boolean cached, boolean valid, long nanos) {
+        Timer timer = cached
+                ? (valid ? verificationCachedValid : verificationCachedInvalid)
+                : (valid ? verificationSignedValid : verificationSignedInvalid);
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Mide una llamada a ms-seguridad desde la suscripción hasta su terminación,
+     * incluidos los reintentos y el timeout. Se aplica con {@code Mono.transform}
+     *
+     * @param operation Nombre de la operación remota (etiqueta "operacion")
+     * @return Transformación que agrega la medición a la llamada
+     */
+    public <T> Function<Mono<T>, Mono<T>> timeRemoteCall(String operation) {
+        return call -> Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return call.doFinally(signal -> sample.stop(remoteCallTimer(operation, signal)));
+        });
+    }
+
+    private Timer remoteCallTimer(String operation, SignalType signal) {
+        String outcome = switch (signal) {
+            case ON_COMPLETE -> "exito";
+            case ON_ERROR -> "error";
+            default -> "cancelada";
+        };
+        return Timer.builder(REMOTE_CALL_TIMER)
+                .description("Latencia de las llamadas a ms-seguridad")
+                .tag("operacion", operation)
+                .tag("resultado", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Timer verificationTimer(String source, String result) {
+        return localTimer(JWT_VERIFICATION_TIMER, "Tiempo de verificación de tokens JWT")
+                .tag("origen", source)
+                .tag("resultado", result)
+                .register(meterRegistry);
+    }
+
+    private static Timer.Builder localTimer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED);
+    }
+}
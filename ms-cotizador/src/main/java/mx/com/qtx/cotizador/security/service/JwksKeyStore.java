@@ -0,0 +1,531 @@
+package mx.com.qtx.cotizador.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import mx.com.qtx.cotizador.security.client.JwksClient;
+import mx.com.qtx.cotizador.security.dto.JwkKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Almacén único de llaves públicas para validar tokens JWT
+ * Conserva todas las llaves publicadas por ms-seguridad ya construidas como PublicKey,
+ * en un conjunto inmutable que se reemplaza completo en cada actualización (lectura sin bloqueo).
+ * Se actualiza con peticiones condicionales (ETag): si el JWKS no cambió, ms-seguridad
+ * responde 304 y sólo se marca el conjunto como confirmado.
+ * Un kid desconocido provoca a lo sumo una descarga en curso a la vez (las peticiones
+ * concurrentes esperan la misma). Las descargas provocadas por kids desconocidos se limitan
+ * a una por intervalo mínimo; la actualización programada no cuenta, así que una llave
+ * rotada justo después de ella se descarga en la primera petición que la usa. Los kids
+ * que siguen sin existir se recuerdan un tiempo para no volver a consultar por ellos.
+ * Un kid sólo se recuerda como inexistente si lo confirmó una descarga iniciada después
+ * de verlo por primera vez; una llave recién rotada nunca queda bloqueada por una
+ * descarga anterior a su publicación.
+ */
+@Service
+@Profile({"default", "docker"})
+public class JwksKeyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwksKeyStore.class);
+
+    private final JwksClient jwksClient;
+    private final long refreshIntervalMs;
+    private final long minRefreshIntervalMs;
+    private final long negativeTtlMs;
+    private final boolean keyRotationEnabled;
+    private final boolean logRotationEvents;
+
+    // Conjunto vigente de llaves; se reemplaza completo en cada actualización
+    private volatile KeySet keySet = KeySet.EMPTY;
+
+    // Descarga en curso (single-flight)
+    private final AtomicReference<CompletableFuture<KeySet>> inFlight = new AtomicReference<>();
+
+    // Kids que no existen en el JWKS vigente
+    private final Cache<String, Boolean> unknownKeyIds;
+
+    private final AtomicBoolean initialized = new AtomicBoolean(false);
+    private volatile long lastAttemptMs;
+    private volatile boolean lastAttemptFailed;
+    // Última descarga provocada por un kid desconocido
+    private volatile long lastOnDemandFetchMs;
+
+    private final AtomicLong fetchCount = new AtomicLong(0);
+    private final AtomicLong notModifiedCount = new AtomicLong(0);
+    private final AtomicLong coalescedCount = new AtomicLong(0);
+    private final AtomicLong negativeHitCount = new AtomicLong(0);
+    private final AtomicLong failureCount = new AtomicLong(0);
+
+    public JwksKeyStore(
+            JwksClient jwksClient,
+            @Value("${jwt.jwks.refresh-interval-ms:300000}") long refreshIntervalMs,
+            @Value("${jwt.jwks.min-refresh-interval-ms:10000}") long minRefreshIntervalMs,
+            @Value("${jwt.jwks.negative-ttl-ms:60000}") long negativeTtlMs,
+            @Value("${jwt.jwks.negative-max-size:1000}") int negativeMaxSize,
+            @Value("${jwt.key-rotation.enabled:true}") boolean keyRotationEnabled,
+            @Value("${jwt.key-rotation.log-rotation-events:true}") boolean logRotationEvents) {
+        this.jwksClient = jwksClient;
+        this.refreshIntervalMs = refreshIntervalMs;
+        this.minRefreshIntervalMs = minRefreshIntervalMs;
+        this.negativeTtlMs = negativeTtlMs;
+        this.keyRotationEnabled = keyRotationEnabled;
+        this.logRotationEvents = logRotationEvents;
+        this.unknownKeyIds = Caffeine.newBuilder()
+                .maximumSize(negativeMaxSize)
+                .expireAfterWrite(Duration.ofMillis(negativeTtlMs))
+                .build();
+
+        logger.info("JwksKeyStore inicializado - refresh: {}ms, intervalo mínimo: {}ms, caché negativo: {}ms ({} kids), " +
+                    "rotación reactiva: {}", refreshIntervalMs, minRefreshIntervalMs, negativeTtlMs, negativeMaxSize,
+                    keyRotationEnabled);
+    }
+
+    /**
+     * Carga inicial de llaves al arrancar la aplicación
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void initialize() {
+        if (initialized.compareAndSet(false, true)) {
+            logger.info("Cargando llaves públicas JWKS al arrancar la aplicación");
+            refreshInBackground();
+        }
+    }
+
+    /**
+     * Actualización periódica condicional del conjunto de llaves
+     */
+    @Scheduled(fixedDelayString = "${jwt.jwks.refresh-interval-ms:300000}",
+               initialDelayString = "${jwt.jwks.initial-delay-ms:10000}")
+    public void scheduledRefresh() {
+        logger.debug("Ejecutando actualización programada de llaves JWKS");
+        refreshInBackground();
+    }
+
+    /**
+     * Obtiene la llave pública para un kid
+     * Si el kid no está en el conjunto vigente se descarga el JWKS (una sola descarga
+     * compartida) salvo que otro kid desconocido haya provocado una hace menos del
+     * intervalo mínimo.
+     *
+     * @param keyId kid del encabezado del token
+     * @return la llave, o null si ms-seguridad no publica ese kid
+     * @throws JwksClient.JwksClientException si no hay JWKS disponible para decidir
+     */
+    public PublicKey getKey(String keyId) {
+        KeySet current = keySet;
+        PublicKey key = current.keys.get(keyId);
+        if (key != null) {
+            return key;
+        }
+
+        if (unknownKeyIds.getIfPresent(keyId) != null) {
+            negativeHitCount.incrementAndGet();
+            return null;
+        }
+
+        // Sólo una descarga iniciada después de este momento puede confirmar que el kid no existe
+        long fetchesBeforeSeen = fetchCount.get();
+
+        // Con una descarga en curso se espera su resultado; si no, se limita la frecuencia
+        if (inFlight.get() == null) {
+            long now = System.currentTimeMillis();
+            if (now - lastAttemptMs < minRefreshIntervalMs && lastAttemptFailed) {
+                // ms-seguridad falló hace poco: no insistir en cada petición
+                throw new JwksClient.JwksClientException("JWKS no disponible; último intento fallido hace "
+                        + (now - lastAttemptMs) + "ms");
+            }
+            if (current.loaded && !keyRotationEnabled) {
+                // Sin rotación reactiva el conjunto vigente es la única referencia
+                rememberUnknown(keyId);
+                return null;
+            }
+            if (current.loaded && now - lastOnDemandFetchMs < minRefreshIntervalMs) {
+                // Otro kid desconocido provocó una descarga hace poco (posible inundación de kids
+                // falsos): se rechaza sin recordarlo, y pasado el intervalo la siguiente petición
+                // lo descarga
+                return null;
+            }
+            lastOnDemandFetchMs = now;
+        }
+
+        if (logRotationEvents && current.loaded) {
+            logger.info("🔄 Detectado nuevo KID: {}. Actualizando llaves JWKS", keyId);
+        }
+        KeySet refreshed = awaitRefresh();
+        key = refreshed.keys.get(keyId);
+        if (key == null && refreshed.loaded && refreshed.fetchNumber > fetchesBeforeSeen) {
+            rememberUnknown(keyId);
+        }
+        return key;
+    }
+
+    /**
+     * Descarga el JWKS de inmediato, ignorando el intervalo mínimo y el caché negativo
+     *
+     * @return true si la descarga terminó bien
+     */
+    public boolean forceRefresh() {
+        unknownKeyIds.invalidateAll();
+        try {
+            awaitRefresh();
+            return true;
+        } catch (JwksClient.JwksClientException e) {
+            logger.error("❌ Actualización forzada de llaves JWKS fallida: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Indica si el conjunto vigente contiene el kid
+     */
+    public boolean containsKey(String keyId) {
+        return keySet.keys.containsKey(keyId);
+    }
+
+    /**
+     * Descarta las llaves y el caché negativo; la siguiente validación vuelve a descargarlas
+     */
+    public void clear() {
+        keySet = KeySet.EMPTY;
+        unknownKeyIds.invalidateAll();
+        lastAttemptMs = 0;
+        lastAttemptFailed = false;
+        lastOnDemandFetchMs = 0;
+    }
+
+    /**
+     * Kids del conjunto vigente
+     */
+    public Set<String> getKeyIds() {
+        return keySet.keys.keySet();
+    }
+
+    /**
+     * Momento en que ms-seguridad confirmó por última vez cada llave vigente
+     */
+    public Map<String, Long> getKeyVerifiedTimestamps() {
+        KeySet current = keySet;
+        Map<String, Long> timestamps = new LinkedHashMap<>();
+        for (String keyId : current.keys.keySet()) {
+            timestamps.put(keyId, current.verifiedAtMs);
+        }
+        return timestamps;
+    }
+
+    public long getRefreshIntervalMs() {
+        return refreshIntervalMs;
+    }
+
+    public boolean isKeyRotationEnabled() {
+        return keyRotationEnabled;
+    }
+
+    public boolean isLogRotationEvents() {
+        return logRotationEvents;
+    }
+
+    /**
+     * Obtiene estadísticas del almacén
+     */
+    public StoreStats getStats() {
+        KeySet current = keySet;
+        return new StoreStats(
+                current.keys.size(),
+                current.etag,
+                current.verifiedAtMs,
+                unknownKeyIds.estimatedSize(),
+                fetchCount.get(),
+                notModifiedCount.get(),
+                coalescedCount.get(),
+                negativeHitCount.get(),
+                failureCount.get(),
+                negativeTtlMs
+        );
+    }
+
+    private void rememberUnknown(String keyId) {
+        unknownKeyIds.put(keyId, Boolean.TRUE);
+    }
+
+    private void refreshInBackground() {
+        refresh().whenComplete((result, error) -> {
+            if (error != null) {
+                logger.warn("No se pudieron actualizar las llaves JWKS: {}", rootMessage(error));
+            }
+        });
+    }
+
+    private KeySet awaitRefresh() {
+        try {
+            return refresh().join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof JwksClient.JwksClientException clientException) {
+                throw clientException;
+            }
+            throw new JwksClient.JwksClientException("Error actualizando llaves JWKS", cause);
+        }
+    }
+
+    /**
+     * Inicia una descarga o se une a la que ya está en curso
+     */
+    private CompletableFuture<KeySet> refresh() {
+        while (true) {
+            CompletableFuture<KeySet> current = inFlight.get();
+            if (current != null) {
+                coalescedCount.incrementAndGet();
+                return current;
+            }
+            CompletableFuture<KeySet> future = new CompletableFuture<>();
+            if (inFlight.compareAndSet(null, future)) {
+                startFetch(future);
+                return future;
+            }
+        }
+    }
+
+    private void startFetch(CompletableFuture<KeySet> future) {
+        long fetchNumber = fetchCount.incrementAndGet();
+        lastAttemptMs = System.currentTimeMillis();
+        KeySet previous = keySet;
+
+        CompletableFuture<JwksClient.JwksFetchResult> fetch;
+        try {
+            fetch = jwksClient.fetchJwksConditional(previous.etag).toFuture();
+        } catch (RuntimeException e) {
+            fetch = CompletableFuture.failedFuture(e);
+        }
+
+        fetch.whenComplete((result, error) -> {
+            KeySet updated = null;
+            Throwable failure = error;
+            if (failure == null) {
+                try {
+                    updated = apply(previous, result, fetchNumber);
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+
+            // Liberar el single-flight antes de despertar a quienes esperan
+            lastAttemptFailed = failure != null;
+            inFlight.compareAndSet(future, null);
+            if (failure != null) {
+                failureCount.incrementAndGet();
+                future.completeExceptionally(failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure);
+            } else {
+                future.complete(updated);
+            }
+        });
+    }
+
+    /**
+     * Construye el nuevo conjunto de llaves a partir de la respuesta
+     */
+    private KeySet apply(KeySet previous, JwksClient.JwksFetchResult result, long fetchNumber) {
+        long now = System.currentTimeMillis();
+
+        if (result.isNotModified() && previous.loaded) {
+            notModifiedCount.incrementAndGet();
+            KeySet confirmed = new KeySet(previous.keys, previous.etag, now, true, fetchNumber);
+            keySet = confirmed;
+            logger.debug("JWKS sin cambios (304). Llaves vigentes: {}", previous.keys.keySet());
+            return confirmed;
+        }
+        if (result.getJwks() == null) {
+            throw new JwksClient.JwksClientException("ms-seguridad respondió 304 sin llaves cargadas");
+        }
+
+        Map<String, PublicKey> keys = new LinkedHashMap<>();
+        for (JwkKey jwkKey : result.getJwks().getKeys()) {
+            PublicKey existing = previous.keys.get(jwkKey.getKeyId());
+            try {
+                keys.put(jwkKey.getKeyId(), existing != null ? existing : buildPublicKey(jwkKey));
+            } catch (Exception e) {
+                logger.warn("Llave JWKS ignorada (kid: {}): {}", jwkKey.getKeyId(), e.getMessage());
+            }
+        }
+        if (keys.isEmpty()) {
+            throw new JwksClient.JwksClientException("El JWKS no contiene llaves RSA utilizables");
+        }
+
+        KeySet updated = new KeySet(Collections.unmodifiableMap(keys), result.getEtag(), now, true, fetchNumber);
+        keySet = updated;
+        logChanges(previous, updated);
+        return updated;
+    }
+
+    private void logChanges(KeySet previous, KeySet updated) {
+        if (!logRotationEvents || previous.keys.keySet().equals(updated.keys.keySet())) {
+            return;
+        }
+        Set<String> added = new HashSet<>(updated.keys.keySet());
+        added.removeAll(previous.keys.keySet());
+        Set<String> removed = new HashSet<>(previous.keys.keySet());
+        removed.removeAll(updated.keys.keySet());
+        logger.info("✅ Llaves JWKS actualizadas. Nuevas: {}, retiradas: {}, vigentes: {}",
+                added, removed, updated.keys.keySet());
+    }
+
+    /**
+     * Construye una PublicKey RSA desde JwkKey
+     */
+    static PublicKey buildPublicKey(JwkKey jwkKey) throws Exception {
+        if (!"RSA".equals(jwkKey.getKeyType())) {
+            throw new IllegalArgumentException("Solo se soportan claves RSA");
+        }
+
+        // Decodificar modulus y exponent desde Base64URL
+        byte[] modulusBytes = Base64.getUrlDecoder().decode(jwkKey.getModulus());
+        byte[] exponentBytes = Base64.getUrlDecoder().decode(jwkKey.getExponent());
+
+        BigInteger modulus = new BigInteger(1, modulusBytes);
+        BigInteger exponent = new BigInteger(1, exponentBytes);
+
+        RSAPublicKeySpec spec = new RSAPublicKeySpec(modulus, exponent);
+        KeyFactory factory = KeyFactory.getInstance("RSA");
+
+        return factory.generatePublic(spec);
+    }
+
+    private static String rootMessage(Throwable error) {
+        Throwable cause = error;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+
+    /**
+     * Conjunto inmutable de llaves con el ETag con que se obtuvo
+     */
+    private static final class KeySet {
+        static final KeySet EMPTY = new KeySet(Map.of(), null, 0L, false, 0L);
+
+        final Map<String, PublicKey> keys;
+        final String etag;
+        final long verifiedAtMs;
+        final boolean loaded;
+        // Número de la descarga que confirmó este conjunto
+        final long fetchNumber;
+
+        KeySet(Map<String, PublicKey> keys, String etag, long verifiedAtMs, boolean loaded, long fetchNumber) {
+            this.keys = keys;
+            this.etag = etag;
+            this.verifiedAtMs = verifiedAtMs;
+            this.loaded = loaded;
+            this.fetchNumber = fetchNumber;
+        }
+    }
+
+    /**
+     * Estadísticas del almacén de llaves
+     */
+    public static class StoreStats {
+        private final int keyCount;
+        private final String etag;
+        private final long lastVerifiedMs;
+        private final long unknownKeyIdCount;
+        private final long fetchCount;
+        private final long notModifiedCount;
+        private final long coalescedCount;
+        private final long negativeHitCount;
+        private final long failureCount;
+        private final long negativeTtlMs;
+
+        public StoreStats(int keyCount, String etag, long lastVerifiedMs, long unknownKeyIdCount, long fetchCount,
+                          long notModifiedCount, long coalescedCount, long negativeHitCount, long failureCount,
+                          long negativeTtlMs) {
+            this.keyCount = keyCount;
+            this.etag = etag;
+            this.lastVerifiedMs = lastVerifiedMs;
+            this.unknownKeyIdCount = unknownKeyIdCount;
+            this.fetchCount = fetchCount;
+            this.notModifiedCount = notModifiedCount;
+            this.coalescedCount = coalescedCount;
+            this.negativeHitCount = negativeHitCount;
+            this.failureCount = failureCount;
+            this.negativeTtlMs = negativeTtlMs;
+        }
+
+        public int getKeyCount() {
+            return keyCount;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public long getLastVerifiedMs() {
+            return lastVerifiedMs;
+        }
+
+        public long getUnknownKeyIdCount() {
+            return unknownKeyIdCount;
+        }
+
+        public long getFetchCount() {
+            return fetchCount;
+        }
+
+        public long getNotModifiedCount() {
+            return notModifiedCount;
+        }
+
+        public long getCoalescedCount() {
+            return coalescedCount;
+        }
+
+        public long getNegativeHitCount() {
+            return negativeHitCount;
+        }
+
+        public long getFailureCount() {
+            return failureCount;
+        }
+
+        public long getNegativeTtlMs() {
+            return negativeTtlMs;
+        }
+
+        @Override
+        public String toString() {
+            return "StoreStats{" +
+                    "keyCount=" + keyCount +
+                    ", etag='" + etag + '\'' +
+                    ", lastVerifiedMs=" + lastVerifiedMs +
+                    ", unknownKeyIdCount=" + unknownKeyIdCount +
+                    ", fetchCount=" + fetchCount +
+                    ", notModifiedCount=" + notModifiedCount +
+                    ", coalescedCount=" + coalescedCount +
+                    ", negativeHitCount=" + negativeHitCount +
+                    ", failureCount=" + failureCount +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,567 @@
+package mx.com.qtx.cotizador.security.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Lector del encabezado de un JWT compacto ({@code header.payload.firma})
+ * Recorre el token sólo hasta el primer punto, decodifica el Base64URL del encabezado
+ * en un buffer reutilizable por hilo y analiza el JSON resultante para extraer
+ * {@code kid} y {@code alg}, sin partir el token ni crear cadenas intermedias.
+ * Todos los tokens firmados con la misma llave comparten el encabezado, así que cada
+ * hilo recuerda el último encabezado leído y, si el siguiente token empieza igual,
+ * lo devuelve sin volver a decodificarlo.
+ * Cualquier encabezado mal formado (Base64 inválido, JSON incompleto, claves
+ * duplicadas, tipos incorrectos) se rechaza devolviendo null.
+ */
+public final class JwtHeaderReader {
+
+    // Un encabezado JWT real mide unas decenas de bytes; el límite acota el buffer
+    static final int MAX_HEADER_CHARS = 4096;
+    private static final int MAX_NESTING = 16;
+
+    private static final byte[] BASE64URL = new byte[128];
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    static {
+        Arrays.fill(BASE64URL, (byte) -1);
+        for (int i = 0; i < 26; i++) {
+            BASE64URL['A' + i] = (byte) i;
+            BASE64URL['a' + i] = (byte) (26 + i);
+        }
+        for (int i = 0; i < 10; i++) {
+            BASE64URL['0' + i] = (byte) (52 + i);
+        }
+        BASE64URL['-'] = 62;
+        BASE64URL['_'] = 63;
+    }
+
+    private JwtHeaderReader() {
+    }
+
+    /**
+     * Lee el encabezado del token
+     *
+     * @param token Token JWT compacto
+     * @return Encabezado con kid y alg (cualquiera puede ser null si no viene),
+     *         o null si el token no tiene un encabezado válido
+     */
+    public static JwtHeader read(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        int end = token.indexOf('.');
+        if (end <= 0 || end > MAX_HEADER_CHARS) {
+            return null;
+        }
+
+        Buffers buffers = BUFFERS.get();
+        String lastEncoded = buffers.lastEncoded;
+        if (lastEncoded != null && lastEncoded.length() == end && token.regionMatches(0, lastEncoded, 0, end)) {
+            return buffers.lastHeader;
+        }
+
+        // Copia en bloque: recorrer el String con charAt cuesta varias veces más
+        token.getChars(0, end, buffers.chars, 0);
+        int length = decodeBase64Url(buffers.chars, end, buffers.bytes);
+        if (length < 0) {
+            return null;
+        }
+        JwtHeader header = new Parser(buffers.bytes, length).parseHeader();
+        if (header != null) {
+            buffers.lastEncoded = token.substring(0, end);
+            buffers.lastHeader = header;
+        }
+        return header;
+    }
+
+    /**
+     * Decodifica chars[0, end) en el buffer de bytes
+     *
+     * @return Número de bytes decodificados, o -1 si no es Base64URL válido
+     */
+    private static int decodeBase64Url(char[] chars, int end, byte[] buffer) {
+        // Se tolera el relleno aunque JWS lo omite
+        int length = end;
+        while (length > 0 && chars[length - 1] == '=') {
+            length--;
+        }
+        if (length % 4 == 1 || (length < end && (end % 4 != 0 || end - length > 2))) {
+            return -1;
+        }
+
+        // Cada grupo de 4 caracteres produce 3 bytes
+        int out = 0;
+        int full = length & ~3;
+        for (int i = 0; i < full; i += 4) {
+            int quantum = sextets(chars[i], chars[i + 1], chars[i + 2], chars[i + 3]);
+            if (quantum < 0) {
+                return -1;
+            }
+            buffer[out++] = (byte) (quantum >> 16);
+            buffer[out++] = (byte) (quantum >> 8);
+            buffer[out++] = (byte) quantum;
+        }
+
+        // Grupo final incompleto: 2 caracteres dan 1 byte, 3 caracteres dan 2
+        int remaining = length - full;
+        if (remaining > 0) {
+            int quantum = sextets(chars[full], chars[full + 1], remaining == 3 ? chars[full + 2] : 'A', 'A');
+            if (quantum < 0) {
+                return -1;
+            }
+            buffer[out++] = (byte) (quantum >> 16);
+            if (remaining == 3) {
+                buffer[out++] = (byte) (quantum >> 8);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Combina cuatro caracteres Base64URL en 24 bits
+     *
+     * @return Los 24 bits, o -1 si algún caracter no pertenece al alfabeto
+     */
+    private static int sextets(char c0, char c1, char c2, char c3) {
+        if ((c0 | c1 | c2 | c3) >= 128) {
+            return -1;
+        }
+        int v0 = BASE64URL[c0];
+        int v1 = BASE64URL[c1];
+        int v2 = BASE64URL[c2];
+        int v3 = BASE64URL[c3];
+        if ((v0 | v1 | v2 | v3) < 0) {
+            return -1;
+        }
+        return (v0 << 18) | (v1 << 12) | (v2 << 6) | v3;
+    }
+
+    /**
+     * Estado reutilizable por hilo: caracteres del encabezado, sus bytes decodificados
+     * y el último encabezado válido leído
+     */
+    private static final class Buffers {
+        private final char[] chars = new char[MAX_HEADER_CHARS];
+        private final byte[] bytes = new byte[MAX_HEADER_CHARS / 4 * 3];
+        private String lastEncoded;
+        private JwtHeader lastHeader;
+    }
+
+    /**
+     * Analizador mínimo de JSON sobre los bytes UTF-8 del encabezado
+     */
+    private static final class Parser {
+        private final byte[] bytes;
+        private final int end;
+        private int pos;
+        private boolean lastStringEscaped;
+
+        Parser(byte[] bytes, int end) {
+            this.bytes = bytes;
+            this.end = end;
+        }
+
+        JwtHeader parseHeader() {
+            skipWhitespace();
+            if (next() != '{') {
+                return null;
+            }
+
+            String keyId = null;
+            String algorithm = null;
+            boolean seenKeyId = false;
+            boolean seenAlgorithm = false;
+
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+            } else {
+                while (true) {
+                    skipWhitespace();
+                    int keyStart = pos + 1;
+                    int keyEnd = skipString();
+                    if (keyEnd < 0) {
+                        return null;
+                    }
+                    boolean keyEscaped = lastStringEscaped;
+                    skipWhitespace();
+                    if (next() != ':') {
+                        return null;
+                    }
+                    skipWhitespace();
+
+                    boolean isKeyId = isKey(keyStart, keyEnd, keyEscaped, "kid");
+                    boolean isAlgorithm = !isKeyId && isKey(keyStart, keyEnd, keyEscaped, "alg");
+                    if (isKeyId || isAlgorithm) {
+                        // Ambos miembros deben ser cadenas y no pueden repetirse
+                        if ((isKeyId && seenKeyId) || (isAlgorithm && seenAlgorithm)) {
+                            return null;
+                        }
+                        String value = readString();
+                        if (value == null) {
+                            return null;
+                        }
+                        if (isKeyId) {
+                            keyId = value;
+                            seenKeyId = true;
+                        } else {
+                            algorithm = value;
+                            seenAlgorithm = true;
+                        }
+                    } else if (!skipValue(0)) {
+                        return null;
+                    }
+
+                    skipWhitespace();
+                    int separator = next();
+                    if (separator == '}') {
+                        break;
+                    }
+                    if (separator != ',') {
+                        return null;
+                    }
+                }
+            }
+
+            skipWhitespace();
+            return pos == end ? new JwtHeader(keyId, algorithm) : null;
+        }
+
+        private boolean isKey(int start, int close, boolean escaped, String name) {
+            if (escaped) {
+                return name.equals(decodeString(start, close));
+            }
+            if (close - start != name.length()) {
+                return false;
+            }
+            for (int i = 0; i < name.length(); i++) {
+                if (bytes[start + i] != name.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Lee una cadena JSON en la posición actual
+         *
+         * @return La cadena, o null si no hay una cadena válida
+         */
+        private String readString() {
+            int start = pos + 1;
+            int close = skipString();
+            if (close < 0) {
+                return null;
+            }
+            return lastStringEscaped ? decodeString(start, close) : new String(bytes, start, close - start, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Avanza sobre una cadena JSON validando sus escapes
+         *
+         * @return Índice de la comilla de cierre, o -1 si la cadena no es válida
+         */
+        private int skipString() {
+            if (peek() != '"') {
+                return -1;
+            }
+            pos++;
+            lastStringEscaped = false;
+            while (pos < end) {
+                // Camino rápido: ASCII imprimible sin comillas ni escapes (los bytes >= 0x80 son negativos)
+                byte ascii = bytes[pos];
+                if (ascii >= 0x20 && ascii != '"' && ascii != '\\') {
+                    pos++;
+                    continue;
+                }
+                int b = ascii & 0xFF;
+                if (b == '"') {
+                    return pos++;
+                }
+                if (b < 0x20) {
+                    return -1;
+                }
+                if (b >= 0x80) {
+                    if (!skipUtf8Sequence(b)) {
+                        return -1;
+                    }
+                } else if (b == '\\') {
+                    lastStringEscaped = true;
+                    if (++pos >= end) {
+                        return -1;
+                    }
+                    switch (bytes[pos]) {
+                        case '"', '\\', '/', 'b', 'f', 'n', 'r', 't' -> pos++;
+                        case 'u' -> {
+                            if (pos + 4 >= end) {
+                                return -1;
+                            }
+                            for (int i = 1; i <= 4; i++) {
+                                if (hexValue(bytes[pos + i]) < 0) {
+                                    return -1;
+                                }
+                            }
+                            pos += 5;
+                        }
+                        default -> {
+                            return -1;
+                        }
+                    }
+                } else {
+                    pos++;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Avanza sobre una secuencia UTF-8 de varios bytes rechazando las mal formadas,
+         * las sobrelargas y las que codifican sustitutos
+         */
+        private boolean skipUtf8Sequence(int lead) {
+            int length;
+            int min = 0x80;
+            int max = 0xBF;
+            if (lead >= 0xC2 && lead <= 0xDF) {
+                length = 2;
+            } else if (lead >= 0xE0 && lead <= 0xEF) {
+                length = 3;
+                if (lead == 0xE0) {
+                    min = 0xA0;
+                } else if (lead == 0xED) {
+                    max = 0x9F;
+                }
+            } else if (lead >= 0xF0 && lead <= 0xF4) {
+                length = 4;
+                if (lead == 0xF0) {
+                    min = 0x90;
+                } else if (lead == 0xF4) {
+                    max = 0x8F;
+                }
+            } else {
+                return false;
+            }
+            if (pos + length > end) {
+                return false;
+            }
+            for (int i = 1; i < length; i++) {
+                int b = bytes[pos + i] & 0xFF;
+                if (b < min || b > max) {
+                    return false;
+                }
+                min = 0x80;
+                max = 0xBF;
+            }
+            pos += length;
+            return true;
+        }
+
+        /**
+         * Decodifica una cadena con escapes ya validada por {@link #skipString()}
+         */
+        private String decodeString(int start, int close) {
+            StringBuilder text = new StringBuilder(close - start);
+            int run = start;
+            int i = start;
+            while (i < close) {
+                if (bytes[i] != '\\') {
+                    i++;
+                    continue;
+                }
+                text.append(new String(bytes, run, i - run, StandardCharsets.UTF_8));
+                byte escaped = bytes[i + 1];
+                switch (escaped) {
+                    case 'b' -> text.append('\b');
+                    case 'f' -> text.append('\f');
+                    case 'n' -> text.append('\n');
+                    case 'r' -> text.append('\r');
+                    case 't' -> text.append('\t');
+                    case 'u' -> {
+                        int code = 0;
+                        for (int k = 2; k <= 5; k++) {
+                            code = (code << 4) | hexValue(bytes[i + k]);
+                        }
+                        text.append((char) code);
+                        i += 4;
+                    }
+                    default -> text.append((char) escaped);
+                }
+                i += 2;
+                run = i;
+            }
+            text.append(new String(bytes, run, close - run, StandardCharsets.UTF_8));
+            return text.toString();
+        }
+
+        /**
+         * Avanza sobre cualquier valor JSON (miembros del encabezado que no interesan)
+         */
+        private boolean skipValue(int depth) {
+            if (depth > MAX_NESTING) {
+                return false;
+            }
+            switch (peek()) {
+                case '"':
+                    return skipString() >= 0;
+                case '{':
+                    return skipContainer('}', true, depth);
+                case '[':
+                    return skipContainer(']', false, depth);
+                case 't':
+                    return skipLiteral("true");
+                case 'f':
+                    return skipLiteral("false");
+                case 'n':
+                    return skipLiteral("null");
+                default:
+                    return skipNumber();
+            }
+        }
+
+        private boolean skipContainer(char close, boolean object, int depth) {
+            pos++;
+            skipWhitespace();
+            if (peek() == close) {
+                pos++;
+                return true;
+            }
+            while (true) {
+                skipWhitespace();
+                if (object) {
+                    if (skipString() < 0) {
+                        return false;
+                    }
+                    skipWhitespace();
+                    if (next() != ':') {
+                        return false;
+                    }
+                    skipWhitespace();
+                }
+                if (!skipValue(depth + 1)) {
+                    return false;
+                }
+                skipWhitespace();
+                int separator = next();
+                if (separator == close) {
+                    return true;
+                }
+                if (separator != ',') {
+                    return false;
+                }
+            }
+        }
+
+        private boolean skipLiteral(String literal) {
+            if (end - pos < literal.length()) {
+                return false;
+            }
+            for (int i = 0; i < literal.length(); i++) {
+                if (bytes[pos + i] != literal.charAt(i)) {
+                    return false;
+                }
+            }
+            pos += literal.length();
+            return true;
+        }
+
+        /**
+         * Número JSON: -?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?
+         */
+        private boolean skipNumber() {
+            if (peek() == '-') {
+                pos++;
+            }
+            if (peek() == '0') {
+                pos++;
+            } else if (skipDigits() == 0) {
+                return false;
+            }
+            if (peek() == '.') {
+                pos++;
+                if (skipDigits() == 0) {
+                    return false;
+                }
+            }
+            if (peek() == 'e' || peek() == 'E') {
+                pos++;
+                if (peek() == '+' || peek() == '-') {
+                    pos++;
+                }
+                if (skipDigits() == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int skipDigits() {
+            int start = pos;
+            while (pos < end && bytes[pos] >= '0' && bytes[pos] <= '9') {
+                pos++;
+            }
+            return pos - start;
+        }
+
+        private void skipWhitespace() {
+            while (pos < end) {
+                byte b = bytes[pos];
+                if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                    return;
+                }
+                pos++;
+            }
+        }
+
+        private int peek() {
+            return pos < end ? bytes[pos] : -1;
+        }
+
+        private int next() {
+            return pos < end ? bytes[pos++] : -1;
+        }
+
+        private static int hexValue(byte b) {
+            if (b >= '0' && b <= '9') {
+                return b - '0';
+            }
+            if (b >= 'a' && b <= 'f') {
+                return b - 'a' + 10;
+            }
+            if (b >= 'A' && b <= 'F') {
+                return b - 'A' + 10;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Miembros del encabezado JWT que se usan para elegir la llave de verificación
+     */
+    public static final class JwtHeader {
+        private final String keyId;
+        private final String algorithm;
+
+        JwtHeader(String keyId, String algorithm) {
+            this.keyId = keyId;
+            this.algorithm = algorithm;
+        }
+
+        public String getKeyId() {
+            return keyId;
+        }
+
+        public String getAlgorithm() {
+            return algorithm;
+        }
+
+        @Override
+        public String toString() {
+            return "JwtHeader{" +
+                    "keyId='" + keyId + '\'' +
+                    ", algorithm='" + algorithm + '\'' +
+                    '}';
+        }
+    }
+}
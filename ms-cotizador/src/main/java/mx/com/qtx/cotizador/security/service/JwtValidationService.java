@@ -1,31 +1,24 @@
 package mx.com.qtx.cotizador.security.service;
 
 import io.jsonwebtoken.*;
-import mx.com.qtx.cotizador.security.client.JwksClient;
-import mx.com.qtx.cotizador.security.dto.JwkKey;
-import mx.com.qtx.cotizador.security.dto.JwksResponse;
+import mx.com.qtx.cotizador.security.metrics.SecurityMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
-import java.math.BigInteger;
-import java.security.KeyFactory;
 import java.security.PublicKey;
-import java.security.spec.RSAPublicKeySpec;
-import java.util.Base64;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Servicio para validación de tokens JWT usando claves JWKS
- * Implementa cache de claves públicas para optimizar rendimiento
+ * Las claves públicas vienen de JwksKeyStore (todas las publicadas, ya construidas)
  */
 @Service
 @Profile({"default", "docker"})
@@ -33,18 +26,15 @@ public class JwtValidationService {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtValidationService.class);
 
-    private final JwksClient jwksClient;
+    private final JwksKeyStore jwksKeyStore;
     private final SessionCacheService sessionCacheService;
+    private final RevokedSessionFilter revokedSessionFilter;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final SecurityMetrics securityMetrics;
     private final String expectedIssuer;
-    private final ConcurrentMap<String, PublicKey> keyCache = new ConcurrentHashMap<>();
-    private final ConcurrentMap<String, Long> keyCacheTimestamps = new ConcurrentHashMap<>();
-    private final long cacheTimeoutMs;
     
-    // Configuración de rotación reactiva
-    private final boolean keyRotationEnabled;
+    // Configuración de alertas por KIDs inválidos
     private final int securityAlertThreshold;
-    private final boolean logRotationEvents;
-    private final boolean cleanupOldKeys;
     
     // Configuración de validación de sesiones
     private final boolean sessionValidationEnabled;
@@ -53,30 +43,25 @@ public class JwtValidationService {
     private final AtomicInteger invalidKidAttempts = new AtomicInteger(0);
 
     public JwtValidationService(
-            JwksClient jwksClient,
+            JwksKeyStore jwksKeyStore,
             SessionCacheService sessionCacheService,
+            RevokedSessionFilter revokedSessionFilter,
+            VerifiedTokenCache verifiedTokenCache,
+            SecurityMetrics securityMetrics,
             @Value("${jwt.expected-issuer:ms-seguridad}") String expectedIssuer,
-            @Value("${jwt.cache-timeout-ms:300000}") long cacheTimeoutMs,
-            @Value("${jwt.key-rotation.enabled:true}") boolean keyRotationEnabled,
             @Value("${jwt.key-rotation.security-alert-threshold:3}") int securityAlertThreshold,
-            @Value("${jwt.key-rotation.log-rotation-events:true}") boolean logRotationEvents,
-            @Value("${jwt.key-rotation.cleanup-old-keys:true}") boolean cleanupOldKeys,
             @Value("${jwt.session-validation.enabled:true}") boolean sessionValidationEnabled) {
-        this.jwksClient = jwksClient;
+        this.jwksKeyStore = jwksKeyStore;
         this.sessionCacheService = sessionCacheService;
+        this.revokedSessionFilter = revokedSessionFilter;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.securityMetrics = securityMetrics;
         this.expectedIssuer = expectedIssuer;
-        this.cacheTimeoutMs = cacheTimeoutMs;
-        this.keyRotationEnabled = keyRotationEnabled;
         this.securityAlertThreshold = securityAlertThreshold;
-        this.logRotationEvents = logRotationEvents;
-        this.cleanupOldKeys = cleanupOldKeys;
         this.sessionValidationEnabled = sessionValidationEnabled;
         
-        logger.info("JwtValidationService inicializado - Issuer: {}, Cache timeout: {}ms, " +
-                   "Rotación reactiva: {}, Alert threshold: {}, Log events: {}, Cleanup: {}, " +
-                   "Validación sesiones: {}", 
-                   expectedIssuer, cacheTimeoutMs, keyRotationEnabled, securityAlertThreshold, 
-                   logRotationEvents, cleanupOldKeys, sessionValidationEnabled);
+        logger.info("JwtValidationService inicializado - Issuer: {}, Alert threshold: {}, Validación sesiones: {}", 
+                   expectedIssuer, securityAlertThreshold, sessionValidationEnabled);
     }
 
     /**
@@ -124,6 +109,61 @@ public class JwtValidationService {
         }
     }
 
+    /**
+     * Verifica un token una sola vez y devuelve el usuario y sus autoridades.
+     * Si el mismo token ya se verificó y no ha expirado, se omite la verificación
+     * de firma y sólo se vuelve a consultar su sesión (caché de sesiones con TTL corto),
+     * de modo que una sesión revocada deja de aceptarse igual que antes.
+     * El tiempo de cada verificación se registra por origen (caché o firma) y resultado.
+     * 
+     * @param token El token JWT a verificar
+     * @return Datos verificados del token
+     * @throws JwtValidationException si el token o su sesión no son válidos
+     */
+    public VerifiedTokenCache.VerifiedToken verifyToken(String token) throws JwtValidationException {
+        long start = System.nanoTime();
+        VerifiedTokenCache.VerifiedToken cached = verifiedTokenCache.get(token);
+        boolean valid = false;
+        try {
+            VerifiedTokenCache.VerifiedToken verified = cached != null ? recheckSession(cached) : verifySignature(token);
+            valid = true;
+            return verified;
+        } finally {
+            securityMetrics.recordJwtVerification(cached != null, valid, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Reutiliza una verificación previa consultando sólo la sesión del token
+     */
+    private VerifiedTokenCache.VerifiedToken recheckSession(VerifiedTokenCache.VerifiedToken cached)
+            throws JwtValidationException {
+        String sessionId = cached.getSessionId();
+        if (sessionValidationEnabled && sessionId != null && !isSessionActive(sessionId)) {
+            verifiedTokenCache.invalidateSession(sessionId);
+            logger.warn("Sesión inválida o expirada: {}", sessionId);
+            throw new JwtValidationException("Sesión inválida o expirada");
+        }
+        return cached;
+    }
+
+    /**
+     * Verifica firma, claims y sesión de un token nuevo y guarda el resultado
+     */
+    private VerifiedTokenCache.VerifiedToken verifySignature(String token) throws JwtValidationException {
+        Claims claims = validateToken(token);
+        UserInfo userInfo = toUserInfo(claims);
+        String sessionId = claims.get("session_id", String.class);
+        VerifiedTokenCache.VerifiedToken verified = new VerifiedTokenCache.VerifiedToken(
+                userInfo,
+                extractAuthorities(userInfo.getRoles()),
+                sessionId == null || sessionId.trim().isEmpty() ? null : sessionId,
+                // Sin exp no se cachea: la entrada nacería expirada
+                userInfo.getExpiration() != null ? userInfo.getExpiration().getTime() : 0L);
+        verifiedTokenCache.put(token, verified);
+        return verified;
+    }
+
     /**
      * Valida la sesión asociada al token
      * 
@@ -141,8 +181,8 @@ public class JwtValidationService {
                 return;
             }
             
-            // Validar sesión usando SessionCacheService
-            boolean isSessionActive = sessionCacheService.validateSession(sessionId);
+            // Validar sesión con el filtro local o, si no decide, con SessionCacheService
+            boolean isSessionActive = isSessionActive(sessionId);
             
             if (!isSessionActive) {
                 logger.warn("Sesión inválida o expirada: {}", sessionId);
@@ -160,6 +200,27 @@ public class JwtValidationService {
         }
     }
 
+    /**
+     * Decide si una sesión sigue activa
+     * La expiración ya la garantiza el exp del token; el filtro local de sesiones revocadas
+     * resuelve en memoria y sólo sus coincidencias (o su ausencia) llegan a ms-seguridad
+     */
+    private boolean isSessionActive(String sessionId) {
+        RevokedSessionFilter.SessionCheck check = revokedSessionFilter.check(sessionId);
+        if (check == RevokedSessionFilter.SessionCheck.NOT_REVOKED) {
+            return true;
+        }
+        if (check == RevokedSessionFilter.SessionCheck.REVOKED) {
+            return false;
+        }
+        
+        boolean active = sessionCacheService.validateSession(sessionId);
+        if (check == RevokedSessionFilter.SessionCheck.FILTER_HIT) {
+            revokedSessionFilter.recordFilterHit(sessionId, active);
+        }
+        return active;
+    }
+
     /**
      * Verifica si un token es válido sin parsear los claims
      * 
@@ -183,8 +244,10 @@ public class JwtValidationService {
      * @return UserInfo con datos del usuario
      */
     public UserInfo extractUserInfo(String token) throws JwtValidationException {
-        Claims claims = validateToken(token);
-        
+        return toUserInfo(validateToken(token));
+    }
+
+    private UserInfo toUserInfo(Claims claims) {
         String username = claims.getSubject();
         String email = claims.get("email", String.class);
         List<String> roles = claims.get("roles", List.class);
@@ -194,156 +257,86 @@ public class JwtValidationService {
     }
 
     /**
-     * Obtiene la clave pública por ID desde cache o JWKS con rotación reactiva
+     * Convierte los roles del token en autoridades de Spring Security
      */
-    private PublicKey getPublicKey(String keyId) throws JwtValidationException {
-        // Verificar cache
-        PublicKey cachedKey = keyCache.get(keyId);
-        Long cacheTime = keyCacheTimestamps.get(keyId);
-        
-        if (cachedKey != null && cacheTime != null && 
-            (System.currentTimeMillis() - cacheTime) < cacheTimeoutMs) {
-            logger.debug("Usando clave pública desde cache para keyId: {}", keyId);
-            return cachedKey;
+    static List<SimpleGrantedAuthority> extractAuthorities(List<String> roles) {
+        if (roles == null || roles.isEmpty()) {
+            return List.of(new SimpleGrantedAuthority("ROLE_USER"));
         }
-
-        // Si el KID no está en cache o expiró, verificar si es diferente al actual
-        boolean isNewKeyId = !keyCache.containsKey(keyId);
         
-        if (isNewKeyId && !keyCache.isEmpty() && keyRotationEnabled) {
-            if (logRotationEvents) {
-                logger.info("🔄 Detectado nuevo KID: {}. Iniciando rotación reactiva de llaves", keyId);
-            }
-        }
+        return roles.stream()
+                .map(String::trim)
+                .map(role -> role.startsWith("ROLE_") ? role : "ROLE_" + role)
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+    }
 
-        // Obtener desde JWKS
+    /**
+     * Obtiene la clave pública por ID desde el almacén de llaves JWKS
+     */
+    private PublicKey getPublicKey(String keyId) throws JwtValidationException {
+        PublicKey publicKey;
         try {
-            JwksResponse jwksResponse = jwksClient.fetchJwks();
-            JwkKey jwkKey = jwksResponse.findKeyById(keyId);
-            
-            if (jwkKey == null) {
-                // KID del token no existe en JWKS - ALERTA DE SEGURIDAD
-                int currentAttempts = invalidKidAttempts.incrementAndGet();
-                
-                logger.error("🚨 SECURITY ALERT: Token contiene KID '{}' que NO existe en JWKS del ms-seguridad. " +
-                           "Intento #{} - Posible vulneración de seguridad!", keyId, currentAttempts);
-                           
-                // Listar KIDs disponibles para debugging
-                List<String> availableKids = jwksResponse.getKeys().stream()
-                    .map(JwkKey::getKeyId)
-                    .toList();
-                logger.error("KIDs disponibles en JWKS: {}", availableKids);
-                
-                // Alerta crítica si se supera el threshold
-                if (currentAttempts >= securityAlertThreshold) {
-                    logger.error("🚨🚨 CRITICAL SECURITY ALERT: {} intentos consecutivos con KIDs inválidos detectados! " +
-                               "Posible ataque en curso. Revisar logs de seguridad inmediatamente.", currentAttempts);
-                    
-                    // Reset counter después de alerta crítica
-                    invalidKidAttempts.set(0);
-                }
-                
-                throw new JwtValidationException("KID del token '" + keyId + "' no encontrado en JWKS. Posible token malicioso.");
-            }
+            publicKey = jwksKeyStore.getKey(keyId);
+        } catch (Exception e) {
+            logger.error("Error obteniendo clave pública para keyId: {}", keyId, e);
+            throw new JwtValidationException("Error obteniendo clave pública para keyId: " + keyId, e);
+        }
+        
+        if (publicKey == null) {
+            // KID del token no existe en JWKS - ALERTA DE SEGURIDAD
+            int currentAttempts = invalidKidAttempts.incrementAndGet();
             
-            // Reset counter en caso de KID válido
-            invalidKidAttempts.set(0);
+            logger.error("🚨 SECURITY ALERT: Token contiene KID '{}' que NO existe en JWKS del ms-seguridad. " +
+                       "Intento #{} - Posible vulneración de seguridad!", keyId, currentAttempts);
             
-            // KID encontrado - proceder con rotación
-            PublicKey publicKey = buildPublicKey(jwkKey);
+            // Listar KIDs disponibles para debugging
+            logger.error("KIDs disponibles en JWKS: {}", jwksKeyStore.getKeyIds());
             
-            if (isNewKeyId && !keyCache.isEmpty() && keyRotationEnabled) {
-                // Rotación exitosa
-                if (logRotationEvents) {
-                    logger.info("✅ Rotación de llave exitosa. Reemplazando llave actual con nueva llave para KID: {}", keyId);
-                }
+            // Alerta crítica si se supera el threshold
+            if (currentAttempts >= securityAlertThreshold) {
+                logger.error("🚨🚨 CRITICAL SECURITY ALERT: {} intentos consecutivos con KIDs inválidos detectados! " +
+                           "Posible ataque en curso. Revisar logs de seguridad inmediatamente.", currentAttempts);
                 
-                // Limpiar cache anterior si está habilitado
-                if (cleanupOldKeys) {
-                    String oldKid = keyCache.keySet().iterator().next(); // Obtener primer KID anterior
-                    if (!oldKid.equals(keyId)) {
-                        keyCache.remove(oldKid);
-                        keyCacheTimestamps.remove(oldKid);
-                        if (logRotationEvents) {
-                            logger.info("🗑️ Llave anterior removida del cache. KID anterior: {}, KID nuevo: {}", oldKid, keyId);
-                        }
-                    }
-                }
+                // Reset counter después de alerta crítica
+                invalidKidAttempts.set(0);
             }
             
-            // Actualizar cache con nueva llave
-            keyCache.put(keyId, publicKey);
-            keyCacheTimestamps.put(keyId, System.currentTimeMillis());
-            
-            logger.debug("Clave pública obtenida y cacheada para keyId: {}", keyId);
-            return publicKey;
-            
-        } catch (JwtValidationException e) {
-            // Re-lanzar excepciones de validación sin modificar
-            throw e;
-        } catch (Exception e) {
-            logger.error("Error obteniendo clave pública para keyId: {}", keyId, e);
-            throw new JwtValidationException("Error obteniendo clave pública para keyId: " + keyId, e);
-        }
-    }
-
-    /**
-     * Construye una PublicKey RSA desde JwkKey
-     */
-    private PublicKey buildPublicKey(JwkKey jwkKey) throws Exception {
-        if (!"RSA".equals(jwkKey.getKeyType())) {
-            throw new IllegalArgumentException("Solo se soportan claves RSA");
+            throw new JwtValidationException("KID del token '" + keyId + "' no encontrado en JWKS. Posible token malicioso.");
         }
-
-        // Decodificar modulus y exponent desde Base64URL
-        byte[] modulusBytes = Base64.getUrlDecoder().decode(jwkKey.getModulus());
-        byte[] exponentBytes = Base64.getUrlDecoder().decode(jwkKey.getExponent());
-        
-        BigInteger modulus = new BigInteger(1, modulusBytes);
-        BigInteger exponent = new BigInteger(1, exponentBytes);
-        
-        RSAPublicKeySpec spec = new RSAPublicKeySpec(modulus, exponent);
-        KeyFactory factory = KeyFactory.getInstance("RSA");
         
-        return factory.generatePublic(spec);
+        return publicKey;
     }
 
     /**
      * Extrae el Key ID del header del token JWT
+     * Rechaza antes de consultar JWKS los tokens sin encabezado válido, sin kid o sin firma
      */
     private String extractKeyIdFromToken(String token) {
-        try {
-            // Separar header
-            String[] parts = token.split("\\.");
-            if (parts.length != 3) {
-                throw new IllegalArgumentException("Token JWT malformado");
-            }
-            
-            // Decodificar header
-            String headerJson = new String(Base64.getUrlDecoder().decode(parts[0]));
-            
-            // Extraer kid (key ID) del header
-            // Implementación simple - en producción usar un parser JSON
-            if (headerJson.contains("\"kid\"")) {
-                int kidStart = headerJson.indexOf("\"kid\":\"") + 7;
-                int kidEnd = headerJson.indexOf("\"", kidStart);
-                return headerJson.substring(kidStart, kidEnd);
-            }
-            
-            return null; // No hay kid especificado
-            
-        } catch (Exception e) {
-            logger.warn("Error extrayendo keyId del token: {}", e.getMessage());
-            return null;
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("Token vacío o nulo");
+        }
+        
+        JwtHeaderReader.JwtHeader header = JwtHeaderReader.read(token);
+        if (header == null) {
+            throw new MalformedJwtException("Encabezado JWT inválido");
+        }
+        if (header.getAlgorithm() == null || "none".equalsIgnoreCase(header.getAlgorithm())) {
+            throw new UnsupportedJwtException("Algoritmo de firma no soportado: " + header.getAlgorithm());
+        }
+        if (header.getKeyId() == null) {
+            throw new MalformedJwtException("Token sin identificador de llave (kid)");
         }
+        
+        return header.getKeyId();
     }
 
     /**
      * Limpia el cache de claves públicas
      */
     public void clearCache() {
-        keyCache.clear();
-        keyCacheTimestamps.clear();
+        jwksKeyStore.clear();
+        verifiedTokenCache.clear();
         logger.info("Cache de claves públicas limpiado");
     }
 
@@ -352,34 +345,18 @@ public class JwtValidationService {
      * Útil para testing o rotación manual
      */
     public boolean forceKeyRotation(String newKeyId) {
-        try {
-            logger.info("🔄 Forzando rotación de llave para KID: {}", newKeyId);
-            
-            // Remover de cache para forzar recarga
-            keyCache.remove(newKeyId);
-            keyCacheTimestamps.remove(newKeyId);
-            
-            // Intentar obtener la nueva llave
-            JwksResponse jwksResponse = jwksClient.fetchJwks();
-            JwkKey jwkKey = jwksResponse.findKeyById(newKeyId);
-            
-            if (jwkKey == null) {
-                logger.error("❌ Rotación fallida: KID '{}' no encontrado en JWKS", newKeyId);
-                return false;
-            }
-            
-            // Construir y cachear nueva llave
-            PublicKey publicKey = buildPublicKey(jwkKey);
-            keyCache.put(newKeyId, publicKey);
-            keyCacheTimestamps.put(newKeyId, System.currentTimeMillis());
-            
-            logger.info("✅ Rotación manual exitosa para KID: {}", newKeyId);
-            return true;
-            
-        } catch (Exception e) {
-            logger.error("❌ Error en rotación manual para KID: {}", newKeyId, e);
+        logger.info("🔄 Forzando rotación de llave para KID: {}", newKeyId);
+        
+        if (!jwksKeyStore.forceRefresh()) {
             return false;
         }
+        if (!jwksKeyStore.containsKey(newKeyId)) {
+            logger.error("❌ Rotación fallida: KID '{}' no encontrado en JWKS", newKeyId);
+            return false;
+        }
+        
+        logger.info("✅ Rotación manual exitosa para KID: {}", newKeyId);
+        return true;
     }
 
     /**
@@ -387,9 +364,9 @@ public class JwtValidationService {
      */
     public KeyRotationStatus getKeyRotationStatus() {
         return new KeyRotationStatus(
-            keyCache.keySet(),
-            keyCacheTimestamps,
-            cacheTimeoutMs,
+            jwksKeyStore.getKeyIds(),
+            jwksKeyStore.getKeyVerifiedTimestamps(),
+            jwksKeyStore.getRefreshIntervalMs(),
             System.currentTimeMillis()
         );
     }
@@ -399,10 +376,9 @@ public class JwtValidationService {
      */
     public KeyRotationConfig getKeyRotationConfig() {
         return new KeyRotationConfig(
-            keyRotationEnabled,
+            jwksKeyStore.isKeyRotationEnabled(),
             securityAlertThreshold,
-            logRotationEvents,
-            cleanupOldKeys,
+            jwksKeyStore.isLogRotationEvents(),
             invalidKidAttempts.get()
         );
     }
@@ -412,9 +388,9 @@ public class JwtValidationService {
      */
     public CacheStats getCacheStats() {
         return new CacheStats(
-            keyCache.size(),
-            keyCacheTimestamps.size(),
-            cacheTimeoutMs
+            jwksKeyStore.getKeyIds().size(),
+            jwksKeyStore.getKeyVerifiedTimestamps().size(),
+            jwksKeyStore.getRefreshIntervalMs()
         );
     }
 
@@ -562,16 +538,13 @@ public class JwtValidationService {
         private final boolean enabled;
         private final int securityAlertThreshold;
         private final boolean logRotationEvents;
-        private final boolean cleanupOldKeys;
         private final int currentInvalidAttempts;
 
         public KeyRotationConfig(boolean enabled, int securityAlertThreshold, 
-                               boolean logRotationEvents, boolean cleanupOldKeys, 
-                               int currentInvalidAttempts) {
+                               boolean logRotationEvents, int currentInvalidAttempts) {
             this.enabled = enabled;
             this.securityAlertThreshold = securityAlertThreshold;
             this.logRotationEvents = logRotationEvents;
-            this.cleanupOldKeys = cleanupOldKeys;
             this.currentInvalidAttempts = currentInvalidAttempts;
         }
 
@@ -587,10 +560,6 @@ public class JwtValidationService {
             return logRotationEvents;
         }
 
-        public boolean isCleanupOldKeys() {
-            return cleanupOldKeys;
-        }
-
         public int getCurrentInvalidAttempts() {
             return currentInvalidAttempts;
         }
@@ -605,7 +574,6 @@ public class JwtValidationService {
                     "enabled=" + enabled +
                     ", securityAlertThreshold=" + securityAlertThreshold +
                     ", logRotationEvents=" + logRotationEvents +
-                    ", cleanupOldKeys=" + cleanupOldKeys +
                     ", currentInvalidAttempts=" + currentInvalidAttempts +
                     ", nearThreshold=" + isNearSecurityThreshold() +
                     '}';
@@ -0,0 +1,308 @@
+package mx.com.qtx.cotizador.security.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import mx.com.qtx.cotizador.security.client.SessionValidationClient;
+import mx.com.qtx.cotizador.security.dto.RevokedSessionSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Filtro local de sesiones revocadas
+ * Consulta periódicamente la instantánea de ms-seguridad (filtro de Bloom con las sesiones
+ * revocadas recientes más la lista exacta de las revocadas desde la versión anterior) y con
+ * ella decide en memoria si una sesión sigue activa: si el filtro no la contiene, la sesión
+ * no fue revocada; si está en la lista exacta, sí lo fue. Sólo cuando el filtro la contiene
+ * sin certeza se consulta a ms-seguridad, y se contabiliza como falso positivo si resulta activa.
+ * Una revocación se refleja con la siguiente instantánea, o de inmediato si llega por el
+ * flujo de revocaciones.
+ * Si la instantánea no está disponible o es más antigua que el máximo permitido, las
+ * sesiones se validan como antes (caché de sesiones y llamada remota).
+ */
+@Service
+@Profile({"default", "docker"})
+public class RevokedSessionFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevokedSessionFilter.class);
+
+    // Debe coincidir con el cálculo de índices de ms-seguridad (SessionBloomFilter)
+    static final String HASH_ALGORITHM = "fnv1a64-fmix64";
+
+    private static final long DEFAULT_RETENTION_MS = 900000;
+
+    /**
+     * Resultado de consultar el filtro
+     */
+    public enum SessionCheck {
+        // El filtro no contiene la sesión: no fue revocada
+        NOT_REVOKED,
+        // La sesión está en la lista exacta de revocadas
+        REVOKED,
+        // El filtro contiene la sesión: puede ser un falso positivo
+        FILTER_HIT,
+        // No hay instantánea vigente
+        UNAVAILABLE
+    }
+
+    private final SessionValidationClient sessionValidationClient;
+    private final boolean enabled;
+    private final long maxStalenessMs;
+
+    private volatile FilterState state;
+
+    // Sesiones revocadas conocidas con certeza (delta de la instantánea o flujo de revocaciones)
+    private final ConcurrentMap<String, Long> revokedSessions = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean polling = new AtomicBoolean(false);
+
+    private final Counter notRevokedCount;
+    private final Counter revokedCount;
+    private final Counter filterHitCount;
+    private final Counter unavailableCount;
+    private final Counter falsePositiveCount;
+
+    public RevokedSessionFilter(
+            SessionValidationClient sessionValidationClient,
+            MeterRegistry meterRegistry,
+            @Value("${session.revocation.filter.enabled:false}") boolean enabled,
+            @Value("${session.revocation.filter.max-staleness-ms:15000}") long maxStalenessMs) {
+        this.sessionValidationClient = sessionValidationClient;
+        this.enabled = enabled;
+        this.maxStalenessMs = maxStalenessMs;
+
+        this.notRevokedCount = consultas(meterRegistry, "no_revocada");
+        this.revokedCount = consultas(meterRegistry, "revocada");
+        this.filterHitCount = consultas(meterRegistry, "coincidencia");
+        this.unavailableCount = consultas(meterRegistry, "no_disponible");
+        this.falsePositiveCount = Counter.builder("cotizador.sesiones.filtro.falsos_positivos")
+                .description("Coincidencias del filtro cuya sesión resultó activa")
+                .register(meterRegistry);
+        Gauge.builder("cotizador.sesiones.filtro.fpp.observada", this, RevokedSessionFilter::getObservedFalsePositiveRate)
+                .description("Falsos positivos entre las sesiones no revocadas consultadas")
+                .register(meterRegistry);
+        Gauge.builder("cotizador.sesiones.filtro.fpp.estimada", this, RevokedSessionFilter::getExpectedFalsePositiveRate)
+                .description("Tasa de falsos positivos esperada según el tamaño del filtro")
+                .register(meterRegistry);
+        Gauge.builder("cotizador.sesiones.filtro.entradas", this, f -> f.state != null ? f.state.entries : 0)
+                .description("Sesiones revocadas incluidas en la instantánea")
+                .register(meterRegistry);
+        Gauge.builder("cotizador.sesiones.filtro.bytes", this, f -> f.state != null ? f.state.words.length * (double) Long.BYTES : 0)
+                .description("Tamaño del filtro de Bloom de la instantánea")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("cotizador.sesiones.filtro.edad", this, f -> f.state != null ? System.currentTimeMillis() - f.state.fetchedAtMs : -1)
+                .description("Milisegundos desde la última instantánea recibida")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+
+        logger.info("RevokedSessionFilter inicializado - habilitado: {}, antigüedad máxima: {}ms", enabled, maxStalenessMs);
+    }
+
+    private static Counter consultas(MeterRegistry meterRegistry, String resultado) {
+        return Counter.builder("cotizador.sesiones.filtro.consultas")
+                .description("Consultas al filtro local de sesiones revocadas")
+                .tag("resultado", resultado)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Obtiene la instantánea más reciente de ms-seguridad
+     */
+    @Scheduled(fixedDelayString = "${session.revocation.filter.poll-interval-ms:5000}")
+    public void poll() {
+        if (!enabled || !polling.compareAndSet(false, true)) {
+            return;
+        }
+
+        FilterState current = state;
+        sessionValidationClient.getRevocationSnapshotAsync(current != null ? current.version : 0)
+                .whenComplete((snapshot, error) -> {
+                    try {
+                        if (error != null) {
+                            logger.warn("No se pudo obtener la instantánea de sesiones revocadas: {}", error.getMessage());
+                        } else {
+                            apply(snapshot);
+                        }
+                    } catch (Exception e) {
+                        logger.warn("Instantánea de sesiones revocadas inválida: {}", e.getMessage());
+                    } finally {
+                        polling.set(false);
+                    }
+                });
+    }
+
+    /**
+     * Reemplaza el filtro con una instantánea nueva e incorpora sus revocaciones exactas
+     */
+    void apply(RevokedSessionSnapshot snapshot) {
+        if (!HASH_ALGORITHM.equals(snapshot.getHashAlgorithm())) {
+            throw new IllegalArgumentException("Algoritmo de hash no soportado: " + snapshot.getHashAlgorithm());
+        }
+        long[] words = decode(snapshot.getBits(), snapshot.getNumBits());
+        if (snapshot.getNumHashes() < 1) {
+            throw new IllegalArgumentException("Número de funciones hash inválido: " + snapshot.getNumHashes());
+        }
+
+        long now = System.currentTimeMillis();
+        if (snapshot.getDelta() != null) {
+            for (String sessionId : snapshot.getDelta()) {
+                revokedSessions.putIfAbsent(sessionId, now);
+            }
+        }
+        long retentionMs = snapshot.getRetentionMs() > 0 ? snapshot.getRetentionMs() : DEFAULT_RETENTION_MS;
+        revokedSessions.values().removeIf(knownAt -> now - knownAt > retentionMs);
+
+        state = new FilterState(snapshot.getVersion(), now, snapshot.getEntries(), words,
+                snapshot.getNumBits(), snapshot.getNumHashes());
+        logger.debug("Instantánea de sesiones revocadas v{}: {} sesiones, {} exactas nuevas",
+                snapshot.getVersion(), snapshot.getEntries(), snapshot.getDelta() != null ? snapshot.getDelta().size() : 0);
+    }
+
+    /**
+     * Decide con la instantánea local si una sesión fue revocada
+     *
+     * @param sessionId ID de la sesión
+     * @return resultado de la consulta
+     */
+    public SessionCheck check(String sessionId) {
+        FilterState current = state;
+        if (!enabled || current == null || System.currentTimeMillis() - current.fetchedAtMs > maxStalenessMs) {
+            unavailableCount.increment();
+            return SessionCheck.UNAVAILABLE;
+        }
+        if (revokedSessions.containsKey(sessionId)) {
+            revokedCount.increment();
+            return SessionCheck.REVOKED;
+        }
+        if (!current.mightContain(sessionId)) {
+            notRevokedCount.increment();
+            return SessionCheck.NOT_REVOKED;
+        }
+        filterHitCount.increment();
+        return SessionCheck.FILTER_HIT;
+    }
+
+    /**
+     * Registra el resultado remoto de una coincidencia del filtro
+     *
+     * @param sessionId ID de la sesión consultada
+     * @param active true si ms-seguridad indicó que la sesión sigue activa (falso positivo)
+     */
+    public void recordFilterHit(String sessionId, boolean active) {
+        if (active) {
+            falsePositiveCount.increment();
+        } else {
+            revokedSessions.putIfAbsent(sessionId, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Marca una sesión como revocada (por ejemplo, al recibirla del flujo de revocaciones)
+     */
+    public void markRevoked(String sessionId) {
+        revokedSessions.putIfAbsent(sessionId, System.currentTimeMillis());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Falsos positivos entre todas las consultas de sesiones no revocadas
+     */
+    public double getObservedFalsePositiveRate() {
+        double falsePositives = falsePositiveCount.count();
+        double negatives = notRevokedCount.count() + falsePositives;
+        return negatives > 0 ? falsePositives / negatives : 0.0;
+    }
+
+    /**
+     * Tasa de falsos positivos teórica del filtro vigente: (1 - e^(-k·n/m))^k
+     */
+    public double getExpectedFalsePositiveRate() {
+        FilterState current = state;
+        if (current == null || current.entries == 0) {
+            return 0.0;
+        }
+        return Math.pow(1 - Math.exp(-(double) current.numHashes * current.entries / current.numBits), current.numHashes);
+    }
+
+    private static long[] decode(String bits, int numBits) {
+        if (bits == null || numBits <= 0 || numBits % Long.SIZE != 0) {
+            throw new IllegalArgumentException("Filtro de Bloom inválido");
+        }
+        byte[] bytes = Base64.getDecoder().decode(bits);
+        if (bytes.length * 8L != numBits) {
+            throw new IllegalArgumentException("El filtro tiene " + bytes.length * 8L + " bits, se esperaban " + numBits);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long[] words = new long[numBits / Long.SIZE];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong();
+        }
+        return words;
+    }
+
+    /**
+     * Hash de 64 bits del ID de sesión en UTF-8: FNV-1a seguido del mezclador final de MurmurHash3
+     */
+    static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Filtro de Bloom inmutable de una instantánea
+     */
+    private static final class FilterState {
+        final long version;
+        final long fetchedAtMs;
+        final int entries;
+        final long[] words;
+        final int numBits;
+        final int numHashes;
+
+        FilterState(long version, long fetchedAtMs, int entries, long[] words, int numBits, int numHashes) {
+            this.version = version;
+            this.fetchedAtMs = fetchedAtMs;
+            this.entries = entries;
+            this.words = words;
+            this.numBits = numBits;
+            this.numHashes = numHashes;
+        }
+
+        boolean mightContain(String sessionId) {
+            long hash = hash64(sessionId);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < numHashes; i++) {
+                int index = (int) Math.floorMod(h1 + (long) i * h2, (long) numBits);
+                if ((words[index >>> 6] & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
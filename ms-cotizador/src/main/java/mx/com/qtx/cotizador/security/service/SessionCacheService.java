@@ -1,24 +1,40 @@
 package mx.com.qtx.cotizador.security.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
 import mx.com.qtx.cotizador.security.client.SessionValidationClient;
 import mx.com.qtx.cotizador.security.dto.SessionInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.Map;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Servicio de caché para validación de sesiones
  * Implementa un caché con TTL corto para mejorar el rendimiento
- * y reducir la carga en ms-seguridad
+ * y reducir la carga en ms-seguridad.
+ * El caché es acotado (Caffeine, W-TinyLFU): admite por frecuencia, desaloja en
+ * O(1) amortizado y expira cada entrada con una rueda de tiempos, sin ordenar ni
+ * recorrer el mapa completo. Las entradas se conservan un margen adicional
+ * después de su TTL para usarlas si ms-seguridad no responde.
+ * Las validaciones concurrentes de una misma sesión se agrupan en una sola
+ * llamada remota, y una entrada próxima a vencer se revalida en segundo plano
+ * mientras se sigue sirviendo su valor.
+ * Mientras la suscripción al flujo de revocaciones de ms-seguridad está activa,
+ * las revocaciones llegan de inmediato y las entradas se conservan con un TTL
+ * largo; si la suscripción se pierde se vuelve al TTL corto.
  */
 @Service
 @Profile({"default", "docker"})
@@ -27,22 +43,62 @@ public class SessionCacheService {
     private static final Logger logger = LoggerFactory.getLogger(SessionCacheService.class);
 
     private final SessionValidationClient sessionValidationClient;
-    private final Map<String, CacheEntry> sessionCache = new ConcurrentHashMap<>();
+    private final Cache<String, CacheEntry> sessionCache;
     private final long cacheTtlMs;
+    private final long pushTtlMs;
     private final int maxCacheSize;
     private final AtomicLong hitCount = new AtomicLong(0);
     private final AtomicLong missCount = new AtomicLong(0);
     private final AtomicLong errorCount = new AtomicLong(0);
+    private final AtomicLong evictionCount = new AtomicLong(0);
+    private final AtomicLong expirationCount = new AtomicLong(0);
+    private final AtomicLong coalescedCount = new AtomicLong(0);
+    private final AtomicLong refreshCount = new AtomicLong(0);
+    
+    // Validación remota en curso por sesión (single-flight)
+    private final ConcurrentMap<String, CompletableFuture<CacheEntry>> inFlight = new ConcurrentHashMap<>();
+    private final long refreshAheadMs;
+    
+    // Indica si las revocaciones llegan por el flujo de ms-seguridad
+    private volatile boolean pushConnected;
+
+    public SessionCacheService(SessionValidationClient sessionValidationClient, long cacheTtlMs, int maxCacheSize,
+                               long staleGraceMs, long refreshAheadMs) {
+        this(sessionValidationClient, cacheTtlMs, maxCacheSize, staleGraceMs, refreshAheadMs, cacheTtlMs);
+    }
 
+    @Autowired
     public SessionCacheService(
             SessionValidationClient sessionValidationClient,
             @Value("${session.cache.ttl-ms:30000}") long cacheTtlMs,
-            @Value("${session.cache.max-size:1000}") int maxCacheSize) {
+            @Value("${session.cache.max-size:1000}") int maxCacheSize,
+            @Value("${session.cache.stale-grace-ms:30000}") long staleGraceMs,
+            @Value("${session.cache.refresh-ahead-ms:5000}") long refreshAheadMs,
+            @Value("${session.cache.push-ttl-ms:300000}") long pushTtlMs) {
         this.sessionValidationClient = sessionValidationClient;
         this.cacheTtlMs = cacheTtlMs;
+        this.pushTtlMs = Math.max(cacheTtlMs, pushTtlMs);
         this.maxCacheSize = maxCacheSize;
+        this.refreshAheadMs = refreshAheadMs;
+        long retentionMs = this.pushTtlMs + staleGraceMs;
+        this.sessionCache = Caffeine.newBuilder()
+                .maximumSize(maxCacheSize)
+                // Una entrada vencida sigue disponible como respaldo durante el margen;
+                // la vigencia lógica (TTL corto o largo) se decide al leerla
+                .expireAfter(Expiry.<String, CacheEntry>writing((sessionId, entry) -> Duration.ofMillis(retentionMs)))
+                .scheduler(Scheduler.systemScheduler())
+                .evictionListener((String sessionId, CacheEntry entry, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        evictionCount.incrementAndGet();
+                    } else if (cause == RemovalCause.EXPIRED) {
+                        expirationCount.incrementAndGet();
+                    }
+                })
+                .build();
         
-        logger.info("SessionCacheService inicializado con TTL: {}ms, max size: {}", cacheTtlMs, maxCacheSize);
+        logger.info("SessionCacheService inicializado con TTL: {}ms, TTL con revocaciones push: {}ms, max size: {}, " +
+                    "margen de respaldo: {}ms, revalidación anticipada: {}ms",
+                    cacheTtlMs, this.pushTtlMs, maxCacheSize, staleGraceMs, refreshAheadMs);
     }
 
     /**
@@ -58,10 +114,13 @@ public class SessionCacheService {
         }
 
         // Intentar obtener desde caché
-        CacheEntry cached = sessionCache.get(sessionId);
+        CacheEntry cached = sessionCache.getIfPresent(sessionId);
         if (cached != null && !cached.isExpired()) {
             hitCount.incrementAndGet();
             logger.debug("Cache hit para sesión: {}", sessionId);
+            if (cached.isNearExpiry()) {
+                refreshAhead(sessionId);
+            }
             return cached.isValid();
         }
 
@@ -70,12 +129,7 @@ public class SessionCacheService {
         logger.debug("Cache miss para sesión: {}", sessionId);
         
         try {
-            boolean isValid = sessionValidationClient.validateSession(sessionId);
-            
-            // Actualizar caché
-            updateCache(sessionId, isValid, null);
-            
-            return isValid;
+            return validateRemote(sessionId).join().isValid();
         } catch (Exception e) {
             errorCount.incrementAndGet();
             logger.error("Error al validar sesión {}: {}", sessionId, e.getMessage());
@@ -90,6 +144,62 @@ public class SessionCacheService {
         }
     }
 
+    /**
+     * Valida la sesión en ms-seguridad agrupando las llamadas concurrentes:
+     * sólo la primera lanza la validación remota y las demás comparten su resultado
+     */
+    private CompletableFuture<CacheEntry> validateRemote(String sessionId) {
+        CompletableFuture<CacheEntry> future = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> existing = inFlight.putIfAbsent(sessionId, future);
+        if (existing != null) {
+            coalescedCount.incrementAndGet();
+            logger.debug("Validación de sesión {} ya en curso, esperando resultado", sessionId);
+            return existing;
+        }
+        
+        CompletableFuture<Boolean> remote;
+        try {
+            remote = sessionValidationClient.validateSessionAsync(sessionId);
+        } catch (RuntimeException e) {
+            inFlight.remove(sessionId, future);
+            future.completeExceptionally(e);
+            return future;
+        }
+        
+        remote.whenComplete((isValid, error) -> {
+            if (error != null) {
+                inFlight.remove(sessionId, future);
+                future.completeExceptionally(error);
+                return;
+            }
+            CacheEntry entry = new CacheEntry(isValid, null, System.currentTimeMillis());
+            
+            // Si la sesión se invalidó mientras tanto, el resultado no se guarda
+            if (inFlight.remove(sessionId, future)) {
+                sessionCache.put(sessionId, entry);
+                logger.debug("Caché actualizado para sesión: {} (válida: {})", sessionId, isValid);
+            }
+            future.complete(entry);
+        });
+        return future;
+    }
+
+    /**
+     * Revalida en segundo plano una entrada próxima a vencer, sin ocupar el hilo actual
+     */
+    private void refreshAhead(String sessionId) {
+        if (inFlight.containsKey(sessionId)) {
+            return;
+        }
+        
+        refreshCount.incrementAndGet();
+        validateRemote(sessionId).exceptionally(e -> {
+            errorCount.incrementAndGet();
+            logger.debug("Error en revalidación anticipada de sesión {}: {}", sessionId, e.getMessage());
+            return null;
+        });
+    }
+
     /**
      * Obtiene información de una sesión con caché
      * 
@@ -103,7 +213,7 @@ public class SessionCacheService {
         }
 
         // Intentar obtener desde caché
-        CacheEntry cached = sessionCache.get(sessionId);
+        CacheEntry cached = sessionCache.getIfPresent(sessionId);
         if (cached != null && !cached.isExpired() && cached.getSessionInfo() != null) {
             hitCount.incrementAndGet();
             logger.debug("Cache hit para información de sesión: {}", sessionId);
@@ -151,7 +261,8 @@ public class SessionCacheService {
             boolean closed = sessionValidationClient.closeSession(sessionId);
             
             // Invalidar caché independientemente del resultado
-            sessionCache.remove(sessionId);
+            inFlight.remove(sessionId);
+            sessionCache.invalidate(sessionId);
             logger.debug("Caché invalidado para sesión cerrada: {}", sessionId);
             
             return closed;
@@ -160,7 +271,8 @@ public class SessionCacheService {
             logger.error("Error al cerrar sesión {}: {}", sessionId, e.getMessage());
             
             // Invalidar caché aunque haya error
-            sessionCache.remove(sessionId);
+            inFlight.remove(sessionId);
+            sessionCache.invalidate(sessionId);
             
             return false;
         }
@@ -173,7 +285,8 @@ public class SessionCacheService {
      */
     public void invalidateSession(String sessionId) {
         if (sessionId != null) {
-            sessionCache.remove(sessionId);
+            inFlight.remove(sessionId);
+            sessionCache.invalidate(sessionId);
             logger.debug("Caché invalidado manualmente para sesión: {}", sessionId);
         }
     }
@@ -182,47 +295,39 @@ public class SessionCacheService {
      * Limpia todo el caché
      */
     public void clearCache() {
-        sessionCache.clear();
+        inFlight.clear();
+        sessionCache.invalidateAll();
         logger.info("Caché de sesiones limpiado completamente");
     }
 
     /**
-     * Limpieza automática de entradas expiradas cada 5 minutos
+     * Indica si las revocaciones de sesión llegan por el flujo de ms-seguridad.
+     * Con el flujo activo las entradas valen {@code session.cache.push-ttl-ms};
+     * sin él vuelven al TTL corto, incluidas las ya guardadas
+     * 
+     * @param connected true si la suscripción al flujo de revocaciones está activa
      */
-    @Scheduled(fixedRate = 300000) // 5 minutos
-    public void cleanupExpiredEntries() {
-        long startTime = System.currentTimeMillis();
-        AtomicInteger removedCount = new AtomicInteger(0);
-        
-        sessionCache.entrySet().removeIf(entry -> {
-            if (entry.getValue().isExpired()) {
-                removedCount.incrementAndGet();
-                return true;
-            }
-            return false;
-        });
-        
-        long duration = System.currentTimeMillis() - startTime;
-        
-        if (removedCount.get() > 0) {
-            logger.debug("Limpieza de caché completada: {} entradas removidas en {}ms", 
-                        removedCount.get(), duration);
+    public void setPushConnected(boolean connected) {
+        if (this.pushConnected != connected) {
+            this.pushConnected = connected;
+            logger.info("Revocaciones push de sesiones {} - TTL efectivo: {}ms",
+                        connected ? "activas" : "inactivas", effectiveTtlMs());
         }
     }
 
+    public boolean isPushConnected() {
+        return pushConnected;
+    }
+
+    private long effectiveTtlMs() {
+        return pushConnected ? pushTtlMs : cacheTtlMs;
+    }
+
     /**
-     * Limpieza por tamaño cuando se excede el límite
+     * Ejecuta el mantenimiento pendiente del caché (desalojos y expiraciones)
      */
-    private void enforceMaxSize() {
-        if (sessionCache.size() > maxCacheSize) {
-            // Remover las entradas más antiguas
-            sessionCache.entrySet().stream()
-                    .sorted(Map.Entry.comparingByValue())
-                    .limit(sessionCache.size() - maxCacheSize)
-                    .forEach(entry -> sessionCache.remove(entry.getKey()));
-            
-            logger.debug("Caché reducido a {} entradas por límite de tamaño", sessionCache.size());
-        }
+    void cleanUp() {
+        sessionCache.cleanUp();
     }
 
     /**
@@ -232,9 +337,6 @@ public class SessionCacheService {
         CacheEntry entry = new CacheEntry(isValid, sessionInfo, System.currentTimeMillis());
         sessionCache.put(sessionId, entry);
         
-        // Verificar límite de tamaño
-        enforceMaxSize();
-        
         logger.debug("Caché actualizado para sesión: {} (válida: {})", sessionId, isValid);
     }
 
@@ -246,12 +348,16 @@ public class SessionCacheService {
         double hitRate = totalRequests > 0 ? (double) hitCount.get() / totalRequests : 0.0;
         
         return new CacheStats(
-                sessionCache.size(),
+                (int) sessionCache.estimatedSize(),
                 hitCount.get(),
                 missCount.get(),
                 errorCount.get(),
+                evictionCount.get(),
+                expirationCount.get(),
+                coalescedCount.get(),
+                refreshCount.get(),
                 hitRate,
-                cacheTtlMs,
+                effectiveTtlMs(),
                 maxCacheSize
         );
     }
@@ -262,7 +368,7 @@ public class SessionCacheService {
     public HealthInfo getHealthInfo() {
         return new HealthInfo(
                 sessionValidationClient.isServiceAvailable(),
-                sessionCache.size(),
+                (int) sessionCache.estimatedSize(),
                 getCacheStats(),
                 sessionValidationClient.getHealthInfo()
         );
@@ -271,7 +377,7 @@ public class SessionCacheService {
     /**
      * Entrada del caché con timestamp
      */
-    private class CacheEntry implements Comparable<CacheEntry> {
+    private class CacheEntry {
         private final boolean isValid;
         private final SessionInfo sessionInfo;
         private final long timestamp;
@@ -291,12 +397,11 @@ public class SessionCacheService {
         }
 
         public boolean isExpired() {
-            return System.currentTimeMillis() - timestamp > cacheTtlMs;
+            return System.currentTimeMillis() - timestamp > effectiveTtlMs();
         }
 
-        @Override
-        public int compareTo(CacheEntry other) {
-            return Long.compare(this.timestamp, other.timestamp);
+        public boolean isNearExpiry() {
+            return System.currentTimeMillis() - timestamp > effectiveTtlMs() - refreshAheadMs;
         }
     }
 
@@ -308,16 +413,26 @@ public class SessionCacheService {
         private final long hitCount;
         private final long missCount;
         private final long errorCount;
+        private final long evictionCount;
+        private final long expirationCount;
+        private final long coalescedCount;
+        private final long refreshCount;
         private final double hitRate;
         private final long ttlMs;
         private final int maxSize;
 
         public CacheStats(int size, long hitCount, long missCount, long errorCount, 
+                         long evictionCount, long expirationCount,
+                         long coalescedCount, long refreshCount,
                          double hitRate, long ttlMs, int maxSize) {
             this.size = size;
             this.hitCount = hitCount;
             this.missCount = missCount;
             this.errorCount = errorCount;
+            this.evictionCount = evictionCount;
+            this.expirationCount = expirationCount;
+            this.coalescedCount = coalescedCount;
+            this.refreshCount = refreshCount;
             this.hitRate = hitRate;
             this.ttlMs = ttlMs;
             this.maxSize = maxSize;
@@ -339,6 +454,34 @@ public class SessionCacheService {
             return errorCount;
         }
 
+        /**
+         * Entradas desalojadas por límite de tamaño
+         */
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * Entradas removidas al vencer su TTL y margen de respaldo
+         */
+        public long getExpirationCount() {
+            return expirationCount;
+        }
+
+        /**
+         * Validaciones que esperaron una llamada remota ya en curso
+         */
+        public long getCoalescedCount() {
+            return coalescedCount;
+        }
+
+        /**
+         * Revalidaciones anticipadas lanzadas en segundo plano
+         */
+        public long getRefreshCount() {
+            return refreshCount;
+        }
+
         public double getHitRate() {
             return hitRate;
         }
@@ -358,6 +501,10 @@ public class SessionCacheService {
                     ", hitCount=" + hitCount +
                     ", missCount=" + missCount +
                     ", errorCount=" + errorCount +
+                    ", evictionCount=" + evictionCount +
+                    ", expirationCount=" + expirationCount +
+                    ", coalescedCount=" + coalescedCount +
+                    ", refreshCount=" + refreshCount +
                     ", hitRate=" + String.format("%.2f%%", hitRate * 100) +
                     ", ttlMs=" + ttlMs +
                     ", maxSize=" + maxSize +
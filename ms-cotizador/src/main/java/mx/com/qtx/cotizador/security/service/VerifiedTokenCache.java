@@ -0,0 +1,238 @@
+package mx.com.qtx.cotizador.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché de tokens JWT ya verificados
+ * Evita repetir la verificación de firma RSA cuando llega el mismo bearer token
+ * en peticiones sucesivas. La llave es el SHA-256 del token (el token en claro
+ * no se conserva) y cada entrada vale hasta el {@code exp} del token.
+ * Al igual que el caché de sesiones, es un caché Caffeine acotado (W-TinyLFU)
+ * con expiración por entrada.
+ */
+@Component
+@Profile({"default", "docker"})
+public class VerifiedTokenCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerifiedTokenCache.class);
+
+    private final Cache<String, VerifiedToken> tokens;
+    private final boolean enabled;
+    private final int maxSize;
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+    private final AtomicLong evictionCount = new AtomicLong(0);
+
+    public VerifiedTokenCache(
+            @Value("${jwt.verified-cache.enabled:true}") boolean enabled,
+            @Value("${jwt.verified-cache.max-size:10000}") int maxSize) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.<String, VerifiedToken>writing((key, verified) ->
+                        Duration.ofMillis(Math.max(0, verified.getExpiresAtMs() - System.currentTimeMillis()))))
+                .scheduler(Scheduler.systemScheduler())
+                .evictionListener((String key, VerifiedToken verified, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        evictionCount.incrementAndGet();
+                    }
+                })
+                .build();
+
+        logger.info("VerifiedTokenCache inicializado - habilitado: {}, max size: {}", enabled, maxSize);
+    }
+
+    /**
+     * Obtiene el resultado de una verificación previa del token
+     *
+     * @param token El token JWT
+     * @return El token verificado, o null si no está en caché o ya expiró
+     */
+    public VerifiedToken get(String token) {
+        if (!enabled || token == null) {
+            return null;
+        }
+
+        VerifiedToken cached = tokens.getIfPresent(hash(token));
+        if (cached == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+
+        hitCount.incrementAndGet();
+        return cached;
+    }
+
+    /**
+     * Guarda el resultado de verificar un token
+     *
+     * @param token El token JWT ya verificado
+     * @param verified Datos extraídos del token
+     */
+    public void put(String token, VerifiedToken verified) {
+        if (!enabled || token == null || verified == null) {
+            return;
+        }
+
+        if (verified.isExpired(System.currentTimeMillis())) {
+            return;
+        }
+
+        tokens.put(hash(token), verified);
+    }
+
+    /**
+     * Descarta todos los tokens asociados a una sesión
+     *
+     * @param sessionId ID de la sesión revocada o cerrada
+     */
+    public void invalidateSession(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+
+        tokens.asMap().values().removeIf(verified -> sessionId.equals(verified.getSessionId()));
+        logger.debug("Tokens verificados descartados para sesión {}", sessionId);
+    }
+
+    /**
+     * Limpia todo el caché
+     */
+    public void clear() {
+        tokens.invalidateAll();
+        logger.info("Caché de tokens verificados limpiado");
+    }
+
+    /**
+     * Ejecuta el mantenimiento pendiente del caché (desalojos y expiraciones)
+     */
+    void cleanUp() {
+        tokens.cleanUp();
+    }
+
+    /**
+     * Obtiene estadísticas del caché
+     */
+    public CacheStats getCacheStats() {
+        return new CacheStats((int) tokens.estimatedSize(), hitCount.get(), missCount.get(),
+                              evictionCount.get(), maxSize);
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 es obligatorio en toda JVM
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Resultado de verificar un token: usuario, autoridades y sesión
+     */
+    public static class VerifiedToken {
+        private final JwtValidationService.UserInfo userInfo;
+        private final List<SimpleGrantedAuthority> authorities;
+        private final String sessionId;
+        private final long expiresAtMs;
+
+        public VerifiedToken(JwtValidationService.UserInfo userInfo, List<SimpleGrantedAuthority> authorities,
+                             String sessionId, long expiresAtMs) {
+            this.userInfo = userInfo;
+            this.authorities = List.copyOf(authorities);
+            this.sessionId = sessionId;
+            this.expiresAtMs = expiresAtMs;
+        }
+
+        public JwtValidationService.UserInfo getUserInfo() {
+            return userInfo;
+        }
+
+        public List<SimpleGrantedAuthority> getAuthorities() {
+            return authorities;
+        }
+
+        public String getSessionId() {
+            return sessionId;
+        }
+
+        public long getExpiresAtMs() {
+            return expiresAtMs;
+        }
+
+        public boolean isExpired(long now) {
+            return now >= expiresAtMs;
+        }
+    }
+
+    /**
+     * Estadísticas del caché de tokens verificados
+     */
+    public static class CacheStats {
+        private final int size;
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final int maxSize;
+
+        public CacheStats(int size, long hitCount, long missCount, long evictionCount, int maxSize) {
+            this.size = size;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.maxSize = maxSize;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheStats{" +
+                    "size=" + size +
+                    ", hitCount=" + hitCount +
+                    ", missCount=" + missCount +
+                    ", evictionCount=" + evictionCount +
+                    ", maxSize=" + maxSize +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package mx.com.qtx.cotizador.servicio.catalogo;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Versión global del catálogo de precios (componentes, PCs y promociones).
+ * <p>
+ * Cualquier escritura sobre el catálogo incrementa la versión al confirmarse su transacción.
+ * Las cachés que dependen de precios incluyen la versión en su llave, de modo que un cambio
+ * deja inalcanzables todas las entradas calculadas con datos anteriores.
+ * </p>
+ * <p>
+ * El incremento se hace después del commit: una lectura que obtuvo la versión anterior pudo
+ * haber leído datos viejos, pero su resultado queda asociado a esa versión ya superada; una
+ * lectura que obtiene la versión nueva necesariamente ve los datos confirmados.
+ * </p>
+ */
+@Component
+public class VersionCatalogo {
+    
+    private final AtomicLong version = new AtomicLong();
+    
+    /**
+     * @return Versión vigente del catálogo
+     */
+    public long actual() {
+        return version.get();
+    }
+    
+    /**
+     * Registra un cambio en el catálogo. Si hay una transacción activa, la versión se
+     * incrementa al confirmarla; si termina en rollback, no cambia.
+     */
+    public void registrarCambio() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    version.incrementAndGet();
+                }
+            });
+        } else {
+            version.incrementAndGet();
+        }
+    }
+    
+    /**
+     * Registra un cambio que ya es visible y no depende de ninguna transacción
+     * (por ejemplo, el inicio o fin de vigencia de una promoción).
+     */
+    public void registrarCambioInmediato() {
+        version.incrementAndGet();
+    }
+}
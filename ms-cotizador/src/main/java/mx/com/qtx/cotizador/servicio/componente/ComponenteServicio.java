@@ -24,6 +24,8 @@ import mx.com.qtx.cotizador.repositorio.ComponenteRepositorio;
 import mx.com.qtx.cotizador.repositorio.PcPartesRepositorio;
 import mx.com.qtx.cotizador.repositorio.PromocionRepositorio;
 import mx.com.qtx.cotizador.repositorio.TipoComponenteRepositorio;
+import mx.com.qtx.cotizador.servicio.catalogo.VersionCatalogo;
+import mx.com.qtx.cotizador.servicio.wrapper.CachePromociones;
 import mx.com.qtx.cotizador.servicio.wrapper.ComponenteEntityConverter;
 import mx.com.qtx.cotizador.util.Errores;
 import mx.com.qtx.cotizador.util.TipoComponenteEnum;
@@ -37,14 +39,20 @@ public class ComponenteServicio {
     private PcPartesRepositorio pcPartesRepo;  
     private PromocionRepositorio promoRepo;
     private List<TipoComponente> tipos;
+    private VersionCatalogo versionCatalogo;
+    private CachePromociones cachePromociones;
     
     public ComponenteServicio(ComponenteRepositorio compRepo, 
         PcPartesRepositorio pcPartesRepo,
         PromocionRepositorio promoRepo,
-        TipoComponenteRepositorio tipoRepo) {
+        TipoComponenteRepositorio tipoRepo,
+        VersionCatalogo versionCatalogo,
+        CachePromociones cachePromociones) {
         this.compRepo = compRepo;
         this.pcPartesRepo = pcPartesRepo;
         this.promoRepo = promoRepo;
+        this.versionCatalogo = versionCatalogo;
+        this.cachePromociones = cachePromociones;
         this.tipos = tipoRepo.findAll();
     }
 
@@ -67,6 +75,7 @@ public class ComponenteServicio {
             }
             
             compRepo.deleteById(id);
+            versionCatalogo.registrarCambio();
             return new ApiResponse<>(Errores.OK.getCodigo(), "Componente eliminado exitosamente");
         } catch (Exception e) {
             return new ApiResponse<>(Errores.ERROR_INTERNO_DEL_SERVICIO.getCodigo(), 
@@ -133,9 +142,10 @@ public class ComponenteServicio {
             var componenteGuardado = compRepo.save(compEntity);
             
             // Convertir de vuelta a objeto de dominio y luego a DTO de respuesta
-            Componente componenteResultado = ComponenteEntityConverter.convertToComponente(componenteGuardado, null);
+            Componente componenteResultado = ComponenteEntityConverter.convertToComponente(componenteGuardado, null, cachePromociones);
             ComponenteResponse response = ComponenteMapper.toResponse(componenteResultado);
             
+            versionCatalogo.registrarCambio();
             return new ApiResponse<>(Errores.OK.getCodigo(), "Componente guardado exitosamente", response);
         } catch (Exception e) {
             return new ApiResponse<>(Errores.ERROR_INTERNO_DEL_SERVICIO.getCodigo(), 
@@ -208,9 +218,10 @@ public class ComponenteServicio {
             var componenteActualizado = compRepo.save(compEntity);
             
             // Convertir de vuelta a objeto de dominio y luego a DTO de respuesta
-            Componente componenteResultado = ComponenteEntityConverter.convertToComponente(componenteActualizado, null);
+            Componente componenteResultado = ComponenteEntityConverter.convertToComponente(componenteActualizado, null, cachePromociones);
             ComponenteResponse response = ComponenteMapper.toResponse(componenteResultado);
             
+            versionCatalogo.registrarCambio();
             return new ApiResponse<>(Errores.OK.getCodigo(), "Componente actualizado exitosamente", response);
         } catch (Exception e) {
             return new ApiResponse<>(Errores.ERROR_INTERNO_DEL_SERVICIO.getCodigo(), 
@@ -239,13 +250,17 @@ public class ComponenteServicio {
             Componente componente;
             if(compEntity.getTipoComponente().getNombre().equals(TipoComponenteEnum.PC.name())) {
                 var subCompEntities = compRepo.findComponentesByPcWithTipoComponente(compEntity.getId());
-                componente = ComponenteEntityConverter.convertToComponente(compEntity, subCompEntities);
+                componente = ComponenteEntityConverter.convertToComponente(compEntity, subCompEntities, cachePromociones);
             } else {
-                componente = ComponenteEntityConverter.convertToComponente(compEntity, null);
+                componente = ComponenteEntityConverter.convertToComponente(compEntity, null, cachePromociones);
             }
             
             // Convertir a DTO de respuesta
             ComponenteResponse response = ComponenteMapper.toResponse(componente);
+            if (compEntity.getPromocion() != null) {
+                response.setPromocionId(String.valueOf(compEntity.getPromocion().getIdPromocion()));
+                response.setPromocionDescripcion(compEntity.getPromocion().getDescripcion());
+            }
             
             return new ApiResponse<>(Errores.OK.getCodigo(), "Componente encontrado", response);
         } catch (Exception e) {
@@ -281,7 +296,7 @@ public class ComponenteServicio {
             
             // Cargar los sub-componentes de la PC
             var subCompEntities = compRepo.findComponentesByPcWithTipoComponente(compEntity.getId());
-            Componente componente = ComponenteEntityConverter.convertToComponente(compEntity, subCompEntities);
+            Componente componente = ComponenteEntityConverter.convertToComponente(compEntity, subCompEntities, cachePromociones);
             
             // Verificar que se convirtió correctamente a PC
             if(!(componente instanceof Pc)) {
@@ -307,7 +322,7 @@ public class ComponenteServicio {
             var compEntities = compRepo.findAllWithTipoComponente();
             List<ComponenteResponse> componentes = compEntities.stream()
                 .map(entity -> {
-                    Componente componente = ComponenteEntityConverter.convertToComponente(entity, null);
+                    Componente componente = ComponenteEntityConverter.convertToComponente(entity, null, cachePromociones);
                     return ComponenteMapper.toResponse(componente);
                 })
                 .collect(Collectors.toList());
@@ -339,9 +354,9 @@ public class ComponenteServicio {
                     // Si es una PC, cargar sus sub-componentes
                     if (entity.getTipoComponente().getNombre().equals(TipoComponenteEnum.PC.name())) {
                         var subCompEntities = compRepo.findComponentesByPcWithTipoComponente(entity.getId());
-                        componente = ComponenteEntityConverter.convertToComponente(entity, subCompEntities);
+                        componente = ComponenteEntityConverter.convertToComponente(entity, subCompEntities, cachePromociones);
                     } else {
-                        componente = ComponenteEntityConverter.convertToComponente(entity, null);
+                        componente = ComponenteEntityConverter.convertToComponente(entity, null, cachePromociones);
                     }
                     return ComponenteMapper.toResponse(componente);
                 })
@@ -470,6 +485,7 @@ public class ComponenteServicio {
             }
             PcResponse pcResponse = pcCompleta.getDatos();
             
+            versionCatalogo.registrarCambio();
             return new ApiResponse<>(Errores.OK.getCodigo(), "PC guardada exitosamente", pcResponse);
         } catch (Exception e) {
             log.error("Error al guardar PC completa: {}", e.getMessage(), e);
@@ -554,9 +570,10 @@ public class ComponenteServicio {
             }
             
             // Convertir de vuelta a objeto de dominio y luego a DTO
-            Componente pcResultado = ComponenteEntityConverter.convertToComponente(pcEntity, null);
+            Componente pcResultado = ComponenteEntityConverter.convertToComponente(pcEntity, null, cachePromociones);
             PcResponse pcResponse = PcMapper.toResponse((Pc) pcResultado);
             
+            versionCatalogo.registrarCambio();
             return new ApiResponse<>(Errores.OK.getCodigo(), "PC actualizada exitosamente", pcResponse);
         } catch (Exception e) {
             return new ApiResponse<>(Errores.ERROR_INTERNO_DEL_SERVICIO.getCodigo(), 
@@ -603,7 +620,7 @@ public class ComponenteServicio {
                 
                 // Obtener el componente existente y convertir a DTO
                 var componenteEntity = compRepo.findByIdWithTipoComponente(request.getId());
-                Componente componenteResultado = ComponenteEntityConverter.convertToComponente(componenteEntity, null);
+                Componente componenteResultado = ComponenteEntityConverter.convertToComponente(componenteEntity, null, cachePromociones);
                 componenteResponse = ComponenteMapper.toResponse(componenteResultado);
                 
             } else {
@@ -636,6 +653,7 @@ public class ComponenteServicio {
                 componenteResponse = crearResponse.getDatos();
             }
             
+            versionCatalogo.registrarCambio();
             return new ApiResponse<>(Errores.OK.getCodigo(), "Componente agregado a la PC exitosamente", componenteResponse);
         } catch (Exception e) {
             log.error("Error al agregar componente a PC: {}", e.getMessage(), e);
@@ -666,6 +684,7 @@ public class ComponenteServicio {
             // Eliminar la asociación
             pcPartesRepo.deleteByPcIdAndComponenteId(pcId, componenteId);
             
+            versionCatalogo.registrarCambio();
             return new ApiResponse<>(Errores.OK.getCodigo(), "Componente removido de la PC exitosamente");
         } catch (Exception e) {
             return new ApiResponse<>(Errores.ERROR_INTERNO_DEL_SERVICIO.getCodigo(), 
@@ -710,6 +729,7 @@ public class ComponenteServicio {
             // 2. Eliminar la PC
             compRepo.deleteById(pcId);
             
+            versionCatalogo.registrarCambio();
             return new ApiResponse<>(Errores.OK.getCodigo(), "PC eliminada exitosamente");
         } catch (Exception e) {
             log.error("Error al eliminar PC completa: {}", e.getMessage(), e);
@@ -0,0 +1,189 @@
+package mx.com.qtx.cotizador.servicio.componente;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import mx.com.qtx.cotizador.dto.common.response.ApiResponse;
+import mx.com.qtx.cotizador.dto.componente.request.ReasignacionPromocionRequest;
+import mx.com.qtx.cotizador.dto.componente.response.ReasignacionPromocionResponse;
+import mx.com.qtx.cotizador.entidad.TipoComponente;
+import mx.com.qtx.cotizador.repositorio.PromocionRepositorio;
+import mx.com.qtx.cotizador.repositorio.TipoComponenteRepositorio;
+import mx.com.qtx.cotizador.servicio.catalogo.VersionCatalogo;
+import mx.com.qtx.cotizador.util.Errores;
+
+/**
+ * Reasignación masiva de la promoción de los componentes.
+ * <p>
+ * En lugar de cargar y guardar cada componente, la reasignación se hace con sentencias
+ * {@code UPDATE} sobre {@code cocomponente}, cada una en su propia transacción y limitada a
+ * {@code componente.reasignacion.tamano-lote} renglones, de modo que una campaña sobre miles de
+ * componentes no mantiene bloqueada la tabla completa. Los componentes que ya tienen la
+ * promoción destino no se tocan ni se cuentan.
+ * </p>
+ * <p>
+ * Al terminar se registra un único cambio en la {@link VersionCatalogo}, con lo que las cachés
+ * que dependen de precios descartan sus entradas una sola vez.
+ * </p>
+ */
+@Service
+public class ReasignacionPromocionServicio {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReasignacionPromocionServicio.class);
+    
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccion;
+    private final PromocionRepositorio promocionRepositorio;
+    private final TipoComponenteRepositorio tipoComponenteRepositorio;
+    private final VersionCatalogo versionCatalogo;
+    private final int tamanoLote;
+    
+    public ReasignacionPromocionServicio(NamedParameterJdbcTemplate jdbcTemplate,
+                                         PlatformTransactionManager transactionManager,
+                                         PromocionRepositorio promocionRepositorio,
+                                         TipoComponenteRepositorio tipoComponenteRepositorio,
+                                         VersionCatalogo versionCatalogo,
+                                         @Value("${componente.reasignacion.tamano-lote:1000}") int tamanoLote) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.promocionRepositorio = promocionRepositorio;
+        this.tipoComponenteRepositorio = tipoComponenteRepositorio;
+        this.versionCatalogo = versionCatalogo;
+        this.tamanoLote = tamanoLote;
+    }
+    
+    /**
+     * Reasigna la promoción de los componentes que cumplen los filtros indicados.
+     * 
+     * @param request Promoción destino y filtros (tipo, marca, ids)
+     * @return ApiResponse con el número de componentes actualizados
+     */
+    public ApiResponse<ReasignacionPromocionResponse> reasignar(ReasignacionPromocionRequest request) {
+        if (request == null || request.getIdPromocion() == null) {
+            return new ApiResponse<>(Errores.CAMPO_REQUERIDO.getCodigo(),
+                                   "El ID de la promoción es requerido");
+        }
+        
+        String tipo = textoONulo(request.getTipoComponente());
+        String marca = textoONulo(request.getMarca());
+        List<String> ids = idsDistintos(request.getIds());
+        if (tipo == null && marca == null && ids == null) {
+            return new ApiResponse<>(Errores.CAMPO_REQUERIDO.getCodigo(),
+                                   "Debe indicar al menos un filtro: tipoComponente, marca o ids");
+        }
+        if (ids != null && ids.isEmpty()) {
+            return new ApiResponse<>(Errores.VALOR_INVALIDO.getCodigo(),
+                                   "La lista de ids no contiene ningún id válido");
+        }
+        
+        if (!promocionRepositorio.existsById(request.getIdPromocion())) {
+            return new ApiResponse<>(Errores.PROMOCION_NO_ENCONTRADA.getCodigo(),
+                                   Errores.PROMOCION_NO_ENCONTRADA.getMensaje());
+        }
+        
+        Short idTipo = null;
+        if (tipo != null) {
+            Optional<TipoComponente> tipoComponente = tipoComponenteRepositorio.findByNombreIgnoreCase(tipo);
+            if (tipoComponente.isEmpty()) {
+                return new ApiResponse<>(Errores.VALOR_INVALIDO.getCodigo(),
+                                       "Tipo de componente no válido: " + tipo);
+            }
+            idTipo = tipoComponente.get().getId();
+        }
+        
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("idPromocion", request.getIdPromocion())
+                .addValue("idTipo", idTipo)
+                .addValue("marca", marca)
+                .addValue("lote", tamanoLote);
+        int actualizados = 0;
+        try {
+            if (ids != null) {
+                String sql = sentencia(idTipo != null, marca != null, true);
+                for (int desde = 0; desde < ids.size(); desde += tamanoLote) {
+                    parametros.addValue("ids", ids.subList(desde, Math.min(desde + tamanoLote, ids.size())));
+                    actualizados += ejecutar(sql, parametros);
+                }
+            } else {
+                // Cada sentencia excluye los ya reasignados, así que se repite hasta quedar incompleta
+                String sql = sentencia(idTipo != null, marca != null, false);
+                int enLote;
+                do {
+                    enLote = ejecutar(sql, parametros);
+                    actualizados += enLote;
+                } while (enLote == tamanoLote);
+            }
+        } catch (Exception e) {
+            logger.error("Error al reasignar promoción {} tras {} componentes: {}",
+                         request.getIdPromocion(), actualizados, e.getMessage(), e);
+            return new ApiResponse<>(Errores.ERROR_INTERNO_DEL_SERVICIO.getCodigo(),
+                                   "Error interno al reasignar promoción; componentes ya reasignados: " + actualizados);
+        } finally {
+            if (actualizados > 0) {
+                versionCatalogo.registrarCambio();
+            }
+        }
+        
+        logger.info("Promoción {} reasignada a {} componentes", request.getIdPromocion(), actualizados);
+        ReasignacionPromocionResponse response = ReasignacionPromocionResponse.builder()
+                .idPromocion(request.getIdPromocion())
+                .componentesActualizados(actualizados)
+                .build();
+        return new ApiResponse<>(Errores.OK.getCodigo(), "Promoción reasignada exitosamente", response);
+    }
+    
+    private int ejecutar(String sql, MapSqlParameterSource parametros) {
+        Integer renglones = transaccion.execute(status -> jdbcTemplate.update(sql, parametros));
+        return renglones != null ? renglones : 0;
+    }
+    
+    private static String sentencia(boolean porTipo, boolean porMarca, boolean porIds) {
+        StringBuilder sql = new StringBuilder("""
+            UPDATE cocomponente SET id_promocion = :idPromocion
+            WHERE (id_promocion IS NULL OR id_promocion <> :idPromocion)
+            """);
+        if (porTipo) {
+            sql.append(" AND id_tipo_componente = :idTipo");
+        }
+        if (porMarca) {
+            sql.append(" AND marca = :marca");
+        }
+        if (porIds) {
+            // El tamaño de la lista ya está acotado por el lote
+            sql.append(" AND id_componente IN (:ids)");
+        } else {
+            sql.append(" LIMIT :lote");
+        }
+        return sql.toString();
+    }
+    
+    private static String textoONulo(String texto) {
+        return texto == null || texto.isBlank() ? null : texto.trim();
+    }
+    
+    private static List<String> idsDistintos(List<String> ids) {
+        if (ids == null) {
+            return null;
+        }
+        Set<String> distintos = new LinkedHashSet<>();
+        for (String id : ids) {
+            String valor = textoONulo(id);
+            if (valor != null) {
+                distintos.add(valor);
+            }
+        }
+        return new ArrayList<>(distintos);
+    }
+}
@@ -0,0 +1,155 @@
+package mx.com.qtx.cotizador.servicio.cotizacion;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import mx.com.qtx.cotizador.dominio.core.Cotizacion;
+import mx.com.qtx.cotizador.dominio.core.DetalleCotizacion;
+import mx.com.qtx.cotizador.dto.cotizacion.request.CotizacionCreateRequest;
+import mx.com.qtx.cotizador.dto.cotizacion.request.DetalleCotizacionRequest;
+import mx.com.qtx.cotizador.servicio.catalogo.VersionCatalogo;
+
+/**
+ * Caché de resultados de cotización para carritos idénticos.
+ * <p>
+ * La llave es la versión del catálogo ({@link VersionCatalogo}) más un hash SHA-256 del
+ * carrito normalizado: tipo de cotizador, impuestos (en mayúsculas y ordenados, pues su
+ * orden no altera el resultado) y la secuencia de líneas id/cantidad. La secuencia de
+ * líneas se conserva tal cual porque determina la numeración de los detalles.
+ * </p>
+ * <p>
+ * Cualquier alta, cambio o baja de componentes o promociones incrementa la versión, por lo
+ * que nunca se sirven precios calculados con un catálogo anterior; las entradas viejas se
+ * desalojan por LRU. Cada acierto devuelve una copia con número y fecha nuevos.
+ * </p>
+ */
+@Component
+public class CacheResultadosCotizacion {
+    
+    private final VersionCatalogo versionCatalogo;
+    private final Map<Llave, Cotizacion> resultados;
+    private final Counter aciertos;
+    private final Counter fallos;
+    
+    private record Llave(long version, String huella) {
+    }
+    
+    public CacheResultadosCotizacion(VersionCatalogo versionCatalogo,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${cotizacion.cache-resultados.max-entradas:1000}") int maxEntradas) {
+        this.versionCatalogo = versionCatalogo;
+        this.resultados = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Llave, Cotizacion> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+        this.aciertos = Counter.builder("cotizador.cache.resultados")
+                .description("Consultas a la caché de resultados de cotización")
+                .tag("resultado", "acierto")
+                .register(meterRegistry);
+        this.fallos = Counter.builder("cotizador.cache.resultados")
+                .description("Consultas a la caché de resultados de cotización")
+                .tag("resultado", "fallo")
+                .register(meterRegistry);
+        Gauge.builder("cotizador.cache.resultados.tamano", this, CacheResultadosCotizacion::tamano)
+                .description("Entradas en la caché de resultados de cotización")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Obtiene el resultado de cotizar el carrito, calculándolo sólo si no está en caché.
+     * <p>
+     * Si el cálculo lanza una excepción (por ejemplo, componente inexistente) no se guarda
+     * nada. Un resultado nulo tampoco se guarda.
+     * </p>
+     * 
+     * @param request Carrito a cotizar
+     * @param calculo Cálculo de la cotización con la lógica de dominio
+     * @return Cotización (copia independiente en cada llamada)
+     */
+    public Cotizacion obtener(CotizacionCreateRequest request, Supplier<Cotizacion> calculo) {
+        // La versión se lee antes de calcular: si el catálogo cambia durante el cálculo,
+        // el resultado queda asociado a la versión anterior y no se vuelve a servir
+        Llave llave = new Llave(versionCatalogo.actual(), huella(request));
+        Cotizacion guardada;
+        synchronized (resultados) {
+            guardada = resultados.get(llave);
+        }
+        if (guardada != null) {
+            aciertos.increment();
+            return copiar(guardada);
+        }
+        
+        fallos.increment();
+        Cotizacion calculada = calculo.get();
+        if (calculada != null) {
+            synchronized (resultados) {
+                resultados.put(llave, copiar(calculada));
+            }
+        }
+        return calculada;
+    }
+    
+    /**
+     * @return Número de entradas en la caché
+     */
+    public int tamano() {
+        synchronized (resultados) {
+            return resultados.size();
+        }
+    }
+    
+    private static Cotizacion copiar(Cotizacion original) {
+        Cotizacion copia = new Cotizacion();
+        copia.setTotal(original.getTotal());
+        copia.setTotalImpuestos(original.getTotalImpuestos());
+        for (DetalleCotizacion detalle : original.getDetalles()) {
+            copia.agregarDetalle(new DetalleCotizacion(detalle.getNumDetalle(), detalle.getIdComponente(),
+                    detalle.getDescripcion(), detalle.getCantidad(), detalle.getPrecioBase(),
+                    detalle.getImporteCotizado(), detalle.getCategoria()));
+        }
+        return copia;
+    }
+    
+    private static String huella(CotizacionCreateRequest request) {
+        StringBuilder carrito = new StringBuilder();
+        String tipo = request.getTipoCotizador() == null ? "A" : request.getTipoCotizador().trim().toUpperCase(Locale.ROOT);
+        carrito.append(tipo).append('|');
+        
+        List<String> impuestos = new ArrayList<>();
+        if (request.getImpuestos() != null) {
+            for (String impuesto : request.getImpuestos()) {
+                impuestos.add(impuesto == null ? "" : impuesto.trim().toUpperCase(Locale.ROOT));
+            }
+        }
+        impuestos.sort(null);
+        carrito.append(String.join(",", impuestos)).append('|');
+        
+        for (DetalleCotizacionRequest detalle : request.getDetalles()) {
+            carrito.append(detalle.getIdComponente() == null ? "" : detalle.getIdComponente().trim())
+                   .append('x').append(detalle.getCantidad()).append(';');
+        }
+        
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(carrito.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -16,14 +16,20 @@ import mx.com.qtx.cotizador.dominio.impuestos.CalculadorImpuestoLocal;
 import mx.com.qtx.cotizador.dominio.impuestos.CalculadorImpuestoFederal;
 import mx.com.qtx.cotizador.dominio.impuestos.CalculadorImpuestoMexico;
 import mx.com.qtx.cotizador.dto.common.response.ApiResponse;
+import mx.com.qtx.cotizador.dto.common.response.PaginaResponse;
 import mx.com.qtx.cotizador.dto.cotizacion.request.CotizacionCreateRequest;
 import mx.com.qtx.cotizador.dto.cotizacion.request.DetalleCotizacionRequest;
 import mx.com.qtx.cotizador.dto.cotizacion.response.CotizacionResponse;
+import mx.com.qtx.cotizador.dto.cotizacion.response.CotizacionResumenResponse;
 import mx.com.qtx.cotizador.dto.cotizacion.mapper.CotizacionMapper;
 import mx.com.qtx.cotizador.dto.componente.response.ComponenteResponse;
 import mx.com.qtx.cotizador.repositorio.ComponenteRepositorio;
 import mx.com.qtx.cotizador.repositorio.CotizacionRepositorio;
 import mx.com.qtx.cotizador.servicio.componente.ComponenteServicio;
+import mx.com.qtx.cotizador.servicio.cotizacion.archivo.ArchivoCotizacionesServicio;
+import mx.com.qtx.cotizador.servicio.indice.IndiceComponentes;
+import mx.com.qtx.cotizador.servicio.indice.ListaPosteo;
+import mx.com.qtx.cotizador.servicio.promocion.AgendaPromociones;
 import mx.com.qtx.cotizador.servicio.wrapper.CotizacionEntityConverter;
 import mx.com.qtx.cotizador.servicio.wrapper.ComponenteResponseConverter;
 import mx.com.qtx.cotizador.util.Errores;
@@ -39,16 +45,31 @@ public class CotizacionServicio {
     
     private static final Logger logger = LoggerFactory.getLogger(CotizacionServicio.class);
     
+    /** Tamaño máximo de página permitido en consultas paginadas */
+    public static final int TAMANO_PAGINA_MAXIMO = 100;
+    
     private final CotizacionRepositorio cotizacionRepo;
     private final ComponenteServicio componenteServicio;
-    private final ComponenteRepositorio componenteRepo; // Necesario solo para addDetallesTo
+    private final ComponenteRepositorio componenteRepo; // Necesario para addDetallesTo
+    private final IndiceComponentes indiceComponentes;
+    private final ArchivoCotizacionesServicio archivoCotizaciones;
+    private final CacheResultadosCotizacion cacheResultados;
+    private final AgendaPromociones agendaPromociones;
     
     public CotizacionServicio(CotizacionRepositorio cotizacionRepo, 
                              ComponenteServicio componenteServicio,
-                             ComponenteRepositorio componenteRepo) {
+                             ComponenteRepositorio componenteRepo,
+                             IndiceComponentes indiceComponentes,
+                             ArchivoCotizacionesServicio archivoCotizaciones,
+                             CacheResultadosCotizacion cacheResultados,
+                             AgendaPromociones agendaPromociones) {
         this.cotizacionRepo = cotizacionRepo;
         this.componenteServicio = componenteServicio;
         this.componenteRepo = componenteRepo;
+        this.indiceComponentes = indiceComponentes;
+        this.archivoCotizaciones = archivoCotizaciones;
+        this.cacheResultados = cacheResultados;
+        this.agendaPromociones = agendaPromociones;
     }   
 
     /**
@@ -80,41 +101,30 @@ public class CotizacionServicio {
                                        Errores.COTIZACION_SIN_DETALLES.getMensaje());
             }
             
-            // 2. Crear cotizador según tipo especificado
-            ICotizador cotizador = crearCotizador(request.getTipoCotizador());
-            
-            // 3. Agregar componentes al cotizador usando servicio de componentes
-            for (DetalleCotizacionRequest detalle : request.getDetalles()) {
-                // Buscar componente usando el servicio (no repositorio directamente)
-                ApiResponse<ComponenteResponse> componenteResponse = 
-                    componenteServicio.buscarComponente(detalle.getIdComponente());
-                
-                if (!componenteResponse.getCodigo().equals(Errores.OK.getCodigo()) || 
-                    componenteResponse.getDatos() == null) {
-                    logger.warn("Componente no encontrado: {}", detalle.getIdComponente());
-                    return new ApiResponse<>(Errores.COMPONENTE_NO_ENCONTRADO_EN_COTIZACION.getCodigo(), 
-                                           "Componente no encontrado: " + detalle.getIdComponente());
-                }
-                
-                // Convertir DTO de respuesta a objeto de dominio
-                Componente compDominio = ComponenteResponseConverter.toDomainObject(componenteResponse.getDatos());
-                
-                // Agregar al cotizador
-                cotizador.agregarComponente(detalle.getCantidad(), compDominio);
+            // 2-4. Generar cotización con lógica de dominio, reutilizando el resultado
+            //      de un carrito idéntico si el catálogo no ha cambiado
+            Cotizacion cotizacionDominio;
+            // Aplicar inicios/fines de vigencia vencidos antes de que la caché lea la versión del catálogo
+            agendaPromociones.sincronizar();
+            try {
+                cotizacionDominio = cacheResultados.obtener(request, () -> cotizarCarrito(request));
+            } catch (ComponenteNoEncontradoException e) {
+                logger.warn("Componente no encontrado: {}", e.getMessage());
+                return new ApiResponse<>(Errores.COMPONENTE_NO_ENCONTRADO_EN_COTIZACION.getCodigo(), 
+                                       "Componente no encontrado: " + e.getMessage());
             }
             
-            // 4. Generar cotización usando lógica de dominio
-            List<CalculadorImpuesto> impuestos = mapearImpuestos(request.getImpuestos());
-            Cotizacion cotizacionDominio = cotizador.generarCotizacion(impuestos);
-            
             logger.info("Cotización generada con lógica de dominio. Total: {}", cotizacionDominio.getTotal());
             
-            // 5. Convertir dominio a entidad JPA para persistir
+            // 5. Convertir dominio a entidad JPA (encabezado y detalles) para persistir
             mx.com.qtx.cotizador.entidad.Cotizacion cotizacionEntity = 
                 CotizacionEntityConverter.convertToNewEntity(cotizacionDominio);
+            CotizacionEntityConverter.addDetallesTo(cotizacionDominio, cotizacionEntity, componenteRepo);
                 
-            // 6. Persistir la entidad cotización
+            // 6. Persistir la entidad cotización; el folio proviene del generador por bloques,
+            //    así que encabezado y detalles se insertan en lote al hacer flush
             mx.com.qtx.cotizador.entidad.Cotizacion cotizacionGuardada = cotizacionRepo.save(cotizacionEntity);
+            registrarEnIndice(cotizacionGuardada);
             
             // 7. Convertir a DTO de respuesta
             CotizacionResponse response = CotizacionMapper.toResponse(cotizacionGuardada);
@@ -129,6 +139,57 @@ public class CotizacionServicio {
         }
     }
     
+    /**
+     * Aplica la lógica de dominio (cotizador e impuestos) a los detalles del request.
+     * 
+     * @throws ComponenteNoEncontradoException si algún componente no existe
+     */
+    private Cotizacion cotizarCarrito(CotizacionCreateRequest request) {
+        // Crear cotizador según tipo especificado
+        ICotizador cotizador = crearCotizador(request.getTipoCotizador());
+        
+        // Agregar componentes al cotizador usando servicio de componentes
+        for (DetalleCotizacionRequest detalle : request.getDetalles()) {
+            // Buscar componente usando el servicio (no repositorio directamente)
+            ApiResponse<ComponenteResponse> componenteResponse = 
+                componenteServicio.buscarComponente(detalle.getIdComponente());
+            
+            if (!componenteResponse.getCodigo().equals(Errores.OK.getCodigo()) || 
+                componenteResponse.getDatos() == null) {
+                throw new ComponenteNoEncontradoException(detalle.getIdComponente());
+            }
+            
+            // Convertir DTO de respuesta a objeto de dominio y agregarlo al cotizador
+            Componente compDominio = ComponenteResponseConverter.toDomainObject(componenteResponse.getDatos());
+            compDominio.setPromo(promocionVigente(componenteResponse.getDatos()));
+            cotizador.agregarComponente(detalle.getCantidad(), compDominio);
+        }
+        
+        // Generar cotización usando lógica de dominio
+        List<CalculadorImpuesto> impuestos = mapearImpuestos(request.getImpuestos());
+        return cotizador.generarCotizacion(impuestos);
+    }
+    
+    /**
+     * Obtiene de la agenda la promoción asignada al componente si está vigente.
+     */
+    private mx.com.qtx.cotizador.dominio.promos.Promocion promocionVigente(ComponenteResponse componente) {
+        if (componente.getPromocionId() == null) {
+            return null;
+        }
+        return agendaPromociones.vigente(Integer.valueOf(componente.getPromocionId()));
+    }
+    
+    /**
+     * Componente inexistente detectado al cotizar un carrito.
+     */
+    private static class ComponenteNoEncontradoException extends RuntimeException {
+        
+        ComponenteNoEncontradoException(String idComponente) {
+            super(idComponente);
+        }
+    }
+    
     /**
      * Factory para crear cotizador según tipo especificado
      */
@@ -204,7 +265,8 @@ public class CotizacionServicio {
 
             var cotizacionEntity = CotizacionEntityConverter.convertToEntity(cotizacion, null);
             CotizacionEntityConverter.addDetallesTo(cotizacion, cotizacionEntity, componenteRepo);
-            cotizacionRepo.save(cotizacionEntity);
+            cotizacionEntity = cotizacionRepo.save(cotizacionEntity);
+            registrarEnIndice(cotizacionEntity);
             
             logger.info("Cotización guardada exitosamente: {}", cotizacion.getNum());
             return new ApiResponse<>(Errores.OK.getCodigo(), Errores.OK.getMensaje());
@@ -261,6 +323,12 @@ public class CotizacionServicio {
             Optional<mx.com.qtx.cotizador.entidad.Cotizacion> cotizacionEntity = cotizacionRepo.findById(id);
             
             if (cotizacionEntity.isEmpty()) {
+                // Las cotizaciones antiguas pudieron haberse movido al archivo histórico
+                Optional<CotizacionResponse> archivada = archivoCotizaciones.buscarPorFolio(id);
+                if (archivada.isPresent()) {
+                    logger.info("Cotización {} recuperada del archivo histórico", id);
+                    return new ApiResponse<>(Errores.OK.getCodigo(), Errores.OK.getMensaje(), archivada.get());
+                }
                 logger.warn("Cotización no encontrada con ID: {}", id);
                 return new ApiResponse<>(Errores.COTIZACION_NO_ENCONTRADA.getCodigo(), 
                                        Errores.COTIZACION_NO_ENCONTRADA.getMensaje());
@@ -433,6 +501,67 @@ public class CotizacionServicio {
         }
     }
 
+    /**
+     * Busca cotizaciones por componente de forma paginada.
+     * <p>
+     * Los folios se obtienen del índice inverso en memoria (cargado con una consulta DISTINCT
+     * sobre los detalles) y sólo se consultan los encabezados de la página solicitada, mediante
+     * proyección y sin cargar detalles. Cada cotización aparece una sola vez aunque incluya el
+     * componente en varios detalles.
+     * </p>
+     * 
+     * @param idComponente Id del componente a buscar
+     * @param pagina Número de página (base 0)
+     * @param tamano Tamaño de página (1 a {@value #TAMANO_PAGINA_MAXIMO})
+     * @return ApiResponse con la página de resúmenes de cotización
+     */
+    @Transactional(readOnly = true)
+    public ApiResponse<PaginaResponse<CotizacionResumenResponse>> buscarCotizacionesPorComponentePaginado(
+            String idComponente, int pagina, int tamano) {
+        try {
+            if (idComponente == null || idComponente.trim().isEmpty()) {
+                logger.warn("ID de componente vacío o nulo");
+                return new ApiResponse<>(Errores.VALOR_INVALIDO.getCodigo(), 
+                                       "El ID del componente no puede estar vacío");
+            }
+            
+            if (pagina < 0 || tamano < 1 || tamano > TAMANO_PAGINA_MAXIMO) {
+                logger.warn("Parámetros de paginación inválidos: pagina={}, tamano={}", pagina, tamano);
+                return new ApiResponse<>(Errores.VALOR_INVALIDO.getCodigo(), 
+                                       "La página debe ser >= 0 y el tamaño entre 1 y " + TAMANO_PAGINA_MAXIMO);
+            }
+            
+            ListaPosteo folios = indiceComponentes.foliosPorComponente(idComponente);
+            int totalElementos = folios.tamano();
+            long desde = (long) pagina * tamano;
+            List<Integer> foliosPagina = desde < totalElementos
+                    ? folios.rango((int) desde, (int) Math.min(desde + tamano, totalElementos))
+                    : List.of();
+            
+            List<CotizacionResumenResponse> contenido = foliosPagina.isEmpty()
+                    ? List.of()
+                    : cotizacionRepo.findResumenesByFolios(foliosPagina);
+            
+            PaginaResponse<CotizacionResumenResponse> respuesta = PaginaResponse.<CotizacionResumenResponse>builder()
+                    .contenido(contenido)
+                    .pagina(pagina)
+                    .tamano(tamano)
+                    .totalElementos((long) totalElementos)
+                    .totalPaginas((totalElementos + tamano - 1) / tamano)
+                    .build();
+            
+            logger.info("Búsqueda paginada por componente '{}' completada. Página {}: {} de {}", 
+                       idComponente, pagina, contenido.size(), totalElementos);
+            return new ApiResponse<>(Errores.OK.getCodigo(), Errores.OK.getMensaje(), respuesta);
+            
+        } catch (Exception e) {
+            logger.error("Error al buscar cotizaciones paginadas por componente '{}': {}", 
+                        idComponente, e.getMessage(), e);
+            return new ApiResponse<>(Errores.ERROR_INTERNO_DEL_SERVICIO.getCodigo(), 
+                                   Errores.ERROR_INTERNO_DEL_SERVICIO.getMensaje());
+        }
+    }
+
     /**
      * Busca cotizaciones con monto mayor al especificado
      */
@@ -521,4 +650,16 @@ public class CotizacionServicio {
                                    Errores.ERROR_INTERNO_DEL_SERVICIO.getMensaje());
         }
     }
+
+    /**
+     * Registra en el índice inverso los componentes de una cotización persistida
+     */
+    private void registrarEnIndice(mx.com.qtx.cotizador.entidad.Cotizacion cotizacionEntity) {
+        List<String> idsComponente = cotizacionEntity.getDetalles().stream()
+                .filter(detalle -> detalle.getComponente() != null)
+                .map(detalle -> detalle.getComponente().getId())
+                .distinct()
+                .toList();
+        indiceComponentes.registrarCotizacion(cotizacionEntity.getFolio(), idsComponente);
+    }
 }
@@ -0,0 +1,313 @@
+package mx.com.qtx.cotizador.servicio.cotizacion;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import mx.com.qtx.cotizador.dto.common.response.ApiResponse;
+import mx.com.qtx.cotizador.dto.cotizacion.request.CotizacionCreateRequest;
+import mx.com.qtx.cotizador.dto.cotizacion.response.CotizacionResponse;
+import mx.com.qtx.cotizador.entidad.IdempotenciaCotizacion;
+import mx.com.qtx.cotizador.repositorio.IdempotenciaCotizacionRepositorio;
+import mx.com.qtx.cotizador.util.Errores;
+
+/**
+ * Deduplicación de solicitudes de creación de cotizaciones mediante el encabezado
+ * {@code Idempotency-Key}.
+ * <p>
+ * Cada clave se asocia a la huella (SHA-256) del cuerpo de la solicitud y, una vez
+ * terminada, a la {@link CotizacionResponse} resultante. Un reintento con la misma clave
+ * y el mismo cuerpo devuelve la respuesta original sin volver a cotizar ni a insertar.
+ * </p>
+ * <p>
+ * Se usan dos niveles:
+ * <ul>
+ *   <li>Memoria: mapa acotado con expiración; los duplicados concurrentes en la misma
+ *       instancia esperan el resultado de la primera ejecución.</li>
+ *   <li>Tabla {@code coidempotencia_cotizacion}: la reservación de la clave es un INSERT
+ *       sobre la llave primaria, de modo que sólo una instancia ejecuta la solicitud; las
+ *       demás consultan la fila hasta que se completa.</li>
+ * </ul>
+ * Sólo se conservan las respuestas exitosas; si la creación falla, la clave se libera y
+ * el cliente puede reintentar.
+ * </p>
+ * <p>
+ * Una reservación en proceso dura a lo más {@code arrendamiento-ms}: si la instancia que la
+ * tomó termina sin completarla ni liberarla, un reintento con la misma solicitud la retoma
+ * al vencer el arrendamiento en lugar de recibir {@code IDEMPOTENCIA_EN_PROCESO} durante toda
+ * la vigencia de la clave. El arrendamiento debe ser mayor que el tiempo de una creación.
+ * </p>
+ */
+@Service
+public class IdempotenciaCotizacionServicio {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaCotizacionServicio.class);
+    
+    /** Longitud máxima de la clave (columna clave VARCHAR(100)) */
+    public static final int LONGITUD_MAXIMA_CLAVE = 100;
+    
+    private static final long INTERVALO_CONSULTA_MS = 100;
+    
+    private final IdempotenciaCotizacionRepositorio idempotenciaRepo;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaccionNueva;
+    private final long ttlMs;
+    private final long esperaMaximaMs;
+    private final long arrendamientoMs;
+    
+    // Entradas locales por clave, en orden de inserción para desalojar la más antigua
+    private final Map<String, Entrada> entradas;
+    
+    private record Entrada(String huella, CompletableFuture<ApiResponse<CotizacionResponse>> resultado, long expiraEn) {
+    }
+    
+    public IdempotenciaCotizacionServicio(IdempotenciaCotizacionRepositorio idempotenciaRepo,
+                                          ObjectMapper objectMapper,
+                                          PlatformTransactionManager transactionManager,
+                                          @Value("${cotizacion.idempotencia.ttl-minutos:1440}") long ttlMinutos,
+                                          @Value("${cotizacion.idempotencia.max-entradas:10000}") int maxEntradas,
+                                          @Value("${cotizacion.idempotencia.espera-maxima-ms:30000}") long esperaMaximaMs,
+                                          @Value("${cotizacion.idempotencia.arrendamiento-ms:30000}") long arrendamientoMs) {
+        this.idempotenciaRepo = idempotenciaRepo;
+        this.objectMapper = objectMapper;
+        this.transaccionNueva = new TransactionTemplate(transactionManager);
+        this.transaccionNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttlMs = TimeUnit.MINUTES.toMillis(ttlMinutos);
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.arrendamientoMs = arrendamientoMs;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                return size() > maxEntradas;
+            }
+        };
+    }
+    
+    /**
+     * Ejecuta la creación de una cotización una sola vez por clave de idempotencia.
+     * 
+     * @param clave Valor del encabezado Idempotency-Key
+     * @param request Cuerpo de la solicitud (se usa para calcular la huella)
+     * @param creacion Operación que crea la cotización
+     * @return La respuesta original si la clave ya se procesó, o la de la nueva ejecución
+     */
+    public ApiResponse<CotizacionResponse> ejecutar(String clave, CotizacionCreateRequest request,
+                                                    Supplier<ApiResponse<CotizacionResponse>> creacion) {
+        if (clave == null || clave.isBlank() || clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            logger.warn("Clave de idempotencia inválida: {}", clave);
+            return new ApiResponse<>(Errores.VALOR_INVALIDO.getCodigo(), 
+                                   "La clave de idempotencia debe tener entre 1 y " + LONGITUD_MAXIMA_CLAVE + " caracteres");
+        }
+        String huella = calcularHuella(request);
+        
+        Entrada existente;
+        Entrada propia = null;
+        long ahora = System.currentTimeMillis();
+        synchronized (entradas) {
+            existente = entradas.get(clave);
+            if (existente != null && existente.expiraEn() < ahora) {
+                entradas.remove(clave);
+                existente = null;
+            }
+            if (existente == null) {
+                propia = new Entrada(huella, new CompletableFuture<>(), ahora + ttlMs);
+                entradas.put(clave, propia);
+            }
+        }
+        
+        if (existente != null) {
+            if (!existente.huella().equals(huella)) {
+                logger.warn("Clave de idempotencia {} reutilizada con una solicitud distinta", clave);
+                return error(Errores.IDEMPOTENCIA_CLAVE_REUTILIZADA);
+            }
+            logger.info("Solicitud duplicada con clave {}; se espera el resultado original", clave);
+            return esperar(existente.resultado());
+        }
+        
+        ApiResponse<CotizacionResponse> respuesta;
+        try {
+            respuesta = ejecutarComoDueno(clave, huella, creacion);
+        } catch (RuntimeException e) {
+            logger.error("Error al ejecutar solicitud idempotente {}: {}", clave, e.getMessage(), e);
+            respuesta = error(Errores.ERROR_INTERNO_DEL_SERVICIO);
+        }
+        propia.resultado().complete(respuesta);
+        if (!Errores.OK.getCodigo().equals(respuesta.getCodigo())) {
+            // Los errores no se conservan: un reintento posterior se ejecuta de nuevo
+            Entrada liberada = propia;
+            synchronized (entradas) {
+                entradas.remove(clave, liberada);
+            }
+        }
+        return respuesta;
+    }
+    
+    /**
+     * Elimina periódicamente las claves vencidas en memoria y en la tabla.
+     */
+    @Scheduled(fixedRateString = "${cotizacion.idempotencia.limpieza-ms:600000}")
+    public void limpiarExpiradas() {
+        long ahora = System.currentTimeMillis();
+        synchronized (entradas) {
+            entradas.values().removeIf(entrada -> entrada.expiraEn() < ahora && entrada.resultado().isDone());
+        }
+        try {
+            Integer eliminadas = transaccionNueva.execute(
+                    status -> idempotenciaRepo.deleteExpiradas(LocalDateTime.now()));
+            if (eliminadas != null && eliminadas > 0) {
+                logger.info("Claves de idempotencia expiradas eliminadas: {}", eliminadas);
+            }
+        } catch (Exception e) {
+            logger.error("Error al limpiar claves de idempotencia: {}", e.getMessage(), e);
+        }
+    }
+    
+    private ApiResponse<CotizacionResponse> ejecutarComoDueno(String clave, String huella,
+                                                             Supplier<ApiResponse<CotizacionResponse>> creacion) {
+        long limite = System.currentTimeMillis() + esperaMaximaMs;
+        while (true) {
+            IdempotenciaCotizacion registro = reservar(clave, huella);
+            if (registro == null) {
+                ApiResponse<CotizacionResponse> respuesta = creacion.get();
+                if (Errores.OK.getCodigo().equals(respuesta.getCodigo())) {
+                    try {
+                        completar(clave, respuesta.getDatos());
+                    } catch (RuntimeException e) {
+                        // La cotización ya se confirmó: se responde con ella aunque la clave quede en
+                        // proceso; un reintento posterior al arrendamiento la retomará
+                        logger.error("Cotización creada pero no se pudo completar la clave de idempotencia {}: {}",
+                                     clave, e.getMessage(), e);
+                    }
+                } else {
+                    liberar(clave);
+                }
+                return respuesta;
+            }
+            
+            // Otra instancia tiene la clave
+            if (!registro.getHuella().equals(huella)) {
+                logger.warn("Clave de idempotencia {} reutilizada con una solicitud distinta", clave);
+                return error(Errores.IDEMPOTENCIA_CLAVE_REUTILIZADA);
+            }
+            if (registro.isCompletada()) {
+                logger.info("Solicitud duplicada con clave {}; se devuelve la respuesta almacenada", clave);
+                return new ApiResponse<>(Errores.OK.getCodigo(), Errores.OK.getMensaje(), leerRespuesta(registro));
+            }
+            if (System.currentTimeMillis() >= limite) {
+                return error(Errores.IDEMPOTENCIA_EN_PROCESO);
+            }
+            try {
+                Thread.sleep(INTERVALO_CONSULTA_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return error(Errores.IDEMPOTENCIA_EN_PROCESO);
+            }
+        }
+    }
+    
+    /**
+     * Intenta reservar la clave en la tabla, o retomarla si está vencida o abandonada.
+     * 
+     * @return null si la clave quedó reservada para esta ejecución, o el registro vigente
+     *         de otra ejecución
+     */
+    private IdempotenciaCotizacion reservar(String clave, String huella) {
+        try {
+            return transaccionNueva.execute(status -> {
+                LocalDateTime ahora = LocalDateTime.now();
+                LocalDateTime expiracion = ahora.plusNanos(TimeUnit.MILLISECONDS.toNanos(ttlMs));
+                LocalDateTime finArrendamiento = ahora.minusNanos(TimeUnit.MILLISECONDS.toNanos(arrendamientoMs));
+                IdempotenciaCotizacion actual = idempotenciaRepo.findById(clave).orElse(null);
+                if (actual == null) {
+                    idempotenciaRepo.saveAndFlush(new IdempotenciaCotizacion(clave, huella, ahora, expiracion));
+                    return null;
+                }
+                boolean retomable = actual.isExpirada(ahora)
+                        || (actual.isAbandonada(finArrendamiento) && actual.getHuella().equals(huella));
+                if (retomable && idempotenciaRepo.tomarAbandonada(clave, huella, ahora, expiracion, finArrendamiento) == 1) {
+                    logger.info("Clave de idempotencia {} retomada (vencida o sin completar desde {})",
+                                clave, actual.getFechaCreacion());
+                    return null;
+                }
+                // Vigente, o retomada por otra ejecución: se vuelve a consultar en el siguiente intento
+                return actual;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Otra instancia insertó la clave al mismo tiempo
+            return idempotenciaRepo.findById(clave).orElseThrow(() -> e);
+        }
+    }
+    
+    private void completar(String clave, CotizacionResponse datos) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(datos);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta de la cotización", e);
+        }
+        transaccionNueva.executeWithoutResult(status -> idempotenciaRepo.findById(clave).ifPresent(registro -> {
+            registro.setEstado(IdempotenciaCotizacion.COMPLETADA);
+            registro.setRespuesta(json);
+        }));
+    }
+    
+    private void liberar(String clave) {
+        transaccionNueva.executeWithoutResult(status -> idempotenciaRepo.deleteById(clave));
+    }
+    
+    private CotizacionResponse leerRespuesta(IdempotenciaCotizacion registro) {
+        try {
+            return objectMapper.readValue(registro.getRespuesta(), CotizacionResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Respuesta almacenada ilegible para la clave " + registro.getClave(), e);
+        }
+    }
+    
+    private ApiResponse<CotizacionResponse> esperar(CompletableFuture<ApiResponse<CotizacionResponse>> resultado) {
+        try {
+            return resultado.get(esperaMaximaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return error(Errores.IDEMPOTENCIA_EN_PROCESO);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return error(Errores.IDEMPOTENCIA_EN_PROCESO);
+        } catch (ExecutionException e) {
+            return error(Errores.ERROR_INTERNO_DEL_SERVICIO);
+        }
+    }
+    
+    private String calcularHuella(CotizacionCreateRequest request) {
+        try {
+            byte[] cuerpo = objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(cuerpo));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No se pudo calcular la huella de la solicitud", e);
+        }
+    }
+    
+    private static ApiResponse<CotizacionResponse> error(Errores error) {
+        return new ApiResponse<>(error.getCodigo(), error.getMensaje());
+    }
+}
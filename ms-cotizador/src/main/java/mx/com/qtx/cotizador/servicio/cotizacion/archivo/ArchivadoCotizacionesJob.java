@@ -0,0 +1,35 @@
+package mx.com.qtx.cotizador.servicio.cotizacion.archivo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Job programado que archiva periódicamente las cotizaciones antiguas.
+ * <p>
+ * Sólo se registra cuando {@code cotizacion.archivo.enabled=true}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "cotizacion.archivo.enabled", havingValue = "true")
+public class ArchivadoCotizacionesJob {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ArchivadoCotizacionesJob.class);
+    
+    private final ArchivoCotizacionesServicio archivoServicio;
+    
+    public ArchivadoCotizacionesJob(ArchivoCotizacionesServicio archivoServicio) {
+        this.archivoServicio = archivoServicio;
+    }
+    
+    @Scheduled(cron = "${cotizacion.archivo.cron:0 30 2 * * *}")
+    public void ejecutar() {
+        try {
+            archivoServicio.archivarCotizacionesAntiguas();
+        } catch (Exception e) {
+            logger.error("Error en el job de archivado de cotizaciones: {}", e.getMessage(), e);
+        }
+    }
+}
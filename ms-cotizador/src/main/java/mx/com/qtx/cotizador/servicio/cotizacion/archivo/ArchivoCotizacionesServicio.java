@@ -0,0 +1,236 @@
+package mx.com.qtx.cotizador.servicio.cotizacion.archivo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import mx.com.qtx.cotizador.dto.cotizacion.mapper.CotizacionMapper;
+import mx.com.qtx.cotizador.dto.cotizacion.response.CotizacionResponse;
+import mx.com.qtx.cotizador.repositorio.CotizacionRepositorio;
+import mx.com.qtx.cotizador.servicio.indice.IndiceComponentes;
+
+/**
+ * Servicio de archivado de cotizaciones antiguas en segmentos mensuales comprimidos.
+ * <p>
+ * Las cotizaciones con fecha anterior al corte configurado se copian a un archivo
+ * {@code cotizaciones-yyyy-MM.seg} por mes (ver {@link SegmentoCotizaciones}) y después se
+ * eliminan de MySQL en lotes pequeños, cada uno en su propia transacción, para no mantener
+ * bloqueos largos sobre {@code cocotizacion} y {@code codetalle_cotizacion}.
+ * </p>
+ * <p>
+ * Los índices dispersos de todos los segmentos se mantienen en memoria, de modo que la
+ * consulta por folio sólo descomprime el bloque que puede contenerlo.
+ * </p>
+ */
+@Service
+public class ArchivoCotizacionesServicio {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ArchivoCotizacionesServicio.class);
+    
+    private static final String PREFIJO = "cotizaciones-";
+    private static final String EXTENSION = ".seg";
+    
+    private final CotizacionRepositorio cotizacionRepo;
+    private final IndiceComponentes indiceComponentes;
+    private final TransactionTemplate transaccionLectura;
+    private final TransactionTemplate transaccionEscritura;
+    private final Path directorio;
+    private final int antiguedadMeses;
+    private final int tamanoLote;
+    
+    // Índices de segmento por periodo (yyyy-MM)
+    private final Map<String, SegmentoCotizaciones.IndiceSegmento> segmentos = new ConcurrentSkipListMap<>();
+    // Protege la sustitución de un segmento frente a lecturas con un índice ya obsoleto
+    private final ReentrantReadWriteLock candado = new ReentrantReadWriteLock();
+    
+    public ArchivoCotizacionesServicio(CotizacionRepositorio cotizacionRepo,
+                                       IndiceComponentes indiceComponentes,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${cotizacion.archivo.directorio:archivo/cotizaciones}") String directorio,
+                                       @Value("${cotizacion.archivo.antiguedad-meses:24}") int antiguedadMeses,
+                                       @Value("${cotizacion.archivo.tamano-lote:500}") int tamanoLote) {
+        this.cotizacionRepo = cotizacionRepo;
+        this.indiceComponentes = indiceComponentes;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+        this.transaccionEscritura = new TransactionTemplate(transactionManager);
+        this.directorio = Paths.get(directorio);
+        this.antiguedadMeses = antiguedadMeses;
+        this.tamanoLote = tamanoLote;
+    }
+    
+    /**
+     * Carga en memoria los índices de los segmentos existentes al arrancar la aplicación.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void cargarSegmentos() {
+        if (!Files.isDirectory(directorio)) {
+            return;
+        }
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, PREFIJO + "*" + EXTENSION)) {
+            for (Path archivo : archivos) {
+                try {
+                    SegmentoCotizaciones.IndiceSegmento indice = SegmentoCotizaciones.leerIndice(archivo);
+                    segmentos.put(indice.periodo(), indice);
+                } catch (IOException e) {
+                    logger.error("Segmento de cotizaciones ilegible, se omite {}: {}", archivo, e.getMessage());
+                }
+            }
+            logger.info("Segmentos de cotizaciones archivadas cargados: {}", segmentos.size());
+        } catch (IOException e) {
+            logger.error("Error al listar segmentos en {}: {}", directorio, e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Busca una cotización en el archivo histórico.
+     * 
+     * @param folio Folio de la cotización
+     * @return La cotización archivada, o vacío si no existe en ningún segmento
+     */
+    public Optional<CotizacionResponse> buscarPorFolio(Integer folio) {
+        if (folio == null || segmentos.isEmpty()) {
+            return Optional.empty();
+        }
+        candado.readLock().lock();
+        try {
+            for (SegmentoCotizaciones.IndiceSegmento indice : segmentos.values()) {
+                if (folio < indice.folioMinimo() || folio > indice.folioMaximo()) {
+                    continue;
+                }
+                CotizacionResponse cotizacion = SegmentoCotizaciones.buscarPorFolio(indice, folio);
+                if (cotizacion != null) {
+                    return Optional.of(cotizacion);
+                }
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al leer el archivo de cotizaciones", e);
+        } finally {
+            candado.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Archiva las cotizaciones anteriores al primer día del mes que cumple la antigüedad
+     * configurada.
+     * <p>
+     * Por cada mes se escribe (o se reescribe, combinándolo con el segmento existente) el
+     * archivo del periodo y sólo después de publicarlo se eliminan las filas de MySQL. Si el
+     * proceso se interrumpe entre ambos pasos, la siguiente ejecución vuelve a combinar las
+     * cotizaciones, sin duplicarlas.
+     * </p>
+     * 
+     * @return Número de cotizaciones archivadas
+     */
+    public int archivarCotizacionesAntiguas() {
+        String fechaCorte = LocalDate.now().minusMonths(antiguedadMeses).withDayOfMonth(1).toString();
+        List<String> periodos = transaccionLectura.execute(
+                status -> cotizacionRepo.findPeriodosAnterioresA(fechaCorte));
+        
+        int total = 0;
+        for (String periodo : periodos) {
+            try {
+                total += archivarPeriodo(periodo, fechaCorte);
+            } catch (IOException e) {
+                logger.error("Error al archivar cotizaciones del periodo {}: {}", periodo, e.getMessage(), e);
+            }
+        }
+        if (total > 0) {
+            indiceComponentes.invalidarCotizaciones();
+        }
+        logger.info("Archivado de cotizaciones anteriores a {} terminado: {} cotizaciones", fechaCorte, total);
+        return total;
+    }
+    
+    private int archivarPeriodo(String periodo, String fechaCorte) throws IOException {
+        Files.createDirectories(directorio);
+        
+        // Se parte del segmento existente; las versiones en MySQL tienen prioridad
+        TreeMap<Integer, CotizacionResponse> cotizaciones = new TreeMap<>();
+        SegmentoCotizaciones.IndiceSegmento existente = segmentos.get(periodo);
+        if (existente != null) {
+            for (SegmentoCotizaciones.EntradaBloque bloque : existente.bloques()) {
+                for (CotizacionResponse cotizacion : SegmentoCotizaciones.leerBloque(existente, bloque)) {
+                    cotizaciones.put(cotizacion.getFolio(), cotizacion);
+                }
+            }
+        }
+        
+        List<Integer> foliosArchivados = new ArrayList<>();
+        Integer ultimoFolio = 0;
+        while (true) {
+            Integer desde = ultimoFolio;
+            List<CotizacionResponse> lote = transaccionLectura.execute(status -> {
+                List<Integer> folios = cotizacionRepo.findFoliosDePeriodo(
+                        periodo, fechaCorte, desde, PageRequest.of(0, tamanoLote));
+                if (folios.isEmpty()) {
+                    return List.<CotizacionResponse>of();
+                }
+                return CotizacionMapper.toResponseList(cotizacionRepo.findConDetallesByFolios(folios));
+            });
+            if (lote.isEmpty()) {
+                break;
+            }
+            for (CotizacionResponse cotizacion : lote) {
+                cotizaciones.put(cotizacion.getFolio(), cotizacion);
+                foliosArchivados.add(cotizacion.getFolio());
+            }
+            ultimoFolio = lote.get(lote.size() - 1).getFolio();
+        }
+        if (foliosArchivados.isEmpty()) {
+            return 0;
+        }
+        
+        publicarSegmento(periodo, cotizaciones);
+        eliminarEnLotes(foliosArchivados);
+        logger.info("Periodo {} archivado: {} cotizaciones nuevas, {} en el segmento",
+                   periodo, foliosArchivados.size(), cotizaciones.size());
+        return foliosArchivados.size();
+    }
+    
+    private void publicarSegmento(String periodo, TreeMap<Integer, CotizacionResponse> cotizaciones) throws IOException {
+        Path destino = directorio.resolve(PREFIJO + periodo + EXTENSION);
+        candado.writeLock().lock();
+        try (SegmentoCotizaciones.Escritor escritor = new SegmentoCotizaciones.Escritor(destino, periodo)) {
+            for (CotizacionResponse cotizacion : cotizaciones.values()) {
+                escritor.agregar(cotizacion);
+            }
+            escritor.confirmar();
+            segmentos.put(periodo, SegmentoCotizaciones.leerIndice(destino));
+        } finally {
+            candado.writeLock().unlock();
+        }
+    }
+    
+    private void eliminarEnLotes(List<Integer> folios) {
+        for (int inicio = 0; inicio < folios.size(); inicio += tamanoLote) {
+            List<Integer> lote = folios.subList(inicio, Math.min(inicio + tamanoLote, folios.size()));
+            transaccionEscritura.executeWithoutResult(status -> {
+                cotizacionRepo.deleteDetallesByFolios(lote);
+                cotizacionRepo.deleteByFolios(lote);
+            });
+        }
+    }
+}
@@ -0,0 +1,491 @@
+package mx.com.qtx.cotizador.servicio.cotizacion.archivo;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import mx.com.qtx.cotizador.dto.cotizacion.response.CotizacionResponse;
+import mx.com.qtx.cotizador.dto.cotizacion.response.DetalleCotizacionResponse;
+
+/**
+ * Formato de archivo de segmento para cotizaciones archivadas (un segmento por mes).
+ * <p>
+ * El segmento se divide en bloques de hasta {@value #REGISTROS_POR_BLOQUE} cotizaciones.
+ * Dentro de cada bloque los datos se guardan por columnas (todos los folios, luego todas
+ * las fechas, luego los montos, etc.) y el bloque completo se comprime con Deflate; las
+ * columnas homogéneas comprimen mucho mejor que los registros intercalados.
+ * </p>
+ * <p>
+ * Al final del archivo hay un pie con el índice disperso: por cada bloque se guarda el rango
+ * de folios, el rango de fechas, su posición y longitud. Para buscar un folio sólo se
+ * descomprime el bloque cuyo rango lo contiene.
+ * </p>
+ * <pre>
+ * [MAGIC][VERSION][periodo] [bloque 1] ... [bloque n] [pie: n × EntradaBloque] [posición del pie][MAGIC]
+ * </pre>
+ * <p>
+ * Desde la versión 2 los textos se guardan como UTF-8 con longitud entera y los decimales con
+ * longitud y escala enteras, sin límite de 64 KB ni de 127 bytes. Los segmentos de la versión 1
+ * se siguen leyendo y se reescriben en la versión actual al volver a archivar su periodo.
+ * </p>
+ */
+public final class SegmentoCotizaciones {
+    
+    /** Número máximo de cotizaciones por bloque comprimido */
+    public static final int REGISTROS_POR_BLOQUE = 256;
+    
+    private static final int MAGIC = 0x43545A53; // "CTZS"
+    private static final short VERSION = 2;
+    private static final short VERSION_1 = 1;
+    private static final int TAMANO_COLA = Long.BYTES + Integer.BYTES;
+    
+    private SegmentoCotizaciones() {
+        throw new UnsupportedOperationException("Esta clase no debe ser instanciada");
+    }
+    
+    /**
+     * Entrada del índice disperso: describe un bloque del segmento.
+     */
+    public record EntradaBloque(int folioMinimo, int folioMaximo, String fechaMinima, String fechaMaxima,
+                                long posicion, int longitud, int registros) {
+        
+        boolean contieneFolio(int folio) {
+            return folio >= folioMinimo && folio <= folioMaximo;
+        }
+    }
+    
+    /**
+     * Índice disperso de un segmento completo.
+     */
+    public record IndiceSegmento(Path archivo, short version, String periodo, List<EntradaBloque> bloques) {
+        
+        public int folioMinimo() {
+            return bloques.stream().mapToInt(EntradaBloque::folioMinimo).min().orElse(Integer.MAX_VALUE);
+        }
+        
+        public int folioMaximo() {
+            return bloques.stream().mapToInt(EntradaBloque::folioMaximo).max().orElse(Integer.MIN_VALUE);
+        }
+        
+        public int totalRegistros() {
+            return bloques.stream().mapToInt(EntradaBloque::registros).sum();
+        }
+    }
+    
+    // ==================== ESCRITURA ====================
+    
+    /**
+     * Escritor de segmentos. Acumula cotizaciones en memoria hasta completar un bloque,
+     * lo comprime y lo escribe en un archivo temporal. Al cerrar, escribe el pie con el
+     * índice y mueve atómicamente el archivo temporal al destino.
+     */
+    public static final class Escritor implements AutoCloseable {
+        
+        private final Path destino;
+        private final Path temporal;
+        private final DataOutputStream salida;
+        private final List<EntradaBloque> bloques = new ArrayList<>();
+        private final List<CotizacionResponse> pendientes = new ArrayList<>(REGISTROS_POR_BLOQUE);
+        private long posicion;
+        private boolean confirmado;
+        
+        public Escritor(Path destino, String periodo) throws IOException {
+            this.destino = destino;
+            this.temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+            this.salida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporal,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)));
+            salida.writeInt(MAGIC);
+            salida.writeShort(VERSION);
+            escribirCadena(salida, periodo);
+            this.posicion = salida.size();
+        }
+        
+        /**
+         * Agrega una cotización al segmento.
+         * 
+         * @param cotizacion Cotización a archivar
+         */
+        public void agregar(CotizacionResponse cotizacion) throws IOException {
+            pendientes.add(cotizacion);
+            if (pendientes.size() == REGISTROS_POR_BLOQUE) {
+                escribirBloque();
+            }
+        }
+        
+        /**
+         * Escribe el último bloque y el índice, y publica el segmento en su destino final.
+         */
+        public void confirmar() throws IOException {
+            if (!pendientes.isEmpty()) {
+                escribirBloque();
+            }
+            long posicionPie = posicion;
+            salida.writeInt(bloques.size());
+            for (EntradaBloque bloque : bloques) {
+                salida.writeInt(bloque.folioMinimo());
+                salida.writeInt(bloque.folioMaximo());
+                escribirCadena(salida, bloque.fechaMinima());
+                escribirCadena(salida, bloque.fechaMaxima());
+                salida.writeLong(bloque.posicion());
+                salida.writeInt(bloque.longitud());
+                salida.writeInt(bloque.registros());
+            }
+            salida.writeLong(posicionPie);
+            salida.writeInt(MAGIC);
+            salida.flush();
+            salida.close();
+            try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+                canal.force(true);
+            }
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            confirmado = true;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            if (!confirmado) {
+                salida.close();
+                Files.deleteIfExists(temporal);
+            }
+        }
+        
+        private void escribirBloque() throws IOException {
+            ByteArrayOutputStream comprimido = new ByteArrayOutputStream();
+            Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+            try (DataOutputStream bloque = new DataOutputStream(new DeflaterOutputStream(comprimido, deflater))) {
+                escribirColumnas(bloque, pendientes);
+            } finally {
+                deflater.end();
+            }
+            
+            int folioMinimo = Integer.MAX_VALUE;
+            int folioMaximo = Integer.MIN_VALUE;
+            String fechaMinima = null;
+            String fechaMaxima = null;
+            for (CotizacionResponse cotizacion : pendientes) {
+                folioMinimo = Math.min(folioMinimo, cotizacion.getFolio());
+                folioMaximo = Math.max(folioMaximo, cotizacion.getFolio());
+                String fecha = cotizacion.getFecha() != null ? cotizacion.getFecha() : "";
+                fechaMinima = fechaMinima == null || fecha.compareTo(fechaMinima) < 0 ? fecha : fechaMinima;
+                fechaMaxima = fechaMaxima == null || fecha.compareTo(fechaMaxima) > 0 ? fecha : fechaMaxima;
+            }
+            
+            byte[] datos = comprimido.toByteArray();
+            salida.write(datos);
+            bloques.add(new EntradaBloque(folioMinimo, folioMaximo, fechaMinima, fechaMaxima,
+                    posicion, datos.length, pendientes.size()));
+            posicion += datos.length;
+            pendientes.clear();
+        }
+    }
+    
+    private static void escribirColumnas(DataOutputStream salida, List<CotizacionResponse> cotizaciones) throws IOException {
+        salida.writeInt(cotizaciones.size());
+        
+        // Columnas de encabezado; los folios se guardan como diferencias respecto al anterior
+        int folioAnterior = 0;
+        for (CotizacionResponse c : cotizaciones) {
+            salida.writeInt(c.getFolio() - folioAnterior);
+            folioAnterior = c.getFolio();
+        }
+        for (CotizacionResponse c : cotizaciones) {
+            escribirTexto(salida, c.getFecha());
+        }
+        for (CotizacionResponse c : cotizaciones) {
+            escribirDecimal(salida, c.getSubtotal());
+        }
+        for (CotizacionResponse c : cotizaciones) {
+            escribirDecimal(salida, c.getImpuestos());
+        }
+        for (CotizacionResponse c : cotizaciones) {
+            escribirDecimal(salida, c.getTotal());
+        }
+        for (CotizacionResponse c : cotizaciones) {
+            salida.writeInt(c.getDetalles() != null ? c.getDetalles().size() : 0);
+        }
+        
+        // Columnas de detalle (todas las líneas del bloque, en orden de cotización)
+        List<DetalleCotizacionResponse> detalles = new ArrayList<>();
+        for (CotizacionResponse c : cotizaciones) {
+            if (c.getDetalles() != null) {
+                detalles.addAll(c.getDetalles());
+            }
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            escribirEntero(salida, d.getNumDetalle());
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            escribirTexto(salida, d.getIdComponente());
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            escribirTexto(salida, d.getNombreComponente());
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            escribirTexto(salida, d.getCategoria());
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            escribirEntero(salida, d.getCantidad());
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            escribirTexto(salida, d.getDescripcion());
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            escribirDecimal(salida, d.getPrecioBase());
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            escribirDecimal(salida, d.getImporteTotal());
+        }
+    }
+    
+    // ==================== LECTURA ====================
+    
+    /**
+     * Lee el índice disperso (pie) de un segmento sin descomprimir sus bloques.
+     * 
+     * @param archivo Ruta del segmento
+     * @return Índice del segmento
+     * @throws IOException si el archivo no es un segmento válido
+     */
+    public static IndiceSegmento leerIndice(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano < TAMANO_COLA + Integer.BYTES + Short.BYTES) {
+                throw new IOException("Segmento truncado: " + archivo);
+            }
+            ByteBuffer cola = ByteBuffer.allocate(TAMANO_COLA);
+            leerCompleto(canal, cola, tamano - TAMANO_COLA);
+            long posicionPie = cola.getLong();
+            if (cola.getInt() != MAGIC) {
+                throw new IOException("Segmento sin pie válido: " + archivo);
+            }
+            
+            ByteBuffer encabezado = ByteBuffer.allocate((int) Math.min(tamano, 512));
+            leerCompleto(canal, encabezado, 0);
+            DataInputStream entradaEncabezado = new DataInputStream(
+                    new ByteArrayInputStream(encabezado.array(), 0, encabezado.limit()));
+            short version = entradaEncabezado.readInt() == MAGIC ? entradaEncabezado.readShort() : -1;
+            if (version != VERSION && version != VERSION_1) {
+                throw new IOException("Encabezado de segmento inválido: " + archivo);
+            }
+            String periodo = leerCadena(entradaEncabezado, version);
+            
+            ByteBuffer pie = ByteBuffer.allocate((int) (tamano - TAMANO_COLA - posicionPie));
+            leerCompleto(canal, pie, posicionPie);
+            DataInputStream entradaPie = new DataInputStream(new ByteArrayInputStream(pie.array()));
+            int numBloques = entradaPie.readInt();
+            List<EntradaBloque> bloques = new ArrayList<>(numBloques);
+            for (int i = 0; i < numBloques; i++) {
+                bloques.add(new EntradaBloque(entradaPie.readInt(), entradaPie.readInt(),
+                        leerCadena(entradaPie, version), leerCadena(entradaPie, version),
+                        entradaPie.readLong(), entradaPie.readInt(), entradaPie.readInt()));
+            }
+            return new IndiceSegmento(archivo, version, periodo, Collections.unmodifiableList(bloques));
+        }
+    }
+    
+    /**
+     * Lee y descomprime un bloque del segmento.
+     * 
+     * @param indice Índice del segmento
+     * @param bloque Entrada del bloque a leer
+     * @return Cotizaciones contenidas en el bloque
+     */
+    public static List<CotizacionResponse> leerBloque(IndiceSegmento indice, EntradaBloque bloque) throws IOException {
+        ByteBuffer datos = ByteBuffer.allocate(bloque.longitud());
+        try (FileChannel canal = FileChannel.open(indice.archivo(), StandardOpenOption.READ)) {
+            leerCompleto(canal, datos, bloque.posicion());
+        }
+        try (DataInputStream entrada = new DataInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(datos.array())))) {
+            return leerColumnas(entrada, indice.version());
+        }
+    }
+    
+    /**
+     * Busca una cotización por folio usando el índice disperso del segmento.
+     * 
+     * @param indice Índice del segmento
+     * @param folio Folio buscado
+     * @return La cotización, o null si no está en el segmento
+     */
+    public static CotizacionResponse buscarPorFolio(IndiceSegmento indice, int folio) throws IOException {
+        for (EntradaBloque bloque : indice.bloques()) {
+            if (!bloque.contieneFolio(folio)) {
+                continue;
+            }
+            for (CotizacionResponse cotizacion : leerBloque(indice, bloque)) {
+                if (cotizacion.getFolio() == folio) {
+                    return cotizacion;
+                }
+            }
+        }
+        return null;
+    }
+    
+    private static List<CotizacionResponse> leerColumnas(DataInputStream entrada, short version) throws IOException {
+        int n = entrada.readInt();
+        List<CotizacionResponse> cotizaciones = new ArrayList<>(n);
+        
+        int folio = 0;
+        for (int i = 0; i < n; i++) {
+            folio += entrada.readInt();
+            cotizaciones.add(CotizacionResponse.builder().folio(folio).build());
+        }
+        for (CotizacionResponse c : cotizaciones) {
+            c.setFecha(leerTexto(entrada, version));
+        }
+        for (CotizacionResponse c : cotizaciones) {
+            c.setSubtotal(leerDecimal(entrada, version));
+        }
+        for (CotizacionResponse c : cotizaciones) {
+            c.setImpuestos(leerDecimal(entrada, version));
+        }
+        for (CotizacionResponse c : cotizaciones) {
+            c.setTotal(leerDecimal(entrada, version));
+        }
+        int[] numDetalles = new int[n];
+        int totalDetalles = 0;
+        for (int i = 0; i < n; i++) {
+            numDetalles[i] = entrada.readInt();
+            totalDetalles += numDetalles[i];
+        }
+        
+        List<DetalleCotizacionResponse> detalles = new ArrayList<>(totalDetalles);
+        for (int i = 0; i < totalDetalles; i++) {
+            detalles.add(DetalleCotizacionResponse.builder().numDetalle(leerEntero(entrada)).build());
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            d.setIdComponente(leerTexto(entrada, version));
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            d.setNombreComponente(leerTexto(entrada, version));
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            d.setCategoria(leerTexto(entrada, version));
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            d.setCantidad(leerEntero(entrada));
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            d.setDescripcion(leerTexto(entrada, version));
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            d.setPrecioBase(leerDecimal(entrada, version));
+        }
+        for (DetalleCotizacionResponse d : detalles) {
+            d.setImporteTotal(leerDecimal(entrada, version));
+        }
+        
+        int inicio = 0;
+        for (int i = 0; i < n; i++) {
+            cotizaciones.get(i).setDetalles(new ArrayList<>(detalles.subList(inicio, inicio + numDetalles[i])));
+            inicio += numDetalles[i];
+        }
+        return cotizaciones;
+    }
+    
+    // ==================== CODIFICACIÓN DE VALORES ====================
+    
+    private static void escribirTexto(DataOutputStream salida, String valor) throws IOException {
+        if (valor == null) {
+            salida.writeInt(-1);
+            return;
+        }
+        escribirCadena(salida, valor);
+    }
+    
+    private static String leerTexto(DataInputStream entrada, short version) throws IOException {
+        if (version == VERSION_1) {
+            return entrada.readBoolean() ? entrada.readUTF() : null;
+        }
+        int longitud = entrada.readInt();
+        return longitud < 0 ? null : leerUtf8(entrada, longitud);
+    }
+    
+    private static void escribirCadena(DataOutputStream salida, String valor) throws IOException {
+        byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+        salida.writeInt(bytes.length);
+        salida.write(bytes);
+    }
+    
+    private static String leerCadena(DataInputStream entrada, short version) throws IOException {
+        if (version == VERSION_1) {
+            return entrada.readUTF();
+        }
+        int longitud = entrada.readInt();
+        if (longitud < 0) {
+            throw new IOException("Longitud de texto inválida en segmento: " + longitud);
+        }
+        return leerUtf8(entrada, longitud);
+    }
+    
+    private static String leerUtf8(DataInputStream entrada, int longitud) throws IOException {
+        byte[] bytes = new byte[longitud];
+        entrada.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    private static void escribirEntero(DataOutputStream salida, Integer valor) throws IOException {
+        salida.writeBoolean(valor != null);
+        if (valor != null) {
+            salida.writeInt(valor);
+        }
+    }
+    
+    private static Integer leerEntero(DataInputStream entrada) throws IOException {
+        return entrada.readBoolean() ? entrada.readInt() : null;
+    }
+    
+    private static void escribirDecimal(DataOutputStream salida, BigDecimal valor) throws IOException {
+        if (valor == null) {
+            salida.writeInt(-1);
+            return;
+        }
+        byte[] sinEscala = valor.unscaledValue().toByteArray();
+        salida.writeInt(sinEscala.length);
+        salida.write(sinEscala);
+        salida.writeInt(valor.scale());
+    }
+    
+    private static BigDecimal leerDecimal(DataInputStream entrada, short version) throws IOException {
+        int longitud = version == VERSION_1 ? entrada.readByte() : entrada.readInt();
+        if (longitud < 0) {
+            return null;
+        }
+        byte[] sinEscala = new byte[longitud];
+        entrada.readFully(sinEscala);
+        int escala = version == VERSION_1 ? entrada.readByte() : entrada.readInt();
+        return new BigDecimal(new BigInteger(sinEscala), escala);
+    }
+    
+    private static void leerCompleto(FileChannel canal, ByteBuffer destino, long posicion) throws IOException {
+        long actual = posicion;
+        while (destino.hasRemaining()) {
+            int leidos = canal.read(destino, actual);
+            if (leidos < 0) {
+                throw new IOException("Fin de archivo inesperado en segmento");
+            }
+            actual += leidos;
+        }
+        destino.flip();
+    }
+}
@@ -0,0 +1,179 @@
+package mx.com.qtx.cotizador.servicio.indice;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import mx.com.qtx.cotizador.repositorio.CotizacionRepositorio;
+import mx.com.qtx.cotizador.repositorio.PedidoRepositorio;
+
+/**
+ * Índice inverso en memoria de componente → cotizaciones y componente → pedidos.
+ * <p>
+ * Para cada componente consultado mantiene una {@link ListaPosteo} con los folios o números
+ * de pedido que lo incluyen. La lista se carga bajo demanda con una consulta DISTINCT sobre
+ * la tabla de detalles (apoyada en el índice por id_componente) y después se mantiene
+ * incrementalmente cuando se confirman nuevas cotizaciones o pedidos.
+ * </p>
+ * <p>
+ * Las altas se aplican al confirmar la transacción para no publicar ids que terminen en
+ * rollback. Cada alta incrementa una generación; una carga que se traslapa con un alta no
+ * se publica en el índice (o se retira si ya se había publicado), de modo que nunca queda
+ * en caché una lista incompleta.
+ * </p>
+ * <p>
+ * El número de componentes en memoria está acotado; las listas vacías no se guardan, así
+ * que consultar ids inexistentes no ocupa el índice.
+ * </p>
+ */
+@Component
+public class IndiceComponentes {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IndiceComponentes.class);
+    
+    private final IndicePosteo cotizaciones;
+    private final IndicePosteo pedidos;
+    
+    public IndiceComponentes(CotizacionRepositorio cotizacionRepositorio,
+                             PedidoRepositorio pedidoRepositorio,
+                             @Value("${componente.indice.max-componentes:10000}") long maxComponentes) {
+        this.cotizaciones = new IndicePosteo("cotizaciones", cotizacionRepositorio::findFoliosByComponente, maxComponentes);
+        this.pedidos = new IndicePosteo("pedidos", pedidoRepositorio::findNumPedidosByComponente, maxComponentes);
+    }
+    
+    /**
+     * Obtiene los folios de las cotizaciones que incluyen el componente.
+     * 
+     * @param idComponente Id del componente
+     * @return Lista de posteo con los folios ordenados
+     */
+    public ListaPosteo foliosPorComponente(String idComponente) {
+        return cotizaciones.obtener(idComponente);
+    }
+    
+    /**
+     * Obtiene los números de pedido que incluyen el componente.
+     * 
+     * @param idComponente Id del componente
+     * @return Lista de posteo con los números de pedido ordenados
+     */
+    public ListaPosteo pedidosPorComponente(String idComponente) {
+        return pedidos.obtener(idComponente);
+    }
+    
+    /**
+     * Registra una cotización persistida para los componentes de sus detalles.
+     * Si hay una transacción activa, el registro se aplica hasta que ésta se confirma.
+     * 
+     * @param folio Folio de la cotización
+     * @param idsComponente Ids de los componentes incluidos en la cotización
+     */
+    public void registrarCotizacion(Integer folio, Collection<String> idsComponente) {
+        cotizaciones.registrar(folio, idsComponente);
+    }
+    
+    /**
+     * Registra un pedido persistido para los componentes de sus detalles.
+     * Si hay una transacción activa, el registro se aplica hasta que ésta se confirma.
+     * 
+     * @param numPedido Número del pedido
+     * @param idsComponente Ids de los componentes incluidos en el pedido
+     */
+    public void registrarPedido(Integer numPedido, Collection<String> idsComponente) {
+        pedidos.registrar(numPedido, idsComponente);
+    }
+    
+    /**
+     * Descarta todas las listas de cotizaciones; se recargarán bajo demanda.
+     */
+    public void invalidarCotizaciones() {
+        cotizaciones.invalidar();
+    }
+    
+    /**
+     * Índice de posteo para un tipo de documento (cotizaciones o pedidos).
+     */
+    private static final class IndicePosteo {
+        
+        private final String nombre;
+        private final Function<String, List<Integer>> cargador;
+        private final ConcurrentMap<String, ListaPosteo> listas;
+        private final AtomicLong generacion = new AtomicLong();
+        
+        IndicePosteo(String nombre, Function<String, List<Integer>> cargador, long maxComponentes) {
+            this.nombre = nombre;
+            this.cargador = cargador;
+            this.listas = Caffeine.newBuilder()
+                    .maximumSize(maxComponentes)
+                    .<String, ListaPosteo>build()
+                    .asMap();
+        }
+        
+        ListaPosteo obtener(String idComponente) {
+            ListaPosteo lista = listas.get(idComponente);
+            if (lista != null) {
+                return lista;
+            }
+            long generacionInicial = generacion.get();
+            ListaPosteo cargada = ListaPosteo.deOrdenados(cargador.apply(idComponente));
+            if (cargada.tamano() == 0 || generacion.get() != generacionInicial) {
+                // Sin ids (componente inexistente o sin documentos) o con altas durante la carga:
+                // se usa el resultado sin publicarlo
+                return cargada;
+            }
+            ListaPosteo existente = listas.putIfAbsent(idComponente, cargada);
+            if (existente != null) {
+                return existente;
+            }
+            if (generacion.get() != generacionInicial) {
+                // Un alta pudo correr entre la verificación y la publicación sin encontrar la lista
+                listas.remove(idComponente, cargada);
+                return cargada;
+            }
+            logger.debug("Índice de {}: componente '{}' cargado con {} ids", nombre, idComponente, cargada.tamano());
+            return cargada;
+        }
+        
+        void registrar(Integer id, Collection<String> idsComponente) {
+            if (id == null || idsComponente == null || idsComponente.isEmpty()) {
+                return;
+            }
+            Runnable alta = () -> {
+                generacion.incrementAndGet();
+                for (String idComponente : idsComponente) {
+                    ListaPosteo lista = listas.get(idComponente);
+                    if (lista != null) {
+                        lista.agregar(id);
+                    }
+                }
+            };
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        alta.run();
+                    }
+                });
+            } else {
+                alta.run();
+            }
+        }
+        
+        void invalidar() {
+            generacion.incrementAndGet();
+            listas.clear();
+            logger.info("Índice de {} invalidado", nombre);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package mx.com.qtx.cotizador.servicio.indice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Lista de posteo compacta: identificadores enteros ordenados y sin duplicados.
+ * <p>
+ * Almacena los ids en un arreglo primitivo que crece bajo demanda, evitando el costo de
+ * memoria de una colección de objetos Integer. Las inserciones mantienen el orden; como
+ * los folios y números de pedido son crecientes, el caso común es agregar al final en O(1).
+ * Es segura para uso concurrente.
+ * </p>
+ */
+public final class ListaPosteo {
+    
+    private static final int CAPACIDAD_INICIAL = 8;
+    
+    private int[] ids;
+    private int tamano;
+    
+    private ListaPosteo(int[] ids, int tamano) {
+        this.ids = ids;
+        this.tamano = tamano;
+    }
+    
+    /**
+     * Crea una lista de posteo a partir de ids ordenados de forma ascendente y sin duplicados,
+     * tal como los regresan las consultas DISTINCT ... ORDER BY del repositorio.
+     * 
+     * @param idsOrdenados Ids ordenados ascendentemente
+     * @return Nueva lista de posteo
+     */
+    public static ListaPosteo deOrdenados(List<Integer> idsOrdenados) {
+        int[] arreglo = new int[Math.max(CAPACIDAD_INICIAL, idsOrdenados.size())];
+        int i = 0;
+        for (Integer id : idsOrdenados) {
+            arreglo[i++] = id;
+        }
+        return new ListaPosteo(arreglo, i);
+    }
+    
+    /**
+     * Agrega un id conservando el orden. Si el id ya existe no se duplica.
+     * 
+     * @param id Id a agregar
+     */
+    public synchronized void agregar(int id) {
+        if (tamano > 0 && ids[tamano - 1] == id) {
+            return;
+        }
+        int posicion = tamano;
+        if (tamano > 0 && ids[tamano - 1] > id) {
+            int encontrado = Arrays.binarySearch(ids, 0, tamano, id);
+            if (encontrado >= 0) {
+                return;
+            }
+            posicion = -(encontrado + 1);
+        }
+        if (tamano == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1) + 1);
+        }
+        System.arraycopy(ids, posicion, ids, posicion + 1, tamano - posicion);
+        ids[posicion] = id;
+        tamano++;
+    }
+    
+    /**
+     * @return Número de ids en la lista
+     */
+    public synchronized int tamano() {
+        return tamano;
+    }
+    
+    /**
+     * Obtiene una copia de los ids en el rango [desde, hasta).
+     * 
+     * @param desde Posición inicial (inclusive)
+     * @param hasta Posición final (exclusive); se ajusta al tamaño de la lista
+     * @return Ids del rango solicitado, vacío si el rango queda fuera de la lista
+     */
+    public synchronized List<Integer> rango(int desde, int hasta) {
+        int fin = Math.min(hasta, tamano);
+        if (desde < 0 || desde >= fin) {
+            return Collections.emptyList();
+        }
+        List<Integer> resultado = new ArrayList<>(fin - desde);
+        for (int i = desde; i < fin; i++) {
+            resultado.add(ids[i]);
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,199 @@
+package mx.com.qtx.cotizador.servicio.outbox;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import mx.com.qtx.cotizador.entidad.EventoOutbox;
+import mx.com.qtx.cotizador.repositorio.EventoOutboxRepositorio;
+
+/**
+ * Despachador que drena el outbox por lotes hacia los {@link DestinoEventos} registrados.
+ * <p>
+ * Cada lote se toma con {@code SELECT ... FOR UPDATE SKIP LOCKED} en orden de id, en una
+ * transacción corta que sólo lo arrienda (aplaza su siguiente intento por
+ * {@code outbox.despachador.arrendamiento-ms}); así varias instancias del servicio pueden
+ * despachar en paralelo sin repartirse el mismo evento y los candados no se retienen durante la
+ * entrega. Después se entrega a todos los destinos fuera de transacción y, en otra transacción,
+ * se marca como enviado. Si el despachador se detiene a mitad de la entrega, el arrendamiento
+ * vence y otra instancia retoma el lote.
+ * </p>
+ * <p>
+ * Si algún destino falla, el lote se reprograma con espera exponencial (con variación aleatoria y
+ * un máximo configurable) y se conserva el último error. Un evento que agota
+ * {@code outbox.despachador.max-intentos} pasa a {@code FALLIDO} y deja de reintentarse. La
+ * entrega es al menos una vez.
+ * </p>
+ * <p>
+ * Sólo se registra cuando {@code outbox.despachador.enabled} no es {@code false}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.despachador.enabled", havingValue = "true", matchIfMissing = true)
+public class DespachadorOutbox {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DespachadorOutbox.class);
+    
+    /** Longitud máxima del error registrado (columna ultimo_error VARCHAR(500)) */
+    private static final int LONGITUD_MAXIMA_ERROR = 500;
+    
+    private final EventoOutboxRepositorio eventoRepo;
+    private final List<DestinoEventos> destinos;
+    private final TransactionTemplate transaccion;
+    private final int tamanoLote;
+    private final int maxLotesPorCiclo;
+    private final long esperaInicialMs;
+    private final long esperaMaximaMs;
+    private final int maxIntentos;
+    private final long arrendamientoMs;
+    private final int retencionDias;
+    
+    public DespachadorOutbox(EventoOutboxRepositorio eventoRepo,
+                             List<DestinoEventos> destinos,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${outbox.despachador.tamano-lote:100}") int tamanoLote,
+                             @Value("${outbox.despachador.max-lotes-por-ciclo:20}") int maxLotesPorCiclo,
+                             @Value("${outbox.despachador.espera-inicial-ms:1000}") long esperaInicialMs,
+                             @Value("${outbox.despachador.espera-maxima-ms:300000}") long esperaMaximaMs,
+                             @Value("${outbox.despachador.max-intentos:20}") int maxIntentos,
+                             @Value("${outbox.despachador.arrendamiento-ms:60000}") long arrendamientoMs,
+                             @Value("${outbox.retencion-dias:7}") int retencionDias) {
+        this.eventoRepo = eventoRepo;
+        this.destinos = List.copyOf(destinos);
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.tamanoLote = tamanoLote;
+        this.maxLotesPorCiclo = maxLotesPorCiclo;
+        this.esperaInicialMs = esperaInicialMs;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.maxIntentos = maxIntentos;
+        this.arrendamientoMs = arrendamientoMs;
+        this.retencionDias = retencionDias;
+        if (this.destinos.isEmpty()) {
+            logger.warn("No hay destinos de eventos habilitados; el outbox acumulará eventos sin despacharlos");
+        } else {
+            logger.info("Despachador de outbox con destinos: {}",
+                    this.destinos.stream().map(DestinoEventos::getNombre).toList());
+        }
+    }
+    
+    /**
+     * Despacha lotes mientras haya eventos pendientes, hasta el máximo de lotes por ciclo.
+     */
+    @Scheduled(fixedDelayString = "${outbox.despachador.intervalo-ms:1000}")
+    public void despachar() {
+        if (destinos.isEmpty()) {
+            return;
+        }
+        try {
+            for (int i = 0; i < maxLotesPorCiclo; i++) {
+                if (despacharLote() < tamanoLote) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error al despachar eventos del outbox: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Toma y entrega un lote de eventos pendientes.
+     * 
+     * @return Número de eventos entregados (0 si no había pendientes o si la entrega falló)
+     */
+    public int despacharLote() {
+        // 1. Arrendar el lote en su propia transacción: los candados se liberan antes de entregar
+        List<MensajeEvento> mensajes = transaccion.execute(status -> {
+            LocalDateTime ahora = LocalDateTime.now();
+            List<EventoOutbox> pendientes = eventoRepo.bloquearPendientes(ahora, tamanoLote);
+            LocalDateTime finArrendamiento = ahora.plus(arrendamientoMs, ChronoUnit.MILLIS);
+            for (EventoOutbox evento : pendientes) {
+                evento.setFechaSiguienteIntento(finArrendamiento);
+            }
+            return pendientes.stream().map(MensajeEvento::de).toList();
+        });
+        if (mensajes == null || mensajes.isEmpty()) {
+            return 0;
+        }
+        
+        // 2. Entregar fuera de transacción (webhook, escritura a disco)
+        String error = entregar(mensajes);
+        
+        // 3. Registrar el resultado; los cambios se escriben al confirmar, agrupados en lotes JDBC
+        List<Long> ids = mensajes.stream().map(MensajeEvento::id).toList();
+        transaccion.executeWithoutResult(status -> {
+            LocalDateTime ahora = LocalDateTime.now();
+            for (EventoOutbox evento : eventoRepo.findAllById(ids)) {
+                if (!EventoOutbox.PENDIENTE.equals(evento.getEstado())) {
+                    // Otra instancia lo retomó al vencer el arrendamiento y ya lo resolvió
+                    continue;
+                }
+                if (error == null) {
+                    evento.setEstado(EventoOutbox.ENVIADO);
+                    evento.setFechaEnvio(ahora);
+                    evento.setUltimoError(null);
+                    continue;
+                }
+                evento.setIntentos(evento.getIntentos() + 1);
+                evento.setUltimoError(error);
+                if (evento.getIntentos() >= maxIntentos) {
+                    evento.setEstado(EventoOutbox.FALLIDO);
+                    logger.error("Evento {} del outbox marcado como FALLIDO tras {} intentos: {}",
+                            evento.getId(), evento.getIntentos(), error);
+                } else {
+                    evento.setFechaSiguienteIntento(ahora.plus(espera(evento.getIntentos()), ChronoUnit.MILLIS));
+                }
+            }
+        });
+        if (error != null) {
+            logger.warn("Lote de {} eventos no entregado, se reintentará: {}", mensajes.size(), error);
+            return 0;
+        }
+        logger.debug("Lote de {} eventos despachado (ids {} a {})", mensajes.size(),
+                ids.get(0), ids.get(ids.size() - 1));
+        return mensajes.size();
+    }
+    
+    /**
+     * Elimina los eventos ya entregados con más antigüedad que la retención configurada.
+     */
+    @Scheduled(cron = "${outbox.limpieza.cron:0 15 3 * * *}")
+    public void purgarEnviados() {
+        try {
+            LocalDateTime limite = LocalDateTime.now().minusDays(retencionDias);
+            Integer eliminados = transaccion.execute(status -> eventoRepo.deleteEnviadosAntesDe(limite));
+            logger.info("Eventos del outbox entregados antes de {} eliminados: {}", limite, eliminados);
+        } catch (Exception e) {
+            logger.error("Error al purgar eventos del outbox: {}", e.getMessage(), e);
+        }
+    }
+    
+    // Entrega el lote a todos los destinos; retorna el error del primero que falle, o null
+    private String entregar(List<MensajeEvento> mensajes) {
+        for (DestinoEventos destino : destinos) {
+            try {
+                destino.entregar(mensajes);
+            } catch (Exception e) {
+                String error = destino.getNombre() + ": " + e.getMessage();
+                return error.length() > LONGITUD_MAXIMA_ERROR ? error.substring(0, LONGITUD_MAXIMA_ERROR) : error;
+            }
+        }
+        return null;
+    }
+    
+    // Espera exponencial acotada, con variación aleatoria entre 50% y 100% para no sincronizar reintentos
+    private long espera(int intentos) {
+        long exponencial = esperaInicialMs << Math.min(intentos - 1, 30);
+        long acotada = (exponencial <= 0 || exponencial > esperaMaximaMs) ? esperaMaximaMs : exponencial;
+        return acotada / 2 + ThreadLocalRandom.current().nextLong(acotada / 2 + 1);
+    }
+}
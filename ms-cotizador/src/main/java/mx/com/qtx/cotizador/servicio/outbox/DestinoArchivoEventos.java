@@ -0,0 +1,73 @@
+package mx.com.qtx.cotizador.servicio.outbox;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Destino que agrega los eventos a archivos locales en formato JSON Lines.
+ * <p>
+ * Se escribe un archivo por día ({@code eventos-yyyy-MM-dd.jsonl}); cada lote se agrega con
+ * una sola escritura y se fuerza a disco antes de confirmarlo. Si el proceso se interrumpe a
+ * mitad de un lote, éste se vuelve a escribir completo, por lo que los lectores deben descartar
+ * duplicados por id e ignorar una última línea incompleta.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.destinos.archivo.enabled", havingValue = "true", matchIfMissing = true)
+public class DestinoArchivoEventos implements DestinoEventos {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DestinoArchivoEventos.class);
+    
+    private static final String PREFIJO = "eventos-";
+    private static final String EXTENSION = ".jsonl";
+    
+    private final ObjectMapper objectMapper;
+    private final Path directorio;
+    
+    public DestinoArchivoEventos(ObjectMapper objectMapper,
+                                 @Value("${outbox.destinos.archivo.directorio:outbox/spool}") String directorio) {
+        this.objectMapper = objectMapper;
+        this.directorio = Paths.get(directorio);
+        logger.info("Destino de eventos en archivo: {}", this.directorio.toAbsolutePath());
+    }
+    
+    @Override
+    public String getNombre() {
+        return "archivo";
+    }
+    
+    @Override
+    public synchronized void entregar(List<MensajeEvento> eventos) throws IOException {
+        StringBuilder lineas = new StringBuilder(eventos.size() * 512);
+        for (MensajeEvento evento : eventos) {
+            lineas.append(objectMapper.writeValueAsString(evento)).append('\n');
+        }
+        ByteBuffer contenido = StandardCharsets.UTF_8.encode(lineas.toString());
+        
+        Files.createDirectories(directorio);
+        Path archivo = directorio.resolve(PREFIJO + LocalDate.now() + EXTENSION);
+        try (FileChannel canal = FileChannel.open(archivo,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (contenido.hasRemaining()) {
+                canal.write(contenido);
+            }
+            canal.force(false);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package mx.com.qtx.cotizador.servicio.outbox;
+
+import java.util.List;
+
+/**
+ * Destino al que el {@link DespachadorOutbox} entrega los eventos del outbox.
+ * <p>
+ * Cada implementación registrada como bean recibe todos los lotes. Un lote se marca como
+ * enviado sólo si todos los destinos lo aceptan; si alguno falla, el lote completo se
+ * reintenta más tarde, por lo que un destino puede recibir el mismo evento más de una vez.
+ * </p>
+ */
+public interface DestinoEventos {
+    
+    /**
+     * Nombre del destino, usado en bitácora y en el registro del último error.
+     * 
+     * @return Nombre descriptivo del destino
+     */
+    String getNombre();
+    
+    /**
+     * Entrega un lote de eventos. Debe retornar sólo cuando el lote quedó entregado de forma
+     * durable; cualquier excepción provoca el reintento del lote.
+     * 
+     * @param eventos Eventos en orden de id
+     * @throws Exception si el lote no pudo entregarse
+     */
+    void entregar(List<MensajeEvento> eventos) throws Exception;
+}
@@ -0,0 +1,68 @@
+package mx.com.qtx.cotizador.servicio.outbox;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Destino que publica cada lote de eventos como un arreglo JSON mediante POST a un webhook.
+ * <p>
+ * Sólo se registra cuando {@code outbox.destinos.webhook.enabled=true}. Cualquier respuesta
+ * distinta de 2xx, o un tiempo de espera agotado, provoca el reintento del lote. Un reintento
+ * puede repetir eventos ya recibidos dentro de un lote distinto (otra instancia, otro tamaño de
+ * lote), por lo que el receptor debe descartar duplicados por el {@code id} de cada evento.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.destinos.webhook.enabled", havingValue = "true")
+public class DestinoWebhookEventos implements DestinoEventos {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DestinoWebhookEventos.class);
+    
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+    private final String url;
+    private final Duration timeout;
+    
+    public DestinoWebhookEventos(ObjectMapper objectMapper,
+                                 @Value("${outbox.destinos.webhook.url}") String url,
+                                 @Value("${outbox.destinos.webhook.timeout-ms:5000}") long timeoutMs) {
+        this.objectMapper = objectMapper;
+        this.url = url;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.webClient = WebClient.builder()
+                .defaultHeader("User-Agent", "ms-cotizador/1.0")
+                .defaultHeader("X-Service", "ms-cotizador")
+                .build();
+        logger.info("Destino de eventos webhook: {}, timeout: {}ms", url, timeoutMs);
+    }
+    
+    @Override
+    public String getNombre() {
+        return "webhook";
+    }
+    
+    @Override
+    public void entregar(List<MensajeEvento> eventos) throws JsonProcessingException {
+        // Se serializa con el ObjectMapper de la aplicación para conservar el formato de fechas
+        String cuerpo = objectMapper.writeValueAsString(eventos);
+        webClient.post()
+                .uri(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(cuerpo)
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(timeout)
+                .block();
+    }
+}
@@ -0,0 +1,28 @@
+package mx.com.qtx.cotizador.servicio.outbox;
+
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import mx.com.qtx.cotizador.entidad.EventoOutbox;
+
+/**
+ * Vista inmutable de un evento del outbox tal como se entrega a los destinos.
+ * <p>
+ * El {@code payload} ya es JSON, por lo que se incrusta sin volver a escaparlo. El {@code id}
+ * es único y creciente: los consumidores lo usan para descartar duplicados, ya que la entrega
+ * es al menos una vez.
+ * </p>
+ */
+public record MensajeEvento(Long id,
+                            String tipoAgregado,
+                            String idAgregado,
+                            String tipoEvento,
+                            LocalDateTime fechaCreacion,
+                            @JsonRawValue String payload) {
+    
+    static MensajeEvento de(EventoOutbox evento) {
+        return new MensajeEvento(evento.getId(), evento.getTipoAgregado(), evento.getIdAgregado(),
+                evento.getTipoEvento(), evento.getFechaCreacion(), evento.getPayload());
+    }
+}
@@ -0,0 +1,57 @@
+package mx.com.qtx.cotizador.servicio.outbox;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import mx.com.qtx.cotizador.entidad.EventoOutbox;
+import mx.com.qtx.cotizador.repositorio.EventoOutboxRepositorio;
+
+/**
+ * Registro de eventos de dominio en la tabla outbox ({@code cooutbox_evento}).
+ * <p>
+ * El evento se inserta en la misma transacción que el cambio de negocio que lo origina: si la
+ * transacción se revierte, el evento desaparece con ella, y si se confirma, el
+ * {@link DespachadorOutbox} lo entregará tarde o temprano. Por eso el registro exige una
+ * transacción activa.
+ * </p>
+ */
+@Service
+public class OutboxServicio {
+    
+    public static final String AGREGADO_PEDIDO = "PEDIDO";
+    public static final String PEDIDO_CREADO = "PEDIDO_CREADO";
+    
+    private final EventoOutboxRepositorio eventoRepo;
+    private final ObjectMapper objectMapper;
+    
+    public OutboxServicio(EventoOutboxRepositorio eventoRepo, ObjectMapper objectMapper) {
+        this.eventoRepo = eventoRepo;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Registra un evento en el outbox dentro de la transacción en curso.
+     * 
+     * @param tipoAgregado Tipo de agregado que cambió (por ejemplo, {@link #AGREGADO_PEDIDO})
+     * @param idAgregado Identificador del agregado
+     * @param tipoEvento Tipo de evento (por ejemplo, {@link #PEDIDO_CREADO})
+     * @param payload Datos del evento, serializados como JSON
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void registrar(String tipoAgregado, String idAgregado, String tipoEvento, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("No se pudo serializar el evento " + tipoEvento, e);
+        }
+        eventoRepo.save(new EventoOutbox(tipoAgregado, idAgregado, tipoEvento, json, LocalDateTime.now()));
+    }
+}
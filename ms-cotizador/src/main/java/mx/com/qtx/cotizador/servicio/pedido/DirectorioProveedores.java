@@ -0,0 +1,322 @@
+package mx.com.qtx.cotizador.servicio.pedido;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import mx.com.qtx.cotizador.dominio.pedidos.Proveedor;
+import mx.com.qtx.cotizador.repositorio.ProveedorRepositorio;
+import mx.com.qtx.cotizador.servicio.wrapper.ProveedorEntityConverter;
+
+/**
+ * Directorio en memoria de proveedores indexado por clave.
+ * <p>
+ * Mantiene una instantánea inmutable con todos los proveedores y un índice de trigramas
+ * sobre {@code nombre} y {@code razonSocial}, de modo que la consulta por clave y la búsqueda
+ * parcial (equivalente a {@code LIKE '%texto%'} sin distinguir mayúsculas ni acentos) se
+ * resuelven sin consultar MySQL. Los textos de menos de tres caracteres se filtran sobre la
+ * instantánea completa.
+ * </p>
+ * <p>
+ * Las altas, cambios y bajas se aplican al confirmar la transacción, reconstruyendo la
+ * instantánea; los lectores nunca ven un estado parcial. Una recarga periódica desde la base
+ * de datos acota la desactualización cuando hay varias instancias del servicio.
+ * </p>
+ * <p>
+ * Cuando hay varias instancias, la instantánea puede no incluir un proveedor dado de alta en
+ * otra instancia o conservar uno que otra instancia eliminó. Por eso las consultas por clave
+ * buscan en la base de datos sólo las claves que no encuentran. Un proveedor eliminado en otra
+ * instancia se sirve hasta la siguiente recarga; al generar un pedido para él, la llave
+ * foránea de {@code copedido} rechaza el INSERT y la transacción falla sin dejar datos
+ * inconsistentes.
+ * </p>
+ */
+@Component
+public class DirectorioProveedores {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DirectorioProveedores.class);
+    
+    private static final int N = 3;
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    
+    private final ProveedorRepositorio proveedorRepositorio;
+    
+    // Instantánea vigente; null hasta la primera carga
+    private volatile Instantanea instantanea;
+    
+    public DirectorioProveedores(ProveedorRepositorio proveedorRepositorio) {
+        this.proveedorRepositorio = proveedorRepositorio;
+    }
+    
+    /**
+     * Carga el directorio completo al arrancar la aplicación.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void cargar() {
+        recargar();
+    }
+    
+    /**
+     * Vuelve a cargar el directorio desde la base de datos.
+     */
+    @Scheduled(fixedDelayString = "${proveedor.directorio.recarga-ms:300000}",
+               initialDelayString = "${proveedor.directorio.recarga-ms:300000}")
+    public synchronized void recargar() {
+        NavigableMap<String, Proveedor> proveedores = new TreeMap<>();
+        proveedorRepositorio.findAll().forEach(entidad ->
+                proveedores.put(entidad.getCve(), ProveedorEntityConverter.convertToDomain(entidad)));
+        instantanea = new Instantanea(proveedores);
+        logger.debug("Directorio de proveedores cargado con {} proveedores", proveedores.size());
+    }
+    
+    /**
+     * Busca un proveedor por su clave.
+     * Si no está en el directorio se busca en la base de datos (puede haberse dado de alta en
+     * otra instancia) y, de existir, se agrega al directorio.
+     * 
+     * @param cve Clave del proveedor
+     * @return El proveedor, o vacío si no existe
+     */
+    public Optional<Proveedor> buscar(String cve) {
+        if (cve == null) {
+            return Optional.empty();
+        }
+        Proveedor proveedor = actual().porCve.get(cve);
+        return proveedor != null ? Optional.of(proveedor) : Optional.ofNullable(buscarTodos(List.of(cve)).get(cve));
+    }
+    
+    /**
+     * Busca varios proveedores por clave.
+     * Las claves que no están en el directorio se buscan en la base de datos con una sola
+     * consulta y las encontradas se agregan al directorio.
+     * 
+     * @param cves Claves de los proveedores
+     * @return Proveedores encontrados indexados por clave
+     */
+    public Map<String, Proveedor> buscarTodos(Collection<String> cves) {
+        NavigableMap<String, Proveedor> porCve = actual().porCve;
+        Map<String, Proveedor> encontrados = new LinkedHashMap<>();
+        List<String> faltantes = new ArrayList<>();
+        for (String cve : cves) {
+            Proveedor proveedor = cve != null ? porCve.get(cve) : null;
+            if (proveedor != null) {
+                encontrados.put(cve, proveedor);
+            } else if (cve != null) {
+                faltantes.add(cve);
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            Map<String, Proveedor> cargados = cargarDeBaseDeDatos(faltantes);
+            if (!cargados.isEmpty()) {
+                modificar(proveedores -> proveedores.putAll(cargados));
+                encontrados.putAll(cargados);
+            }
+        }
+        return encontrados;
+    }
+    
+    /**
+     * Obtiene todos los proveedores ordenados por clave.
+     * 
+     * @return Lista inmutable de proveedores
+     */
+    public List<Proveedor> todos() {
+        return List.copyOf(actual().porCve.values());
+    }
+    
+    /**
+     * Busca proveedores cuyo nombre contiene el texto indicado.
+     * 
+     * @param texto Texto a buscar (sin distinguir mayúsculas ni acentos)
+     * @return Proveedores encontrados ordenados por clave
+     */
+    public List<Proveedor> buscarPorNombre(String texto) {
+        Instantanea vigente = actual();
+        return vigente.porNombre.buscar(texto, vigente.porCve);
+    }
+    
+    /**
+     * Busca proveedores cuya razón social contiene el texto indicado.
+     * 
+     * @param texto Texto a buscar (sin distinguir mayúsculas ni acentos)
+     * @return Proveedores encontrados ordenados por clave
+     */
+    public List<Proveedor> buscarPorRazonSocial(String texto) {
+        Instantanea vigente = actual();
+        return vigente.porRazonSocial.buscar(texto, vigente.porCve);
+    }
+    
+    /**
+     * Registra un proveedor creado o actualizado.
+     * Si hay una transacción activa, el registro se aplica hasta que ésta se confirma.
+     * 
+     * @param proveedor Proveedor persistido
+     */
+    public void registrar(Proveedor proveedor) {
+        if (proveedor == null || proveedor.getCve() == null) {
+            return;
+        }
+        alConfirmar(() -> modificar(proveedores -> proveedores.put(proveedor.getCve(), proveedor)));
+    }
+    
+    /**
+     * Elimina un proveedor del directorio.
+     * Si hay una transacción activa, la baja se aplica hasta que ésta se confirma.
+     * 
+     * @param cve Clave del proveedor eliminado
+     */
+    public void eliminar(String cve) {
+        if (cve == null) {
+            return;
+        }
+        alConfirmar(() -> modificar(proveedores -> proveedores.remove(cve)));
+    }
+    
+    private Map<String, Proveedor> cargarDeBaseDeDatos(Collection<String> cves) {
+        Map<String, Proveedor> cargados = new LinkedHashMap<>();
+        proveedorRepositorio.findAllById(cves).forEach(entidad ->
+                cargados.put(entidad.getCve(), ProveedorEntityConverter.convertToDomain(entidad)));
+        return cargados;
+    }
+    
+    private Instantanea actual() {
+        Instantanea vigente = instantanea;
+        if (vigente == null) {
+            // Acceso antes de la carga inicial (por ejemplo, desde otro listener de arranque)
+            synchronized (this) {
+                if (instantanea == null) {
+                    recargar();
+                }
+                vigente = instantanea;
+            }
+        }
+        return vigente;
+    }
+    
+    private synchronized void modificar(Consumer<NavigableMap<String, Proveedor>> cambio) {
+        if (instantanea == null) {
+            // Aún no se ha cargado: la carga inicial leerá el cambio ya confirmado
+            return;
+        }
+        NavigableMap<String, Proveedor> proveedores = new TreeMap<>(instantanea.porCve);
+        cambio.accept(proveedores);
+        instantanea = new Instantanea(proveedores);
+    }
+    
+    private static void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+    
+    /**
+     * Normaliza un texto para la búsqueda: minúsculas y sin acentos.
+     */
+    static String normalizar(String texto) {
+        String sinAcentos = MARCAS_DIACRITICAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return sinAcentos.toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Estado inmutable del directorio.
+     */
+    private static final class Instantanea {
+        
+        private final NavigableMap<String, Proveedor> porCve;
+        private final IndiceTrigramas porNombre;
+        private final IndiceTrigramas porRazonSocial;
+        
+        Instantanea(NavigableMap<String, Proveedor> proveedores) {
+            this.porCve = Collections.unmodifiableNavigableMap(proveedores);
+            this.porNombre = new IndiceTrigramas(proveedores, Proveedor::getNombre);
+            this.porRazonSocial = new IndiceTrigramas(proveedores, Proveedor::getRazonSocial);
+        }
+    }
+    
+    /**
+     * Índice de trigramas de un campo de texto: trigrama → claves (ordenadas) de los
+     * proveedores cuyo texto normalizado lo contiene.
+     */
+    private static final class IndiceTrigramas {
+        
+        private final Map<String, String> textos = new HashMap<>();
+        private final Map<String, List<String>> trigramas = new HashMap<>();
+        
+        IndiceTrigramas(NavigableMap<String, Proveedor> proveedores, Function<Proveedor, String> campo) {
+            // Se recorre en orden de clave, así cada lista de posteo queda ordenada
+            for (Map.Entry<String, Proveedor> entrada : proveedores.entrySet()) {
+                String valor = campo.apply(entrada.getValue());
+                if (valor == null) {
+                    continue;
+                }
+                String texto = normalizar(valor);
+                textos.put(entrada.getKey(), texto);
+                for (int i = 0; i + N <= texto.length(); i++) {
+                    List<String> claves = trigramas.computeIfAbsent(texto.substring(i, i + N), t -> new ArrayList<>());
+                    if (claves.isEmpty() || !claves.get(claves.size() - 1).equals(entrada.getKey())) {
+                        claves.add(entrada.getKey());
+                    }
+                }
+            }
+        }
+        
+        List<Proveedor> buscar(String consulta, NavigableMap<String, Proveedor> porCve) {
+            if (consulta == null || consulta.isEmpty()) {
+                return List.of();
+            }
+            String texto = normalizar(consulta);
+            
+            // Candidatos: la lista de posteo más corta entre los trigramas de la consulta
+            Collection<String> candidatos = porCve.keySet();
+            if (texto.length() >= N) {
+                for (int i = 0; i + N <= texto.length(); i++) {
+                    List<String> claves = trigramas.get(texto.substring(i, i + N));
+                    if (claves == null) {
+                        return List.of();
+                    }
+                    if (claves.size() < candidatos.size()) {
+                        candidatos = claves;
+                    }
+                }
+            }
+            
+            // Verificación: el texto completo debe estar contenido
+            List<Proveedor> encontrados = new ArrayList<>();
+            for (String cve : candidatos) {
+                String valor = textos.get(cve);
+                if (valor != null && valor.contains(texto)) {
+                    encontrados.add(porCve.get(cve));
+                }
+            }
+            return encontrados;
+        }
+    }
+}
@@ -0,0 +1,484 @@
+package mx.com.qtx.cotizador.servicio.pedido;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import mx.com.qtx.cotizador.dominio.core.Cotizacion;
+import mx.com.qtx.cotizador.dominio.core.CotizacionPresupuestoAdapter;
+import mx.com.qtx.cotizador.dominio.pedidos.GestorPedidos;
+import mx.com.qtx.cotizador.dominio.pedidos.Pedido;
+import mx.com.qtx.cotizador.dominio.pedidos.Proveedor;
+import mx.com.qtx.cotizador.dto.common.response.ApiResponse;
+import mx.com.qtx.cotizador.dto.common.response.PaginaResponse;
+import mx.com.qtx.cotizador.dto.pedido.request.GenerarPedidoRequest;
+import mx.com.qtx.cotizador.dto.pedido.request.GenerarPedidosLoteRequest;
+import mx.com.qtx.cotizador.dto.pedido.response.LotePedidosResponse;
+import mx.com.qtx.cotizador.dto.pedido.response.ResultadoPedidoLoteResponse;
+import mx.com.qtx.cotizador.entidad.Componente;
+import mx.com.qtx.cotizador.repositorio.ComponenteRepositorio;
+import mx.com.qtx.cotizador.repositorio.CotizacionRepositorio;
+import mx.com.qtx.cotizador.servicio.cotizacion.CotizacionServicio;
+import mx.com.qtx.cotizador.servicio.wrapper.ComponenteEntityConverter;
+import mx.com.qtx.cotizador.servicio.wrapper.CotizacionEntityConverter;
+import mx.com.qtx.cotizador.servicio.wrapper.PedidoEntityConverter;
+import mx.com.qtx.cotizador.util.Errores;
+
+/**
+ * Servicio de generación masiva de pedidos a partir de muchas cotizaciones.
+ * <p>
+ * Un lote se recibe de forma asíncrona: se divide en bloques de tamaño fijo que se procesan
+ * en paralelo sobre un ejecutor acotado. Cada bloque carga sus cotizaciones (con detalles) en
+ * una sola consulta, obtiene sus proveedores con {@link DirectorioProveedores#buscarTodos}
+ * (sólo las claves que el directorio no conoce se consultan), genera los pedidos
+ * con {@link GestorPedidos} y los persiste en una sola transacción, de modo que los INSERT se
+ * agrupan en lotes JDBC. Si la transacción del bloque falla, sus pedidos se reintentan uno por
+ * uno para aislar el elemento problemático sin perder los demás.
+ * </p>
+ * <p>
+ * El estado de los lotes se mantiene en memoria y los lotes terminados se descartan tras el
+ * periodo de retención configurado.
+ * </p>
+ */
+@Service
+public class GeneracionPedidosLoteServicio {
+    
+    private static final Logger logger = LoggerFactory.getLogger(GeneracionPedidosLoteServicio.class);
+    
+    /**
+     * Estados posibles de un lote
+     */
+    enum EstadoLote { EN_COLA, EN_PROCESO, COMPLETADO, CANCELADO }
+    
+    private final PedidoServicio pedidoServicio;
+    private final CotizacionRepositorio cotizacionRepositorio;
+    private final DirectorioProveedores directorioProveedores;
+    private final ComponenteRepositorio componenteRepositorio;
+    private final TransactionTemplate transaccionLectura;
+    private final TransactionTemplate transaccionEscritura;
+    private final ThreadPoolExecutor ejecutor;
+    private final int tamanoBloque;
+    private final int maxPedidos;
+    private final long retencionMinutos;
+    
+    private final Map<String, Lote> lotes = new ConcurrentHashMap<>();
+    
+    public GeneracionPedidosLoteServicio(PedidoServicio pedidoServicio,
+                                         CotizacionRepositorio cotizacionRepositorio,
+                                         DirectorioProveedores directorioProveedores,
+                                         ComponenteRepositorio componenteRepositorio,
+                                         PlatformTransactionManager transactionManager,
+                                         @Value("${pedido.lote.hilos:4}") int hilos,
+                                         @Value("${pedido.lote.capacidad-cola:200}") int capacidadCola,
+                                         @Value("${pedido.lote.tamano-bloque:25}") int tamanoBloque,
+                                         @Value("${pedido.lote.max-pedidos:1000}") int maxPedidos,
+                                         @Value("${pedido.lote.retencion-minutos:60}") long retencionMinutos) {
+        this.pedidoServicio = pedidoServicio;
+        this.cotizacionRepositorio = cotizacionRepositorio;
+        this.directorioProveedores = directorioProveedores;
+        this.componenteRepositorio = componenteRepositorio;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+        this.transaccionEscritura = new TransactionTemplate(transactionManager);
+        this.tamanoBloque = tamanoBloque;
+        this.maxPedidos = maxPedidos;
+        this.retencionMinutos = retencionMinutos;
+        
+        AtomicInteger numeroHilo = new AtomicInteger();
+        this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(capacidadCola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "pedidos-lote-" + numeroHilo.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+        this.ejecutor.allowCoreThreadTimeOut(true);
+    }
+    
+    /**
+     * Recibe un lote de generación de pedidos y lo encola para su proceso asíncrono
+     * 
+     * @param request DTO con la lista de pedidos a generar
+     * @return ApiResponse<LotePedidosResponse> con el identificador y estado inicial del lote
+     */
+    public ApiResponse<LotePedidosResponse> enviarLote(GenerarPedidosLoteRequest request) {
+        try {
+            if (request == null || request.getPedidos() == null || request.getPedidos().isEmpty()) {
+                return new ApiResponse<>(Errores.ERROR_DE_VALIDACION.getCodigo(),
+                                       "La lista de pedidos a generar es requerida");
+            }
+            
+            List<GenerarPedidoRequest> solicitudes = List.copyOf(request.getPedidos());
+            if (solicitudes.size() > maxPedidos) {
+                return new ApiResponse<>(Errores.VALOR_INVALIDO.getCodigo(),
+                                       "El lote no puede exceder " + maxPedidos + " pedidos");
+            }
+            
+            int numBloques = (solicitudes.size() + tamanoBloque - 1) / tamanoBloque;
+            if (ejecutor.getQueue().remainingCapacity() < numBloques) {
+                return new ApiResponse<>(Errores.ERROR_INTERNO_DEL_SERVICIO.getCodigo(),
+                                       "Capacidad de procesamiento de lotes agotada, intente más tarde");
+            }
+            
+            Lote lote = new Lote(UUID.randomUUID().toString(), solicitudes);
+            lotes.put(lote.id, lote);
+            
+            List<CompletableFuture<Void>> bloques = new ArrayList<>(numBloques);
+            for (int desde = 0; desde < solicitudes.size(); desde += tamanoBloque) {
+                int inicio = desde;
+                int fin = Math.min(desde + tamanoBloque, solicitudes.size());
+                try {
+                    bloques.add(CompletableFuture.runAsync(() -> procesarBloque(lote, inicio, fin), ejecutor));
+                } catch (RejectedExecutionException e) {
+                    // La cola se llenó entre la verificación y el envío: el bloque se marca como fallido
+                    for (int i = inicio; i < fin; i++) {
+                        lote.registrarFallo(i, Errores.ERROR_INTERNO_DEL_SERVICIO,
+                                            "Capacidad de procesamiento de lotes agotada");
+                    }
+                }
+            }
+            CompletableFuture.allOf(bloques.toArray(CompletableFuture[]::new))
+                    .whenComplete((resultado, error) -> {
+                        lote.terminar();
+                        logger.info("Lote de pedidos {} terminado: estado={}, exitosos={}, fallidos={}",
+                                   lote.id, lote.estado, lote.exitosos.get(), lote.fallidos.get());
+                    });
+            
+            logger.info("Lote de pedidos {} recibido con {} pedidos en {} bloques",
+                       lote.id, solicitudes.size(), numBloques);
+            return new ApiResponse<>(Errores.OK.getCodigo(),
+                                   "Lote de pedidos recibido", lote.toResponse());
+        } catch (Exception e) {
+            logger.error("Error al recibir lote de pedidos: {}", e.getMessage(), e);
+            return new ApiResponse<>(Errores.ERROR_INTERNO_DEL_SERVICIO.getCodigo(),
+                                   "Error al recibir lote de pedidos: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Consulta el estado y avance de un lote
+     * 
+     * @param idLote Identificador del lote
+     * @return ApiResponse<LotePedidosResponse> con el estado del lote
+     */
+    public ApiResponse<LotePedidosResponse> consultarLote(String idLote) {
+        Lote lote = idLote != null ? lotes.get(idLote) : null;
+        if (lote == null) {
+            return new ApiResponse<>(Errores.LOTE_PEDIDOS_NO_ENCONTRADO.getCodigo(),
+                                   "Lote de pedidos no encontrado: " + idLote);
+        }
+        return new ApiResponse<>(Errores.OK.getCodigo(), "Lote de pedidos encontrado", lote.toResponse());
+    }
+    
+    /**
+     * Consulta de forma paginada los resultados ya procesados de un lote, en el orden de la solicitud
+     * 
+     * @param idLote Identificador del lote
+     * @param pagina Número de página (base 0)
+     * @param tamano Tamaño de página
+     * @return ApiResponse<PaginaResponse<ResultadoPedidoLoteResponse>> con la página de resultados
+     */
+    public ApiResponse<PaginaResponse<ResultadoPedidoLoteResponse>> consultarResultados(
+            String idLote, int pagina, int tamano) {
+        Lote lote = idLote != null ? lotes.get(idLote) : null;
+        if (lote == null) {
+            return new ApiResponse<>(Errores.LOTE_PEDIDOS_NO_ENCONTRADO.getCodigo(),
+                                   "Lote de pedidos no encontrado: " + idLote);
+        }
+        
+        if (pagina < 0 || tamano < 1 || tamano > CotizacionServicio.TAMANO_PAGINA_MAXIMO) {
+            return new ApiResponse<>(Errores.VALOR_INVALIDO.getCodigo(),
+                                   "La página debe ser >= 0 y el tamaño entre 1 y "
+                                   + CotizacionServicio.TAMANO_PAGINA_MAXIMO);
+        }
+        
+        List<ResultadoPedidoLoteResponse> procesados = lote.resultadosProcesados();
+        int totalElementos = procesados.size();
+        long desde = (long) pagina * tamano;
+        List<ResultadoPedidoLoteResponse> contenido = desde < totalElementos
+                ? procesados.subList((int) desde, (int) Math.min(desde + tamano, totalElementos))
+                : List.of();
+        
+        PaginaResponse<ResultadoPedidoLoteResponse> respuesta = PaginaResponse.<ResultadoPedidoLoteResponse>builder()
+                .contenido(contenido)
+                .pagina(pagina)
+                .tamano(tamano)
+                .totalElementos((long) totalElementos)
+                .totalPaginas((totalElementos + tamano - 1) / tamano)
+                .build();
+        
+        return new ApiResponse<>(Errores.OK.getCodigo(), "Resultados del lote obtenidos", respuesta);
+    }
+    
+    /**
+     * Solicita la cancelación de un lote. Los bloques en curso terminan el pedido que están
+     * procesando; los pedidos pendientes ya no se generan.
+     * 
+     * @param idLote Identificador del lote
+     * @return ApiResponse<LotePedidosResponse> con el estado del lote
+     */
+    public ApiResponse<LotePedidosResponse> cancelarLote(String idLote) {
+        Lote lote = idLote != null ? lotes.get(idLote) : null;
+        if (lote == null) {
+            return new ApiResponse<>(Errores.LOTE_PEDIDOS_NO_ENCONTRADO.getCodigo(),
+                                   "Lote de pedidos no encontrado: " + idLote);
+        }
+        if (lote.fechaFin != null) {
+            return new ApiResponse<>(Errores.OPERACION_INVALIDA.getCodigo(),
+                                   "El lote de pedidos ya terminó: " + idLote);
+        }
+        lote.cancelado = true;
+        logger.info("Cancelación solicitada para el lote de pedidos {}", idLote);
+        return new ApiResponse<>(Errores.OK.getCodigo(), "Cancelación del lote solicitada", lote.toResponse());
+    }
+    
+    /**
+     * Descarta de memoria los lotes terminados cuyo periodo de retención ya venció
+     */
+    @Scheduled(fixedDelayString = "${pedido.lote.limpieza-ms:600000}")
+    public void limpiarLotesTerminados() {
+        LocalDateTime limite = LocalDateTime.now().minusMinutes(retencionMinutos);
+        lotes.values().removeIf(lote -> lote.fechaFin != null && lote.fechaFin.isBefore(limite));
+    }
+    
+    @PreDestroy
+    public void detener() {
+        lotes.values().forEach(lote -> lote.cancelado = true);
+        ejecutor.shutdown();
+    }
+    
+    // ==================== MÉTODOS PRIVADOS DE UTILIDAD ====================
+    
+    /**
+     * Procesa los elementos [desde, hasta) de un lote: carga, generación y persistencia
+     */
+    private void procesarBloque(Lote lote, int desde, int hasta) {
+        if (lote.cancelado) {
+            return;
+        }
+        lote.iniciar();
+        
+        try {
+            List<GenerarPedidoRequest> solicitudes = lote.solicitudes.subList(desde, hasta);
+            
+            // 1. Cargar las cotizaciones del bloque en una consulta y obtener sus proveedores del directorio
+            Set<Integer> folios = new LinkedHashSet<>();
+            Set<String> cves = new LinkedHashSet<>();
+            for (GenerarPedidoRequest solicitud : solicitudes) {
+                folios.add(solicitud.getCotizacionId());
+                cves.add(solicitud.getCveProveedor());
+            }
+            Map<Integer, Cotizacion> cotizaciones = new HashMap<>();
+            transaccionLectura.executeWithoutResult(status ->
+                cotizacionRepositorio.findConDetallesByFolios(folios).forEach(entidad ->
+                        cotizaciones.put(entidad.getFolio(), CotizacionEntityConverter.convertToDomain(entidad))));
+            Map<String, Proveedor> proveedores = directorioProveedores.buscarTodos(cves);
+            
+            // 2. Generar los pedidos con la lógica de dominio
+            GestorPedidos gestorPedidos = new GestorPedidos(new ArrayList<>(proveedores.values()));
+            List<PedidoGenerado> generados = new ArrayList<>(solicitudes.size());
+            for (int i = desde; i < hasta; i++) {
+                if (lote.cancelado) {
+                    break;
+                }
+                GenerarPedidoRequest solicitud = lote.solicitudes.get(i);
+                Cotizacion cotizacion = cotizaciones.get(solicitud.getCotizacionId());
+                if (cotizacion == null) {
+                    lote.registrarFallo(i, Errores.COTIZACION_NO_ENCONTRADA_PEDIDO,
+                                        "Cotización no encontrada: " + solicitud.getCotizacionId());
+                    continue;
+                }
+                if (!proveedores.containsKey(solicitud.getCveProveedor())) {
+                    lote.registrarFallo(i, Errores.PROVEEDOR_REQUERIDO_PEDIDO,
+                                        "Proveedor no encontrado: " + solicitud.getCveProveedor());
+                    continue;
+                }
+                try {
+                    gestorPedidos.agregarPresupuesto(new CotizacionPresupuestoAdapter(cotizacion));
+                    Pedido pedido = gestorPedidos.generarPedido(
+                        solicitud.getCveProveedor(),
+                        0, // Se asigna al persistir
+                        solicitud.getNivelSurtido(),
+                        solicitud.getFechaEmision(),
+                        solicitud.getFechaEntrega()
+                    );
+                    generados.add(new PedidoGenerado(i, pedido));
+                } catch (Exception e) {
+                    lote.registrarFallo(i, Errores.COTIZACION_INVALIDA_PEDIDO,
+                                        "Error al generar pedido: " + e.getMessage());
+                }
+            }
+            
+            // 3. Persistir el bloque completo en una transacción (INSERT en lote)
+            persistir(lote, generados);
+        } catch (Exception e) {
+            logger.error("Error al procesar bloque [{}, {}) del lote {}: {}", desde, hasta, lote.id, e.getMessage(), e);
+            for (int i = desde; i < hasta; i++) {
+                lote.registrarFallo(i, Errores.ERROR_INTERNO_DEL_SERVICIO,
+                                    "Error al procesar el bloque: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Persiste los pedidos generados de un bloque; si la transacción del bloque falla,
+     * reintenta cada pedido en su propia transacción
+     */
+    private void persistir(Lote lote, List<PedidoGenerado> generados) {
+        if (generados.isEmpty()) {
+            return;
+        }
+        
+        List<Pedido> guardados;
+        try {
+            guardados = transaccionEscritura.execute(status -> {
+                // Una sola consulta de componentes para todos los pedidos del bloque
+                Map<String, Componente> componentes = ComponenteEntityConverter.cargarComponentes(
+                        PedidoEntityConverter.idsComponentes(generados.stream().map(PedidoGenerado::pedido).toList()),
+                        componenteRepositorio);
+                return generados.stream()
+                        .map(generado -> pedidoServicio.guardarPedidoInterno(generado.pedido(), componentes))
+                        .toList();
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Falló la persistencia en bloque del lote {}, se reintenta pedido por pedido: {}",
+                       lote.id, e.getMessage());
+            for (PedidoGenerado generado : generados) {
+                try {
+                    Pedido guardado = transaccionEscritura.execute(status ->
+                            pedidoServicio.guardarPedidoInterno(generado.pedido()));
+                    lote.registrarExito(generado.indice(), guardado.getNumPedido());
+                } catch (RuntimeException ex) {
+                    lote.registrarFallo(generado.indice(), Errores.ERROR_BASE_DATOS,
+                                        "Error al guardar pedido: " + ex.getMessage());
+                }
+            }
+            return;
+        }
+        
+        for (int i = 0; i < generados.size(); i++) {
+            lote.registrarExito(generados.get(i).indice(), guardados.get(i).getNumPedido());
+        }
+    }
+    
+    /**
+     * Pedido de dominio generado junto con su posición en la solicitud
+     */
+    private record PedidoGenerado(int indice, Pedido pedido) {
+    }
+    
+    /**
+     * Estado en memoria de un lote. Los resultados se guardan por posición, de modo que
+     * cada bloque escribe sólo en su rango sin coordinarse con los demás.
+     */
+    private static final class Lote {
+        
+        private final String id;
+        private final List<GenerarPedidoRequest> solicitudes;
+        private final AtomicReferenceArray<ResultadoPedidoLoteResponse> resultados;
+        private final AtomicInteger exitosos = new AtomicInteger();
+        private final AtomicInteger fallidos = new AtomicInteger();
+        private final LocalDateTime fechaCreacion = LocalDateTime.now();
+        private volatile EstadoLote estado = EstadoLote.EN_COLA;
+        private volatile boolean cancelado;
+        private volatile LocalDateTime fechaFin;
+        
+        private Lote(String id, List<GenerarPedidoRequest> solicitudes) {
+            this.id = id;
+            this.solicitudes = solicitudes;
+            this.resultados = new AtomicReferenceArray<>(solicitudes.size());
+        }
+        
+        private synchronized void iniciar() {
+            if (estado == EstadoLote.EN_COLA) {
+                estado = EstadoLote.EN_PROCESO;
+            }
+        }
+        
+        private synchronized void terminar() {
+            boolean incompleto = exitosos.get() + fallidos.get() < solicitudes.size();
+            estado = cancelado && incompleto ? EstadoLote.CANCELADO : EstadoLote.COMPLETADO;
+            fechaFin = LocalDateTime.now();
+        }
+        
+        private void registrarExito(int indice, long numPedido) {
+            GenerarPedidoRequest solicitud = solicitudes.get(indice);
+            ResultadoPedidoLoteResponse exito = ResultadoPedidoLoteResponse.builder()
+                    .indice(indice)
+                    .cotizacionId(solicitud.getCotizacionId())
+                    .cveProveedor(solicitud.getCveProveedor())
+                    .exitoso(true)
+                    .numPedido(numPedido)
+                    .codigo(Errores.OK.getCodigo())
+                    .mensaje("Pedido generado exitosamente")
+                    .build();
+            if (resultados.compareAndSet(indice, null, exito)) {
+                exitosos.incrementAndGet();
+            }
+        }
+        
+        private void registrarFallo(int indice, Errores error, String mensaje) {
+            GenerarPedidoRequest solicitud = solicitudes.get(indice);
+            ResultadoPedidoLoteResponse fallo = ResultadoPedidoLoteResponse.builder()
+                    .indice(indice)
+                    .cotizacionId(solicitud.getCotizacionId())
+                    .cveProveedor(solicitud.getCveProveedor())
+                    .exitoso(false)
+                    .codigo(error.getCodigo())
+                    .mensaje(mensaje)
+                    .build();
+            // Un elemento ya resuelto no se vuelve a contar
+            if (resultados.compareAndSet(indice, null, fallo)) {
+                fallidos.incrementAndGet();
+            }
+        }
+        
+        private List<ResultadoPedidoLoteResponse> resultadosProcesados() {
+            List<ResultadoPedidoLoteResponse> procesados = new ArrayList<>();
+            for (int i = 0; i < resultados.length(); i++) {
+                ResultadoPedidoLoteResponse resultado = resultados.get(i);
+                if (resultado != null) {
+                    procesados.add(resultado);
+                }
+            }
+            return procesados;
+        }
+        
+        private LotePedidosResponse toResponse() {
+            int exito = exitosos.get();
+            int fallo = fallidos.get();
+            return LotePedidosResponse.builder()
+                    .idLote(id)
+                    .estado(estado.name())
+                    .total(solicitudes.size())
+                    .procesados(exito + fallo)
+                    .exitosos(exito)
+                    .fallidos(fallo)
+                    .fechaCreacion(fechaCreacion)
+                    .fechaFin(fechaFin)
+                    .build();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package mx.com.qtx.cotizador.servicio.pedido;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -15,14 +16,20 @@ import mx.com.qtx.cotizador.dominio.pedidos.GestorPedidos;
 import mx.com.qtx.cotizador.dominio.pedidos.Pedido;
 import mx.com.qtx.cotizador.dominio.pedidos.Proveedor;
 import mx.com.qtx.cotizador.dto.common.response.ApiResponse;
+import mx.com.qtx.cotizador.dto.common.response.PaginaResponse;
 import mx.com.qtx.cotizador.dto.pedido.mapper.PedidoMapper;
 import mx.com.qtx.cotizador.dto.pedido.request.GenerarPedidoRequest;
 import mx.com.qtx.cotizador.dto.pedido.response.PedidoResponse;
-import mx.com.qtx.cotizador.dto.proveedor.response.ProveedorResponse;
+import mx.com.qtx.cotizador.dto.pedido.response.PedidoResumenResponse;
+import mx.com.qtx.cotizador.entidad.Componente;
 import mx.com.qtx.cotizador.repositorio.ComponenteRepositorio;
 import mx.com.qtx.cotizador.repositorio.PedidoRepositorio;
 import mx.com.qtx.cotizador.repositorio.ProveedorRepositorio;
 import mx.com.qtx.cotizador.servicio.cotizacion.CotizacionServicio;
+import mx.com.qtx.cotizador.servicio.indice.IndiceComponentes;
+import mx.com.qtx.cotizador.servicio.indice.ListaPosteo;
+import mx.com.qtx.cotizador.servicio.outbox.OutboxServicio;
+import mx.com.qtx.cotizador.servicio.wrapper.ComponenteEntityConverter;
 import mx.com.qtx.cotizador.servicio.wrapper.CotizacionEntityConverter;
 import mx.com.qtx.cotizador.servicio.wrapper.PedidoEntityConverter;
 import mx.com.qtx.cotizador.util.Errores;
@@ -45,19 +52,28 @@ public class PedidoServicio {
     private final PedidoRepositorio pedidoRepositorio;
     private final ProveedorRepositorio proveedorRepositorio;
     private final ComponenteRepositorio componenteRepositorio;
-    private final ProveedorServicio proveedorServicio;
+    private final DirectorioProveedores directorioProveedores;
     private final CotizacionServicio cotizacionServicio;
+    private final IndiceComponentes indiceComponentes;
+    private final OutboxServicio outboxServicio;
+    private final ResumenSurtidoServicio resumenSurtidoServicio;
     
     public PedidoServicio(PedidoRepositorio pedidoRepositorio,
                           ProveedorRepositorio proveedorRepositorio,
                           ComponenteRepositorio componenteRepositorio,
-                          ProveedorServicio proveedorServicio,
-                          CotizacionServicio cotizacionServicio) {
+                          DirectorioProveedores directorioProveedores,
+                          CotizacionServicio cotizacionServicio,
+                          IndiceComponentes indiceComponentes,
+                          OutboxServicio outboxServicio,
+                          ResumenSurtidoServicio resumenSurtidoServicio) {
         this.pedidoRepositorio = pedidoRepositorio;
         this.proveedorRepositorio = proveedorRepositorio;
         this.componenteRepositorio = componenteRepositorio;
-        this.proveedorServicio = proveedorServicio;
+        this.directorioProveedores = directorioProveedores;
         this.cotizacionServicio = cotizacionServicio;
+        this.indiceComponentes = indiceComponentes;
+        this.outboxServicio = outboxServicio;
+        this.resumenSurtidoServicio = resumenSurtidoServicio;
     }
     
     /**
@@ -87,10 +103,10 @@ public class PedidoServicio {
                                        "Cotización no encontrada: " + request.getCotizacionId());
             }
             
-            // 2. Validar que el proveedor exista
-            ApiResponse<ProveedorResponse> proveedorResponse = 
-                proveedorServicio.buscarPorClave(request.getCveProveedor());
-            if (!"0".equals(proveedorResponse.getCodigo())) {
+            // 2. Validar que el proveedor exista (desde el directorio; sólo una clave que no
+            // conoce se busca en la base de datos)
+            Proveedor proveedorDominio = directorioProveedores.buscar(request.getCveProveedor()).orElse(null);
+            if (proveedorDominio == null) {
                 return new ApiResponse<>(Errores.PROVEEDOR_REQUERIDO_PEDIDO.getCodigo(), 
                                        "Proveedor no encontrado: " + request.getCveProveedor());
             }
@@ -99,21 +115,18 @@ public class PedidoServicio {
             mx.com.qtx.cotizador.entidad.Cotizacion cotizacionEntity = cotizacionResponse.getDatos();
             Cotizacion cotizacionDominio = CotizacionEntityConverter.convertToDomain(cotizacionEntity);
             
-            // 4. Convertir ProveedorResponse a Proveedor dominio
-            Proveedor proveedorDominio = convertirResponseAProveedorDominio(proveedorResponse.getDatos());
-            
-            // 5. Crear lista de proveedores para GestorPedidos
+            // 4. Crear lista de proveedores para GestorPedidos
             List<Proveedor> proveedoresList = new ArrayList<>();
             proveedoresList.add(proveedorDominio);
             
-            // 6. Usar GestorPedidos para generar el pedido (lógica de dominio correcta)
+            // 5. Usar GestorPedidos para generar el pedido (lógica de dominio correcta)
             GestorPedidos gestorPedidos = new GestorPedidos(proveedoresList);
             
-            // 7. Agregar presupuesto adaptado desde cotización
+            // 6. Agregar presupuesto adaptado desde cotización
             CotizacionPresupuestoAdapter presupuestoAdapter = new CotizacionPresupuestoAdapter(cotizacionDominio);
             gestorPedidos.agregarPresupuesto(presupuestoAdapter);
             
-            // 8. Generar el pedido usando la lógica de dominio
+            // 7. Generar el pedido usando la lógica de dominio
             Pedido pedidoGenerado = gestorPedidos.generarPedido(
                 request.getCveProveedor(),
                 0, // Se usará auto-increment de la BD
@@ -122,10 +135,10 @@ public class PedidoServicio {
                 request.getFechaEntrega()
             );
             
-            // 9. Persistir el pedido
-            guardarPedidoInterno(pedidoGenerado);
+            // 8. Persistir el pedido (el resultado ya trae el número de pedido asignado)
+            pedidoGenerado = guardarPedidoInterno(pedidoGenerado);
             
-            // 10. Convertir resultado a DTO
+            // 9. Convertir resultado a DTO
             PedidoResponse response = PedidoMapper.toResponse(pedidoGenerado);
             
             logger.info("Pedido generado exitosamente con número: {}", pedidoGenerado.getNumPedido());
@@ -195,31 +208,123 @@ public class PedidoServicio {
         }
     }
     
+    /**
+     * Busca de forma paginada los pedidos que incluyen un componente
+     * 
+     * Los números de pedido se obtienen del índice inverso en memoria y sólo se consultan
+     * los encabezados de la página solicitada, sin cargar detalles ni duplicar pedidos.
+     * 
+     * @param idComponente Id del componente a buscar
+     * @param pagina Número de página (base 0)
+     * @param tamano Tamaño de página
+     * @return ApiResponse<PaginaResponse<PedidoResumenResponse>> con la página de pedidos
+     */
+    @Transactional(readOnly = true)
+    public ApiResponse<PaginaResponse<PedidoResumenResponse>> buscarPedidosPorComponente(
+            String idComponente, int pagina, int tamano) {
+        try {
+            if (idComponente == null || idComponente.trim().isEmpty()) {
+                return new ApiResponse<>(Errores.VALOR_INVALIDO.getCodigo(), 
+                                       "El ID del componente no puede estar vacío");
+            }
+            
+            if (pagina < 0 || tamano < 1 || tamano > CotizacionServicio.TAMANO_PAGINA_MAXIMO) {
+                return new ApiResponse<>(Errores.VALOR_INVALIDO.getCodigo(), 
+                                       "La página debe ser >= 0 y el tamaño entre 1 y " 
+                                       + CotizacionServicio.TAMANO_PAGINA_MAXIMO);
+            }
+            
+            ListaPosteo numPedidos = indiceComponentes.pedidosPorComponente(idComponente);
+            int totalElementos = numPedidos.tamano();
+            long desde = (long) pagina * tamano;
+            List<Integer> numPedidosPagina = desde < totalElementos
+                    ? numPedidos.rango((int) desde, (int) Math.min(desde + tamano, totalElementos))
+                    : List.of();
+            
+            List<PedidoResumenResponse> contenido = numPedidosPagina.isEmpty()
+                    ? List.of()
+                    : pedidoRepositorio.findResumenesByNumPedidos(numPedidosPagina);
+            
+            PaginaResponse<PedidoResumenResponse> respuesta = PaginaResponse.<PedidoResumenResponse>builder()
+                    .contenido(contenido)
+                    .pagina(pagina)
+                    .tamano(tamano)
+                    .totalElementos((long) totalElementos)
+                    .totalPaginas((totalElementos + tamano - 1) / tamano)
+                    .build();
+            
+            return new ApiResponse<>(Errores.OK.getCodigo(), 
+                                   "Pedidos obtenidos exitosamente", respuesta);
+        } catch (Exception e) {
+            logger.error("Error al buscar pedidos por componente: {}", e.getMessage(), e);
+            return new ApiResponse<>(Errores.ERROR_INTERNO_DEL_SERVICIO.getCodigo(), 
+                                   "Error al buscar pedidos por componente: " + e.getMessage());
+        }
+    }
+    
     // ==================== MÉTODOS PRIVADOS DE UTILIDAD ====================
     
 
     
+    
     /**
-     * Convierte ProveedorResponse a Proveedor de dominio
+     * Persiste un pedido de dominio en la base de datos
+     * 
+     * Debe invocarse dentro de una transacción; también lo usa la generación de pedidos en lote.
+     * 
+     * @param pedido Pedido de dominio generado por GestorPedidos
+     * @return El pedido de dominio con el número de pedido asignado
      */
-    private Proveedor convertirResponseAProveedorDominio(ProveedorResponse response) {
-        if (response == null) {
-            return null;
-        }
-        return new Proveedor(response.getCve(), response.getNombre(), response.getRazonSocial());
+    Pedido guardarPedidoInterno(Pedido pedido) {
+        return guardarPedidoInterno(pedido, ComponenteEntityConverter.cargarComponentes(
+                PedidoEntityConverter.idsComponentes(List.of(pedido)), componenteRepositorio));
     }
     
     /**
-     * Persiste un pedido de dominio en la base de datos
+     * Persiste un pedido de dominio usando componentes ya cargados, de modo que varios
+     * pedidos de un mismo lote comparten una sola consulta de componentes
+     * 
+     * @param pedido Pedido de dominio generado por GestorPedidos
+     * @param componentes Componentes de los detalles indexados por id
+     * @return El pedido de dominio con el número de pedido asignado
      */
-    private void guardarPedidoInterno(Pedido pedido) {
-        var pedidoEntity = PedidoEntityConverter.convertToNewEntity(pedido, proveedorRepositorio, componenteRepositorio);
+    Pedido guardarPedidoInterno(Pedido pedido, Map<String, Componente> componentes) {
+        var pedidoEntity = PedidoEntityConverter.convertToEntity(pedido, proveedorRepositorio);
         pedidoEntity = pedidoRepositorio.save(pedidoEntity);
         
-        // Agregar detalles después de que el pedido tenga ID
-        PedidoEntityConverter.addDetallesTo(pedido, pedidoEntity, componenteRepositorio);
+        // Agregar detalles: el número de pedido ya viene del generador por bloques (sin INSERT
+        // inmediato), de modo que encabezado y detalles se insertan en lote al hacer flush
+        PedidoEntityConverter.addDetallesTo(pedido, pedidoEntity, componentes);
         
-        // Actualizar el número de pedido en el objeto de dominio si fue auto-generado
-        pedido = PedidoEntityConverter.convertToDomain(pedidoEntity);
+        // Registrar el pedido en el índice inverso de componentes (al confirmar la transacción)
+        indiceComponentes.registrarPedido(pedidoEntity.getNumPedido(), pedido.getDetallesPedido().stream()
+                .map(mx.com.qtx.cotizador.dominio.pedidos.DetallePedido::getIdArticulo)
+                .distinct()
+                .toList());
+        
+        // Retornar el pedido de dominio con el número de pedido generado; se conserva el
+        // proveedor del dominio para no inicializar la referencia perezosa de la entidad
+        Pedido numerado = conNumeroPedido(pedido, pedidoEntity.getNumPedido());
+        
+        // Sumar el pedido al resumen de surtido del proveedor (se aplica antes de confirmar)
+        resumenSurtidoServicio.registrarPedido(numerado);
+        
+        // Publicar el evento en el outbox dentro de la misma transacción que el pedido
+        outboxServicio.registrar(OutboxServicio.AGREGADO_PEDIDO, String.valueOf(numerado.getNumPedido()),
+                OutboxServicio.PEDIDO_CREADO, PedidoMapper.toResponse(numerado));
+        return numerado;
+    }
+    
+    /**
+     * Copia un pedido de dominio asignándole el número generado al persistirlo
+     */
+    private static Pedido conNumeroPedido(Pedido pedido, long numPedido) {
+        Pedido numerado = new Pedido(numPedido, pedido.getFechaEmision(), pedido.getFechaEntrega(),
+                pedido.getNivelSurtido(), pedido.getProveedor());
+        for (mx.com.qtx.cotizador.dominio.pedidos.DetallePedido detalle : pedido.getDetallesPedido()) {
+            numerado.agregarDetallePedido(detalle.getIdArticulo(), detalle.getDescripcion(),
+                    detalle.getCantidad(), detalle.getPrecioUnitario(), detalle.getTotalCotizado());
+        }
+        return numerado;
     }
-} 
\ No newline at end of file
+}
@@ -26,6 +26,9 @@ import mx.com.qtx.cotizador.util.Errores;
  * - Manejo interno de errores con try-catch
  * - Códigos de error específicos del enum Errores
  * - Trabajo con DTOs en la interfaz pública
+ * 
+ * Las consultas se resuelven en el {@link DirectorioProveedores} en memoria; las
+ * escrituras van a la base de datos y actualizan el directorio al confirmarse.
  */
 @Service
 public class ProveedorServicio {
@@ -33,14 +36,19 @@ public class ProveedorServicio {
     private static final Logger logger = LoggerFactory.getLogger(ProveedorServicio.class);
     
     private final ProveedorRepositorio proveedorRepositorio;
+    private final DirectorioProveedores directorio;
     
-    public ProveedorServicio(ProveedorRepositorio proveedorRepositorio) {
+    public ProveedorServicio(ProveedorRepositorio proveedorRepositorio,
+                             DirectorioProveedores directorio) {
         this.proveedorRepositorio = proveedorRepositorio;
+        this.directorio = directorio;
     }
     
     /**
      * Busca un proveedor por su clave
      * 
+     * Se resuelve en el directorio en memoria, sin consultar la base de datos.
+     * 
      * @param cve La clave del proveedor a buscar
      * @return ApiResponse<ProveedorResponse> con el proveedor encontrado
      */
@@ -51,14 +59,13 @@ public class ProveedorServicio {
                                        "La clave del proveedor es requerida");
             }
             
-            var proveedorEntity = proveedorRepositorio.findByCve(cve);
-            if (proveedorEntity == null) {
+            Proveedor proveedor = directorio.buscar(cve).orElse(null);
+            if (proveedor == null) {
                 return new ApiResponse<>(Errores.PROVEEDOR_NO_ENCONTRADO.getCodigo(), 
                                        Errores.PROVEEDOR_NO_ENCONTRADO.getMensaje());
             }
             
-            // Convertir a dominio y luego a DTO
-            Proveedor proveedor = ProveedorEntityConverter.convertToDomain(proveedorEntity);
+            // Convertir a DTO
             ProveedorResponse response = ProveedorMapper.toResponse(proveedor);
             
             return new ApiResponse<>(Errores.OK.getCodigo(), "Proveedor encontrado", response);
@@ -112,6 +119,8 @@ public class ProveedorServicio {
             logger.debug("Proveedor dominio convertido después de guardar: cve={}, nombre={}, razonSocial={}", 
                         proveedorGuardado.getCve(), proveedorGuardado.getNombre(), proveedorGuardado.getRazonSocial());
             
+            directorio.registrar(proveedorGuardado);
+            
             ProveedorResponse response = ProveedorMapper.toResponse(proveedorGuardado);
             logger.debug("CRITICAL: ProveedorResponse creado: cve={}, nombre={}, razonSocial={}, numeroPedidos={}", 
                         response.getCve(), response.getNombre(), response.getRazonSocial(), response.getNumeroPedidos());
@@ -166,6 +175,7 @@ public class ProveedorServicio {
             
             // Convertir resultado a DTO
             Proveedor proveedorActualizado = ProveedorEntityConverter.convertToDomain(proveedorEntity);
+            directorio.registrar(proveedorActualizado);
             ProveedorResponse response = ProveedorMapper.toResponse(proveedorActualizado);
             
             return new ApiResponse<>(Errores.OK.getCodigo(), "Proveedor actualizado exitosamente", response);
@@ -198,6 +208,7 @@ public class ProveedorServicio {
             // Por ahora permitimos eliminar sin validaciones adicionales
             
             proveedorRepositorio.deleteById(cve);
+            directorio.eliminar(cve);
             return new ApiResponse<>(Errores.OK.getCodigo(), "Proveedor eliminado exitosamente");
         } catch (Exception e) {
             return new ApiResponse<>(Errores.ERROR_INTERNO_DEL_SERVICIO.getCodigo(), 
@@ -212,13 +223,8 @@ public class ProveedorServicio {
      */
     public ApiResponse<List<ProveedorResponse>> obtenerTodosLosProveedores() {
         try {
-            var proveedorEntities = proveedorRepositorio.findAll();
-            
-            List<ProveedorResponse> proveedores = proveedorEntities.stream()
-                .map(entity -> {
-                    Proveedor proveedor = ProveedorEntityConverter.convertToDomain(entity);
-                    return ProveedorMapper.toResponse(proveedor);
-                })
+            List<ProveedorResponse> proveedores = directorio.todos().stream()
+                .map(ProveedorMapper::toResponse)
                 .collect(Collectors.toList());
             
             return new ApiResponse<>(Errores.OK.getCodigo(), 
@@ -243,13 +249,9 @@ public class ProveedorServicio {
                                        "El nombre a buscar es requerido");
             }
             
-            var proveedorEntities = proveedorRepositorio.findByNombreContainingIgnoreCase(nombre.trim());
-            
-            List<ProveedorResponse> proveedores = proveedorEntities.stream()
-                .map(entity -> {
-                    Proveedor proveedor = ProveedorEntityConverter.convertToDomain(entity);
-                    return ProveedorMapper.toResponse(proveedor);
-                })
+            // Búsqueda en el índice de trigramas del directorio (sin LIKE en la base de datos)
+            List<ProveedorResponse> proveedores = directorio.buscarPorNombre(nombre.trim()).stream()
+                .map(ProveedorMapper::toResponse)
                 .collect(Collectors.toList());
             
             return new ApiResponse<>(Errores.OK.getCodigo(), 
@@ -274,13 +276,9 @@ public class ProveedorServicio {
                                        "La razón social a buscar es requerida");
             }
             
-            var proveedorEntities = proveedorRepositorio.findByRazonSocialContainingIgnoreCase(razonSocial.trim());
-            
-            List<ProveedorResponse> proveedores = proveedorEntities.stream()
-                .map(entity -> {
-                    Proveedor proveedor = ProveedorEntityConverter.convertToDomain(entity);
-                    return ProveedorMapper.toResponse(proveedor);
-                })
+            // Búsqueda en el índice de trigramas del directorio (sin LIKE en la base de datos)
+            List<ProveedorResponse> proveedores = directorio.buscarPorRazonSocial(razonSocial.trim()).stream()
+                .map(ProveedorMapper::toResponse)
                 .collect(Collectors.toList());
             
             return new ApiResponse<>(Errores.OK.getCodigo(), 
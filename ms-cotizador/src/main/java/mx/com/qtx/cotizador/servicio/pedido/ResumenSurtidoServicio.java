@@ -0,0 +1,266 @@
+package mx.com.qtx.cotizador.servicio.pedido;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import mx.com.qtx.cotizador.dominio.pedidos.Pedido;
+import mx.com.qtx.cotizador.dominio.pedidos.Proveedor;
+import mx.com.qtx.cotizador.dto.common.response.ApiResponse;
+import mx.com.qtx.cotizador.dto.pedido.response.ResumenSurtidoProveedorResponse;
+import mx.com.qtx.cotizador.entidad.ResumenSurtidoProveedor;
+import mx.com.qtx.cotizador.repositorio.ResumenSurtidoProveedorRepositorio;
+import mx.com.qtx.cotizador.util.Errores;
+
+/**
+ * Indicadores de surtido por proveedor mantenidos de forma incremental.
+ * <p>
+ * Cada pedido guardado suma sus valores (pedidos, renglones, importe, nivel de surtido, días
+ * de entrega y entregas tardías) al renglón de su proveedor en
+ * {@code coresumen_surtido_proveedor}. Los incrementos se acumulan por transacción y se
+ * aplican antes de confirmarla con un UPSERT por proveedor, de modo que un lote de pedidos
+ * del mismo proveedor actualiza su renglón una sola vez y el resumen se confirma o revierte
+ * junto con los pedidos.
+ * </p>
+ * <p>
+ * Una entrega se considera tardía cuando el plazo comprometido (fecha de entrega menos fecha
+ * de emisión) excede {@code pedido.surtido.dias-entrega-max}; el modelo no registra la fecha
+ * real de recepción.
+ * </p>
+ * <p>
+ * Si la tabla está vacía al arrancar (por ejemplo, en la primera instalación), se construye
+ * a partir de los pedidos existentes.
+ * </p>
+ */
+@Service
+public class ResumenSurtidoServicio {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ResumenSurtidoServicio.class);
+    
+    private final ResumenSurtidoProveedorRepositorio resumenRepo;
+    private final DirectorioProveedores directorioProveedores;
+    private final TransactionTemplate transaccion;
+    private final int diasEntregaMax;
+    
+    public ResumenSurtidoServicio(ResumenSurtidoProveedorRepositorio resumenRepo,
+                                  DirectorioProveedores directorioProveedores,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${pedido.surtido.dias-entrega-max:15}") int diasEntregaMax) {
+        this.resumenRepo = resumenRepo;
+        this.directorioProveedores = directorioProveedores;
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.diasEntregaMax = diasEntregaMax;
+    }
+    
+    /**
+     * Construye el resumen desde los pedidos existentes si aún no se ha calculado.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void inicializar() {
+        try {
+            if (resumenRepo.count() == 0) {
+                Integer proveedores = transaccion.execute(status -> recalcular());
+                logger.info("Resumen de surtido inicial construido para {} proveedores", proveedores);
+            }
+        } catch (Exception e) {
+            logger.error("Error al construir el resumen de surtido inicial: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Suma un pedido recién guardado al resumen de su proveedor.
+     * Con una transacción activa, el incremento se aplica justo antes de confirmarla.
+     * 
+     * @param pedido Pedido de dominio persistido
+     */
+    public void registrarPedido(Pedido pedido) {
+        Proveedor proveedor = pedido.getProveedor();
+        if (proveedor == null || proveedor.getCve() == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<String, Incremento> incrementos = new TreeMap<>();
+            acumular(incrementos, proveedor.getCve(), pedido);
+            aplicar(incrementos);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Incremento> incrementos = (Map<String, Incremento>) TransactionSynchronizationManager.getResource(this);
+        if (incrementos == null) {
+            // Orden por clave: todas las transacciones bloquean los renglones en el mismo orden
+            Map<String, Incremento> nuevos = new TreeMap<>();
+            TransactionSynchronizationManager.bindResource(this, nuevos);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    aplicar(nuevos);
+                }
+                
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ResumenSurtidoServicio.this);
+                }
+            });
+            incrementos = nuevos;
+        }
+        acumular(incrementos, proveedor.getCve(), pedido);
+    }
+    
+    /**
+     * Consulta el resumen de surtido de todos los proveedores con pedidos.
+     * 
+     * @return ApiResponse con los resúmenes ordenados por clave de proveedor
+     */
+    @Transactional(readOnly = true)
+    public ApiResponse<List<ResumenSurtidoProveedorResponse>> consultarTodos() {
+        try {
+            List<ResumenSurtidoProveedorResponse> resumenes = resumenRepo.findAll(Sort.by("cveProveedor")).stream()
+                    .map(this::toResponse)
+                    .toList();
+            return new ApiResponse<>(Errores.OK.getCodigo(), "Resumen de surtido consultado", resumenes);
+        } catch (Exception e) {
+            logger.error("Error al consultar el resumen de surtido: {}", e.getMessage(), e);
+            return new ApiResponse<>(Errores.ERROR_INTERNO_DEL_SERVICIO.getCodigo(),
+                                   "Error al consultar el resumen de surtido: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Consulta el resumen de surtido de un proveedor.
+     * 
+     * @param cveProveedor Clave del proveedor
+     * @return ApiResponse con el resumen (en ceros si el proveedor aún no tiene pedidos)
+     */
+    @Transactional(readOnly = true)
+    public ApiResponse<ResumenSurtidoProveedorResponse> consultar(String cveProveedor) {
+        try {
+            if (cveProveedor == null || cveProveedor.isBlank()) {
+                return new ApiResponse<>(Errores.CAMPO_REQUERIDO.getCodigo(), "La clave del proveedor es requerida");
+            }
+            if (directorioProveedores.buscar(cveProveedor).isEmpty()) {
+                return new ApiResponse<>(Errores.PROVEEDOR_NO_ENCONTRADO.getCodigo(),
+                                       "Proveedor no encontrado con clave: " + cveProveedor);
+            }
+            ResumenSurtidoProveedor resumen = resumenRepo.findById(cveProveedor).orElseGet(() -> {
+                ResumenSurtidoProveedor vacio = new ResumenSurtidoProveedor();
+                vacio.setCveProveedor(cveProveedor);
+                vacio.setImporteTotal(BigDecimal.ZERO);
+                return vacio;
+            });
+            return new ApiResponse<>(Errores.OK.getCodigo(), "Resumen de surtido consultado", toResponse(resumen));
+        } catch (Exception e) {
+            logger.error("Error al consultar el resumen de surtido de {}: {}", cveProveedor, e.getMessage(), e);
+            return new ApiResponse<>(Errores.ERROR_INTERNO_DEL_SERVICIO.getCodigo(),
+                                   "Error al consultar el resumen de surtido: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Reconstruye desde cero los resúmenes de todos los proveedores a partir de los pedidos.
+     * El vaciado y el recálculo ocurren en una sola transacción, así que los lectores ven el
+     * resumen anterior o el nuevo, nunca uno vacío.
+     * 
+     * @return ApiResponse con los resúmenes reconstruidos
+     */
+    @Transactional
+    public ApiResponse<List<ResumenSurtidoProveedorResponse>> reconstruir() {
+        try {
+            int proveedores = recalcular();
+            logger.info("Resumen de surtido reconstruido para {} proveedores", proveedores);
+            List<ResumenSurtidoProveedorResponse> resumenes = resumenRepo.findAll(Sort.by("cveProveedor")).stream()
+                    .map(this::toResponse)
+                    .toList();
+            return new ApiResponse<>(Errores.OK.getCodigo(), "Resumen de surtido reconstruido", resumenes);
+        } catch (Exception e) {
+            logger.error("Error al reconstruir el resumen de surtido: {}", e.getMessage(), e);
+            // Conservar el resumen anterior
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            return new ApiResponse<>(Errores.ERROR_INTERNO_DEL_SERVICIO.getCodigo(),
+                                   "Error al reconstruir el resumen de surtido: " + e.getMessage());
+        }
+    }
+    
+    private int recalcular() {
+        resumenRepo.deleteAllInBatch();
+        return resumenRepo.reconstruir(diasEntregaMax, LocalDateTime.now());
+    }
+    
+    private void acumular(Map<String, Incremento> incrementos, String cveProveedor, Pedido pedido) {
+        long diasEntrega = (pedido.getFechaEmision() != null && pedido.getFechaEntrega() != null)
+                ? ChronoUnit.DAYS.between(pedido.getFechaEmision(), pedido.getFechaEntrega())
+                : 0;
+        Incremento incremento = incrementos.computeIfAbsent(cveProveedor, cve -> new Incremento());
+        incremento.pedidos++;
+        incremento.renglones += pedido.getDetallesPedido().size();
+        incremento.importe = incremento.importe.add(pedido.getTotalPedido());
+        incremento.sumaNivelSurtido += pedido.getNivelSurtido();
+        incremento.sumaDiasEntrega += diasEntrega;
+        if (diasEntrega > diasEntregaMax) {
+            incremento.entregasTardias++;
+        }
+        if (pedido.getFechaEmision() != null
+                && (incremento.fechaUltimoPedido == null || pedido.getFechaEmision().isAfter(incremento.fechaUltimoPedido))) {
+            incremento.fechaUltimoPedido = pedido.getFechaEmision();
+        }
+    }
+    
+    private void aplicar(Map<String, Incremento> incrementos) {
+        LocalDateTime ahora = LocalDateTime.now();
+        incrementos.forEach((cve, inc) -> resumenRepo.acumular(cve, inc.pedidos, inc.renglones, inc.importe,
+                inc.sumaNivelSurtido, inc.sumaDiasEntrega, inc.entregasTardias, inc.fechaUltimoPedido, ahora));
+    }
+    
+    private ResumenSurtidoProveedorResponse toResponse(ResumenSurtidoProveedor resumen) {
+        long pedidos = resumen.getPedidos();
+        return ResumenSurtidoProveedorResponse.builder()
+                .cveProveedor(resumen.getCveProveedor())
+                .nombreProveedor(directorioProveedores.buscar(resumen.getCveProveedor())
+                        .map(Proveedor::getNombre).orElse(null))
+                .pedidos(pedidos)
+                .renglones(resumen.getRenglones())
+                .importeTotal(resumen.getImporteTotal())
+                .nivelSurtidoPromedio(promedio(resumen.getSumaNivelSurtido(), pedidos))
+                .diasEntregaPromedio(promedio(resumen.getSumaDiasEntrega(), pedidos))
+                .entregasTardias(resumen.getEntregasTardias())
+                .fechaUltimoPedido(resumen.getFechaUltimoPedido())
+                .fechaActualizacion(resumen.getFechaActualizacion())
+                .build();
+    }
+    
+    private static BigDecimal promedio(long suma, long cantidad) {
+        return cantidad == 0 ? BigDecimal.ZERO
+                : BigDecimal.valueOf(suma).divide(BigDecimal.valueOf(cantidad), 2, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * Incrementos pendientes de un proveedor dentro de una transacción.
+     */
+    private static final class Incremento {
+        private long pedidos;
+        private long renglones;
+        private BigDecimal importe = BigDecimal.ZERO;
+        private long sumaNivelSurtido;
+        private long sumaDiasEntrega;
+        private long entregasTardias;
+        private LocalDate fechaUltimoPedido;
+    }
+}
@@ -0,0 +1,245 @@
+package mx.com.qtx.cotizador.servicio.pedido.exportacion;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Escribe renglones de pedido (encabezado + detalle) en CSV o ancho fijo sobre un canal NIO.
+ * <p>
+ * Cada renglón se arma en un {@link StringBuilder} reutilizado y se acumula en un búfer de
+ * tamaño fijo que se vacía al canal cuando se llena, por lo que la memoria usada no depende
+ * del número de pedidos. Con compresión, el canal de destino se envuelve en un flujo gzip que
+ * se finaliza en {@link #terminar()} sin cerrar el destino, cuyo ciclo de vida es del llamador.
+ * </p>
+ */
+final class EscritorExportacionPedidos {
+    
+    private static final int TAMANO_BUFER = 64 * 1024;
+    
+    private static final String[] COLUMNAS = {
+        "num_pedido", "fecha_emision", "fecha_entrega", "nivel_surtido", "total_pedido",
+        "num_detalle", "id_componente", "descripcion", "cantidad", "precio_unitario", "total_cotizado"
+    };
+    
+    // Anchos del formato de ancho fijo (en bytes UTF-8), en el orden de COLUMNAS
+    private static final int ANCHO_NUM_PEDIDO = 10;
+    private static final int ANCHO_FECHA = 8;
+    private static final int ANCHO_NIVEL_SURTIDO = 3;
+    private static final int ANCHO_IMPORTE = 22;
+    private static final int ANCHO_NUM_DETALLE = 5;
+    private static final int ANCHO_ID_COMPONENTE = 50;
+    private static final int ANCHO_DESCRIPCION = 60;
+    private static final int ANCHO_CANTIDAD = 10;
+    
+    private static final DateTimeFormatter FECHA_COMPACTA = DateTimeFormatter.BASIC_ISO_DATE;
+    
+    private final FormatoExportacion formato;
+    private final WritableByteChannel canal;
+    private final GZIPOutputStream gzip;
+    private final ByteBuffer bufer = ByteBuffer.allocate(TAMANO_BUFER);
+    private final StringBuilder renglon = new StringBuilder(256);
+    private long renglones;
+    
+    EscritorExportacionPedidos(FormatoExportacion formato, boolean comprimir, WritableByteChannel destino) throws IOException {
+        this.formato = formato;
+        if (comprimir) {
+            this.gzip = new GZIPOutputStream(Channels.newOutputStream(destino), TAMANO_BUFER);
+            this.canal = Channels.newChannel(gzip);
+        } else {
+            this.gzip = null;
+            this.canal = destino;
+        }
+    }
+    
+    /**
+     * Escribe el renglón de encabezado (sólo en CSV).
+     */
+    void escribirEncabezado() throws IOException {
+        if (formato != FormatoExportacion.CSV) {
+            return;
+        }
+        renglon.setLength(0);
+        renglon.append(String.join(",", COLUMNAS)).append("\r\n");
+        agregar(renglon);
+    }
+    
+    /**
+     * Escribe el renglón actual del resultado de la consulta de exportación.
+     */
+    void escribirRenglon(ResultSet rs) throws SQLException, IOException {
+        renglon.setLength(0);
+        long numPedido = rs.getLong("num_pedido");
+        LocalDate fechaEmision = rs.getObject("fecha_emision", LocalDate.class);
+        LocalDate fechaEntrega = rs.getObject("fecha_entrega", LocalDate.class);
+        int nivelSurtido = rs.getInt("nivel_surtido");
+        BigDecimal totalPedido = rs.getBigDecimal("total");
+        long numDetalle = rs.getLong("num_detalle");
+        String idComponente = rs.getString("id_componente");
+        String descripcion = rs.getString("descripcion");
+        long cantidad = rs.getLong("cantidad");
+        BigDecimal precioUnitario = rs.getBigDecimal("precio_unitario");
+        BigDecimal totalCotizado = rs.getBigDecimal("total_cotizado");
+        
+        if (formato == FormatoExportacion.CSV) {
+            renglon.append(numPedido).append(',')
+                   .append(fechaEmision).append(',')
+                   .append(fechaEntrega).append(',')
+                   .append(nivelSurtido).append(',')
+                   .append(importe(totalPedido)).append(',')
+                   .append(numDetalle).append(',');
+            campoCsv(idComponente);
+            renglon.append(',');
+            campoCsv(descripcion);
+            renglon.append(',')
+                   .append(cantidad).append(',')
+                   .append(importe(precioUnitario)).append(',')
+                   .append(importe(totalCotizado)).append("\r\n");
+        } else {
+            numero(numPedido, ANCHO_NUM_PEDIDO);
+            texto(FECHA_COMPACTA.format(fechaEmision), ANCHO_FECHA);
+            texto(FECHA_COMPACTA.format(fechaEntrega), ANCHO_FECHA);
+            numero(nivelSurtido, ANCHO_NIVEL_SURTIDO);
+            alineadoDerecha(importe(totalPedido), ANCHO_IMPORTE);
+            numero(numDetalle, ANCHO_NUM_DETALLE);
+            texto(idComponente, ANCHO_ID_COMPONENTE);
+            texto(descripcion, ANCHO_DESCRIPCION);
+            numero(cantidad, ANCHO_CANTIDAD);
+            alineadoDerecha(importe(precioUnitario), ANCHO_IMPORTE);
+            alineadoDerecha(importe(totalCotizado), ANCHO_IMPORTE);
+            renglon.append('\n');
+        }
+        agregar(renglon);
+        renglones++;
+    }
+    
+    /**
+     * Vacía el búfer y, con compresión, escribe el final del flujo gzip.
+     * 
+     * @return Número de renglones de detalle escritos
+     */
+    long terminar() throws IOException {
+        vaciar();
+        if (gzip != null) {
+            gzip.finish();
+            gzip.flush();
+        }
+        return renglones;
+    }
+    
+    private void agregar(CharSequence texto) throws IOException {
+        byte[] bytes = texto.toString().getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > bufer.remaining()) {
+            vaciar();
+        }
+        if (bytes.length > bufer.capacity()) {
+            escribir(ByteBuffer.wrap(bytes));
+        } else {
+            bufer.put(bytes);
+        }
+    }
+    
+    private void vaciar() throws IOException {
+        bufer.flip();
+        escribir(bufer);
+        bufer.clear();
+    }
+    
+    private void escribir(ByteBuffer contenido) throws IOException {
+        while (contenido.hasRemaining()) {
+            canal.write(contenido);
+        }
+    }
+    
+    // Campo de texto CSV: se entrecomilla sólo si contiene separadores, comillas o saltos de línea
+    private void campoCsv(String valor) {
+        if (valor == null) {
+            return;
+        }
+        boolean entrecomillar = false;
+        for (int i = 0; i < valor.length() && !entrecomillar; i++) {
+            char c = valor.charAt(i);
+            entrecomillar = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!entrecomillar) {
+            renglon.append(valor);
+            return;
+        }
+        renglon.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                renglon.append('"');
+            }
+            renglon.append(c);
+        }
+        renglon.append('"');
+    }
+    
+    // Texto alineado a la izquierda, truncado o completado con espacios hasta ocupar exactamente
+    // "ancho" bytes en UTF-8 sin partir un carácter multibyte; los saltos de línea se sustituyen
+    // para no romper el registro
+    private void texto(String valor, int ancho) {
+        String texto = valor != null ? valor : "";
+        int ocupados = 0;
+        for (int i = 0; i < texto.length(); ) {
+            int c = texto.codePointAt(i);
+            int longitud = Character.charCount(c);
+            if (c == '\r' || c == '\n') {
+                c = ' ';
+            } else if (Character.getType(c) == Character.SURROGATE) {
+                // Sustituto sin pareja: UTF-8 lo codifica como '?'
+                c = '?';
+            }
+            int bytes = bytesUtf8(c);
+            if (ocupados + bytes > ancho) {
+                break;
+            }
+            renglon.appendCodePoint(c);
+            ocupados += bytes;
+            i += longitud;
+        }
+        relleno(' ', ancho - ocupados);
+    }
+    
+    private static int bytesUtf8(int codePoint) {
+        if (codePoint < 0x80) {
+            return 1;
+        }
+        if (codePoint < 0x800) {
+            return 2;
+        }
+        return codePoint < 0x10000 ? 3 : 4;
+    }
+    
+    // Entero alineado a la derecha y completado con ceros
+    private void numero(long valor, int ancho) {
+        String texto = Long.toString(valor);
+        relleno('0', ancho - texto.length());
+        renglon.append(texto);
+    }
+    
+    // Texto alineado a la derecha y completado con espacios
+    private void alineadoDerecha(String texto, int ancho) {
+        relleno(' ', ancho - texto.length());
+        renglon.append(texto);
+    }
+    
+    private void relleno(char c, int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            renglon.append(c);
+        }
+    }
+    
+    private static String importe(BigDecimal valor) {
+        return valor != null ? valor.toPlainString() : "0.00";
+    }
+}
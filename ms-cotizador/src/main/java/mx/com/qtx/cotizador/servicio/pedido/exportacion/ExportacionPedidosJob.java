@@ -0,0 +1,47 @@
+package mx.com.qtx.cotizador.servicio.pedido.exportacion;
+
+import java.time.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Job programado que exporta diariamente los pedidos del día anterior, un archivo por proveedor.
+ * <p>
+ * Sólo se registra cuando {@code pedido.exportacion.enabled=true}.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "pedido.exportacion.enabled", havingValue = "true")
+public class ExportacionPedidosJob {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ExportacionPedidosJob.class);
+    
+    private final ExportacionPedidosServicio exportacionServicio;
+    private final FormatoExportacion formato;
+    private final boolean comprimir;
+    
+    public ExportacionPedidosJob(ExportacionPedidosServicio exportacionServicio,
+                                 @Value("${pedido.exportacion.formato:CSV}") String formato,
+                                 @Value("${pedido.exportacion.gzip:true}") boolean comprimir) {
+        this.exportacionServicio = exportacionServicio;
+        this.formato = FormatoExportacion.desde(formato);
+        if (this.formato == null) {
+            throw new IllegalStateException("Formato de exportación de pedidos no soportado: " + formato);
+        }
+        this.comprimir = comprimir;
+    }
+    
+    @Scheduled(cron = "${pedido.exportacion.cron:0 0 1 * * *}")
+    public void ejecutar() {
+        try {
+            exportacionServicio.exportarDia(LocalDate.now().minusDays(1), formato, comprimir);
+        } catch (Exception e) {
+            logger.error("Error en el job de exportación de pedidos: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package mx.com.qtx.cotizador.servicio.pedido.exportacion;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import mx.com.qtx.cotizador.dto.common.response.ApiResponse;
+import mx.com.qtx.cotizador.servicio.pedido.DirectorioProveedores;
+import mx.com.qtx.cotizador.util.Errores;
+
+/**
+ * Exportación de pedidos de un proveedor a archivos CSV o de ancho fijo.
+ * <p>
+ * Los renglones (un pedido por cada detalle) se leen de {@code copedido} y
+ * {@code codetalle_pedido} con un resultado en modo streaming de MySQL y se escriben
+ * directamente al canal de destino conforme llegan, sin materializar entidades ni listas,
+ * de modo que la memoria usada es constante sin importar el tamaño del rango. La consulta se
+ * apoya en el índice {@code (cve_proveedor, fecha_emision, num_pedido)}.
+ * </p>
+ * <p>
+ * Se usa tanto para la descarga HTTP como para el job diario que escribe un archivo por
+ * proveedor en el directorio configurado.
+ * </p>
+ */
+@Service
+public class ExportacionPedidosServicio {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ExportacionPedidosServicio.class);
+    
+    private static final String CONSULTA_RENGLONES = """
+        SELECT p.num_pedido, p.fecha_emision, p.fecha_entrega, p.nivel_surtido, p.total,
+               d.num_detalle, d.id_componente, c.descripcion, d.cantidad, d.precio_unitario, d.total_cotizado
+        FROM copedido p
+        JOIN codetalle_pedido d ON d.num_pedido = p.num_pedido
+        JOIN cocomponente c ON c.id_componente = d.id_componente
+        WHERE p.cve_proveedor = ? AND p.fecha_emision BETWEEN ? AND ?
+        ORDER BY p.num_pedido, d.num_detalle
+        """;
+    
+    private final JdbcTemplate jdbcStreaming;
+    private final JdbcTemplate jdbcTemplate;
+    private final DirectorioProveedores directorioProveedores;
+    private final Path directorio;
+    private final int maxDiasRango;
+    
+    public ExportacionPedidosServicio(DataSource dataSource,
+                                      JdbcTemplate jdbcTemplate,
+                                      DirectorioProveedores directorioProveedores,
+                                      @Value("${pedido.exportacion.directorio:exportacion/pedidos}") String directorio,
+                                      @Value("${pedido.exportacion.max-dias-rango:366}") int maxDiasRango) {
+        // Con fetchSize = Integer.MIN_VALUE el driver de MySQL entrega las filas una a una
+        // en lugar de cargar el resultado completo en memoria
+        this.jdbcStreaming = new JdbcTemplate(dataSource);
+        this.jdbcStreaming.setFetchSize(Integer.MIN_VALUE);
+        this.jdbcTemplate = jdbcTemplate;
+        this.directorioProveedores = directorioProveedores;
+        this.directorio = Paths.get(directorio);
+        this.maxDiasRango = maxDiasRango;
+    }
+    
+    /**
+     * Valida los parámetros de una exportación antes de comenzar a escribir.
+     * 
+     * @param cveProveedor Clave del proveedor
+     * @param desde Fecha de emisión inicial (inclusive)
+     * @param hasta Fecha de emisión final (inclusive)
+     * @param formato Nombre del formato solicitado
+     * @return ApiResponse con el formato resuelto, o el error de validación
+     */
+    public ApiResponse<FormatoExportacion> validar(String cveProveedor, LocalDate desde, LocalDate hasta, String formato) {
+        if (cveProveedor == null || cveProveedor.isBlank()) {
+            return new ApiResponse<>(Errores.CAMPO_REQUERIDO.getCodigo(), "La clave del proveedor es requerida");
+        }
+        if (desde == null || hasta == null) {
+            return new ApiResponse<>(Errores.CAMPO_REQUERIDO.getCodigo(), "Las fechas desde y hasta son requeridas");
+        }
+        if (hasta.isBefore(desde) || ChronoUnit.DAYS.between(desde, hasta) >= maxDiasRango) {
+            return new ApiResponse<>(Errores.RANGO_FECHAS_INVALIDO.getCodigo(),
+                    "El rango de fechas debe ser ascendente y de máximo " + maxDiasRango + " días");
+        }
+        FormatoExportacion formatoExportacion = FormatoExportacion.desde(formato);
+        if (formatoExportacion == null) {
+            return new ApiResponse<>(Errores.FORMATO_INVALIDO.getCodigo(),
+                    "Formato de exportación no soportado: " + formato + " (use CSV o ANCHO_FIJO)");
+        }
+        if (directorioProveedores.buscar(cveProveedor).isEmpty()) {
+            return new ApiResponse<>(Errores.PROVEEDOR_NO_ENCONTRADO.getCodigo(),
+                    "Proveedor no encontrado con clave: " + cveProveedor);
+        }
+        return new ApiResponse<>(Errores.OK.getCodigo(), "Exportación válida", formatoExportacion);
+    }
+    
+    /**
+     * Escribe los pedidos de un proveedor en el canal indicado, conforme se leen de la base de datos.
+     * El canal no se cierra.
+     * 
+     * @param cveProveedor Clave del proveedor
+     * @param desde Fecha de emisión inicial (inclusive)
+     * @param hasta Fecha de emisión final (inclusive)
+     * @param formato Formato de salida
+     * @param comprimir Si la salida se comprime con gzip
+     * @param destino Canal de destino
+     * @return Número de renglones de detalle escritos
+     * @throws IOException si falla la escritura en el canal
+     */
+    public long exportar(String cveProveedor, LocalDate desde, LocalDate hasta, FormatoExportacion formato,
+                         boolean comprimir, WritableByteChannel destino) throws IOException {
+        EscritorExportacionPedidos escritor = new EscritorExportacionPedidos(formato, comprimir, destino);
+        escritor.escribirEncabezado();
+        try {
+            jdbcStreaming.query(CONSULTA_RENGLONES, rs -> {
+                try {
+                    escritor.escribirRenglon(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, cveProveedor, desde, hasta);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return escritor.terminar();
+    }
+    
+    /**
+     * Nombre sugerido del archivo de exportación.
+     */
+    public String nombreArchivo(String cveProveedor, LocalDate desde, LocalDate hasta,
+                                FormatoExportacion formato, boolean comprimir) {
+        String periodo = desde.equals(hasta) ? desde.toString() : desde + "_" + hasta;
+        return "pedidos-" + cveProveedor.replaceAll("[^A-Za-z0-9_-]", "_") + "-" + periodo
+                + "." + formato.getExtension() + (comprimir ? ".gz" : "");
+    }
+    
+    /**
+     * Obtiene las claves de los proveedores con pedidos emitidos en la fecha indicada.
+     * 
+     * @param fecha Fecha de emisión
+     * @return Claves de proveedor ordenadas
+     */
+    public List<String> proveedoresConPedidos(LocalDate fecha) {
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT cve_proveedor FROM copedido WHERE fecha_emision = ? ORDER BY cve_proveedor",
+                String.class, fecha);
+    }
+    
+    /**
+     * Exporta los pedidos del día indicado a un archivo por proveedor en el directorio
+     * configurado ({@code <directorio>/<fecha>/}). Cada archivo se escribe primero con un nombre
+     * temporal y se publica con un renombrado atómico, de modo que los lectores nunca ven un
+     * archivo incompleto.
+     * 
+     * @param fecha Fecha de emisión a exportar
+     * @param formato Formato de salida
+     * @param comprimir Si los archivos se comprimen con gzip
+     * @return Número de archivos escritos
+     */
+    public int exportarDia(LocalDate fecha, FormatoExportacion formato, boolean comprimir) {
+        List<String> proveedores = proveedoresConPedidos(fecha);
+        int archivos = 0;
+        for (String cveProveedor : proveedores) {
+            Path archivo = directorio.resolve(fecha.toString())
+                    .resolve(nombreArchivo(cveProveedor, fecha, fecha, formato, comprimir));
+            Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+            try {
+                Files.createDirectories(archivo.getParent());
+                long renglones;
+                try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    renglones = exportar(cveProveedor, fecha, fecha, formato, comprimir, canal);
+                    canal.force(false);
+                }
+                Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                logger.debug("Pedidos del proveedor {} del {} exportados: {} renglones", cveProveedor, fecha, renglones);
+                archivos++;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Error al exportar pedidos del proveedor {} del {}: {}", cveProveedor, fecha, e.getMessage(), e);
+                try {
+                    Files.deleteIfExists(temporal);
+                } catch (IOException ignorada) {
+                    // El temporal se sobrescribe en la siguiente ejecución
+                }
+            }
+        }
+        logger.info("Exportación de pedidos del {} terminada: {} archivos en {}", fecha, archivos,
+                directorio.toAbsolutePath());
+        return archivos;
+    }
+}
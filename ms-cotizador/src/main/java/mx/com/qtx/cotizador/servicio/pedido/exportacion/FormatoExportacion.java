@@ -0,0 +1,48 @@
+package mx.com.qtx.cotizador.servicio.pedido.exportacion;
+
+import java.util.Locale;
+
+/**
+ * Formatos disponibles para la exportación de pedidos a proveedores.
+ */
+public enum FormatoExportacion {
+    
+    /** Valores separados por comas (RFC 4180) con renglón de encabezado */
+    CSV("csv", "text/csv"),
+    
+    /** Registros de ancho fijo sin encabezado, un renglón por detalle */
+    ANCHO_FIJO("txt", "text/plain");
+    
+    private final String extension;
+    private final String tipoContenido;
+    
+    FormatoExportacion(String extension, String tipoContenido) {
+        this.extension = extension;
+        this.tipoContenido = tipoContenido;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+    
+    public String getTipoContenido() {
+        return tipoContenido;
+    }
+    
+    /**
+     * Obtiene el formato a partir de su nombre, sin distinguir mayúsculas.
+     * 
+     * @param nombre Nombre del formato (CSV o ANCHO_FIJO)
+     * @return El formato, o null si el nombre no corresponde a ninguno
+     */
+    public static FormatoExportacion desde(String nombre) {
+        if (nombre == null) {
+            return null;
+        }
+        try {
+            return valueOf(nombre.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
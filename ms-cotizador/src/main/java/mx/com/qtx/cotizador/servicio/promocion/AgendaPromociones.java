@@ -0,0 +1,300 @@
+package mx.com.qtx.cotizador.servicio.promocion;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import mx.com.qtx.cotizador.dominio.promos.Promocion;
+import mx.com.qtx.cotizador.repositorio.PromocionRepositorio;
+import mx.com.qtx.cotizador.servicio.catalogo.VersionCatalogo;
+import mx.com.qtx.cotizador.servicio.wrapper.CachePromociones;
+import mx.com.qtx.cotizador.servicio.wrapper.PromocionEntityConverter;
+
+/**
+ * Agenda en memoria de las promociones según sus fechas de vigencia.
+ * <p>
+ * Mantiene el conjunto de promociones vigentes (id → promoción de dominio ya construida) y un
+ * índice ordenado por tiempo con los eventos de inicio ({@code vigenciaDesde} a las 00:00) y
+ * fin ({@code vigenciaHasta} + 1 día a las 00:00) de cada promoción. Al cotizar, obtener la
+ * promoción efectiva de un componente es una búsqueda en un mapa, sin filtrar fechas ni
+ * consultar la base de datos.
+ * </p>
+ * <p>
+ * El conjunto vigente cambia al cruzar una frontera: la primera consulta en o después del
+ * instante del evento aplica los eventos vencidos en orden e incrementa la
+ * {@link VersionCatalogo}, de modo que ningún resultado de cotización calculado con el conjunto
+ * anterior vuelve a usarse. Las altas, cambios y bajas de promociones se aplican al confirmar
+ * su transacción; una recarga periódica acota la desactualización entre instancias.
+ * </p>
+ * <p>
+ * La hora actual y la zona horaria de las fechas de vigencia se toman del {@link Clock}
+ * inyectado.
+ * </p>
+ */
+@Component
+public class AgendaPromociones {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AgendaPromociones.class);
+    
+    private final PromocionRepositorio promocionRepositorio;
+    private final VersionCatalogo versionCatalogo;
+    private final TransactionTemplate transaccionLectura;
+    private final Clock reloj;
+    private final CachePromociones cachePromociones;
+    
+    // Estado vigente; null hasta la primera carga
+    private volatile Agenda agenda;
+    
+    public AgendaPromociones(PromocionRepositorio promocionRepositorio,
+                             VersionCatalogo versionCatalogo,
+                             PlatformTransactionManager transactionManager,
+                             Clock reloj,
+                             CachePromociones cachePromociones) {
+        this.promocionRepositorio = promocionRepositorio;
+        this.versionCatalogo = versionCatalogo;
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+        this.reloj = reloj;
+        this.cachePromociones = cachePromociones;
+    }
+    
+    /**
+     * Carga la agenda completa al arrancar la aplicación.
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void cargar() {
+        recargar();
+    }
+    
+    /**
+     * Vuelve a cargar todas las promociones desde la base de datos.
+     */
+    @Scheduled(fixedDelayString = "${promocion.agenda.recarga-ms:300000}",
+               initialDelayString = "${promocion.agenda.recarga-ms:300000}")
+    public synchronized void recargar() {
+        Map<Integer, Programacion> programaciones = transaccionLectura.execute(status -> {
+            Map<Integer, Programacion> cargadas = new HashMap<>();
+            promocionRepositorio.findAll().forEach(entidad ->
+                    cargadas.put(entidad.getIdPromocion(), Programacion.de(entidad, reloj.getZone(), cachePromociones)));
+            return cargadas;
+        });
+        Agenda anterior = agenda;
+        agenda = new Agenda(programaciones, reloj.millis());
+        // Las promociones compartidas se comparan por identidad: otra versión es otra instancia
+        if (anterior != null && !anterior.activas.equals(agenda.activas)) {
+            versionCatalogo.registrarCambioInmediato();
+        }
+        logger.debug("Agenda de promociones cargada: {} promociones, {} vigentes",
+                     programaciones.size(), agenda.activas.size());
+    }
+    
+    /**
+     * Obtiene la promoción vigente con el id indicado.
+     * 
+     * @param idPromocion Id de la promoción asignada al componente
+     * @return La promoción de dominio compartida, o null si no existe o no está vigente
+     */
+    public Promocion vigente(Integer idPromocion) {
+        return idPromocion != null ? alDia().activas.get(idPromocion) : null;
+    }
+    
+    /**
+     * Aplica los inicios y fines de vigencia ya vencidos.
+     * Debe invocarse antes de leer la {@link VersionCatalogo} para cotizar.
+     */
+    public void sincronizar() {
+        alDia();
+    }
+    
+    private Agenda alDia() {
+        Agenda vigente = actual();
+        long ahora = reloj.millis();
+        if (ahora < vigente.siguienteFrontera) {
+            return vigente;
+        }
+        synchronized (this) {
+            if (ahora >= agenda.siguienteFrontera) {
+                Agenda anterior = agenda;
+                agenda = anterior.avanzarHasta(ahora);
+                versionCatalogo.registrarCambioInmediato();
+                logger.info("Cambio de vigencia de promociones: {} vigentes", agenda.activas.size());
+            }
+            return agenda;
+        }
+    }
+    
+    /**
+     * Registra una promoción creada o actualizada.
+     * La promoción de dominio se construye en la transacción actual y se agenda al confirmarla.
+     * 
+     * @param entidad Promoción persistida
+     */
+    public void registrar(mx.com.qtx.cotizador.entidad.Promocion entidad) {
+        if (entidad == null || entidad.getIdPromocion() == null) {
+            return;
+        }
+        Programacion programacion = Programacion.de(entidad, reloj.getZone(), cachePromociones);
+        alConfirmar(() -> modificar(programaciones -> programaciones.put(programacion.idPromocion(), programacion)));
+    }
+    
+    /**
+     * Elimina una promoción de la agenda al confirmar la transacción.
+     * 
+     * @param idPromocion Id de la promoción eliminada
+     */
+    public void eliminar(Integer idPromocion) {
+        if (idPromocion == null) {
+            return;
+        }
+        alConfirmar(() -> modificar(programaciones -> programaciones.remove(idPromocion)));
+    }
+    
+    private Agenda actual() {
+        Agenda vigente = agenda;
+        if (vigente == null) {
+            // Acceso antes de la carga inicial
+            synchronized (this) {
+                if (agenda == null) {
+                    recargar();
+                }
+                vigente = agenda;
+            }
+        }
+        return vigente;
+    }
+    
+    private synchronized void modificar(Consumer<Map<Integer, Programacion>> cambio) {
+        if (agenda == null) {
+            // Aún no se ha cargado: la carga inicial leerá el cambio ya confirmado
+            return;
+        }
+        Map<Integer, Programacion> programaciones = new HashMap<>(agenda.programaciones);
+        cambio.accept(programaciones);
+        agenda = new Agenda(programaciones, reloj.millis());
+    }
+    
+    private static void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+    
+    private static long inicioDelDia(LocalDate fecha, ZoneId zona) {
+        return fecha.atStartOfDay(zona).toInstant().toEpochMilli();
+    }
+    
+    /**
+     * Vigencia de una promoción expresada en instantes: [desde, hasta).
+     * La promoción puede ser null (promoción sin detalles), en cuyo caso nunca se activa.
+     */
+    private record Programacion(Integer idPromocion, long desde, long hasta, Promocion promocion) {
+        
+        static Programacion de(mx.com.qtx.cotizador.entidad.Promocion entidad, ZoneId zona,
+                               CachePromociones cachePromociones) {
+            long desde = entidad.getVigenciaDesde() != null
+                    ? inicioDelDia(entidad.getVigenciaDesde(), zona) : Long.MIN_VALUE;
+            long hasta = entidad.getVigenciaHasta() != null
+                    ? inicioDelDia(entidad.getVigenciaHasta().plusDays(1), zona) : Long.MAX_VALUE;
+            return new Programacion(entidad.getIdPromocion(), desde, hasta,
+                                    PromocionEntityConverter.convertToPromocion(entidad, cachePromociones));
+        }
+        
+        boolean agendable() {
+            return promocion != null && desde < hasta;
+        }
+    }
+    
+    /**
+     * Evento de inicio ({@code activa}) o fin de vigencia de una promoción.
+     */
+    private record Evento(Integer idPromocion, boolean activa) {
+    }
+    
+    /**
+     * Estado inmutable de la agenda.
+     */
+    private static final class Agenda {
+        
+        private final Map<Integer, Programacion> programaciones;
+        private final Map<Integer, Promocion> activas;
+        // Sólo eventos posteriores al instante en que se construyó o avanzó la agenda
+        private final NavigableMap<Long, List<Evento>> eventos;
+        private final long siguienteFrontera;
+        
+        Agenda(Map<Integer, Programacion> programaciones, long ahora) {
+            Map<Integer, Promocion> vigentes = new HashMap<>();
+            NavigableMap<Long, List<Evento>> pendientes = new TreeMap<>();
+            for (Programacion programacion : programaciones.values()) {
+                if (!programacion.agendable()) {
+                    continue;
+                }
+                if (programacion.desde() <= ahora && ahora < programacion.hasta()) {
+                    vigentes.put(programacion.idPromocion(), programacion.promocion());
+                }
+                if (programacion.desde() > ahora) {
+                    pendientes.computeIfAbsent(programacion.desde(), t -> new ArrayList<>())
+                              .add(new Evento(programacion.idPromocion(), true));
+                }
+                if (programacion.hasta() > ahora && programacion.hasta() != Long.MAX_VALUE) {
+                    pendientes.computeIfAbsent(programacion.hasta(), t -> new ArrayList<>())
+                              .add(new Evento(programacion.idPromocion(), false));
+                }
+            }
+            this.programaciones = Collections.unmodifiableMap(new HashMap<>(programaciones));
+            this.activas = Collections.unmodifiableMap(vigentes);
+            this.eventos = Collections.unmodifiableNavigableMap(pendientes);
+            this.siguienteFrontera = pendientes.isEmpty() ? Long.MAX_VALUE : pendientes.firstKey();
+        }
+        
+        private Agenda(Map<Integer, Programacion> programaciones, Map<Integer, Promocion> activas,
+                       NavigableMap<Long, List<Evento>> eventos) {
+            this.programaciones = programaciones;
+            this.activas = Collections.unmodifiableMap(activas);
+            this.eventos = eventos;
+            this.siguienteFrontera = eventos.isEmpty() ? Long.MAX_VALUE : eventos.firstKey();
+        }
+        
+        /**
+         * Aplica, en orden, los eventos con instante menor o igual a {@code ahora}.
+         */
+        Agenda avanzarHasta(long ahora) {
+            Map<Integer, Promocion> vigentes = new HashMap<>(activas);
+            for (List<Evento> simultaneos : eventos.headMap(ahora, true).values()) {
+                for (Evento evento : simultaneos) {
+                    if (evento.activa()) {
+                        vigentes.put(evento.idPromocion(), programaciones.get(evento.idPromocion()).promocion());
+                    } else {
+                        vigentes.remove(evento.idPromocion());
+                    }
+                }
+            }
+            return new Agenda(programaciones, vigentes, eventos.tailMap(ahora, false));
+        }
+    }
+}
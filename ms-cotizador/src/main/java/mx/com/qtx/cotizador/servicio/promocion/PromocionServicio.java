@@ -5,6 +5,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import mx.com.qtx.cotizador.dto.common.response.ApiResponse;
 import mx.com.qtx.cotizador.dto.promocion.mapper.PromocionMapper;
 import mx.com.qtx.cotizador.dto.promocion.request.PromocionCreateRequest;
@@ -12,6 +14,8 @@ import mx.com.qtx.cotizador.dto.promocion.request.PromocionUpdateRequest;
 import mx.com.qtx.cotizador.dto.promocion.response.PromocionResponse;
 import mx.com.qtx.cotizador.entidad.Promocion;
 import mx.com.qtx.cotizador.repositorio.PromocionRepositorio;
+import mx.com.qtx.cotizador.servicio.catalogo.VersionCatalogo;
+import mx.com.qtx.cotizador.servicio.wrapper.CachePromociones;
 import mx.com.qtx.cotizador.util.Errores;
 
 /**
@@ -23,9 +27,16 @@ public class PromocionServicio {
     
     private static final Logger logger = LoggerFactory.getLogger(PromocionServicio.class);
     private final PromocionRepositorio promocionRepositorio;
+    private final VersionCatalogo versionCatalogo;
+    private final AgendaPromociones agendaPromociones;
+    private final CachePromociones cachePromociones;
     
-    public PromocionServicio(PromocionRepositorio promocionRepositorio) {
+    public PromocionServicio(PromocionRepositorio promocionRepositorio, VersionCatalogo versionCatalogo,
+                             AgendaPromociones agendaPromociones, CachePromociones cachePromociones) {
         this.promocionRepositorio = promocionRepositorio;
+        this.versionCatalogo = versionCatalogo;
+        this.agendaPromociones = agendaPromociones;
+        this.cachePromociones = cachePromociones;
     }
     
     /**
@@ -53,6 +64,9 @@ public class PromocionServicio {
             
             Promocion entidad = PromocionMapper.toEntity(request);
             Promocion promocionGuardada = promocionRepositorio.save(entidad);
+            // La agenda se actualiza antes de publicar la nueva versión del catálogo
+            agendaPromociones.registrar(promocionGuardada);
+            versionCatalogo.registrarCambio();
             PromocionResponse response = PromocionMapper.toResponse(promocionGuardada);
             
             logger.info("Promoción creada exitosamente: ID={}, Nombre={}", 
@@ -144,9 +158,20 @@ public class PromocionServicio {
                                        "Ya existe otra promoción con el nombre: " + request.getNombre());
             }
             
+            // Nueva versión: las promociones compiladas con la anterior dejan de coincidir. Se
+            // incrementa en la base de datos (no leer-sumar-escribir) y se vuelve a leer la entidad
+            if (promocionRepositorio.incrementarVersion(id) == 0) {
+                return new ApiResponse<>(Errores.PROMOCION_NO_ENCONTRADA.getCodigo(), 
+                                       "Promoción no encontrada con ID: " + id);
+            }
+            promocionExistente = promocionRepositorio.findById(id).orElseThrow();
+            
             // Actualizar entidad usando mapper
             Promocion entidadActualizada = PromocionMapper.toEntity(request, promocionExistente);
             Promocion promocionGuardada = promocionRepositorio.save(entidadActualizada);
+            agendaPromociones.registrar(promocionGuardada);
+            versionCatalogo.registrarCambio();
+            invalidarPromocionCompilada(id, false);
             PromocionResponse response = PromocionMapper.toResponse(promocionGuardada);
             
             return new ApiResponse<>(Errores.OK.getCodigo(), 
@@ -176,6 +201,9 @@ public class PromocionServicio {
             }
             
             promocionRepositorio.delete(promocion);
+            agendaPromociones.eliminar(id);
+            versionCatalogo.registrarCambio();
+            invalidarPromocionCompilada(id, true);
             return new ApiResponse<>(Errores.OK.getCodigo(), "Promoción eliminada exitosamente");
                                    
         } catch (Exception e) {
@@ -183,4 +211,24 @@ public class PromocionServicio {
                                    "Error interno al eliminar promoción: " + e.getMessage());
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Descarta la promoción compilada en caché al terminar la transacción, de modo que no quede
+     * en caché una versión construida con datos revertidos. Si la transacción se confirma, la
+     * versión nueva (ya construida por la agenda) se conserva salvo que se indique lo contrario.
+     */
+    private void invalidarPromocionCompilada(Integer id, boolean tambienAlConfirmar) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (tambienAlConfirmar || status != STATUS_COMMITTED) {
+                        cachePromociones.invalidar(id);
+                    }
+                }
+            });
+        } else {
+            cachePromociones.invalidar(id);
+        }
+    }
+}
\ No newline at end of file
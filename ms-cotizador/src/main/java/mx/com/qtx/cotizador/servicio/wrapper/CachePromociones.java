@@ -0,0 +1,79 @@
+package mx.com.qtx.cotizador.servicio.wrapper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import mx.com.qtx.cotizador.dominio.promos.Promocion;
+
+/**
+ * Caché de promociones de dominio ya construidas, indexada por id de promoción.
+ * <p>
+ * Construir una promoción implica ordenar sus detalles y armar la cadena de decoradores;
+ * como miles de componentes comparten unas cuantas promociones, cada promoción se construye
+ * una sola vez por versión y la misma instancia (inmutable una vez construida) se comparte
+ * entre todos los componentes que la usan.
+ * </p>
+ * <p>
+ * Cada entrada guarda la versión de {@code copromocion} con la que se construyó; una entidad
+ * con otra versión (modificada en esta u otra instancia del servicio) no coincide y provoca la
+ * reconstrucción. {@code PromocionServicio} además invalida la entrada al modificar o eliminar
+ * la promoción para liberar la versión anterior.
+ * </p>
+ * <p>
+ * Los servicios que convierten promociones reciben este componente y lo pasan a
+ * {@link PromocionEntityConverter} y {@link ComponenteEntityConverter}.
+ * </p>
+ */
+@Component
+public class CachePromociones {
+    
+    private final Map<Integer, Entrada> promociones = new ConcurrentHashMap<>();
+    
+    // La promoción puede ser null (promoción sin detalles)
+    private record Entrada(int version, Promocion promocion) {
+    }
+    
+    /**
+     * Obtiene la promoción construida para la versión indicada, construyéndola si no está en caché.
+     * 
+     * @param idPromocion Id de la promoción
+     * @param version Versión de la promoción
+     * @param construccion Construye la promoción de dominio
+     * @return La promoción compartida (o null si la construcción produce null)
+     */
+    Promocion obtener(Integer idPromocion, int version, Supplier<Promocion> construccion) {
+        if (idPromocion == null) {
+            return construccion.get();
+        }
+        Entrada entrada = promociones.get(idPromocion);
+        if (entrada != null && entrada.version() == version) {
+            return entrada.promocion();
+        }
+        // Construcción fuera de cualquier candado: dos hilos pueden construirla a la vez,
+        // pero ambos resultados son equivalentes y el último reemplaza al otro
+        Promocion promocion = construccion.get();
+        promociones.put(idPromocion, new Entrada(version, promocion));
+        return promocion;
+    }
+    
+    /**
+     * Elimina de la caché la promoción indicada.
+     * 
+     * @param idPromocion Id de la promoción modificada o eliminada
+     */
+    public void invalidar(Integer idPromocion) {
+        if (idPromocion != null) {
+            promociones.remove(idPromocion);
+        }
+    }
+    
+    /**
+     * Vacía la caché completa.
+     */
+    public void limpiar() {
+        promociones.clear();
+    }
+}
@@ -1,7 +1,11 @@
 package mx.com.qtx.cotizador.servicio.wrapper;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import mx.com.qtx.cotizador.dominio.core.componentes.Componente;
 import mx.com.qtx.cotizador.dominio.core.componentes.DiscoDuro;
@@ -78,6 +82,21 @@ public class ComponenteEntityConverter {
     public static Componente convertToComponente(
             mx.com.qtx.cotizador.entidad.Componente compEntity,
             List<mx.com.qtx.cotizador.entidad.Componente> subCompEntity) {
+        return convertToComponente(compEntity, subCompEntity, null);
+    }
+
+    /**
+     * Convierte una entidad Componente a dominio compartiendo su promoción construida
+     * 
+     * @param compEntity Entidad de persistencia Componente a convertir
+     * @param subCompEntity Sub-componentes (para una PC), o null
+     * @param cachePromociones Caché de promociones construidas (null para construirlas siempre)
+     * @return Objeto Componente del dominio, o null si el parámetro de entrada es null
+     */
+    public static Componente convertToComponente(
+            mx.com.qtx.cotizador.entidad.Componente compEntity,
+            List<mx.com.qtx.cotizador.entidad.Componente> subCompEntity,
+            CachePromociones cachePromociones) {
         
         if (compEntity == null) {
             return null;
@@ -133,7 +152,7 @@ public class ComponenteEntityConverter {
                     .definirMarcaYmodelo(marca, modelo);
                     
                 for(mx.com.qtx.cotizador.entidad.Componente subComp : subCompEntity) {
-                    Componente subCompCore = convertToComponente(subComp, null);
+                    Componente subCompCore = convertToComponente(subComp, null, cachePromociones);
                     switch(subCompCore.getCategoria()) {
                         case "Disco Duro" -> {
                             DiscoDuro disco = (DiscoDuro) subCompCore;
@@ -170,7 +189,7 @@ public class ComponenteEntityConverter {
         if(componente != null) {
             mx.com.qtx.cotizador.dominio.promos.Promocion promocionDominio = null;
             if (compEntity.getPromocion() != null) {
-                promocionDominio = PromocionEntityConverter.convertToPromocion(compEntity.getPromocion());
+                promocionDominio = PromocionEntityConverter.convertToPromocion(compEntity.getPromocion(), cachePromociones);
             }
             componente.setPromo(promocionDominio);
         }
@@ -178,4 +197,22 @@ public class ComponenteEntityConverter {
         return componente;
         
     }
-}
\ No newline at end of file
+    
+    /**
+     * Carga en una sola consulta los componentes indicados
+     * 
+     * @param idsComponentes Ids de los componentes a cargar
+     * @param componenteRepo Repositorio de componentes
+     * @return Componentes encontrados indexados por id
+     */
+    public static Map<String, mx.com.qtx.cotizador.entidad.Componente> cargarComponentes(
+            Collection<String> idsComponentes,
+            mx.com.qtx.cotizador.repositorio.ComponenteRepositorio componenteRepo) {
+        
+        if (idsComponentes.isEmpty() || componenteRepo == null) {
+            return Map.of();
+        }
+        return componenteRepo.findAllById(idsComponentes).stream()
+                .collect(Collectors.toMap(mx.com.qtx.cotizador.entidad.Componente::getId, Function.identity()));
+    }
+}
@@ -2,7 +2,10 @@ package mx.com.qtx.cotizador.servicio.wrapper;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -54,6 +57,8 @@ public class CotizacionEntityConverter {
     /**
      * Agrega los detalles de la cotización a la entidad ya persistida
      * 
+     * Los componentes de todos los detalles se cargan con una sola consulta.
+     * 
      * @param cotizacionCore Cotización del dominio (fuente de los detalles)
      * @param cotizacionEntity Entidad Cotización ya persistida (con ID generado)
      * @param componenteRepo Repositorio de componentes para obtener referencias
@@ -67,6 +72,33 @@ public class CotizacionEntityConverter {
             return;
         }
         
+        Set<String> idsComponentes = new LinkedHashSet<>();
+        for (mx.com.qtx.cotizador.dominio.core.DetalleCotizacion detalleCore : cotizacionCore.getDetalles()) {
+            if (detalleCore.getIdComponente() != null) {
+                idsComponentes.add(detalleCore.getIdComponente());
+            }
+        }
+        addDetallesTo(cotizacionCore, cotizacionEntity,
+                ComponenteEntityConverter.cargarComponentes(idsComponentes, componenteRepo));
+    }
+    
+    /**
+     * Agrega los detalles de la cotización a la entidad ya persistida usando
+     * componentes previamente cargados (sin consultar la base de datos)
+     * 
+     * @param cotizacionCore Cotización del dominio (fuente de los detalles)
+     * @param cotizacionEntity Entidad Cotización ya persistida (con ID generado)
+     * @param componentes Componentes indexados por id; un id ausente deja el detalle sin componente
+     */
+    public static void addDetallesTo(
+            mx.com.qtx.cotizador.dominio.core.Cotizacion cotizacionCore, 
+            mx.com.qtx.cotizador.entidad.Cotizacion cotizacionEntity,
+            Map<String, mx.com.qtx.cotizador.entidad.Componente> componentes) {
+        
+        if (cotizacionCore == null || cotizacionEntity == null) {
+            return;
+        }
+        
         // Convertir y agregar los detalles
         for (mx.com.qtx.cotizador.dominio.core.DetalleCotizacion detalleCore : cotizacionCore.getDetalles()) {
             // Crear nueva entidad DetalleCotizacion
@@ -85,11 +117,9 @@ public class CotizacionEntityConverter {
             detalleEntity.setDescripcion(detalleCore.getDescripcion());
             detalleEntity.setPrecioBase(detalleCore.getPrecioBase());
             
-            // Buscar y establecer la referencia al componente
+            // Establecer la referencia al componente ya cargado
             if (detalleCore.getIdComponente() != null) {
-                mx.com.qtx.cotizador.entidad.Componente componente = 
-                    componenteRepo.findById(detalleCore.getIdComponente()).orElse(null);
-                detalleEntity.setComponente(componente);
+                detalleEntity.setComponente(componentes.get(detalleCore.getIdComponente()));
             }
             
             // Establecer la relación con la cotización
@@ -2,7 +2,11 @@ package mx.com.qtx.cotizador.servicio.wrapper;
 
 import java.time.LocalDate;
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 import mx.com.qtx.cotizador.entidad.Componente;
@@ -23,7 +27,7 @@ public class PedidoEntityConverter {
      * No incluye los detalles del pedido.
      * 
      * @param pedidoCore Objeto Pedido del dominio de negocio
-     * @param proveedorRepo Repositorio para buscar el proveedor en la base de datos
+     * @param proveedorRepo Repositorio para obtener la referencia al proveedor
      * @return Una entidad Pedido lista para persistir, sin detalles
      */
     public static mx.com.qtx.cotizador.entidad.Pedido convertToEntity(
@@ -63,12 +67,14 @@ public class PedidoEntityConverter {
         // Establecer nivel de surtido
         pedidoEntity.setNivelSurtido(pedidoCore.getNivelSurtido());
         
-        // Buscar proveedor por su clave si existe
+        // Referencia al proveedor por su clave: sólo se requiere la llave foránea, así que no se
+        // consulta la base de datos (si ya está en el contexto de persistencia se reutiliza).
+        // Quien genera el pedido debe haber obtenido antes el proveedor (DirectorioProveedores);
+        // si se eliminó en otra instancia, la llave foránea rechaza el INSERT
         if (pedidoCore.getProveedor() != null && proveedorRepo != null) {
             String claveProveedor = pedidoCore.getProveedor().getCve();
-            // Buscamos directamente por la clave del proveedor
             pedidoEntity.setProveedor(
-                proveedorRepo.findByCve(claveProveedor)
+                proveedorRepo.getReferenceById(claveProveedor)
             );
         }
         pedidoEntity.setTotal(pedidoCore.getTotalPedido());
@@ -79,6 +85,7 @@ public class PedidoEntityConverter {
     /**
      * Agrega los detalles del pedido a una entidad de pedido existente.
      * Debe llamarse después de que la entidad Pedido haya sido persistida y tenga un ID asignado.
+     * Los componentes de todos los detalles se cargan con una sola consulta.
      * 
      * @param pedidoCore Objeto Pedido del dominio de negocio con sus detalles
      * @param pedidoEntity Entidad Pedido ya persistida con ID generado
@@ -93,6 +100,27 @@ public class PedidoEntityConverter {
             return;
         }
         
+        addDetallesTo(pedidoCore, pedidoEntity,
+                ComponenteEntityConverter.cargarComponentes(idsComponentes(List.of(pedidoCore)), componenteRepo));
+    }
+    
+    /**
+     * Agrega los detalles del pedido a una entidad de pedido existente usando componentes
+     * previamente cargados (sin consultar la base de datos).
+     * 
+     * @param pedidoCore Objeto Pedido del dominio de negocio con sus detalles
+     * @param pedidoEntity Entidad Pedido ya persistida con ID generado
+     * @param componentes Componentes indexados por id; un id ausente deja el detalle sin componente
+     */
+    public static void addDetallesTo(
+            mx.com.qtx.cotizador.dominio.pedidos.Pedido pedidoCore,
+            mx.com.qtx.cotizador.entidad.Pedido pedidoEntity,
+            Map<String, Componente> componentes) {
+        
+        if (pedidoCore == null || pedidoEntity == null) {
+            return;
+        }
+        
         // Limpiar detalles existentes para evitar duplicados
         pedidoEntity.getDetalles().clear();
         
@@ -120,11 +148,8 @@ public class PedidoEntityConverter {
             detalleEntity.setPrecioUnitario(detalleCore.getPrecioUnitario());
             detalleEntity.setTotalCotizado(detalleCore.getTotalCotizado());
             
-            // Buscar componente por ID si existe
-            if (componenteRepo != null) {
-                Componente componente = componenteRepo.findById(detalleCore.getIdArticulo()).orElse(null);
-                detalleEntity.setComponente(componente);
-            }
+            // Establecer el componente ya cargado
+            detalleEntity.setComponente(componentes.get(detalleCore.getIdArticulo()));
             
             // Establecer la relación con el pedido
             pedidoEntity.addDetalle(detalleEntity);
@@ -144,6 +169,25 @@ public class PedidoEntityConverter {
         }
     }
     
+    /**
+     * Obtiene los ids distintos de los artículos de uno o varios pedidos del dominio.
+     * 
+     * @param pedidosCore Pedidos del dominio
+     * @return Ids de componente sin repetir, en orden de aparición
+     */
+    public static Set<String> idsComponentes(
+            Collection<mx.com.qtx.cotizador.dominio.pedidos.Pedido> pedidosCore) {
+        Set<String> ids = new LinkedHashSet<>();
+        for (mx.com.qtx.cotizador.dominio.pedidos.Pedido pedidoCore : pedidosCore) {
+            for (mx.com.qtx.cotizador.dominio.pedidos.DetallePedido detalleCore : pedidoCore.getDetallesPedido()) {
+                if (detalleCore.getIdArticulo() != null) {
+                    ids.add(detalleCore.getIdArticulo());
+                }
+            }
+        }
+        return ids;
+    }
+    
     /**
      * Método completo para convertir un pedido del dominio y todos sus detalles a una nueva entidad de persistencia.
      * Nota: La entidad resultante no tendrá un ID asignado hasta que se persista en la base de datos.
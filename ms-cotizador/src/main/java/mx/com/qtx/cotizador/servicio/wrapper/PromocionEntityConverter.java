@@ -1,5 +1,6 @@
 package mx.com.qtx.cotizador.servicio.wrapper;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -11,10 +12,35 @@ public class PromocionEntityConverter {
 
     /**
      * Convierte una entidad de promoción de la base de datos 
-     * al objeto de dominio correspondiente
+     * al objeto de dominio correspondiente.
      */
     public static Promocion convertToPromocion(mx.com.qtx.cotizador.entidad.Promocion entidad) {
-        if (entidad == null || entidad.getDetalles().isEmpty()) {
+        return convertToPromocion(entidad, null);
+    }
+
+    /**
+     * Convierte una entidad de promoción de la base de datos 
+     * al objeto de dominio correspondiente.
+     * Con caché, la promoción construida se comparte por id y versión (ver {@link CachePromociones}),
+     * por lo que no debe modificarse.
+     * 
+     * @param entidad Entidad de la promoción
+     * @param cachePromociones Caché de promociones construidas (null para construirla siempre)
+     */
+    public static Promocion convertToPromocion(mx.com.qtx.cotizador.entidad.Promocion entidad,
+                                               CachePromociones cachePromociones) {
+        if (entidad == null) {
+            return null;
+        }
+        if (cachePromociones == null) {
+            return construirPromocion(entidad);
+        }
+        return cachePromociones.obtener(entidad.getIdPromocion(), entidad.getVersion(),
+                () -> construirPromocion(entidad));
+    }
+
+    private static Promocion construirPromocion(mx.com.qtx.cotizador.entidad.Promocion entidad) {
+        if (entidad.getDetalles().isEmpty()) {
             return null;
         }
 
@@ -72,11 +98,12 @@ public class PromocionEntityConverter {
                 break;
                 
             case "DESCUENTO_POR_CANTIDAD":
-                Map<Integer, Double> mapCantVsDscto = detalle.getDescuentosPorCantidad().stream()
+                // Copia inmutable: la promoción construida se comparte entre componentes
+                Map<Integer, Double> mapCantVsDscto = Collections.unmodifiableMap(detalle.getDescuentosPorCantidad().stream()
                     .collect(Collectors.toMap(
                         d -> d.getCantidad(),
                         d -> d.getDscto()
-                    ));
+                    )));
                 builder.agregarDsctoXcantidad(mapCantVsDscto);
                 break;
                 
@@ -23,6 +23,8 @@ public enum Errores {
     COMPONENTE_NO_ENCONTRADO_EN_COTIZACION("24", "Componente no encontrado en la cotización"),
     RANGO_FECHAS_INVALIDO("25", "Rango de fechas inválido"),
     MONTO_TOTAL_INVALIDO("26", "Monto total inválido"),
+    IDEMPOTENCIA_CLAVE_REUTILIZADA("27", "La clave de idempotencia ya se usó con una solicitud distinta"),
+    IDEMPOTENCIA_EN_PROCESO("28", "La solicitud con esta clave de idempotencia sigue en proceso"),
     
     // Códigos específicos de proveedores
     PROVEEDOR_NO_ENCONTRADO("30", "Proveedor no encontrado"),
@@ -40,6 +42,7 @@ public enum Errores {
     COTIZACION_NO_ENCONTRADA_PEDIDO("45", "Cotización no encontrada para generar pedido"),
     COTIZACION_INVALIDA_PEDIDO("46", "Cotización inválida para generar pedido"),
     DETALLE_PEDIDO_INVALIDO("47", "Detalle de pedido inválido"),
+    LOTE_PEDIDOS_NO_ENCONTRADO("48", "Lote de pedidos no encontrado"),
     
     // Códigos específicos de promociones
     PROMOCION_NO_ENCONTRADA("50", "Promoción no encontrada"),
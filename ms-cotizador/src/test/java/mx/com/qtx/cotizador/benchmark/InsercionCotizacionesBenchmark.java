@@ -0,0 +1,285 @@
+package mx.com.qtx.cotizador.benchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import mx.com.qtx.cotizador.entidad.Componente;
+import mx.com.qtx.cotizador.entidad.Cotizacion;
+import mx.com.qtx.cotizador.entidad.DetalleCotizacion;
+import mx.com.qtx.cotizador.integration.BaseIntegrationTest;
+import mx.com.qtx.cotizador.repositorio.ComponenteRepositorio;
+
+/**
+ * Benchmark de inserción de cotizaciones (encabezado + detalles).
+ *
+ * Compara:
+ * - ANTES: el mapeo original, folio AUTO_INCREMENT con GenerationType.IDENTITY y sin lotes
+ *   JDBC (la configuración anterior no definía batch_size). Se reproduce con las entidades
+ *   {@link CotizacionIdentidad} y {@link DetalleIdentidad} sobre tablas con la misma
+ *   estructura que tenían cocotizacion y codetalle_cotizacion.
+ * - DESPUÉS: las entidades actuales, folios por bloques desde cosecuencia y flush de Hibernate
+ *   con lotes JDBC (batch_size=25, order_inserts, rewriteBatchedStatements).
+ *
+ * Ambos caminos persisten con JPA las mismas filas en transacciones del mismo tamaño; la
+ * prueba falla si los lotes no son más rápidos que el camino original.
+ *
+ * No forma parte de la suite regular (surefire excluye el paquete benchmark).
+ * Ejecutar con:
+ *   mvn test -Dtest=InsercionCotizacionesBenchmark
+ *
+ * @author Sistema Cotizador
+ */
+class InsercionCotizacionesBenchmark extends BaseIntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(InsercionCotizacionesBenchmark.class);
+
+    private static final int COTIZACIONES = 2_000;
+    private static final int DETALLES_POR_COTIZACION = 4;
+    private static final int COTIZACIONES_POR_TRANSACCION = 200;
+    private static final int CALENTAMIENTO = 200;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ComponenteRepositorio componenteRepo;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void crearTablasOriginales() {
+        // Definición original de cocotizacion y codetalle_cotizacion (folio AUTO_INCREMENT)
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS cobench_cotizacion (
+                folio INT UNSIGNED AUTO_INCREMENT PRIMARY KEY,
+                fecha VARCHAR(20) NOT NULL,
+                impuestos DECIMAL(20,2) NOT NULL,
+                subtotal DECIMAL(20,2) NOT NULL,
+                total DECIMAL(20,2) NOT NULL
+            ) ENGINE=InnoDB""");
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS cobench_detalle_cotizacion (
+                folio INT UNSIGNED NOT NULL,
+                num_detalle INT UNSIGNED NOT NULL,
+                cantidad INT UNSIGNED NOT NULL,
+                descripcion VARCHAR(255) NOT NULL,
+                id_componente VARCHAR(50) NOT NULL,
+                precio_base DECIMAL(20,2) NOT NULL,
+                PRIMARY KEY (folio, num_detalle),
+                FOREIGN KEY (folio) REFERENCES cobench_cotizacion(folio) ON DELETE CASCADE,
+                FOREIGN KEY (id_componente) REFERENCES cocomponente(id_componente)
+            ) ENGINE=InnoDB""");
+    }
+
+    @AfterEach
+    void eliminarTablasOriginales() {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS cobench_detalle_cotizacion");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS cobench_cotizacion");
+    }
+
+    @Test
+    @DisplayName("Benchmark: mapeo original con IDENTITY vs lotes JDBC con folios por bloques")
+    void compararThroughputDeInsercion() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        // Calentamiento de ambos caminos (JIT, pool de conexiones, caché de sentencias)
+        insertarConIdentity(tx, CALENTAMIENTO);
+        insertarEnLotes(tx, CALENTAMIENTO);
+
+        long inicioAntes = System.nanoTime();
+        insertarConIdentity(tx, COTIZACIONES);
+        double segundosAntes = (System.nanoTime() - inicioAntes) / 1e9;
+
+        long inicioDespues = System.nanoTime();
+        insertarEnLotes(tx, COTIZACIONES);
+        double segundosDespues = (System.nanoTime() - inicioDespues) / 1e9;
+
+        int filas = COTIZACIONES * (1 + DETALLES_POR_COTIZACION);
+        logger.info("Inserción de {} cotizaciones ({} filas): IDENTITY {} s, bloques + lotes {} s ({}x)",
+                COTIZACIONES, filas, String.format("%.3f", segundosAntes), String.format("%.3f", segundosDespues),
+                String.format("%.2f", segundosAntes / segundosDespues));
+
+        // Ambos caminos escribieron todas las filas
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM cobench_detalle_cotizacion", Integer.class))
+                .isEqualTo((CALENTAMIENTO + COTIZACIONES) * DETALLES_POR_COTIZACION);
+        assertThat(segundosDespues)
+                .as("Bloques + lotes (%.3f s) deben superar al mapeo original con IDENTITY (%.3f s)",
+                        segundosDespues, segundosAntes)
+                .isLessThan(segundosAntes);
+    }
+
+    private void insertarConIdentity(TransactionTemplate tx, int total) {
+        for (int inicio = 0; inicio < total; inicio += COTIZACIONES_POR_TRANSACCION) {
+            int cantidad = Math.min(COTIZACIONES_POR_TRANSACCION, total - inicio);
+            tx.executeWithoutResult(status -> {
+                // Sin lotes JDBC, como la configuración original
+                entityManager.unwrap(Session.class).setJdbcBatchSize(1);
+                Componente componente = componenteRepo.getReferenceById("MON001");
+                for (int i = 0; i < cantidad; i++) {
+                    CotizacionIdentidad cotizacion = new CotizacionIdentidad();
+                    for (int d = 1; d <= DETALLES_POR_COTIZACION; d++) {
+                        cotizacion.agregarDetalle(d, componente);
+                    }
+                    entityManager.persist(cotizacion);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+    }
+
+    private void insertarEnLotes(TransactionTemplate tx, int total) {
+        for (int inicio = 0; inicio < total; inicio += COTIZACIONES_POR_TRANSACCION) {
+            int cantidad = Math.min(COTIZACIONES_POR_TRANSACCION, total - inicio);
+            tx.executeWithoutResult(status -> {
+                Componente componente = componenteRepo.getReferenceById("MON001");
+                for (int i = 0; i < cantidad; i++) {
+                    Cotizacion cotizacion = new Cotizacion();
+                    cotizacion.setFecha("2020-01-15");
+                    cotizacion.setImpuestos(new BigDecimal("16.00"));
+                    cotizacion.setSubtotal(new BigDecimal("100.00"));
+                    cotizacion.setTotal(new BigDecimal("116.00"));
+                    for (int d = 1; d <= DETALLES_POR_COTIZACION; d++) {
+                        DetalleCotizacion detalle = new DetalleCotizacion();
+                        detalle.getId().setNumDetalle(d);
+                        detalle.setCantidad(1);
+                        detalle.setDescripcion("Benchmark");
+                        detalle.setPrecioBase(new BigDecimal("25.00"));
+                        detalle.setComponente(componente);
+                        cotizacion.addDetalle(detalle);
+                    }
+                    entityManager.persist(cotizacion);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+        }
+    }
+
+    /**
+     * Mapeo original de la cotización: folio generado por la base con IDENTITY
+     */
+    @Entity(name = "CotizacionIdentidad")
+    @Table(name = "cobench_cotizacion")
+    static class CotizacionIdentidad {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Integer folio;
+
+        @Column(name = "fecha")
+        private String fecha = "2020-01-15";
+
+        @Column(name = "impuestos")
+        private BigDecimal impuestos = new BigDecimal("16.00");
+
+        @Column(name = "subtotal")
+        private BigDecimal subtotal = new BigDecimal("100.00");
+
+        @Column(name = "total")
+        private BigDecimal total = new BigDecimal("116.00");
+
+        @OneToMany(mappedBy = "cotizacion", cascade = CascadeType.ALL)
+        private List<DetalleIdentidad> detalles = new ArrayList<>();
+
+        void agregarDetalle(int numDetalle, Componente componente) {
+            DetalleIdentidad detalle = new DetalleIdentidad();
+            detalle.id.numDetalle = numDetalle;
+            detalle.componente = componente;
+            detalle.cotizacion = this;
+            detalles.add(detalle);
+        }
+    }
+
+    /**
+     * Mapeo original del detalle: llave compuesta que toma el folio del encabezado
+     */
+    @Entity(name = "DetalleIdentidad")
+    @Table(name = "cobench_detalle_cotizacion")
+    static class DetalleIdentidad {
+
+        @EmbeddedId
+        private DetalleIdentidadId id = new DetalleIdentidadId();
+
+        @Column(name = "cantidad")
+        private Integer cantidad = 1;
+
+        @Column(name = "descripcion")
+        private String descripcion = "Benchmark";
+
+        @Column(name = "precio_base")
+        private BigDecimal precioBase = new BigDecimal("25.00");
+
+        @ManyToOne
+        @MapsId("folio")
+        @JoinColumn(name = "folio")
+        private CotizacionIdentidad cotizacion;
+
+        @ManyToOne
+        @JoinColumn(name = "id_componente")
+        private Componente componente;
+    }
+
+    @Embeddable
+    static class DetalleIdentidadId implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Column(name = "folio")
+        private Integer folio;
+
+        @Column(name = "num_detalle")
+        private Integer numDetalle;
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof DetalleIdentidadId otro)) {
+                return false;
+            }
+            return Objects.equals(folio, otro.folio) && Objects.equals(numDetalle, otro.numDetalle);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(folio, numDetalle);
+        }
+    }
+}
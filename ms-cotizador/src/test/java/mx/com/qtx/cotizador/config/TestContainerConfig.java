@@ -53,6 +53,7 @@ public class TestContainerConfig {
                             .withUsername("test_user")
                             .withPassword("test_password")
                             .withInitScripts(List.of("sql/ddl.sql"))
+                            .withUrlParam("rewriteBatchedStatements", "true")
                             .withReuse(true); // REUTILIZAR entre tests
                     
                     // Configurar limpieza automática al finalizar JVM
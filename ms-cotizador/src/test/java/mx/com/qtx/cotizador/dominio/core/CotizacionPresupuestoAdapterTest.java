@@ -0,0 +1,145 @@
+package mx.com.qtx.cotizador.dominio.core;
+
+import mx.com.qtx.cotizador.dominio.pedidos.DetallePedido;
+import mx.com.qtx.cotizador.dominio.pedidos.GestorPedidos;
+import mx.com.qtx.cotizador.dominio.pedidos.IPresupuesto;
+import mx.com.qtx.cotizador.dominio.pedidos.Pedido;
+import mx.com.qtx.cotizador.dominio.pedidos.Proveedor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para CotizacionPresupuestoAdapter
+ */
+class CotizacionPresupuestoAdapterTest {
+
+    private Cotizacion cotizacion;
+
+    @BeforeEach
+    void setUp() {
+        // Cotización con componentes repetidos (MON001 y DD001 en dos detalles) y un detalle sin precios
+        cotizacion = new Cotizacion();
+        cotizacion.agregarDetalle(new DetalleCotizacion(1, "MON001", "Monitor 27", 2,
+                new BigDecimal("4000.00"), new BigDecimal("8000.00"), "Monitor"));
+        cotizacion.agregarDetalle(new DetalleCotizacion(2, "DD001", "Disco 1TB", 1,
+                new BigDecimal("1200.00"), new BigDecimal("1200.00"), "Disco Duro"));
+        cotizacion.agregarDetalle(new DetalleCotizacion(3, "MON001", "Monitor 27 (repetido)", 5,
+                new BigDecimal("3900.00"), new BigDecimal("19500.00"), "Monitor"));
+        cotizacion.agregarDetalle(new DetalleCotizacion(4, "TAR001", "Tarjeta de video", 1,
+                null, null, "Tarjeta de Video"));
+        cotizacion.agregarDetalle(new DetalleCotizacion(5, "DD001", "Disco 1TB (repetido)", 3,
+                new BigDecimal("1100.00"), new BigDecimal("3300.00"), "Disco Duro"));
+    }
+
+    @Test
+    void testGenerarPedido_MismosRenglonesQueLaBusquedaLineal() throws Exception {
+        // When
+        Pedido indexado = generarPedido(new CotizacionPresupuestoAdapter(cotizacion));
+        Pedido lineal = generarPedido(new PresupuestoBusquedaLineal(cotizacion));
+
+        // Then
+        assertEquals(campos(lineal), campos(indexado));
+        assertEquals(lineal.getTotalPedido(), indexado.getTotalPedido());
+        // Cantidad del último detalle, descripción y precios del primero
+        DetallePedido monitor = renglones(indexado).get("MON001");
+        assertEquals(5, monitor.getCantidad());
+        assertEquals("Monitor 27", monitor.getDescripcion());
+        assertEquals(new BigDecimal("4000.00"), monitor.getPrecioUnitario());
+        assertEquals(BigDecimal.ZERO, renglones(indexado).get("TAR001").getPrecioUnitario());
+    }
+
+    @Test
+    void testConsultas_ComponenteAusenteIgualQueLaBusquedaLineal() throws Exception {
+        // Given
+        IPresupuesto indexado = new CotizacionPresupuestoAdapter(cotizacion);
+        IPresupuesto lineal = new PresupuestoBusquedaLineal(cotizacion);
+
+        // Then
+        for (String id : List.of("MON001", "DD001", "TAR001", "NO-EXISTE")) {
+            assertEquals(lineal.getDescripcionArticulo(id), indexado.getDescripcionArticulo(id));
+            assertEquals(lineal.getDatosArticulo(id), indexado.getDatosArticulo(id));
+            assertEquals(lineal.getPrecioBaseArticulo(id), indexado.getPrecioBaseArticulo(id));
+            assertEquals(lineal.getImporteTotalLineaArticulo(id), indexado.getImporteTotalLineaArticulo(id));
+        }
+        assertEquals(lineal.getCantidadesXIdArticulo(), indexado.getCantidadesXIdArticulo());
+        assertEquals("Descripción no encontrada", indexado.getDescripcionArticulo("NO-EXISTE"));
+        assertTrue(indexado.getDatosArticulo("NO-EXISTE").isEmpty());
+        assertEquals(BigDecimal.ZERO, indexado.getPrecioBaseArticulo("NO-EXISTE"));
+    }
+
+    private static Pedido generarPedido(IPresupuesto presupuesto) throws Exception {
+        GestorPedidos gestor = new GestorPedidos(List.of(new Proveedor("PROV001", "Proveedor", "Proveedor S.A.")));
+        gestor.agregarPresupuesto(presupuesto);
+        return gestor.generarPedido("PROV001", 1, 0, LocalDate.of(2025, 1, 15), LocalDate.of(2025, 1, 30));
+    }
+
+    private static Map<String, DetallePedido> renglones(Pedido pedido) {
+        return pedido.getDetallesPedido().stream()
+                .collect(Collectors.toMap(DetallePedido::getIdArticulo, detalle -> detalle));
+    }
+
+    // DetallePedido no define equals: se comparan sus campos
+    private static Map<String, List<Object>> campos(Pedido pedido) {
+        return renglones(pedido).values().stream()
+                .collect(Collectors.toMap(DetallePedido::getIdArticulo, detalle -> List.of(detalle.getDescripcion(),
+                        detalle.getCantidad(), detalle.getPrecioUnitario(), detalle.getTotalCotizado())));
+    }
+
+    /**
+     * Comportamiento anterior al índice: cada consulta recorre los detalles de la cotización y los
+     * precios se extraen del mapa de getDatosArticulo (implementaciones por omisión de IPresupuesto)
+     */
+    private static class PresupuestoBusquedaLineal implements IPresupuesto {
+
+        private final Cotizacion cotizacion;
+
+        PresupuestoBusquedaLineal(Cotizacion cotizacion) {
+            this.cotizacion = cotizacion;
+        }
+
+        @Override
+        public String getDescripcionArticulo(String idArticulo) {
+            DetalleCotizacion detalle = getDetallePorId(idArticulo);
+            return (detalle != null) ? detalle.getDescripcion() : "Descripción no encontrada";
+        }
+
+        @Override
+        public Map<String, Integer> getCantidadesXIdArticulo() {
+            Map<String, Integer> cantidades = new HashMap<>();
+            for (DetalleCotizacion detalle : cotizacion.getDetalles()) {
+                cantidades.put(detalle.getIdComponente(), detalle.getCantidad());
+            }
+            return cantidades;
+        }
+
+        @Override
+        public Map<String, Object> getDatosArticulo(String idArticulo) {
+            DetalleCotizacion detalle = getDetallePorId(idArticulo);
+            if (detalle == null) {
+                return new HashMap<>();
+            }
+            Map<String, Object> datos = new HashMap<>();
+            datos.put("descripcion", detalle.getDescripcion());
+            datos.put("cantidad", detalle.getCantidad());
+            datos.put("precioBase", detalle.getPrecioBase());
+            datos.put("importeTotalLinea", detalle.getImporteCotizado());
+            return datos;
+        }
+
+        private DetalleCotizacion getDetallePorId(String idArticulo) {
+            return cotizacion.getDetalles().stream()
+                    .filter(x -> x.getIdComponente().equals(idArticulo))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+}
@@ -13,6 +13,8 @@ import org.junit.jupiter.api.TestMethodOrder;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.AfterAll;
 
+import java.time.LocalDate;
+
 
 import io.restassured.http.ContentType;
 import mx.com.qtx.cotizador.integration.BaseIntegrationTest;
@@ -392,6 +394,122 @@ public class ComponenteIntegrationTest extends BaseIntegrationTest {
         .then().statusCode(401);
     }
 
+    // ========================================================================
+    // CASO DE USO 1.5: REASIGNACIÓN MASIVA DE PROMOCIÓN
+    // ========================================================================
+    
+    @Test
+    @DisplayName("CU 1.5.1: Reasignación masiva por marca debe aplicar la promoción vigente al cotizar")
+    void deberiaReasignarPromocionPorMarca() {
+        String sufijo = String.valueOf(System.nanoTime() % 100000);
+        String marca = "Campana" + sufijo;
+        String promocion = """
+            {
+                "nombre": "Campaña 3x2 %s",
+                "descripcion": "Promoción para reasignación masiva",
+                "vigenciaDesde": "%s",
+                "vigenciaHasta": "%s",
+                "detalles": [
+                    {
+                        "nombre": "Lleve 3 pague 2",
+                        "esBase": true,
+                        "tipoBase": "NXM",
+                        "parametrosNxM": { "llevent": 3, "paguen": 2 }
+                    }
+                ]
+            }
+            """.formatted(sufijo, LocalDate.now().minusDays(1), LocalDate.now().plusDays(30));
+        String componente = """
+            {
+                "id": "%s",
+                "descripcion": "Monitor de campaña",
+                "marca": "%s",
+                "modelo": "C24",
+                "precioBase": 100.00,
+                "costo": 80.00,
+                "tipoComponente": "MONITOR"
+            }
+            """;
+        
+        Integer idPromocion = given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .body(promocion)
+        .when()
+            .post("/promociones")
+        .then()
+            .statusCode(200)
+            .extract().path("datos.idPromocion");
+        
+        for (String id : new String[] { "CMP1-" + sufijo, "CMP2-" + sufijo }) {
+            given()
+                .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+                .contentType(ContentType.JSON)
+                .body(componente.formatted(id, marca))
+            .when()
+                .post("/componentes")
+            .then()
+                .statusCode(200);
+        }
+        
+        String reasignacion = """
+            { "idPromocion": %d, "tipoComponente": "MONITOR", "marca": "%s" }
+            """.formatted(idPromocion, marca);
+        
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .body(reasignacion)
+        .when()
+            .post("/componentes/promocion/reasignar")
+        .then()
+            .statusCode(200)
+            .body("codigo", equalTo("0"))
+            .body("datos.componentesActualizados", equalTo(2));
+        
+        // Repetir no cambia nada: ya tienen la promoción
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .body(reasignacion)
+        .when()
+            .post("/componentes/promocion/reasignar")
+        .then()
+            .statusCode(200)
+            .body("datos.componentesActualizados", equalTo(0));
+        
+        // 3x2 vigente: tres unidades se cobran como dos
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .body("""
+                {
+                    "tipoCotizador": "A",
+                    "impuestos": ["IVA"],
+                    "detalles": [ { "idComponente": "CMP1-%s", "cantidad": 3 } ]
+                }
+                """.formatted(sufijo))
+        .when()
+            .post("/cotizaciones")
+        .then()
+            .statusCode(200)
+            .body("datos.subtotal", equalTo(200.0f));
+    }
+    
+    @Test
+    @DisplayName("CU 1.5.2: Reasignación masiva sin filtros debe fallar")
+    void deberiaFallarReasignacionSinFiltros() {
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .body("{ \"idPromocion\": 1 }")
+        .when()
+            .post("/componentes/promocion/reasignar")
+        .then()
+            .statusCode(400)
+            .body("codigo", equalTo("8"));
+    }
+    
     @Test
     @DisplayName("A. Infraestructura: Aplicación debe arrancar correctamente")
     void aplicacionDebeArrancar() {
@@ -365,6 +365,272 @@ public class CotizacionIntegrationTest extends BaseIntegrationTest {
             .body("mensaje", notNullValue());
     }
 
+    // ========================================================================
+    // CASO DE USO 3.6: BUSCAR COTIZACIONES POR COMPONENTE
+    // ========================================================================
+
+    @Test
+    @DisplayName("CU 3.6.1: Debe buscar cotizaciones por componente de forma paginada")
+    void deberiaBuscarCotizacionesPorComponentePaginado() {
+        // MON001 aparece en las cotizaciones 6 y 8 de los datos de prueba
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .queryParam("pagina", 0)
+            .queryParam("tamano", 1)
+        .when()
+            .get("/cotizaciones/buscar/componente/MON001")
+        .then()
+            .statusCode(200)
+            .body("codigo", equalTo("0"))
+            .body("datos.contenido.size()", equalTo(1))
+            .body("datos.contenido[0].folio", equalTo(6))
+            .body("datos.totalElementos", greaterThan(1))
+            .body("datos.totalPaginas", greaterThan(1));
+    }
+
+    @Test
+    @DisplayName("CU 3.6.2: Debe fallar búsqueda por componente con tamaño de página inválido")
+    void deberiaFallarBusquedaPorComponenteConTamanoInvalido() {
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .queryParam("tamano", 0)
+        .when()
+            .get("/cotizaciones/buscar/componente/MON001")
+        .then()
+            .statusCode(400)
+            .body("codigo", equalTo("6")) // Código para valor inválido
+            .body("mensaje", notNullValue());
+    }
+
+    @Test
+    @DisplayName("CU 3.1.7: Cotización creada debe persistir sus detalles junto con el encabezado")
+    void cotizacionCreadaDebePersistirDetalles() {
+        String cotizacionRequest = """
+            {
+                "tipoCotizador": "A",
+                "impuestos": ["IVA"],
+                "detalles": [
+                    { "idComponente": "MON001", "cantidad": 1 },
+                    { "idComponente": "HDD001", "cantidad": 2 }
+                ]
+            }
+            """;
+
+        Integer folio = given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .body(cotizacionRequest)
+        .when()
+            .post("/cotizaciones")
+        .then()
+            .statusCode(200)
+            .extract().path("datos.folio");
+
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+        .when()
+            .get("/cotizaciones/{id}", folio)
+        .then()
+            .statusCode(200)
+            .body("datos.folio", equalTo(folio))
+            .body("datos.detalles.size()", equalTo(2));
+    }
+
+    // ========================================================================
+    // CASO DE USO 3.7: CREACIÓN IDEMPOTENTE DE COTIZACIONES
+    // ========================================================================
+
+    @Test
+    @DisplayName("CU 3.7.1: Reintento con la misma Idempotency-Key debe devolver la cotización original")
+    void deberiaDevolverCotizacionOriginalAlReintentarConMismaClave() {
+        String cotizacionRequest = """
+            {
+                "tipoCotizador": "A",
+                "impuestos": ["IVA"],
+                "detalles": [
+                    {
+                        "idComponente": "MON001",
+                        "cantidad": 1
+                    }
+                ]
+            }
+            """;
+        String clave = "test-idem-" + System.nanoTime();
+
+        Integer folioOriginal = given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .header("Idempotency-Key", clave)
+            .body(cotizacionRequest)
+        .when()
+            .post("/cotizaciones")
+        .then()
+            .statusCode(200)
+            .body("codigo", equalTo("0"))
+            .extract().path("datos.folio");
+
+        Integer folioReintento = given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .header("Idempotency-Key", clave)
+            .body(cotizacionRequest)
+        .when()
+            .post("/cotizaciones")
+        .then()
+            .statusCode(200)
+            .body("codigo", equalTo("0"))
+            .extract().path("datos.folio");
+
+        assertThat(folioReintento).isEqualTo(folioOriginal);
+    }
+
+    @Test
+    @DisplayName("CU 3.7.2: Debe rechazar una Idempotency-Key reutilizada con otra solicitud")
+    void deberiaRechazarClaveReutilizadaConSolicitudDistinta() {
+        String clave = "test-idem-" + System.nanoTime();
+        String primeraSolicitud = """
+            {
+                "tipoCotizador": "A",
+                "impuestos": ["IVA"],
+                "detalles": [ { "idComponente": "MON001", "cantidad": 1 } ]
+            }
+            """;
+        String segundaSolicitud = """
+            {
+                "tipoCotizador": "A",
+                "impuestos": ["IVA"],
+                "detalles": [ { "idComponente": "MON001", "cantidad": 3 } ]
+            }
+            """;
+
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .header("Idempotency-Key", clave)
+            .body(primeraSolicitud)
+        .when()
+            .post("/cotizaciones")
+        .then()
+            .statusCode(200)
+            .body("codigo", equalTo("0"));
+
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .header("Idempotency-Key", clave)
+            .body(segundaSolicitud)
+        .when()
+            .post("/cotizaciones")
+        .then()
+            .statusCode(400)
+            .body("codigo", equalTo("27")); // Clave de idempotencia reutilizada
+    }
+
+    // ========================================================================
+    // CASO DE USO 3.8: CACHÉ DE RESULTADOS PARA CARRITOS IDÉNTICOS
+    // ========================================================================
+
+    @Test
+    @DisplayName("CU 3.8.1: Carrito idéntico debe reflejar el nuevo precio tras modificar el componente")
+    void carritoIdenticoDebeReflejarCambioDePrecio() {
+        String idComponente = "CACHE-" + (System.nanoTime() % 100000);
+        String componente = """
+            {
+                "id": "%s",
+                "descripcion": "Monitor para prueba de caché",
+                "marca": "Dell",
+                "modelo": "P2422H",
+                "precioBase": %s,
+                "costo": 100.00,
+                "tipoComponente": "MONITOR"
+            }
+            """;
+        String carrito = """
+            {
+                "tipoCotizador": "A",
+                "impuestos": ["IVA"],
+                "detalles": [ { "idComponente": "%s", "cantidad": 2 } ]
+            }
+            """.formatted(idComponente);
+
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .body(componente.formatted(idComponente, "200.00"))
+        .when()
+            .post("/componentes")
+        .then()
+            .statusCode(200);
+
+        Float totalInicial = given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .body(carrito)
+        .when()
+            .post("/cotizaciones")
+        .then()
+            .statusCode(200)
+            .extract().path("datos.total");
+
+        // Mismo carrito, mismo catálogo: mismo total
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .body(carrito)
+        .when()
+            .post("/cotizaciones")
+        .then()
+            .statusCode(200)
+            .body("datos.total", equalTo(totalInicial));
+
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .body(componente.formatted(idComponente, "400.00"))
+        .when()
+            .put("/componentes/{id}", idComponente)
+        .then()
+            .statusCode(200);
+
+        Float totalNuevo = given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .body(carrito)
+        .when()
+            .post("/cotizaciones")
+        .then()
+            .statusCode(200)
+            .extract().path("datos.total");
+
+        assertThat(totalNuevo).isGreaterThan(totalInicial);
+    }
+
+    @Test
+    @DisplayName("CU 3.1.8: Promoción fuera de vigencia no debe aplicarse al cotizar")
+    void promocionFueraDeVigenciaNoDebeAplicarse() {
+        // GPU001 tiene asignada "Tarjetas 3x2", vigente sólo en abril de 2025
+        String cotizacionRequest = """
+            {
+                "tipoCotizador": "A",
+                "impuestos": ["IVA"],
+                "detalles": [ { "idComponente": "GPU001", "cantidad": 3 } ]
+            }
+            """;
+
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .contentType(ContentType.JSON)
+            .body(cotizacionRequest)
+        .when()
+            .post("/cotizaciones")
+        .then()
+            .statusCode(200)
+            .body("codigo", equalTo("0"))
+            .body("datos.subtotal", equalTo(25500.0f));
+    }
+
     // ========================================================================
     // TESTS DE FLUJO COMPLETO Y INTEGRACIÓN
     // ========================================================================
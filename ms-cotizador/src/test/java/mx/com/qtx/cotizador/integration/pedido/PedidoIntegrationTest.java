@@ -2,23 +2,39 @@ package mx.com.qtx.cotizador.integration.pedido;
 
 import io.restassured.RestAssured;
 import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 
 import mx.com.qtx.cotizador.dto.pedido.request.GenerarPedidoRequest;
+import mx.com.qtx.cotizador.dto.pedido.request.GenerarPedidosLoteRequest;
 import mx.com.qtx.cotizador.integration.BaseIntegrationTest;
+import mx.com.qtx.cotizador.servicio.outbox.DespachadorOutbox;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static io.restassured.RestAssured.given;
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 
 /**
  * Tests de integración para endpoints RESTful de gestión de pedidos
  * 
  * Implementa casos de uso:
- * - 5.2: Generar pedido desde cotización
+ * - 5.2: Generar pedido desde cotización (individual y en lote)
  * - 5.3: Consultar pedidos (por ID y listar todos)
  * 
  * Usa base de datos MySQL compartida via BaseIntegrationTest.
@@ -27,6 +43,12 @@ import static org.hamcrest.Matchers.*;
 @DisplayName("Integration Tests - Gestión de Pedidos")
 class PedidoIntegrationTest extends BaseIntegrationTest {
 
+    @Autowired
+    private DespachadorOutbox despachadorOutbox;
+
+    @Value("${outbox.destinos.archivo.directorio}")
+    private String directorioSpool;
+
     // ✅ Configuración heredada de BaseIntegrationTest:
     // - Base de datos MySQL compartida
     // - RestAssured configurado automáticamente  
@@ -354,6 +376,349 @@ class PedidoIntegrationTest extends BaseIntegrationTest {
             .body("datos.cveProveedor", equalTo("COMP003"));
     }
 
+    // ==================== CASO DE USO 5.2: GENERAR PEDIDOS EN LOTE ====================
+
+    @Test
+    @DisplayName("5.2 - Debería generar pedidos en lote y reportar fallos por elemento")
+    void deberiaGenerarPedidosEnLote() throws InterruptedException {
+        
+        // Arrange - Dos pedidos válidos y uno con cotización inexistente
+        GenerarPedidosLoteRequest request = GenerarPedidosLoteRequest.builder()
+                .pedidos(List.of(
+                        GenerarPedidoRequest.builder()
+                                .cotizacionId(1)
+                                .cveProveedor("TECH001")
+                                .fechaEmision(LocalDate.of(2025, 6, 1))
+                                .fechaEntrega(LocalDate.of(2025, 6, 15))
+                                .nivelSurtido(50)
+                                .build(),
+                        GenerarPedidoRequest.builder()
+                                .cotizacionId(2)
+                                .cveProveedor("GLOB004")
+                                .fechaEmision(LocalDate.of(2025, 6, 1))
+                                .fechaEntrega(LocalDate.of(2025, 6, 15))
+                                .nivelSurtido(60)
+                                .build(),
+                        GenerarPedidoRequest.builder()
+                                .cotizacionId(999999) // Cotización que no existe
+                                .cveProveedor("TECH001")
+                                .fechaEmision(LocalDate.of(2025, 6, 1))
+                                .fechaEntrega(LocalDate.of(2025, 6, 15))
+                                .nivelSurtido(70)
+                                .build()))
+                .build();
+        
+        // Act - Enviar el lote
+        String idLote = given()
+            .contentType(ContentType.JSON)
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .body(request)
+        .when()
+            .post("/pedidos/lotes")
+        .then()
+            .statusCode(202)
+            .body("codigo", equalTo("0"))
+            .body("datos.idLote", notNullValue())
+            .body("datos.total", equalTo(3))
+            .extract().path("datos.idLote");
+        
+        // Esperar a que el lote termine (procesamiento asíncrono)
+        String estado = null;
+        for (int intento = 0; intento < 50 && !"COMPLETADO".equals(estado); intento++) {
+            Thread.sleep(200);
+            estado = given()
+                .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .when()
+                .get("/pedidos/lotes/" + idLote)
+            .then()
+                .statusCode(200)
+                .extract().path("datos.estado");
+        }
+        
+        // Assert - Avance final y resultados por elemento
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+        .when()
+            .get("/pedidos/lotes/" + idLote)
+        .then()
+            .statusCode(200)
+            .body("datos.estado", equalTo("COMPLETADO"))
+            .body("datos.procesados", equalTo(3))
+            .body("datos.exitosos", equalTo(2))
+            .body("datos.fallidos", equalTo(1))
+            .body("datos.fechaFin", notNullValue());
+        
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .queryParam("pagina", 0)
+            .queryParam("tamano", 10)
+        .when()
+            .get("/pedidos/lotes/" + idLote + "/resultados")
+        .then()
+            .statusCode(200)
+            .body("datos.totalElementos", equalTo(3))
+            .body("datos.contenido[0].exitoso", equalTo(true))
+            .body("datos.contenido[0].numPedido", notNullValue())
+            .body("datos.contenido[1].exitoso", equalTo(true))
+            .body("datos.contenido[2].exitoso", equalTo(false))
+            .body("datos.contenido[2].codigo", equalTo("45"));
+    }
+
+    @Test
+    @DisplayName("5.2 - Debería fallar al consultar un lote inexistente")
+    void deberiaFallarConLoteInexistente() {
+        
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+        .when()
+            .get("/pedidos/lotes/no-existe")
+        .then()
+            .statusCode(400)
+            .body("codigo", equalTo("48"));
+    }
+
+    @Test
+    @DisplayName("5.2 - Debería rechazar un lote vacío")
+    void deberiaRechazarLoteVacio() {
+        
+        given()
+            .contentType(ContentType.JSON)
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .body(GenerarPedidosLoteRequest.builder().pedidos(List.of()).build())
+        .when()
+            .post("/pedidos/lotes")
+        .then()
+            .statusCode(400);
+    }
+
+    @Test
+    @DisplayName("5.2 - Debería publicar el pedido generado en el outbox de eventos")
+    void deberiaPublicarPedidoGeneradoEnOutbox() throws IOException {
+        
+        // Arrange - Generar un pedido
+        GenerarPedidoRequest request = GenerarPedidoRequest.builder()
+                .cotizacionId(1)
+                .cveProveedor("TECH001")
+                .fechaEmision(LocalDate.of(2025, 7, 1))
+                .fechaEntrega(LocalDate.of(2025, 7, 15))
+                .nivelSurtido(60)
+                .build();
+        
+        Integer numPedido = given()
+            .contentType(ContentType.JSON)
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .body(request)
+        .when()
+            .post("/pedidos/generar")
+        .then()
+            .statusCode(200)
+            .body("codigo", equalTo("0"))
+            .extract()
+            .path("datos.numPedido");
+        
+        // Act - Drenar el outbox (el despacho programado está deshabilitado en pruebas)
+        while (despachadorOutbox.despacharLote() > 0) {
+            // Continuar hasta que no queden eventos pendientes
+        }
+        
+        // Assert - El evento quedó en el spool con el número de pedido como agregado
+        String contenido;
+        try (Stream<Path> archivos = Files.list(Paths.get(directorioSpool))) {
+            StringBuilder lineas = new StringBuilder();
+            for (Path archivo : archivos.toList()) {
+                lineas.append(Files.readString(archivo));
+            }
+            contenido = lineas.toString();
+        }
+        assertThat(contenido, containsString("\"idAgregado\":\"" + numPedido + "\""));
+        assertThat(contenido, containsString("\"tipoEvento\":\"PEDIDO_CREADO\""));
+    }
+
+    // ==================== EXPORTACIÓN DE PEDIDOS POR PROVEEDOR ====================
+
+    @Test
+    @DisplayName("Exportación - Debería exportar los pedidos de un proveedor en CSV y ancho fijo")
+    void deberiaExportarPedidosDeProveedor() throws IOException {
+        
+        // Arrange - Generar un pedido con una fecha de emisión exclusiva de esta prueba
+        GenerarPedidoRequest request = GenerarPedidoRequest.builder()
+                .cotizacionId(1)
+                .cveProveedor("TECH001")
+                .fechaEmision(LocalDate.of(2025, 8, 20))
+                .fechaEntrega(LocalDate.of(2025, 9, 5))
+                .nivelSurtido(80)
+                .build();
+        
+        Integer numPedido = given()
+            .contentType(ContentType.JSON)
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .body(request)
+        .when()
+            .post("/pedidos/generar")
+        .then()
+            .statusCode(200)
+            .body("codigo", equalTo("0"))
+            .extract()
+            .path("datos.numPedido");
+        
+        // Act & Assert - CSV: encabezado y un renglón por detalle del pedido
+        String csv = given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .queryParam("cveProveedor", "TECH001")
+            .queryParam("desde", "2025-08-20")
+            .queryParam("hasta", "2025-08-20")
+        .when()
+            .get("/pedidos/exportacion")
+        .then()
+            .statusCode(200)
+            .contentType(containsString("text/csv"))
+            .header("Content-Disposition", containsString("pedidos-TECH001-2025-08-20.csv"))
+            .extract()
+            .asString();
+        
+        String[] renglonesCsv = csv.split("\r\n");
+        assertThat(renglonesCsv[0], startsWith("num_pedido,fecha_emision,fecha_entrega"));
+        assertThat(renglonesCsv.length, greaterThan(1));
+        assertThat(renglonesCsv[1], startsWith(numPedido + ",2025-08-20,2025-09-05,80,"));
+        
+        // Act & Assert - Ancho fijo comprimido: mismos renglones, todos de la misma longitud en bytes
+        byte[] comprimido = given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .queryParam("cveProveedor", "TECH001")
+            .queryParam("desde", "2025-08-20")
+            .queryParam("hasta", "2025-08-20")
+            .queryParam("formato", "ancho_fijo")
+            .queryParam("gzip", true)
+        .when()
+            .get("/pedidos/exportacion")
+        .then()
+            .statusCode(200)
+            .contentType(containsString("application/gzip"))
+            .header("Content-Disposition", containsString(".txt.gz"))
+            .extract()
+            .asByteArray();
+        
+        String anchoFijo;
+        try (InputStream entrada = new GZIPInputStream(new ByteArrayInputStream(comprimido))) {
+            anchoFijo = new String(entrada.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] renglonesFijos = anchoFijo.split("\n");
+        assertThat(renglonesFijos.length, equalTo(renglonesCsv.length - 1));
+        assertThat(renglonesFijos[0], startsWith(String.format("%010d", numPedido) + "2025082020250905080"));
+        for (String renglon : renglonesFijos) {
+            assertThat(renglon.getBytes(StandardCharsets.UTF_8).length,
+                       equalTo(renglonesFijos[0].getBytes(StandardCharsets.UTF_8).length));
+        }
+    }
+
+    @Test
+    @DisplayName("Exportación - Debería rechazar un rango de fechas invertido")
+    void deberiaRechazarExportacionConRangoInvertido() {
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .queryParam("cveProveedor", "TECH001")
+            .queryParam("desde", "2025-08-20")
+            .queryParam("hasta", "2025-08-01")
+        .when()
+            .get("/pedidos/exportacion")
+        .then()
+            .statusCode(400)
+            .body("codigo", equalTo("25"));
+    }
+
+    @Test
+    @DisplayName("Exportación - Debería fallar con proveedor inexistente")
+    void deberiaFallarExportacionConProveedorInexistente() {
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .queryParam("cveProveedor", "NOEXISTE")
+            .queryParam("desde", "2025-08-01")
+            .queryParam("hasta", "2025-08-31")
+        .when()
+            .get("/pedidos/exportacion")
+        .then()
+            .statusCode(400)
+            .body("codigo", equalTo("30"));
+    }
+
+    // ==================== RESUMEN DE SURTIDO POR PROVEEDOR ====================
+
+    @Test
+    @DisplayName("Surtido - Debería actualizar el resumen del proveedor al generar un pedido y coincidir al reconstruirlo")
+    void deberiaActualizarResumenSurtidoAlGenerarPedido() {
+        
+        // Arrange - Resumen actual del proveedor
+        JsonPath antes = given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+        .when()
+            .get("/pedidos/surtido/proveedores/TECH001")
+        .then()
+            .statusCode(200)
+            .body("codigo", equalTo("0"))
+            .extract()
+            .jsonPath();
+        int pedidosAntes = antes.getInt("datos.pedidos");
+        int tardiasAntes = antes.getInt("datos.entregasTardias");
+        
+        // Act - Generar un pedido con plazo de entrega mayor al máximo configurado (15 días)
+        GenerarPedidoRequest request = GenerarPedidoRequest.builder()
+                .cotizacionId(1)
+                .cveProveedor("TECH001")
+                .fechaEmision(LocalDate.of(2025, 10, 1))
+                .fechaEntrega(LocalDate.of(2025, 10, 31))
+                .nivelSurtido(90)
+                .build();
+        
+        given()
+            .contentType(ContentType.JSON)
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .body(request)
+        .when()
+            .post("/pedidos/generar")
+        .then()
+            .statusCode(200)
+            .body("codigo", equalTo("0"));
+        
+        // Assert - Los contadores se incrementaron sin recorrer la tabla de pedidos
+        Integer renglonesIncrementales = given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+        .when()
+            .get("/pedidos/surtido/proveedores/TECH001")
+        .then()
+            .statusCode(200)
+            .body("datos.cveProveedor", equalTo("TECH001"))
+            .body("datos.nombreProveedor", equalTo("TechSupply SA"))
+            .body("datos.pedidos", equalTo(pedidosAntes + 1))
+            .body("datos.entregasTardias", equalTo(tardiasAntes + 1))
+            .body("datos.fechaUltimoPedido", notNullValue())
+            .extract()
+            .path("datos.renglones");
+        
+        // Assert - La reconstrucción desde cero produce los mismos valores
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+        .when()
+            .post("/pedidos/surtido/proveedores/reconstruir")
+        .then()
+            .statusCode(200)
+            .body("codigo", equalTo("0"))
+            .body("datos.find { it.cveProveedor == 'TECH001' }.pedidos", equalTo(pedidosAntes + 1))
+            .body("datos.find { it.cveProveedor == 'TECH001' }.renglones", equalTo(renglonesIncrementales))
+            .body("datos.find { it.cveProveedor == 'TECH001' }.entregasTardias", equalTo(tardiasAntes + 1));
+    }
+
+    @Test
+    @DisplayName("Surtido - Debería fallar con proveedor inexistente")
+    void deberiaFallarResumenSurtidoConProveedorInexistente() {
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+        .when()
+            .get("/pedidos/surtido/proveedores/NOEXISTE")
+        .then()
+            .statusCode(400)
+            .body("codigo", equalTo("30"));
+    }
+
     @Test
     @DisplayName("Flujo completo - Generar pedido y luego consultarlo")
     void flujCompleto_GenerarPedidoYConsultarlo() {
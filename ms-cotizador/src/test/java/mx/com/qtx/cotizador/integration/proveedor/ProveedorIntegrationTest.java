@@ -6,6 +6,8 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -423,6 +425,55 @@ class ProveedorIntegrationTest extends BaseIntegrationTest {
             .body("datos", hasSize(greaterThan(0)));
     }
 
+    @Test
+    @DisplayName("CU 4.5.4 - Debería buscar sin distinguir mayúsculas ni acentos y reflejar bajas")
+    void deberiaBuscarSinDistinguirAcentosYReflejarBajas() {
+        String requestCreacion = """
+            {
+                "cve": "ACENTO01",
+                "nombre": "Electrónica Pirámide",
+                "razonSocial": "Electrónica Pirámide S.A."
+            }
+            """;
+
+        given()
+            .contentType(ContentType.JSON)
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+            .body(requestCreacion)
+        .when()
+            .post("/proveedores")
+        .then()
+            .statusCode(200);
+
+        // Buscar con otro uso de mayúsculas y sin acentos
+        given()
+            .queryParam("nombre", "ELECTRONICA PIRAM")
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+        .when()
+            .get("/proveedores/buscar/nombre")
+        .then()
+            .statusCode(200)
+            .body("codigo", equalTo("0"))
+            .body("datos.cve", hasItem("ACENTO01"));
+
+        // Eliminar y verificar que ya no aparece
+        given()
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+        .when()
+            .delete("/proveedores/ACENTO01")
+        .then()
+            .statusCode(200);
+
+        given()
+            .queryParam("nombre", "Pirámide")
+            .auth().basic(USER_ADMIN, PASSWORD_ADMIN)
+        .when()
+            .get("/proveedores/buscar/nombre")
+        .then()
+            .statusCode(200)
+            .body("datos.cve", not(hasItem("ACENTO01")));
+    }
+
     @Test
     @DisplayName("CU 4.5.3 - Debería rechazar búsqueda con parámetro vacío")
     void deberiaRechazarBusquedaParametroVacio() {
@@ -36,8 +36,8 @@ class JwtIntegrationTest {
                    "JwtValidationService no debe estar disponible en perfil test");
         assertFalse(applicationContext.containsBean("jwtAuthenticationFilter"), 
                    "JwtAuthenticationFilter no debe estar disponible en perfil test");
-        assertFalse(applicationContext.containsBean("jwksCacheService"), 
-                   "JwksCacheService no debe estar disponible en perfil test");
+        assertFalse(applicationContext.containsBean("jwksKeyStore"), 
+                   "JwksKeyStore no debe estar disponible en perfil test");
     }
 
     @Test
@@ -0,0 +1,155 @@
+package mx.com.qtx.cotizador.security.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para AdaptiveCircuitBreaker
+ */
+class AdaptiveCircuitBreakerTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final AtomicLong now = new AtomicLong();
+
+    private AdaptiveCircuitBreaker breaker() {
+        // Ventana de 10, evalúa desde 4 llamadas, abre con 50% malas, lenta desde 100ms, apertura 1s-4s
+        return new AdaptiveCircuitBreaker(true, 10, 4, 0.5, 100, 1000, 4000, now::get);
+    }
+
+    @Test
+    void testFailures_OpenCircuitAndRejectImmediately() {
+        // Given
+        AdaptiveCircuitBreaker breaker = breaker();
+
+        // When
+        breaker.onResult(false, 5 * MS);
+        breaker.onResult(true, 5 * MS);
+        breaker.onResult(false, 5 * MS);
+        assertEquals(AdaptiveCircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onResult(true, 5 * MS);
+
+        // Then
+        assertEquals(AdaptiveCircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void testSlowCalls_OpenCircuit() {
+        // Given
+        AdaptiveCircuitBreaker breaker = breaker();
+
+        // When
+        breaker.onResult(false, 5 * MS);
+        breaker.onResult(false, 5 * MS);
+        breaker.onResult(false, 150 * MS);
+        breaker.onCancel(200 * MS);
+
+        // Then
+        assertEquals(AdaptiveCircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void testHalfOpen_AllowsSingleProbeAndClosesOnSuccess() {
+        // Given
+        AdaptiveCircuitBreaker breaker = openBreaker();
+        now.addAndGet(1000 * MS);
+
+        // When
+        boolean probe = breaker.tryAcquire();
+        boolean concurrent = breaker.tryAcquire();
+        breaker.onResult(false, 5 * MS);
+
+        // Then
+        assertTrue(probe);
+        assertFalse(concurrent);
+        assertEquals(AdaptiveCircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onResult(true, 5 * MS);
+        assertEquals(AdaptiveCircuitBreaker.State.CLOSED, breaker.getState(), "La ventana se reinicia al cerrar");
+    }
+
+    @Test
+    void testHalfOpen_FailedProbeDoublesOpenTimeUpToMaximum() {
+        // Given
+        AdaptiveCircuitBreaker breaker = openBreaker();
+
+        // When / Then
+        for (long wait : new long[]{1000, 2000, 4000, 4000}) {
+            now.addAndGet(wait * MS - 1);
+            assertFalse(breaker.tryAcquire(), "Sigue abierto antes de " + wait + "ms");
+            now.addAndGet(1);
+            assertTrue(breaker.tryAcquire(), "Prueba permitida a los " + wait + "ms");
+            breaker.onResult(true, 5 * MS);
+            assertEquals(AdaptiveCircuitBreaker.State.OPEN, breaker.getState());
+        }
+    }
+
+    @Test
+    void testHalfOpen_CancelledFastProbeReleasesSlot() {
+        // Given
+        AdaptiveCircuitBreaker breaker = openBreaker();
+        now.addAndGet(1000 * MS);
+        assertTrue(breaker.tryAcquire());
+
+        // When
+        breaker.onCancel(5 * MS);
+
+        // Then
+        assertEquals(AdaptiveCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void testP95_EstimatedFromSuccessfulCalls() {
+        // Given
+        AdaptiveCircuitBreaker breaker = new AdaptiveCircuitBreaker(false, 10, 4, 0.5, 100, 1000, 4000, now::get);
+
+        // When
+        for (int i = 1; i <= 19; i++) {
+            breaker.onResult(false, i * MS);
+        }
+        long beforeMinimum = breaker.getP95Nanos();
+        breaker.onResult(false, 20 * MS);
+        breaker.onResult(true, 500 * MS);
+
+        // Then
+        assertEquals(0, beforeMinimum);
+        assertEquals(19 * MS, breaker.getP95Nanos());
+        assertTrue(breaker.tryAcquire(), "Deshabilitado nunca rechaza");
+    }
+
+    @Test
+    void testP95_CancelledSlowCallsCountAsBadButNotAsLatency() {
+        // Given: ventana de 50 que evalúa desde 20 llamadas
+        AdaptiveCircuitBreaker breaker = new AdaptiveCircuitBreaker(true, 50, 20, 0.5, 100, 1000, 4000, now::get);
+
+        // When
+        for (int i = 1; i <= 17; i++) {
+            breaker.onResult(false, i * MS);
+        }
+        for (int i = 0; i < 3; i++) {
+            breaker.onCancel(500 * MS);
+        }
+        long afterCancels = breaker.getP95Nanos();
+        for (int i = 18; i <= 20; i++) {
+            breaker.onResult(false, i * MS);
+        }
+
+        // Then: las cancelaciones no completan las muestras ni elevan el p95
+        assertEquals(0, afterCancels);
+        assertEquals(19 * MS, breaker.getP95Nanos());
+        assertEquals(AdaptiveCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private AdaptiveCircuitBreaker openBreaker() {
+        AdaptiveCircuitBreaker breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            breaker.onResult(true, 5 * MS);
+        }
+        assertEquals(AdaptiveCircuitBreaker.State.OPEN, breaker.getState());
+        return breaker;
+    }
+}
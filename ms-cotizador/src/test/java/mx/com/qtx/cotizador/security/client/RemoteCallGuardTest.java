@@ -0,0 +1,235 @@
+package mx.com.qtx.cotizador.security.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mx.com.qtx.cotizador.security.metrics.SecurityMetrics;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para RemoteCallGuard
+ */
+class RemoteCallGuardTest {
+
+    private static final String PRIMARY = "http://principal/seguridad/v1/api";
+    private static final String HEDGE = "http://cobertura/seguridad/v1/api";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RemoteCallGuard guard(long deadlineMs, String hedgeBaseUrl) {
+        return guard(deadlineMs, hedgeBaseUrl, 50);
+    }
+
+    private RemoteCallGuard guard(long deadlineMs, String hedgeBaseUrl, long hedgeMinDelayMs) {
+        // Circuito con ventana de 4 que evalúa desde 2 llamadas y abre con 50% de fallas
+        return new RemoteCallGuard("http://principal", "/seguridad/v1/api", 15000, deadlineMs, 2, 10,
+                hedgeBaseUrl, hedgeMinDelayMs, true, 4, 2, 0.5, 1000, 60000, 60000,
+                new SecurityMetrics(meterRegistry), meterRegistry);
+    }
+
+    @Test
+    void testServerErrors_OpenCircuitAndFailFast() {
+        // Given
+        RemoteCallGuard guard = guard(1000, "");
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < 2; i++) {
+            Mono<Boolean> call = guard.call("validar", true, baseUrl -> {
+                calls.incrementAndGet();
+                return Mono.error(WebClientResponseException.create(503, "Service Unavailable", null, null, null));
+            });
+            assertThrows(WebClientResponseException.class, call::block);
+        }
+        Mono<Boolean> rejected = guard.call("validar", true, baseUrl -> {
+            calls.incrementAndGet();
+            return Mono.just(true);
+        });
+
+        // Then
+        assertThrows(SessionValidationClient.SessionValidationException.class, rejected::block);
+        assertEquals(2, calls.get());
+        assertEquals(1, meterRegistry.get("cotizador.seguridad.circuito.rechazos").counter().count());
+        assertEquals(1, meterRegistry.get("cotizador.seguridad.circuito.estado")
+                .tag("instancia", "principal").gauge().value());
+    }
+
+    @Test
+    void testClientErrors_DoNotOpenCircuit() {
+        // Given
+        RemoteCallGuard guard = guard(1000, "");
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            Mono<Boolean> call = guard.call("validar", true, baseUrl -> {
+                calls.incrementAndGet();
+                return Mono.error(WebClientResponseException.create(404, "Not Found", null, null, null));
+            });
+            assertThrows(WebClientResponseException.class, call::block);
+        }
+
+        // Then
+        assertEquals(4, calls.get());
+        assertEquals(0, meterRegistry.get("cotizador.seguridad.circuito.estado")
+                .tag("instancia", "principal").gauge().value());
+    }
+
+    @Test
+    void testConnectionErrors_RetriedWithinBudget() {
+        // Given
+        RemoteCallGuard guard = guard(1000, "");
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        Boolean result = guard.call("validar", true, baseUrl -> {
+            if (calls.incrementAndGet() < 3) {
+                return Mono.error(new WebClientRequestException(new ConnectException("Connection refused"),
+                        HttpMethod.GET, URI.create(baseUrl), new HttpHeaders()));
+            }
+            return Mono.just(true);
+        }).block();
+
+        // Then
+        assertTrue(result);
+        assertEquals(3, calls.get());
+    }
+
+    @Test
+    void testDeadline_BoundsUnresponsiveCall() {
+        // Given
+        RemoteCallGuard guard = guard(200, "");
+
+        // When
+        long start = System.nanoTime();
+        Mono<Boolean> call = guard.call("validar", true, baseUrl -> Mono.never());
+
+        // Then
+        RuntimeException error = assertThrows(RuntimeException.class, call::block);
+        assertInstanceOf(TimeoutException.class, error.getCause());
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 2000);
+    }
+
+    @Test
+    void testHedge_SecondInstanceAnswersSlowCall() {
+        // Given
+        RemoteCallGuard guard = guard(2000, "http://cobertura");
+
+        // When
+        String result = guard.call("validar", true, baseUrl -> PRIMARY.equals(baseUrl)
+                ? Mono.delay(Duration.ofSeconds(1)).thenReturn("principal")
+                : Mono.just("cobertura")).block();
+
+        // Then
+        assertEquals("cobertura", result);
+        assertEquals(1, meterRegistry.get("cotizador.seguridad.cobertura")
+                .tag("resultado", "ganada").counter().count());
+    }
+
+    @Test
+    void testHedge_NotUsedForNonIdempotentCalls() {
+        // Given
+        RemoteCallGuard guard = guard(2000, "http://cobertura");
+        AtomicInteger hedgeCalls = new AtomicInteger();
+
+        // When
+        String result = guard.call("cerrar", false, baseUrl -> {
+            if (HEDGE.equals(baseUrl)) {
+                hedgeCalls.incrementAndGet();
+                return Mono.just("cobertura");
+            }
+            return Mono.delay(Duration.ofMillis(200)).thenReturn("principal");
+        }).block();
+
+        // Then
+        assertEquals("principal", result);
+        assertEquals(0, hedgeCalls.get());
+    }
+
+    @Test
+    void testHedge_LaunchedImmediatelyWhenPrimaryFailsFast() {
+        // Given: el retraso de cobertura supera el plazo, así que sólo la falla puede lanzarla
+        RemoteCallGuard guard = guard(2000, "http://cobertura", 60000);
+        AtomicInteger hedgeCalls = new AtomicInteger();
+
+        // When
+        String result = guard.call("validar", true, baseUrl -> {
+            if (HEDGE.equals(baseUrl)) {
+                hedgeCalls.incrementAndGet();
+                return Mono.just("cobertura");
+            }
+            return Mono.error(WebClientResponseException.create(503, "Service Unavailable", null, null, null));
+        }).block();
+
+        // Then
+        assertEquals("cobertura", result);
+        assertEquals(1, hedgeCalls.get());
+        assertEquals(1, meterRegistry.get("cotizador.seguridad.cobertura")
+                .tag("resultado", "lanzada").counter().count());
+    }
+
+    @Test
+    void testHedge_PrimaryFailureWaitsForHedgeInFlight() {
+        // Given: la cobertura ya salió cuando la principal falla
+        RemoteCallGuard guard = guard(2000, "http://cobertura");
+        AtomicInteger hedgeCalls = new AtomicInteger();
+
+        // When
+        String result = guard.call("validar", true, baseUrl -> {
+            if (HEDGE.equals(baseUrl)) {
+                hedgeCalls.incrementAndGet();
+                return Mono.delay(Duration.ofMillis(200)).thenReturn("cobertura");
+            }
+            return Mono.delay(Duration.ofMillis(100))
+                    .then(Mono.error(WebClientResponseException.create(429, "Too Many Requests", null, null, null)));
+        }).block();
+
+        // Then
+        assertEquals("cobertura", result);
+        assertEquals(1, hedgeCalls.get());
+    }
+
+    @Test
+    void testHedge_ClientErrorFromPrimaryIsNotHedged() {
+        // Given
+        RemoteCallGuard guard = guard(2000, "http://cobertura");
+        AtomicInteger hedgeCalls = new AtomicInteger();
+
+        // When
+        Mono<String> call = guard.call("validar", true, baseUrl -> {
+            if (HEDGE.equals(baseUrl)) {
+                hedgeCalls.incrementAndGet();
+                return Mono.just("cobertura");
+            }
+            return Mono.error(WebClientResponseException.create(401, "Unauthorized", null, null, null));
+        });
+
+        // Then
+        assertThrows(WebClientResponseException.class, call::block);
+        assertEquals(0, hedgeCalls.get());
+    }
+
+    @Test
+    void testHedge_BothInstancesFailingPropagatesError() {
+        // Given
+        RemoteCallGuard guard = guard(2000, "http://cobertura");
+
+        // When
+        Mono<String> call = guard.call("validar", true, baseUrl ->
+                Mono.error(WebClientResponseException.create(503, "Service Unavailable", null, null, null)));
+
+        // Then
+        assertThrows(WebClientResponseException.class, call::block);
+    }
+}
@@ -0,0 +1,118 @@
+package mx.com.qtx.cotizador.security.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import mx.com.qtx.cotizador.security.service.RevokedSessionFilter;
+import mx.com.qtx.cotizador.security.service.SessionCacheService;
+import mx.com.qtx.cotizador.security.service.VerifiedTokenCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.codec.ServerSentEvent;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para SessionRevocationListener
+ */
+class SessionRevocationListenerTest {
+
+    @Mock
+    private SessionCacheService sessionCacheService;
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Mock
+    private RevokedSessionFilter revokedSessionFilter;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testHandleEvent_RevokedSessionsAreInvalidated() {
+        // Given
+        SessionRevocationListener listener = listener("http://localhost:1");
+        ServerSentEvent<String> event = ServerSentEvent.<String>builder()
+                .event(SessionRevocationListener.EVENT_SESSION_REVOKED)
+                .data("{\"sessionIds\":[\"sesion-1\",\"sesion-2\"],\"reason\":\"closed\",\"timestamp\":\"2025-01-01T10:00:00\"}")
+                .build();
+
+        // When
+        listener.handleEvent(event);
+
+        // Then
+        verify(sessionCacheService).invalidateSession("sesion-1");
+        verify(sessionCacheService).invalidateSession("sesion-2");
+        verify(verifiedTokenCache).invalidateSession("sesion-1");
+        verify(verifiedTokenCache).invalidateSession("sesion-2");
+        verify(revokedSessionFilter).markRevoked("sesion-1");
+        verify(revokedSessionFilter).markRevoked("sesion-2");
+    }
+
+    @Test
+    void testHandleEvent_InvalidPayloadIsIgnored() {
+        // Given
+        SessionRevocationListener listener = listener("http://localhost:1");
+        ServerSentEvent<String> event = ServerSentEvent.<String>builder()
+                .event(SessionRevocationListener.EVENT_SESSION_REVOKED)
+                .data("no es json")
+                .build();
+
+        // When
+        listener.handleEvent(event);
+
+        // Then
+        verify(sessionCacheService, never()).invalidateSession(anyString());
+    }
+
+    // Suscripción contra un ms-seguridad simulado
+    @Test
+    void testStart_SubscribesAndAppliesRevocations() throws Exception {
+        // Given
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/seguridad/v1/api/session/revocations", exchange -> {
+            byte[] body = ("event:connected\ndata:ok\n\n" +
+                           ":heartbeat\n\n" +
+                           "event:session-revoked\ndata:{\"sessionIds\":[\"sesion-1\"],\"reason\":\"expired\"}\n\n")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.start();
+        SessionRevocationListener listener = listener("http://localhost:" + server.getAddress().getPort());
+
+        try {
+            // When
+            listener.start();
+
+            // Then
+            verify(sessionCacheService, timeout(5000)).invalidateSession("sesion-1");
+            verify(verifiedTokenCache, timeout(5000)).invalidateSession("sesion-1");
+            verify(sessionCacheService, atLeastOnce()).clearCache();
+            verify(sessionCacheService, atLeastOnce()).setPushConnected(true);
+            // El servidor cierra el flujo: se marca como desconectado para volver al TTL corto
+            verify(sessionCacheService, timeout(5000).atLeastOnce()).setPushConnected(false);
+        } finally {
+            listener.stop();
+            server.stop(0);
+        }
+    }
+
+    private SessionRevocationListener listener(String baseUrl) {
+        return new SessionRevocationListener(sessionCacheService, verifiedTokenCache, revokedSessionFilter, objectMapper,
+                baseUrl, "/seguridad/v1/api", true, 45000, 1000, 30000);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,182 @@
+package mx.com.qtx.cotizador.security.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import mx.com.qtx.cotizador.security.dto.SessionBatchValidationRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas de la validación agrupada de SessionValidationClient contra un ms-seguridad simulado
+ */
+class SessionValidationClientBatchTest {
+
+    @Test
+    void testValidateSessionAsync_GroupsConcurrentCallsInOneBatch() throws Exception {
+        // Given
+        ObjectMapper objectMapper = new ObjectMapper();
+        AtomicInteger batchRequests = new AtomicInteger();
+        HttpServer server = startServer();
+        server.createContext("/seguridad/v1/api/session/validate/batch", exchange -> {
+            batchRequests.incrementAndGet();
+            SessionBatchValidationRequest request =
+                    objectMapper.readValue(exchange.getRequestBody(), SessionBatchValidationRequest.class);
+            Map<String, Boolean> sessions = new LinkedHashMap<>();
+            request.getSessionIds().forEach(id -> sessions.put(id, id.startsWith("activa")));
+            respond(exchange, 200, objectMapper.writeValueAsString(Map.of("sessions", sessions, "success", true)));
+        });
+        SessionValidationClient client = new SessionValidationClient(
+                "http://localhost:" + server.getAddress().getPort(), "/seguridad/v1/api", 5000, 2000, 50, 100);
+
+        try {
+            // When
+            List<CompletableFuture<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                results.add(client.validateSessionAsync((i % 2 == 0 ? "activa-" : "cerrada-") + i));
+            }
+            CompletableFuture<Boolean> duplicated = client.validateSessionAsync("activa-0");
+
+            // Then
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i % 2 == 0, results.get(i).get(5, TimeUnit.SECONDS));
+            }
+            assertTrue(duplicated.get(5, TimeUnit.SECONDS));
+            assertEquals(1, batchRequests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testValidateSessionAsync_FallsBackWhenBatchIsNotSupported() throws Exception {
+        // Given
+        HttpServer server = startServer();
+        server.createContext("/seguridad/v1/api/session/validate", exchange -> {
+            if ("POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 404, "{}");
+                return;
+            }
+            String path = exchange.getRequestURI().getPath();
+            String sessionId = path.substring(path.lastIndexOf('/') + 1);
+            respond(exchange, 200, "{\"sessionId\":\"" + sessionId + "\",\"isActive\":true,\"success\":true}");
+        });
+        SessionValidationClient client = new SessionValidationClient(
+                "http://localhost:" + server.getAddress().getPort(), "/seguridad/v1/api", 5000, 2000, 5, 100);
+
+        try {
+            // When
+            boolean result = client.validateSession("sesion-individual");
+
+            // Then
+            assertTrue(result);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testValidateSessionAsync_FallsBackWhenBatchIsForbidden() throws Exception {
+        // Given: una versión anterior de ms-seguridad protege la ruta del lote
+        AtomicInteger individualRequests = new AtomicInteger();
+        HttpServer server = startServer();
+        server.createContext("/seguridad/v1/api/session/validate", exchange -> {
+            if ("POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 403, "{}");
+                return;
+            }
+            individualRequests.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            String sessionId = path.substring(path.lastIndexOf('/') + 1);
+            respond(exchange, 200, "{\"sessionId\":\"" + sessionId + "\",\"isActive\":"
+                    + sessionId.startsWith("activa") + ",\"success\":true}");
+        });
+        SessionValidationClient client = new SessionValidationClient(
+                "http://localhost:" + server.getAddress().getPort(), "/seguridad/v1/api", 5000, 2000, 50, 100);
+
+        try {
+            // When
+            CompletableFuture<Boolean> activa = client.validateSessionAsync("activa-1");
+            CompletableFuture<Boolean> cerrada = client.validateSessionAsync("cerrada-1");
+
+            // Then
+            assertTrue(activa.get(5, TimeUnit.SECONDS));
+            assertFalse(cerrada.get(5, TimeUnit.SECONDS));
+            assertEquals(2, individualRequests.get());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testValidateSessionAsync_BatchServerErrorIsNotTreatedAsLogout() throws Exception {
+        // Given
+        HttpServer server = startServer();
+        server.createContext("/seguridad/v1/api/session/validate/batch", exchange -> respond(exchange, 503, "{}"));
+        SessionValidationClient client = new SessionValidationClient(
+                "http://localhost:" + server.getAddress().getPort(), "/seguridad/v1/api", 5000, 2000, 5, 100);
+
+        try {
+            // When
+            CompletableFuture<Boolean> result = client.validateSessionAsync("activa-1");
+
+            // Then
+            ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(SessionValidationClient.SessionValidationException.class, error.getCause());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testValidateSessionAsync_EmptyBatchResponseIsNotTreatedAsLogout() throws Exception {
+        // Given
+        HttpServer server = startServer();
+        server.createContext("/seguridad/v1/api/session/validate/batch", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        SessionValidationClient client = new SessionValidationClient(
+                "http://localhost:" + server.getAddress().getPort(), "/seguridad/v1/api", 5000, 2000, 5, 100);
+
+        try {
+            // When
+            CompletableFuture<Boolean> result = client.validateSessionAsync("activa-1");
+
+            // Then
+            ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(SessionValidationClient.SessionValidationException.class, error.getCause());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static HttpServer startServer() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.start();
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package mx.com.qtx.cotizador.security.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mx.com.qtx.cotizador.security.client.SessionValidationClient;
+import mx.com.qtx.cotizador.security.service.JwksKeyStore;
+import mx.com.qtx.cotizador.security.service.JwtValidationService;
+import mx.com.qtx.cotizador.security.service.SessionCacheService;
+import mx.com.qtx.cotizador.security.service.VerifiedTokenCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para SecurityMetrics y SecurityMeterBinder
+ */
+class SecurityMetricsTest {
+
+    @Mock
+    private SessionValidationClient sessionValidationClient;
+
+    @Mock
+    private JwksKeyStore jwksKeyStore;
+
+    @Mock
+    private JwtValidationService jwtValidationService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testTimeRemoteCall_RecordsOutcomePerOperation() {
+        // Given
+        SecurityMetrics metrics = new SecurityMetrics(meterRegistry);
+
+        // When
+        Mono.just(true).transform(metrics.<Boolean>timeRemoteCall("validar")).block();
+        Mono.<Boolean>error(new IllegalStateException("sin conexión"))
+                .transform(metrics.<Boolean>timeRemoteCall("validar"))
+                .onErrorReturn(false)
+                .block();
+
+        // Then
+        Timer exito = meterRegistry.get(SecurityMetrics.REMOTE_CALL_TIMER)
+                .tags("operacion", "validar", "resultado", "exito").timer();
+        Timer error = meterRegistry.get(SecurityMetrics.REMOTE_CALL_TIMER)
+                .tags("operacion", "validar", "resultado", "error").timer();
+        assertEquals(1, exito.count());
+        assertEquals(1, error.count());
+    }
+
+    @Test
+    void testRecordFilterAndVerification_UsePreRegisteredTimers() {
+        // Given
+        SecurityMetrics metrics = new SecurityMetrics(meterRegistry);
+
+        // When
+        metrics.recordFilter(SecurityMetrics.FilterOutcome.AUTHENTICATED, 250_000);
+        metrics.recordJwtVerification(true, true, 20_000);
+        metrics.recordJwtVerification(false, false, 3_000_000);
+
+        // Then
+        assertEquals(0.25, meterRegistry.get(SecurityMetrics.FILTER_TIMER)
+                .tag("resultado", "autenticado").timer().totalTime(TimeUnit.MILLISECONDS), 1e-9);
+        assertEquals(0, meterRegistry.get(SecurityMetrics.FILTER_TIMER)
+                .tag("resultado", "rechazado").timer().count());
+        assertEquals(1, meterRegistry.get(SecurityMetrics.JWT_VERIFICATION_TIMER)
+                .tags("origen", "cache", "resultado", "valido").timer().count());
+        assertEquals(1, meterRegistry.get(SecurityMetrics.JWT_VERIFICATION_TIMER)
+                .tags("origen", "firma", "resultado", "invalido").timer().count());
+    }
+
+    @Test
+    void testBinder_ExposesServiceStatistics() {
+        // Given
+        SessionCacheService sessionCacheService = new SessionCacheService(sessionValidationClient, 30000, 100, 30000, 5000);
+        when(sessionValidationClient.validateSessionAsync("sesion-1")).thenReturn(CompletableFuture.completedFuture(true));
+        when(jwksKeyStore.getStats()).thenReturn(new JwksKeyStore.StoreStats(2, "\"v1\"", 0, 1, 3, 1, 0, 4, 1, 60000));
+        when(jwtValidationService.getCacheStats()).thenReturn(new JwtValidationService.CacheStats(2, 2, 300000));
+        when(jwtValidationService.getKeyRotationStatus()).thenReturn(new JwtValidationService.KeyRotationStatus(
+                Set.of("actual", "nueva"), Map.of("actual", 1000L, "nueva", 4000L), 300000, 5000));
+        when(jwtValidationService.getKeyRotationConfig())
+                .thenReturn(new JwtValidationService.KeyRotationConfig(true, 3, true, 2));
+        new SecurityMeterBinder(sessionCacheService, new VerifiedTokenCache(true, 10), jwksKeyStore, jwtValidationService)
+                .bindTo(meterRegistry);
+
+        // When
+        sessionCacheService.validateSession("sesion-1");
+        sessionCacheService.validateSession("sesion-1");
+
+        // Then
+        assertEquals(1, meterRegistry.get("cotizador.sesiones.cache.consultas")
+                .tag("resultado", "acierto").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cotizador.sesiones.cache.consultas")
+                .tag("resultado", "fallo").functionCounter().count());
+        assertEquals(1, meterRegistry.get("cotizador.sesiones.cache.tamano").gauge().value());
+        assertEquals(3, meterRegistry.get("cotizador.jwt.llaves.descargas").functionCounter().count());
+        assertEquals(4, meterRegistry.get("cotizador.jwt.kid.desconocidos.aciertos").functionCounter().count());
+        assertEquals(2, meterRegistry.get("cotizador.jwt.llaves").gauge().value());
+        assertEquals(4000, meterRegistry.get("cotizador.jwt.llaves.antiguedad").gauge().value());
+        assertEquals(2, meterRegistry.get("cotizador.jwt.kid.invalidos").gauge().value());
+        assertEquals(0, meterRegistry.get("cotizador.jwt.cache.consultas")
+                .tag("resultado", "acierto").functionCounter().count());
+    }
+}
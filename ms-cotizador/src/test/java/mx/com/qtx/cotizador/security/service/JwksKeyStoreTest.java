@@ -0,0 +1,225 @@
+package mx.com.qtx.cotizador.security.service;
+
+import mx.com.qtx.cotizador.security.client.JwksClient;
+import mx.com.qtx.cotizador.security.dto.JwkKey;
+import mx.com.qtx.cotizador.security.dto.JwksResponse;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para JwksKeyStore
+ */
+class JwksKeyStoreTest {
+
+    private static RSAPublicKey llaveActual;
+    private static RSAPublicKey llaveNueva;
+
+    @Mock
+    private JwksClient jwksClient;
+
+    @BeforeAll
+    static void generarLlaves() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair actual = generator.generateKeyPair();
+        KeyPair nueva = generator.generateKeyPair();
+        llaveActual = (RSAPublicKey) actual.getPublic();
+        llaveNueva = (RSAPublicKey) nueva.getPublic();
+    }
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private static JwkKey jwk(String kid, RSAPublicKey key) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return new JwkKey("RSA", "sig", kid, "RS256",
+                encoder.encodeToString(key.getModulus().toByteArray()),
+                encoder.encodeToString(key.getPublicExponent().toByteArray()));
+    }
+
+    private static Mono<JwksClient.JwksFetchResult> jwks(String etag, JwkKey... keys) {
+        return Mono.just(JwksClient.JwksFetchResult.modified(new JwksResponse(List.of(keys)), etag));
+    }
+
+    private JwksKeyStore store(long minRefreshIntervalMs) {
+        return new JwksKeyStore(jwksClient, 300000, minRefreshIntervalMs, 60000, 100, true, true);
+    }
+
+    @Test
+    void testGetKey_LoadsAllPublishedKeys() {
+        // Given
+        JwksKeyStore store = store(10000);
+        when(jwksClient.fetchJwksConditional(null))
+                .thenReturn(jwks("\"v1\"", jwk("actual", llaveActual), jwk("nueva", llaveNueva)));
+
+        // When
+        PublicKey actual = store.getKey("actual");
+        PublicKey nueva = store.getKey("nueva");
+
+        // Then
+        assertEquals(llaveActual, actual);
+        assertEquals(llaveNueva, nueva);
+        assertEquals(1, store.getStats().getFetchCount());
+        assertEquals("\"v1\"", store.getStats().getEtag());
+    }
+
+    @Test
+    void testGetKey_ConcurrentUnknownKidsShareOneFetch() throws Exception {
+        // Given
+        JwksKeyStore store = store(10000);
+        Sinks.One<JwksClient.JwksFetchResult> respuesta = Sinks.one();
+        when(jwksClient.fetchJwksConditional(any())).thenReturn(respuesta.asMono());
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            // When
+            Future<PublicKey> first = executor.submit(() -> store.getKey("nueva"));
+            Future<PublicKey> second = executor.submit(() -> store.getKey("nueva"));
+            Future<PublicKey> third = executor.submit(() -> store.getKey("actual"));
+            while (store.getStats().getCoalescedCount() < 2) {
+                Thread.sleep(5);
+            }
+            respuesta.tryEmitValue(JwksClient.JwksFetchResult.modified(
+                    new JwksResponse(List.of(jwk("actual", llaveActual), jwk("nueva", llaveNueva))), "\"v2\""));
+
+            // Then
+            assertEquals(llaveNueva, first.get(5, TimeUnit.SECONDS));
+            assertEquals(llaveNueva, second.get(5, TimeUnit.SECONDS));
+            assertEquals(llaveActual, third.get(5, TimeUnit.SECONDS));
+            verify(jwksClient, times(1)).fetchJwksConditional(any());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGetKey_BogusKidIsRememberedWithoutRefetching() {
+        // Given
+        JwksKeyStore store = store(0);
+        when(jwksClient.fetchJwksConditional(any())).thenReturn(jwks("\"v1\"", jwk("actual", llaveActual)));
+        store.getKey("actual");
+
+        // When
+        PublicKey first = store.getKey("falso");
+        PublicKey second = store.getKey("falso");
+
+        // Then
+        assertNull(first);
+        assertNull(second);
+        verify(jwksClient, times(2)).fetchJwksConditional(any());
+        assertEquals(1, store.getStats().getNegativeHitCount());
+        assertEquals(1, store.getStats().getUnknownKeyIdCount());
+    }
+
+    @Test
+    void testGetKey_UnknownKidsWithinMinIntervalDoNotFetch() {
+        // Given
+        JwksKeyStore store = store(60000);
+        when(jwksClient.fetchJwksConditional(any())).thenReturn(jwks("\"v1\"", jwk("actual", llaveActual)));
+        store.getKey("actual");
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            assertNull(store.getKey("falso-" + i));
+        }
+
+        // Then
+        verify(jwksClient, times(1)).fetchJwksConditional(any());
+    }
+
+    @Test
+    void testGetKey_KidRotatedRightAfterScheduledRefreshIsFetched() {
+        // Given: la actualización programada acaba de descargar el conjunto y la llave nueva se publica justo después
+        JwksKeyStore store = store(60000);
+        when(jwksClient.fetchJwksConditional(null)).thenReturn(jwks("\"v1\"", jwk("actual", llaveActual)));
+        when(jwksClient.fetchJwksConditional("\"v1\""))
+                .thenReturn(jwks("\"v2\"", jwk("actual", llaveActual), jwk("nueva", llaveNueva)));
+        store.scheduledRefresh();
+
+        // When: dentro del intervalo mínimo
+        PublicKey nueva = store.getKey("nueva");
+
+        // Then
+        assertEquals(llaveNueva, nueva);
+        verify(jwksClient, times(2)).fetchJwksConditional(any());
+        assertEquals(0, store.getStats().getUnknownKeyIdCount());
+    }
+
+    @Test
+    void testGetKey_KidRotatedRightAfterAnotherUnknownKidIsFetchedAfterMinInterval() throws Exception {
+        // Given: un kid falso acaba de provocar una descarga y la llave nueva se publica justo después
+        JwksKeyStore store = store(200);
+        when(jwksClient.fetchJwksConditional(null)).thenReturn(jwks("\"v1\"", jwk("actual", llaveActual)));
+        when(jwksClient.fetchJwksConditional("\"v1\""))
+                .thenReturn(jwks("\"v1\"", jwk("actual", llaveActual)))
+                .thenReturn(jwks("\"v2\"", jwk("actual", llaveActual), jwk("nueva", llaveNueva)));
+        store.scheduledRefresh();
+        assertNull(store.getKey("falso"));
+
+        // When: dentro del intervalo mínimo se rechaza sin recordarlo
+        PublicKey dentroDelIntervalo = store.getKey("nueva");
+        Thread.sleep(300);
+        PublicKey despuesDelIntervalo = store.getKey("nueva");
+
+        // Then
+        assertNull(dentroDelIntervalo);
+        assertEquals(llaveNueva, despuesDelIntervalo);
+        verify(jwksClient, times(3)).fetchJwksConditional(any());
+        assertEquals(1, store.getStats().getUnknownKeyIdCount());
+    }
+
+    @Test
+    void testForceRefresh_NotModifiedKeepsKeysAndSendsEtag() {
+        // Given
+        JwksKeyStore store = store(10000);
+        when(jwksClient.fetchJwksConditional(null)).thenReturn(jwks("\"v1\"", jwk("actual", llaveActual)));
+        when(jwksClient.fetchJwksConditional("\"v1\"")).thenReturn(Mono.just(JwksClient.JwksFetchResult.notModified("\"v1\"")));
+        PublicKey before = store.getKey("actual");
+
+        // When
+        boolean refreshed = store.forceRefresh();
+
+        // Then
+        assertTrue(refreshed);
+        assertSame(before, store.getKey("actual"));
+        verify(jwksClient).fetchJwksConditional("\"v1\"");
+        assertEquals(1, store.getStats().getNotModifiedCount());
+    }
+
+    @Test
+    void testGetKey_FailedFetchIsNotRetriedOnEveryRequest() {
+        // Given
+        JwksKeyStore store = store(60000);
+        when(jwksClient.fetchJwksConditional(any()))
+                .thenReturn(Mono.error(new JwksClient.JwksClientException("ms-seguridad no disponible")));
+
+        // When / Then
+        assertThrows(JwksClient.JwksClientException.class, () -> store.getKey("actual"));
+        assertThrows(JwksClient.JwksClientException.class, () -> store.getKey("actual"));
+        verify(jwksClient, times(1)).fetchJwksConditional(any());
+        assertEquals(1, store.getStats().getFailureCount());
+        assertEquals(0, store.getStats().getUnknownKeyIdCount());
+    }
+}
@@ -0,0 +1,262 @@
+package mx.com.qtx.cotizador.security.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias y de fuzzing para JwtHeaderReader
+ */
+class JwtHeaderReaderTest {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static String token(String headerJson) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(headerJson.getBytes(StandardCharsets.UTF_8)) + ".e30.firma";
+    }
+
+    @Test
+    void testRead_CompactHeader() {
+        // When
+        JwtHeaderReader.JwtHeader header = JwtHeaderReader.read(token("{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"llave-1\"}"));
+
+        // Then
+        assertNotNull(header);
+        assertEquals("llave-1", header.getKeyId());
+        assertEquals("RS256", header.getAlgorithm());
+    }
+
+    @Test
+    void testRead_HeaderWithWhitespaceAndOtherMembers() {
+        // When
+        JwtHeaderReader.JwtHeader header = JwtHeaderReader.read(token(
+                "{\n  \"typ\" : \"JWT\",\n  \"crit\" : [\"exp\", 1, true, null],\n" +
+                "  \"x5t\" : {\"a\": -1.5e3},\n  \"kid\" : \"llave-2\" ,\n  \"alg\" :\t\"PS256\"\n}"));
+
+        // Then
+        assertNotNull(header);
+        assertEquals("llave-2", header.getKeyId());
+        assertEquals("PS256", header.getAlgorithm());
+    }
+
+    @Test
+    void testRead_EscapesAndUnicode() {
+        // When
+        JwtHeaderReader.JwtHeader header = JwtHeaderReader.read(token(
+                "{\"alg\":\"RS256\",\"\\u006bid\":\"a\\\"b\\\\c\\/d\\u00e9-\u00f1\"}"));
+
+        // Then
+        assertNotNull(header);
+        assertEquals("a\"b\\c/d\u00e9-\u00f1", header.getKeyId());
+    }
+
+    @Test
+    void testRead_PaddedHeaderIsAccepted() {
+        // Given
+        String headerJson = "{\"alg\":\"RS256\",\"kid\":\"k\"}";
+        String padded = Base64.getUrlEncoder().encodeToString(headerJson.getBytes(StandardCharsets.UTF_8)) + ".e30.firma";
+
+        // When
+        JwtHeaderReader.JwtHeader header = JwtHeaderReader.read(padded);
+
+        // Then
+        assertNotNull(header);
+        assertEquals("k", header.getKeyId());
+    }
+
+    @Test
+    void testRead_MissingMembersAreNull() {
+        // When
+        JwtHeaderReader.JwtHeader header = JwtHeaderReader.read(token("{}"));
+
+        // Then
+        assertNotNull(header);
+        assertNull(header.getKeyId());
+        assertNull(header.getAlgorithm());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "{",
+            "[]",
+            "{\"kid\":\"a\"",
+            "{\"kid\":\"a\",}",
+            "{\"kid\":\"a\"}x",
+            "{\"kid\":1}",
+            "{\"kid\":null}",
+            "{\"kid\":\"a\",\"kid\":\"b\"}",
+            "{\"alg\":\"RS256\",\"alg\":\"none\"}",
+            "{\"kid\":\"a\\q\"}",
+            "{\"kid\":\"a\\u00zz\"}",
+            "{\"kid\":\"a\nb\"}",
+            "{kid:\"a\"}",
+            "{\"x\":tru}",
+            "{\"x\":-}",
+            "{\"x\":[1,}",
+            "{\"x\":[[[[[[[[[[[[[[[[[[[[1]]]]]]]]]]]]]]]]]]]}"
+    })
+    void testRead_MalformedHeaderJsonIsRejected(String headerJson) {
+        assertNull(JwtHeaderReader.read(token(headerJson)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "sin-puntos",
+            ".e30.firma",
+            "eyJ!bGciOiJSUzI1NiJ9.e30.firma",
+            "eyJhbGciOiJSUzI1NiJ9a.e30.firma",
+            "eyJhbGciOiJSUzI1NiJ9===.e30.firma",
+            "eyJhbGc\u00e9OiJSUzI1NiJ9.e30.firma",
+            " eyJhbGciOiJSUzI1NiJ9.e30.firma"
+    })
+    void testRead_MalformedTokenIsRejected(String token) {
+        assertNull(JwtHeaderReader.read(token));
+    }
+
+    @Test
+    void testRead_NullAndOversizedTokenAreRejected() {
+        assertNull(JwtHeaderReader.read(null));
+        assertNull(JwtHeaderReader.read("e".repeat(JwtHeaderReader.MAX_HEADER_CHARS + 4) + ".e30.firma"));
+    }
+
+    @Test
+    void testRead_RepeatedHeaderIsReused() {
+        // Given
+        String first = token("{\"alg\":\"RS256\",\"kid\":\"llave-1\"}");
+        String sameKey = first.substring(0, first.indexOf('.')) + ".otro.payload";
+        String otherKey = token("{\"alg\":\"RS256\",\"kid\":\"llave-2\"}");
+
+        // When
+        JwtHeaderReader.JwtHeader header = JwtHeaderReader.read(first);
+
+        // Then
+        assertSame(header, JwtHeaderReader.read(sameKey));
+        assertEquals("llave-2", JwtHeaderReader.read(otherKey).getKeyId());
+        assertNull(JwtHeaderReader.read("x" + first));
+    }
+
+    // Fuzzing con semilla fija: el lector nunca lanza excepciones y coincide con Jackson
+
+    @Test
+    void testFuzz_RandomHeadersMatchJackson() throws Exception {
+        Random random = new Random(20240601L);
+
+        for (int i = 0; i < 5000; i++) {
+            // Given
+            ObjectNode header = objectMapper.createObjectNode();
+            String keyId = randomText(random);
+            String algorithm = randomText(random);
+            if (random.nextBoolean()) {
+                header.put("typ", randomText(random));
+            }
+            header.put("kid", keyId);
+            if (random.nextInt(4) == 0) {
+                header.putArray("crit").add(random.nextInt()).add(randomText(random)).addNull();
+            }
+            header.put("alg", algorithm);
+            if (random.nextInt(4) == 0) {
+                header.putObject("jwk").put("e", random.nextDouble()).put("n", random.nextBoolean());
+            }
+            String json = random.nextBoolean()
+                    ? objectMapper.writeValueAsString(header)
+                    : objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(header);
+
+            // When
+            JwtHeaderReader.JwtHeader parsed = JwtHeaderReader.read(token(json));
+
+            // Then
+            assertNotNull(parsed, json);
+            assertEquals(keyId, parsed.getKeyId(), json);
+            assertEquals(algorithm, parsed.getAlgorithm(), json);
+        }
+    }
+
+    @Test
+    void testFuzz_MutatedTokensNeverThrowAndAgreeWithJackson() {
+        Random random = new Random(7L);
+        String base = token("{\"alg\":\"RS256\",\"typ\":\"JWT\",\"kid\":\"llave-\\u00e9\",\"crit\":[\"x\",{\"y\":1}]}");
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_=.+/ \u00e9";
+
+        for (int i = 0; i < 20000; i++) {
+            // Given
+            StringBuilder mutated = new StringBuilder(base);
+            int mutations = 1 + random.nextInt(4);
+            for (int m = 0; m < mutations && mutated.length() > 0; m++) {
+                int at = random.nextInt(mutated.length());
+                switch (random.nextInt(3)) {
+                    case 0 -> mutated.setCharAt(at, alphabet.charAt(random.nextInt(alphabet.length())));
+                    case 1 -> mutated.deleteCharAt(at);
+                    default -> mutated.insert(at, alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+            }
+            String token = mutated.toString();
+
+            // When
+            JwtHeaderReader.JwtHeader parsed = assertDoesNotThrow(() -> JwtHeaderReader.read(token), token);
+
+            // Then
+            if (parsed != null) {
+                JsonNode expected = jacksonHeader(token);
+                assertNotNull(expected, token);
+                assertEquals(textOrNull(expected.get("kid")), parsed.getKeyId(), token);
+                assertEquals(textOrNull(expected.get("alg")), parsed.getAlgorithm(), token);
+            }
+        }
+    }
+
+    @Test
+    void testFuzz_RandomBytesNeverThrow() {
+        Random random = new Random(42L);
+
+        for (int i = 0; i < 20000; i++) {
+            byte[] bytes = new byte[random.nextInt(64)];
+            random.nextBytes(bytes);
+            String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes) + ".e30.firma";
+
+            assertDoesNotThrow(() -> JwtHeaderReader.read(token), token);
+        }
+    }
+
+    private static String randomText(Random random) {
+        StringBuilder text = new StringBuilder();
+        int length = random.nextInt(12);
+        for (int i = 0; i < length; i++) {
+            int kind = random.nextInt(10);
+            if (kind < 6) {
+                text.append((char) ('a' + random.nextInt(26)));
+            } else if (kind < 8) {
+                text.append("\"\\/\b\f\n\r\t".charAt(random.nextInt(8)));
+            } else if (kind < 9) {
+                text.append((char) (0x80 + random.nextInt(0x700)));
+            } else {
+                text.appendCodePoint(0x1F600 + random.nextInt(32));
+            }
+        }
+        return text.toString();
+    }
+
+    private static JsonNode jacksonHeader(String token) {
+        try {
+            String encoded = token.substring(0, token.indexOf('.'));
+            JsonNode node = objectMapper.readTree(Base64.getUrlDecoder().decode(encoded));
+            return node != null && node.isObject() ? node : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String textOrNull(JsonNode node) {
+        return node != null ? node.asText() : null;
+    }
+}
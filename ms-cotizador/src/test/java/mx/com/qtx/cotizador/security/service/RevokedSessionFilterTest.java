@@ -0,0 +1,162 @@
+package mx.com.qtx.cotizador.security.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mx.com.qtx.cotizador.security.client.SessionValidationClient;
+import mx.com.qtx.cotizador.security.dto.RevokedSessionSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para RevokedSessionFilter
+ */
+class RevokedSessionFilterTest {
+
+    @Mock
+    private SessionValidationClient sessionValidationClient;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    // Construye la instantánea como lo hace ms-seguridad
+    private static RevokedSessionSnapshot snapshot(long version, List<String> revoked, List<String> delta) {
+        int numBits = 8192;
+        int numHashes = 7;
+        long[] words = new long[numBits / Long.SIZE];
+        for (String sessionId : revoked) {
+            long hash = RevokedSessionFilter.hash64(sessionId);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < numHashes; i++) {
+                int index = (int) Math.floorMod(h1 + (long) i * h2, (long) numBits);
+                words[index >>> 6] |= 1L << index;
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(words.length * Long.BYTES);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+
+        RevokedSessionSnapshot snapshot = new RevokedSessionSnapshot();
+        snapshot.setVersion(version);
+        snapshot.setRetentionMs(900000);
+        snapshot.setEntries(revoked.size());
+        snapshot.setHashAlgorithm(RevokedSessionFilter.HASH_ALGORITHM);
+        snapshot.setNumBits(numBits);
+        snapshot.setNumHashes(numHashes);
+        snapshot.setBits(Base64.getEncoder().encodeToString(buffer.array()));
+        snapshot.setDelta(delta);
+        return snapshot;
+    }
+
+    @Test
+    void testHash64_MatchesMsSeguridadVectors() {
+        // Los mismos vectores se verifican en SessionBloomFilterTest de ms-seguridad
+        assertEquals(0xefd01f60ba992926L, RevokedSessionFilter.hash64(""));
+        assertEquals(0x1832b9b1a3e815d4L, RevokedSessionFilter.hash64("sesion-1"));
+        assertEquals(0x7d919f02b6e5e450L, RevokedSessionFilter.hash64("5f0e8a9c-3b1d-4e2f-8a7c-6d9b0e1f2a3b"));
+    }
+
+    @Test
+    void testCheck_DecidesInMemoryWithSnapshot() {
+        // Given
+        RevokedSessionFilter filter = new RevokedSessionFilter(sessionValidationClient, meterRegistry, true, 60000);
+        List<String> revoked = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            revoked.add("revocada-" + i);
+        }
+        filter.apply(snapshot(1, revoked, List.of("revocada-0")));
+
+        // When / Then
+        assertEquals(RevokedSessionFilter.SessionCheck.REVOKED, filter.check("revocada-0"));
+        assertEquals(RevokedSessionFilter.SessionCheck.FILTER_HIT, filter.check("revocada-1"));
+        int notRevoked = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (filter.check("activa-" + i) == RevokedSessionFilter.SessionCheck.NOT_REVOKED) {
+                notRevoked++;
+            }
+        }
+        assertTrue(notRevoked > 950, "Sesiones decididas en memoria: " + notRevoked);
+        assertTrue(filter.getExpectedFalsePositiveRate() > 0);
+        assertEquals(8192 / 8.0, meterRegistry.get("cotizador.sesiones.filtro.bytes").gauge().value());
+        verifyNoInteractions(sessionValidationClient);
+    }
+
+    @Test
+    void testRecordFilterHit_TracksFalsePositivesAndRemembersRevocations() {
+        // Given
+        RevokedSessionFilter filter = new RevokedSessionFilter(sessionValidationClient, meterRegistry, true, 60000);
+        filter.apply(snapshot(1, List.of("revocada", "activa"), List.of()));
+        filter.check("otra");
+
+        // When
+        filter.recordFilterHit("activa", true);
+        filter.recordFilterHit("revocada", false);
+
+        // Then
+        assertEquals(0.5, filter.getObservedFalsePositiveRate());
+        assertEquals(1.0, meterRegistry.get("cotizador.sesiones.filtro.falsos_positivos").counter().count());
+        assertEquals(RevokedSessionFilter.SessionCheck.REVOKED, filter.check("revocada"));
+    }
+
+    @Test
+    void testCheck_UnavailableWhenDisabledMissingOrStale() throws InterruptedException {
+        // Given
+        RevokedSessionFilter disabled = new RevokedSessionFilter(sessionValidationClient, meterRegistry, false, 60000);
+        RevokedSessionFilter stale = new RevokedSessionFilter(sessionValidationClient, new SimpleMeterRegistry(), true, 10);
+        disabled.apply(snapshot(1, List.of(), List.of()));
+
+        // When / Then
+        assertEquals(RevokedSessionFilter.SessionCheck.UNAVAILABLE, disabled.check("sesion-1"));
+        assertEquals(RevokedSessionFilter.SessionCheck.UNAVAILABLE, stale.check("sesion-1"));
+        stale.apply(snapshot(1, List.of(), List.of()));
+        assertEquals(RevokedSessionFilter.SessionCheck.NOT_REVOKED, stale.check("sesion-1"));
+        Thread.sleep(30);
+        assertEquals(RevokedSessionFilter.SessionCheck.UNAVAILABLE, stale.check("sesion-1"));
+    }
+
+    @Test
+    void testPoll_RequestsDeltaSinceCurrentVersion() {
+        // Given
+        RevokedSessionFilter filter = new RevokedSessionFilter(sessionValidationClient, meterRegistry, true, 60000);
+        when(sessionValidationClient.getRevocationSnapshotAsync(0))
+                .thenReturn(CompletableFuture.completedFuture(snapshot(7, List.of("revocada"), List.of())));
+        when(sessionValidationClient.getRevocationSnapshotAsync(7))
+                .thenReturn(CompletableFuture.completedFuture(snapshot(8, List.of("revocada", "nueva"), List.of("nueva"))));
+
+        // When
+        filter.poll();
+        filter.poll();
+
+        // Then
+        verify(sessionValidationClient).getRevocationSnapshotAsync(0);
+        verify(sessionValidationClient).getRevocationSnapshotAsync(7);
+        assertEquals(RevokedSessionFilter.SessionCheck.REVOKED, filter.check("nueva"));
+    }
+
+    @Test
+    void testApply_RejectsUnknownHashAlgorithm() {
+        // Given
+        RevokedSessionFilter filter = new RevokedSessionFilter(sessionValidationClient, meterRegistry, true, 60000);
+        RevokedSessionSnapshot snapshot = snapshot(1, List.of(), List.of());
+        snapshot.setHashAlgorithm("murmur3");
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> filter.apply(snapshot));
+        assertEquals(RevokedSessionFilter.SessionCheck.UNAVAILABLE, filter.check("sesion-1"));
+    }
+}
@@ -0,0 +1,148 @@
+package mx.com.qtx.cotizador.security.service;
+
+import mx.com.qtx.cotizador.security.client.SessionValidationClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para SessionCacheService
+ */
+class SessionCacheServiceTest {
+
+    @Mock
+    private SessionValidationClient sessionValidationClient;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void testValidateSession_SecondCallIsCacheHit() {
+        // Given
+        SessionCacheService service = new SessionCacheService(sessionValidationClient, 30000, 100, 30000, 5000);
+        when(sessionValidationClient.validateSessionAsync("sesion-1")).thenReturn(CompletableFuture.completedFuture(true));
+
+        // When
+        boolean first = service.validateSession("sesion-1");
+        boolean second = service.validateSession("sesion-1");
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        verify(sessionValidationClient, times(1)).validateSessionAsync("sesion-1");
+        assertEquals(1, service.getCacheStats().getHitCount());
+        assertEquals(1, service.getCacheStats().getMissCount());
+    }
+
+    @Test
+    void testValidateSession_UsesStaleEntryWhenClientFails() throws InterruptedException {
+        // Given
+        SessionCacheService service = new SessionCacheService(sessionValidationClient, 1, 100, 60000, 0);
+        when(sessionValidationClient.validateSessionAsync("sesion-1"))
+                .thenReturn(CompletableFuture.completedFuture(true))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("ms-seguridad no disponible")));
+        service.validateSession("sesion-1");
+        Thread.sleep(10);
+
+        // When
+        boolean result = service.validateSession("sesion-1");
+
+        // Then
+        assertTrue(result);
+        assertEquals(1, service.getCacheStats().getErrorCount());
+    }
+
+    @Test
+    void testValidateSession_StaysBoundedUnderManySessions() {
+        // Given
+        SessionCacheService service = new SessionCacheService(sessionValidationClient, 30000, 10, 30000, 5000);
+        when(sessionValidationClient.validateSessionAsync(anyString())).thenReturn(CompletableFuture.completedFuture(true));
+
+        // When
+        for (int i = 0; i < 500; i++) {
+            service.validateSession("sesion-" + i);
+        }
+        service.cleanUp();
+
+        // Then
+        assertTrue(service.getCacheStats().getSize() <= 10);
+        assertEquals(500, service.getCacheStats().getMissCount());
+    }
+
+    @Test
+    void testValidateSession_ConcurrentMissesShareOneRemoteCall() throws Exception {
+        // Given
+        SessionCacheService service = new SessionCacheService(sessionValidationClient, 30000, 100, 30000, 5000);
+        CompletableFuture<Boolean> remoteCall = new CompletableFuture<>();
+        when(sessionValidationClient.validateSessionAsync("sesion-1")).thenReturn(remoteCall);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+
+        try {
+            // When
+            Future<Boolean> first = executor.submit(() -> service.validateSession("sesion-1"));
+            Future<Boolean> second = executor.submit(() -> service.validateSession("sesion-1"));
+            Future<Boolean> third = executor.submit(() -> service.validateSession("sesion-1"));
+            while (service.getCacheStats().getCoalescedCount() < 2) {
+                Thread.sleep(5);
+            }
+            remoteCall.complete(true);
+
+            // Then
+            assertTrue(first.get(5, TimeUnit.SECONDS));
+            assertTrue(second.get(5, TimeUnit.SECONDS));
+            assertTrue(third.get(5, TimeUnit.SECONDS));
+            verify(sessionValidationClient, times(1)).validateSessionAsync("sesion-1");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testValidateSession_RefreshesAheadInBackground() throws InterruptedException {
+        // Given
+        SessionCacheService service = new SessionCacheService(sessionValidationClient, 60000, 100, 30000, 59990);
+        when(sessionValidationClient.validateSessionAsync("sesion-1")).thenReturn(CompletableFuture.completedFuture(true));
+        service.validateSession("sesion-1");
+        Thread.sleep(20);
+
+        // When
+        boolean result = service.validateSession("sesion-1");
+
+        // Then
+        assertTrue(result);
+        assertEquals(1, service.getCacheStats().getHitCount());
+        verify(sessionValidationClient, times(2)).validateSessionAsync("sesion-1");
+    }
+
+    @Test
+    void testValidateSession_UsesLongTtlOnlyWhilePushIsConnected() throws InterruptedException {
+        // Given
+        SessionCacheService service = new SessionCacheService(sessionValidationClient, 1, 100, 60000, 0, 60000);
+        when(sessionValidationClient.validateSessionAsync("sesion-1")).thenReturn(CompletableFuture.completedFuture(true));
+        service.setPushConnected(true);
+        service.validateSession("sesion-1");
+        Thread.sleep(10);
+
+        // When
+        service.validateSession("sesion-1");
+        service.setPushConnected(false);
+        service.validateSession("sesion-1");
+
+        // Then
+        verify(sessionValidationClient, times(2)).validateSessionAsync("sesion-1");
+        assertEquals(1, service.getCacheStats().getHitCount());
+        assertEquals(1, service.getCacheStats().getTtlMs());
+    }
+}
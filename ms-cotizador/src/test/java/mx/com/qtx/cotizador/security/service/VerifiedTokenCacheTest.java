@@ -0,0 +1,98 @@
+package mx.com.qtx.cotizador.security.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para VerifiedTokenCache
+ */
+class VerifiedTokenCacheTest {
+
+    private static VerifiedTokenCache.VerifiedToken verified(String sessionId, long expiresAtMs) {
+        JwtValidationService.UserInfo userInfo = new JwtValidationService.UserInfo(
+                "usuario", "usuario@test.com", List.of("ADMIN"), new Date(expiresAtMs));
+        return new VerifiedTokenCache.VerifiedToken(
+                userInfo, List.of(new SimpleGrantedAuthority("ROLE_ADMIN")), sessionId, expiresAtMs);
+    }
+
+    @Test
+    void testGet_ReturnsSameVerifiedToken() {
+        // Given
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10);
+        VerifiedTokenCache.VerifiedToken verified = verified("sesion-1", System.currentTimeMillis() + 60000);
+
+        // When
+        cache.put("token-a", verified);
+
+        // Then
+        assertSame(verified, cache.get("token-a"));
+        assertNull(cache.get("token-b"));
+        assertEquals(1, cache.getCacheStats().getHitCount());
+        assertEquals(1, cache.getCacheStats().getMissCount());
+    }
+
+    @Test
+    void testPut_ExpiredTokenIsNotCached() {
+        // Given
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10);
+
+        // When
+        cache.put("token-a", verified("sesion-1", System.currentTimeMillis() - 1));
+
+        // Then
+        assertNull(cache.get("token-a"));
+        assertEquals(0, cache.getCacheStats().getSize());
+    }
+
+    @Test
+    void testInvalidateSession_RemovesOnlyThatSession() {
+        // Given
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 10);
+        long exp = System.currentTimeMillis() + 60000;
+        cache.put("token-a", verified("sesion-1", exp));
+        cache.put("token-b", verified("sesion-1", exp));
+        cache.put("token-c", verified("sesion-2", exp));
+
+        // When
+        cache.invalidateSession("sesion-1");
+
+        // Then
+        assertNull(cache.get("token-a"));
+        assertNull(cache.get("token-b"));
+        assertNotNull(cache.get("token-c"));
+    }
+
+    @Test
+    void testPut_StaysBoundedWhenFull() {
+        // Given
+        VerifiedTokenCache cache = new VerifiedTokenCache(true, 2);
+        long exp = System.currentTimeMillis() + 60000;
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            cache.put("token-" + i, verified("sesion-" + i, exp));
+        }
+        cache.cleanUp();
+
+        // Then
+        assertTrue(cache.getCacheStats().getSize() <= 2);
+    }
+
+    @Test
+    void testDisabled_NeverCaches() {
+        // Given
+        VerifiedTokenCache cache = new VerifiedTokenCache(false, 10);
+
+        // When
+        cache.put("token-a", verified("sesion-1", System.currentTimeMillis() + 60000));
+
+        // Then
+        assertNull(cache.get("token-a"));
+        assertEquals(0, cache.getCacheStats().getSize());
+    }
+}
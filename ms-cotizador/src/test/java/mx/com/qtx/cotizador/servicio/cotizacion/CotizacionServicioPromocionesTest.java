@@ -0,0 +1,193 @@
+package mx.com.qtx.cotizador.servicio.cotizacion;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mx.com.qtx.cotizador.dto.common.response.ApiResponse;
+import mx.com.qtx.cotizador.dto.componente.response.ComponenteResponse;
+import mx.com.qtx.cotizador.dto.cotizacion.request.CotizacionCreateRequest;
+import mx.com.qtx.cotizador.dto.cotizacion.request.DetalleCotizacionRequest;
+import mx.com.qtx.cotizador.dto.cotizacion.response.CotizacionResponse;
+import mx.com.qtx.cotizador.entidad.DetallePromocion;
+import mx.com.qtx.cotizador.entidad.Promocion;
+import mx.com.qtx.cotizador.repositorio.ComponenteRepositorio;
+import mx.com.qtx.cotizador.repositorio.CotizacionRepositorio;
+import mx.com.qtx.cotizador.repositorio.PromocionRepositorio;
+import mx.com.qtx.cotizador.servicio.catalogo.VersionCatalogo;
+import mx.com.qtx.cotizador.servicio.componente.ComponenteServicio;
+import mx.com.qtx.cotizador.servicio.cotizacion.archivo.ArchivoCotizacionesServicio;
+import mx.com.qtx.cotizador.servicio.indice.IndiceComponentes;
+import mx.com.qtx.cotizador.servicio.promocion.AgendaPromociones;
+import mx.com.qtx.cotizador.servicio.wrapper.CachePromociones;
+import mx.com.qtx.cotizador.util.Errores;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias de CotizacionServicio con la agenda de promociones: la promoción vigente
+ * del componente se aplica al subtotal y deja de aplicarse al cruzar sus fronteras de vigencia
+ */
+class CotizacionServicioPromocionesTest {
+
+    private static final ZoneId ZONA = ZoneId.of("America/Mexico_City");
+    private static final BigDecimal PRECIO = new BigDecimal("1000.00");
+
+    @Mock
+    private CotizacionRepositorio cotizacionRepo;
+
+    @Mock
+    private ComponenteServicio componenteServicio;
+
+    @Mock
+    private ComponenteRepositorio componenteRepo;
+
+    @Mock
+    private IndiceComponentes indiceComponentes;
+
+    @Mock
+    private ArchivoCotizacionesServicio archivoCotizaciones;
+
+    @Mock
+    private PromocionRepositorio promocionRepositorio;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final RelojAjustable reloj = new RelojAjustable();
+
+    private CotizacionServicio servicio;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // "Tarjetas 3x2" vigente sólo en abril de 2025
+        when(promocionRepositorio.findAll()).thenReturn(List.of(promocionTresPorDos(
+                LocalDate.of(2025, 4, 1), LocalDate.of(2025, 4, 30))));
+        when(componenteServicio.buscarComponente("GPU001")).thenReturn(new ApiResponse<>(
+                Errores.OK.getCodigo(), Errores.OK.getMensaje(), tarjetaConPromocion()));
+        when(cotizacionRepo.save(any())).thenAnswer(invocacion -> {
+            mx.com.qtx.cotizador.entidad.Cotizacion cotizacion = invocacion.getArgument(0);
+            cotizacion.setFolio(1);
+            return cotizacion;
+        });
+
+        VersionCatalogo versionCatalogo = new VersionCatalogo();
+        AgendaPromociones agenda = new AgendaPromociones(promocionRepositorio, versionCatalogo,
+                transactionManager, reloj, new CachePromociones());
+        servicio = new CotizacionServicio(cotizacionRepo, componenteServicio, componenteRepo,
+                indiceComponentes, archivoCotizaciones,
+                new CacheResultadosCotizacion(versionCatalogo, new SimpleMeterRegistry(), 100), agenda);
+    }
+
+    @Test
+    void testGuardarCotizacion_PromocionVigenteSeAplicaAlSubtotal() {
+        // Given
+        reloj.fijar(LocalDateTime.of(2025, 4, 15, 12, 0));
+
+        // When
+        BigDecimal subtotal = subtotalDeTresTarjetas();
+
+        // Then: se pagan 2 de 3
+        assertEquals(0, PRECIO.multiply(BigDecimal.valueOf(2)).compareTo(subtotal));
+    }
+
+    @Test
+    void testGuardarCotizacion_FronterasDeVigenciaCambianElPrecio() {
+        // Given: un instante antes del inicio de vigencia
+        reloj.fijar(LocalDateTime.of(2025, 3, 31, 23, 59, 59));
+        BigDecimal antesDelInicio = subtotalDeTresTarjetas();
+
+        // When: cruzar el inicio (1 de abril 00:00) y el fin (1 de mayo 00:00)
+        reloj.fijar(LocalDateTime.of(2025, 4, 1, 0, 0));
+        BigDecimal alIniciar = subtotalDeTresTarjetas();
+        reloj.fijar(LocalDateTime.of(2025, 4, 30, 23, 59, 59));
+        BigDecimal ultimoInstante = subtotalDeTresTarjetas();
+        reloj.fijar(LocalDateTime.of(2025, 5, 1, 0, 0));
+        BigDecimal alTerminar = subtotalDeTresTarjetas();
+
+        // Then: el mismo carrito cambia de precio en cada frontera (la caché de resultados no lo retiene)
+        BigDecimal sinPromocion = PRECIO.multiply(BigDecimal.valueOf(3));
+        BigDecimal conPromocion = PRECIO.multiply(BigDecimal.valueOf(2));
+        assertEquals(0, sinPromocion.compareTo(antesDelInicio));
+        assertEquals(0, conPromocion.compareTo(alIniciar));
+        assertEquals(0, conPromocion.compareTo(ultimoInstante));
+        assertEquals(0, sinPromocion.compareTo(alTerminar));
+    }
+
+    private BigDecimal subtotalDeTresTarjetas() {
+        CotizacionCreateRequest request = CotizacionCreateRequest.builder()
+                .tipoCotizador("A")
+                .impuestos(List.of("IVA"))
+                .detalles(List.of(DetalleCotizacionRequest.builder().idComponente("GPU001").cantidad(3).build()))
+                .build();
+        ApiResponse<CotizacionResponse> respuesta = servicio.guardarCotizacion(request);
+        assertEquals(Errores.OK.getCodigo(), respuesta.getCodigo(), respuesta.getMensaje());
+        return respuesta.getDatos().getSubtotal();
+    }
+
+    private static ComponenteResponse tarjetaConPromocion() {
+        return ComponenteResponse.builder()
+                .id("GPU001").descripcion("Tarjeta de video").marca("NVIDIA").modelo("RTX 4060")
+                .costo(new BigDecimal("700.00")).precioBase(PRECIO).tipoComponente("TARJETA_VIDEO")
+                .memoria("8GB").promocionId("5")
+                .build();
+    }
+
+    private static Promocion promocionTresPorDos(LocalDate desde, LocalDate hasta) {
+        Promocion promocion = new Promocion();
+        promocion.setIdPromocion(5);
+        promocion.setNombre("Tarjetas 3x2");
+        promocion.setDescripcion("Lleve 3, pague 2");
+        promocion.setVigenciaDesde(desde);
+        promocion.setVigenciaHasta(hasta);
+        DetallePromocion base = new DetallePromocion();
+        base.setIdDetallePromocion(1);
+        base.setEsBase(true);
+        base.setNombre("3x2");
+        base.setTipoPromBase("NXM");
+        base.setLlevent(3);
+        base.setPaguen(2);
+        promocion.addDetalle(base);
+        return promocion;
+    }
+
+    /**
+     * Reloj que las pruebas pueden fijar en cualquier instante
+     */
+    private static final class RelojAjustable extends Clock {
+
+        private Instant instante = Instant.EPOCH;
+
+        void fijar(LocalDateTime fechaHora) {
+            instante = fechaHora.atZone(ZONA).toInstant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONA;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zona) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return instante;
+        }
+    }
+}
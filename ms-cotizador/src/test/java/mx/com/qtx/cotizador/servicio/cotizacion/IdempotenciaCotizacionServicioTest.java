@@ -0,0 +1,122 @@
+package mx.com.qtx.cotizador.servicio.cotizacion;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import mx.com.qtx.cotizador.dto.common.response.ApiResponse;
+import mx.com.qtx.cotizador.dto.cotizacion.request.CotizacionCreateRequest;
+import mx.com.qtx.cotizador.dto.cotizacion.response.CotizacionResponse;
+import mx.com.qtx.cotizador.entidad.IdempotenciaCotizacion;
+import mx.com.qtx.cotizador.repositorio.IdempotenciaCotizacionRepositorio;
+import mx.com.qtx.cotizador.util.Errores;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para IdempotenciaCotizacionServicio
+ */
+class IdempotenciaCotizacionServicioTest {
+
+    @Mock
+    private IdempotenciaCotizacionRepositorio idempotenciaRepo;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private final CotizacionCreateRequest request = CotizacionCreateRequest.builder()
+            .tipoCotizador("A").impuestos(List.of("IVA")).build();
+
+    private final AtomicInteger creaciones = new AtomicInteger();
+
+    private IdempotenciaCotizacionServicio servicio;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(idempotenciaRepo.saveAndFlush(any(IdempotenciaCotizacion.class))).thenAnswer(i -> i.getArgument(0));
+        // Espera de duplicados de 300 ms y arrendamiento de 1 minuto
+        servicio = new IdempotenciaCotizacionServicio(idempotenciaRepo, objectMapper, transactionManager,
+                1440, 100, 300, 60000);
+    }
+
+    @Test
+    void testEjecutar_ClaveAbandonadaSeRetoma() throws Exception {
+        // Given: una instancia reservó la clave hace 5 minutos y no la completó
+        IdempotenciaCotizacion abandonada = new IdempotenciaCotizacion("clave-1", huella(request),
+                LocalDateTime.now().minusMinutes(5), LocalDateTime.now().plusHours(23));
+        when(idempotenciaRepo.findById("clave-1")).thenReturn(Optional.of(abandonada));
+        when(idempotenciaRepo.tomarAbandonada(eq("clave-1"), anyString(), any(), any(), any())).thenReturn(1);
+
+        // When
+        ApiResponse<CotizacionResponse> respuesta = servicio.ejecutar("clave-1", request, this::crear);
+
+        // Then
+        assertEquals(Errores.OK.getCodigo(), respuesta.getCodigo());
+        assertEquals(1, creaciones.get());
+        assertEquals(IdempotenciaCotizacion.COMPLETADA, abandonada.getEstado());
+    }
+
+    @Test
+    void testEjecutar_ClaveEnProcesoVigenteNoSeRetoma() {
+        // Given: otra instancia reservó la clave hace un momento
+        IdempotenciaCotizacion enProceso = new IdempotenciaCotizacion("clave-2", huella(request),
+                LocalDateTime.now(), LocalDateTime.now().plusHours(24));
+        when(idempotenciaRepo.findById("clave-2")).thenReturn(Optional.of(enProceso));
+
+        // When
+        ApiResponse<CotizacionResponse> respuesta = servicio.ejecutar("clave-2", request, this::crear);
+
+        // Then
+        assertEquals(Errores.IDEMPOTENCIA_EN_PROCESO.getCodigo(), respuesta.getCodigo());
+        assertEquals(0, creaciones.get());
+        verify(idempotenciaRepo, never()).tomarAbandonada(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testEjecutar_FalloAlCompletarDevuelveLaCotizacionCreada() {
+        // Given: la reservación funciona pero la base de datos falla al completar la clave
+        when(idempotenciaRepo.findById("clave-3"))
+                .thenReturn(Optional.empty())
+                .thenThrow(new IllegalStateException("Conexión perdida"));
+
+        // When
+        ApiResponse<CotizacionResponse> respuesta = servicio.ejecutar("clave-3", request, this::crear);
+
+        // Then
+        assertEquals(Errores.OK.getCodigo(), respuesta.getCodigo());
+        assertEquals(101, respuesta.getDatos().getFolio());
+        verify(idempotenciaRepo, never()).deleteById("clave-3");
+    }
+
+    private ApiResponse<CotizacionResponse> crear() {
+        creaciones.incrementAndGet();
+        return new ApiResponse<>(Errores.OK.getCodigo(), Errores.OK.getMensaje(),
+                CotizacionResponse.builder().folio(101).build());
+    }
+
+    private String huella(CotizacionCreateRequest solicitud) {
+        try {
+            byte[] cuerpo = objectMapper.writeValueAsString(solicitud).getBytes(StandardCharsets.UTF_8);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(cuerpo));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
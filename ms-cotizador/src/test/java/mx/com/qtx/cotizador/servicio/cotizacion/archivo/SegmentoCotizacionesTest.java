@@ -0,0 +1,97 @@
+package mx.com.qtx.cotizador.servicio.cotizacion.archivo;
+
+import mx.com.qtx.cotizador.dto.cotizacion.response.CotizacionResponse;
+import mx.com.qtx.cotizador.dto.cotizacion.response.DetalleCotizacionResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas del formato de segmento de cotizaciones archivadas (escritura y lectura)
+ */
+class SegmentoCotizacionesTest {
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void testRoundTrip_ValoresNulosYExtremos() throws IOException {
+        // Given
+        BigDecimal grande = new BigDecimal(BigInteger.TWO.pow(2000).add(BigInteger.ONE), 2);
+        BigDecimal escalaGrande = new BigDecimal(BigInteger.valueOf(12345), 300);
+        BigDecimal escalaNegativa = new BigDecimal(BigInteger.valueOf(7), -200);
+        String textoLargo = "ñ".repeat(70_000);
+        DetalleCotizacionResponse detalle = DetalleCotizacionResponse.builder()
+                .numDetalle(1).idComponente("MON001").nombreComponente(textoLargo).categoria(null)
+                .cantidad(null).descripcion("Monitor").precioBase(escalaGrande).importeTotal(null)
+                .build();
+        CotizacionResponse extremos = CotizacionResponse.builder()
+                .folio(10).fecha("2024-01-15").subtotal(grande).impuestos(null).total(escalaNegativa)
+                .detalles(List.of(detalle))
+                .build();
+        CotizacionResponse sinDatos = CotizacionResponse.builder()
+                .folio(11).fecha(null).subtotal(null).impuestos(null).total(null).detalles(List.of())
+                .build();
+
+        // When
+        IndiceSegmentoYDatos resultado = escribirYLeer("2024-01", List.of(extremos, sinDatos));
+
+        // Then
+        assertEquals("2024-01", resultado.indice().periodo());
+        assertEquals(List.of(extremos, sinDatos), resultado.cotizaciones());
+        assertEquals(escalaGrande.scale(), resultado.cotizaciones().get(0).getDetalles().get(0).getPrecioBase().scale());
+    }
+
+    @Test
+    void testBuscarPorFolio_UsaIndiceDeVariosBloques() throws IOException {
+        // Given
+        List<CotizacionResponse> cotizaciones = new ArrayList<>();
+        for (int folio = 1; folio <= SegmentoCotizaciones.REGISTROS_POR_BLOQUE * 2 + 10; folio++) {
+            cotizaciones.add(CotizacionResponse.builder()
+                    .folio(folio).fecha("2024-02-" + (folio % 28 + 1)).subtotal(new BigDecimal("100.50"))
+                    .impuestos(new BigDecimal("16.08")).total(new BigDecimal("116.58")).detalles(List.of())
+                    .build());
+        }
+
+        // When
+        IndiceSegmentoYDatos resultado = escribirYLeer("2024-02", cotizaciones);
+        CotizacionResponse encontrada = SegmentoCotizaciones.buscarPorFolio(resultado.indice(), 300);
+
+        // Then
+        assertEquals(3, resultado.indice().bloques().size());
+        assertEquals(cotizaciones.size(), resultado.indice().totalRegistros());
+        assertEquals(cotizaciones, resultado.cotizaciones());
+        assertEquals(cotizaciones.get(299), encontrada);
+        assertNull(SegmentoCotizaciones.buscarPorFolio(resultado.indice(), 9999));
+    }
+
+    private IndiceSegmentoYDatos escribirYLeer(String periodo, List<CotizacionResponse> cotizaciones) throws IOException {
+        Path archivo = directorio.resolve(periodo + ".seg");
+        try (SegmentoCotizaciones.Escritor escritor = new SegmentoCotizaciones.Escritor(archivo, periodo)) {
+            for (CotizacionResponse cotizacion : cotizaciones) {
+                escritor.agregar(cotizacion);
+            }
+            escritor.confirmar();
+        }
+        assertFalse(Files.exists(archivo.resolveSibling(archivo.getFileName() + ".tmp")));
+
+        SegmentoCotizaciones.IndiceSegmento indice = SegmentoCotizaciones.leerIndice(archivo);
+        List<CotizacionResponse> leidas = new ArrayList<>();
+        for (SegmentoCotizaciones.EntradaBloque bloque : indice.bloques()) {
+            leidas.addAll(SegmentoCotizaciones.leerBloque(indice, bloque));
+        }
+        return new IndiceSegmentoYDatos(indice, leidas);
+    }
+
+    private record IndiceSegmentoYDatos(SegmentoCotizaciones.IndiceSegmento indice, List<CotizacionResponse> cotizaciones) {
+    }
+}
@@ -0,0 +1,79 @@
+package mx.com.qtx.cotizador.servicio.indice;
+
+import mx.com.qtx.cotizador.repositorio.CotizacionRepositorio;
+import mx.com.qtx.cotizador.repositorio.PedidoRepositorio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para IndiceComponentes
+ */
+class IndiceComponentesTest {
+
+    @Mock
+    private CotizacionRepositorio cotizacionRepositorio;
+
+    @Mock
+    private PedidoRepositorio pedidoRepositorio;
+
+    private IndiceComponentes indice;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        indice = new IndiceComponentes(cotizacionRepositorio, pedidoRepositorio, 100);
+    }
+
+    @Test
+    void testFoliosPorComponente_SeCarganUnaVezYSeActualizanConAltas() {
+        // Given
+        when(cotizacionRepositorio.findFoliosByComponente("MON001")).thenReturn(List.of(6, 8));
+
+        // When
+        indice.foliosPorComponente("MON001");
+        indice.registrarCotizacion(12, List.of("MON001"));
+        ListaPosteo folios = indice.foliosPorComponente("MON001");
+
+        // Then
+        assertEquals(List.of(6, 8, 12), folios.rango(0, folios.tamano()));
+        verify(cotizacionRepositorio, times(1)).findFoliosByComponente("MON001");
+    }
+
+    @Test
+    void testFoliosPorComponente_ListasVaciasNoSeGuardan() {
+        // Given
+        when(cotizacionRepositorio.findFoliosByComponente("NO-EXISTE")).thenReturn(List.of());
+
+        // When
+        indice.foliosPorComponente("NO-EXISTE");
+        ListaPosteo folios = indice.foliosPorComponente("NO-EXISTE");
+
+        // Then
+        assertEquals(0, folios.tamano());
+        verify(cotizacionRepositorio, times(2)).findFoliosByComponente("NO-EXISTE");
+    }
+
+    @Test
+    void testFoliosPorComponente_CargaTraslapadaConAltaNoSePublica() {
+        // Given: un alta confirmada mientras se consulta la base de datos
+        when(cotizacionRepositorio.findFoliosByComponente("MON001")).thenAnswer(invocacion -> {
+            indice.registrarCotizacion(9, List.of("MON001"));
+            return List.of(6, 8);
+        }).thenReturn(List.of(6, 8, 9));
+
+        // When
+        indice.foliosPorComponente("MON001");
+        ListaPosteo folios = indice.foliosPorComponente("MON001");
+
+        // Then
+        assertEquals(List.of(6, 8, 9), folios.rango(0, folios.tamano()));
+        verify(cotizacionRepositorio, times(2)).findFoliosByComponente("MON001");
+    }
+}
@@ -0,0 +1,99 @@
+package mx.com.qtx.cotizador.servicio.outbox;
+
+import mx.com.qtx.cotizador.entidad.EventoOutbox;
+import mx.com.qtx.cotizador.repositorio.EventoOutboxRepositorio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para DespachadorOutbox
+ */
+class DespachadorOutboxTest {
+
+    @Mock
+    private EventoOutboxRepositorio eventoRepo;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private DestinoEventos destino;
+
+    private EventoOutbox evento;
+
+    private DespachadorOutbox despachador;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        evento = new EventoOutbox("PEDIDO", "1", "PEDIDO_CREADO", "{}", LocalDateTime.now().minusMinutes(1));
+        evento.setId(7L);
+        when(eventoRepo.bloquearPendientes(any(), anyInt())).thenReturn(List.of(evento));
+        when(eventoRepo.findAllById(List.of(7L))).thenReturn(List.of(evento));
+        when(destino.getNombre()).thenReturn("prueba");
+        // Lotes de 100, espera de 1 s a 5 min, 3 intentos y arrendamiento de 1 minuto
+        despachador = new DespachadorOutbox(eventoRepo, List.of(destino), transactionManager,
+                100, 20, 1000, 300000, 3, 60000, 7);
+    }
+
+    @Test
+    void testDespacharLote_EntregaFueraDeLaTransaccionQueToma() throws Exception {
+        // When
+        int entregados = despachador.despacharLote();
+
+        // Then: la transacción que toma el lote se confirma antes de entregar
+        assertEquals(1, entregados);
+        assertEquals(EventoOutbox.ENVIADO, evento.getEstado());
+        assertNotNull(evento.getFechaEnvio());
+        InOrder orden = inOrder(eventoRepo, transactionManager, destino);
+        orden.verify(eventoRepo).bloquearPendientes(any(), anyInt());
+        orden.verify(transactionManager).commit(any());
+        orden.verify(destino).entregar(anyList());
+        orden.verify(eventoRepo).findAllById(List.of(7L));
+        orden.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testDespacharLote_AgotarIntentosMarcaFallido() throws Exception {
+        // Given
+        doThrow(new IOException("Disco lleno")).when(destino).entregar(anyList());
+        evento.setIntentos(2);
+
+        // When
+        int entregados = despachador.despacharLote();
+
+        // Then
+        assertEquals(0, entregados);
+        assertEquals(EventoOutbox.FALLIDO, evento.getEstado());
+        assertEquals(3, evento.getIntentos());
+        assertEquals("prueba: Disco lleno", evento.getUltimoError());
+        assertNull(evento.getFechaEnvio());
+    }
+
+    @Test
+    void testDespacharLote_FalloConIntentosRestantesReprograma() throws Exception {
+        // Given
+        doThrow(new IOException("Disco lleno")).when(destino).entregar(anyList());
+
+        // When
+        despachador.despacharLote();
+
+        // Then
+        assertEquals(EventoOutbox.PENDIENTE, evento.getEstado());
+        assertEquals(1, evento.getIntentos());
+        assertTrue(evento.getFechaSiguienteIntento().isAfter(LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,90 @@
+package mx.com.qtx.cotizador.servicio.pedido;
+
+import mx.com.qtx.cotizador.dominio.pedidos.Proveedor;
+import mx.com.qtx.cotizador.repositorio.ProveedorRepositorio;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para DirectorioProveedores
+ */
+class DirectorioProveedoresTest {
+
+    @Mock
+    private ProveedorRepositorio proveedorRepositorio;
+
+    private DirectorioProveedores directorio;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(proveedorRepositorio.findAll()).thenReturn(List.of(entidad("PROV001", "Proveedor Uno")));
+        directorio = new DirectorioProveedores(proveedorRepositorio);
+        directorio.cargar();
+    }
+
+    @Test
+    void testBuscar_ProveedorCreadoEnOtraInstanciaSeBuscaEnBaseDeDatos() {
+        // Given: el proveedor no estaba en la instantánea
+        when(proveedorRepositorio.findAllById(List.of("PROV002"))).thenReturn(List.of(entidad("PROV002", "Proveedor Dos")));
+
+        // When
+        Optional<Proveedor> encontrado = directorio.buscar("PROV002");
+        Optional<Proveedor> otraVez = directorio.buscar("PROV002");
+
+        // Then
+        assertTrue(encontrado.isPresent());
+        assertEquals("Proveedor Dos", encontrado.get().getNombre());
+        assertTrue(otraVez.isPresent());
+        assertEquals(1, directorio.buscarPorNombre("dos").size());
+        verify(proveedorRepositorio, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    void testBuscar_ProveedorInexistenteNoSeAgrega() {
+        // Given
+        when(proveedorRepositorio.findAllById(List.of("NO-EXISTE"))).thenReturn(List.of());
+
+        // When
+        Optional<Proveedor> encontrado = directorio.buscar("NO-EXISTE");
+
+        // Then
+        assertTrue(encontrado.isEmpty());
+        assertEquals(1, directorio.todos().size());
+    }
+
+    @Test
+    void testBuscarTodos_SoloConsultaLasClavesQueNoEstanEnElDirectorio() {
+        // Given: PROV001 está en la instantánea; PROV002 se dio de alta en otra instancia
+        when(proveedorRepositorio.findAllById(List.of("PROV002", "NO-EXISTE")))
+                .thenReturn(List.of(entidad("PROV002", "Proveedor Dos")));
+
+        // When
+        Map<String, Proveedor> encontrados = directorio.buscarTodos(List.of("PROV001", "PROV002", "NO-EXISTE"));
+        Map<String, Proveedor> otraVez = directorio.buscarTodos(List.of("PROV001", "PROV002"));
+
+        // Then
+        assertEquals(List.of("PROV001", "PROV002"), List.copyOf(encontrados.keySet()));
+        assertEquals(2, otraVez.size());
+        verify(proveedorRepositorio).findAllById(List.of("PROV002", "NO-EXISTE"));
+        verify(proveedorRepositorio, times(1)).findAllById(anyIterable());
+    }
+
+    private static mx.com.qtx.cotizador.entidad.Proveedor entidad(String cve, String nombre) {
+        mx.com.qtx.cotizador.entidad.Proveedor proveedor = new mx.com.qtx.cotizador.entidad.Proveedor();
+        proveedor.setCve(cve);
+        proveedor.setNombre(nombre);
+        proveedor.setRazonSocial(nombre + " S.A. de C.V.");
+        return proveedor;
+    }
+}
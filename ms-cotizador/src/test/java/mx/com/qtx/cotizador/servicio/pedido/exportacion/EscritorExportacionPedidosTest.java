@@ -0,0 +1,86 @@
+package mx.com.qtx.cotizador.servicio.pedido.exportacion;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Pruebas unitarias para EscritorExportacionPedidos
+ */
+class EscritorExportacionPedidosTest {
+
+    // Posición y ancho en bytes de la descripción dentro del registro de ancho fijo
+    private static final int INICIO_DESCRIPCION = 10 + 8 + 8 + 3 + 22 + 5 + 50;
+    private static final int ANCHO_DESCRIPCION = 60;
+
+    @Test
+    void testAnchoFijo_RegistrosConAcentosOcupanLosMismosBytes() throws Exception {
+        // When
+        byte[] conAcentos = anchoFijo("MON-Ñ01", "Monitor de 27 pulgadas, resolución 4K");
+        byte[] sinAcentos = anchoFijo("MON001", "Monitor de 27 pulgadas");
+
+        // Then
+        assertEquals(sinAcentos.length, conAcentos.length);
+        String descripcion = new String(conAcentos, INICIO_DESCRIPCION, ANCHO_DESCRIPCION, StandardCharsets.UTF_8);
+        assertEquals("Monitor de 27 pulgadas, resolución 4K", descripcion.trim());
+    }
+
+    @Test
+    void testAnchoFijo_TruncaSinPartirCaracteresMultibyte() throws Exception {
+        // Given: 59 bytes ASCII seguidos de una "ñ" de 2 bytes y un emoji de 4
+        String descripcion = "x".repeat(ANCHO_DESCRIPCION - 1) + "ñ💻";
+
+        // When
+        byte[] registro = anchoFijo("MON001", descripcion);
+
+        // Then: la "ñ" no cabe completa, se rellena con un espacio en lugar de partirla
+        assertEquals(anchoFijo("MON001", "").length, registro.length);
+        String campo = new String(registro, INICIO_DESCRIPCION, ANCHO_DESCRIPCION, StandardCharsets.UTF_8);
+        assertEquals("x".repeat(ANCHO_DESCRIPCION - 1) + " ", campo);
+    }
+
+    @Test
+    void testAnchoFijo_SaltosDeLineaSeSustituyen() throws Exception {
+        // When
+        byte[] registro = anchoFijo("MON001", "Línea 1\r\nLínea 2");
+
+        // Then
+        String campo = new String(registro, INICIO_DESCRIPCION, ANCHO_DESCRIPCION, StandardCharsets.UTF_8);
+        assertEquals("Línea 1  Línea 2", campo.trim());
+        assertEquals('\n', registro[registro.length - 1]);
+        assertEquals(1, new String(registro, StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    private static byte[] anchoFijo(String idComponente, String descripcion) throws Exception {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        EscritorExportacionPedidos escritor =
+                new EscritorExportacionPedidos(FormatoExportacion.ANCHO_FIJO, false, Channels.newChannel(salida));
+        escritor.escribirRenglon(renglon(idComponente, descripcion));
+        escritor.terminar();
+        return salida.toByteArray();
+    }
+
+    private static ResultSet renglon(String idComponente, String descripcion) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("num_pedido")).thenReturn(1L);
+        when(rs.getObject("fecha_emision", LocalDate.class)).thenReturn(LocalDate.of(2025, 8, 20));
+        when(rs.getObject("fecha_entrega", LocalDate.class)).thenReturn(LocalDate.of(2025, 9, 5));
+        when(rs.getInt("nivel_surtido")).thenReturn(80);
+        when(rs.getBigDecimal("total")).thenReturn(new BigDecimal("1500.00"));
+        when(rs.getLong("num_detalle")).thenReturn(1L);
+        when(rs.getString("id_componente")).thenReturn(idComponente);
+        when(rs.getString("descripcion")).thenReturn(descripcion);
+        when(rs.getLong("cantidad")).thenReturn(2L);
+        when(rs.getBigDecimal("precio_unitario")).thenReturn(new BigDecimal("750.00"));
+        when(rs.getBigDecimal("total_cotizado")).thenReturn(new BigDecimal("1500.00"));
+        return rs;
+    }
+}
@@ -0,0 +1,90 @@
+package mx.com.qtx.cotizador.servicio.wrapper;
+
+import mx.com.qtx.cotizador.dominio.promos.PromSinDescto;
+import mx.com.qtx.cotizador.dominio.promos.Promocion;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para CachePromociones
+ */
+class CachePromocionesTest {
+
+    private final AtomicInteger construcciones = new AtomicInteger();
+
+    private final Supplier<Promocion> construccion = () -> {
+        construcciones.incrementAndGet();
+        return new PromSinDescto();
+    };
+
+    private final CachePromociones cachePromociones = new CachePromociones();
+
+    @Test
+    void testObtener_MismaVersionComparteLaInstancia() {
+        // When
+        Promocion primera = cachePromociones.obtener(1, 0, construccion);
+        Promocion segunda = cachePromociones.obtener(1, 0, construccion);
+
+        // Then
+        assertSame(primera, segunda);
+        assertEquals(1, construcciones.get());
+    }
+
+    @Test
+    void testObtener_OtraVersionReconstruye() {
+        // Given
+        Promocion anterior = cachePromociones.obtener(1, 0, construccion);
+
+        // When
+        Promocion nueva = cachePromociones.obtener(1, 1, construccion);
+
+        // Then
+        assertNotSame(anterior, nueva);
+        assertSame(nueva, cachePromociones.obtener(1, 1, construccion));
+        assertEquals(2, construcciones.get());
+    }
+
+    @Test
+    void testInvalidar_ForzaReconstruccion() {
+        // Given
+        Promocion anterior = cachePromociones.obtener(1, 0, construccion);
+        cachePromociones.obtener(2, 0, construccion);
+
+        // When
+        cachePromociones.invalidar(1);
+
+        // Then
+        assertNotSame(anterior, cachePromociones.obtener(1, 0, construccion));
+        cachePromociones.obtener(2, 0, construccion);
+        assertEquals(3, construcciones.get());
+    }
+
+    @Test
+    void testObtener_SinIdNoSeGuarda() {
+        // When
+        cachePromociones.obtener(null, 0, construccion);
+        cachePromociones.obtener(null, 0, construccion);
+
+        // Then
+        assertEquals(2, construcciones.get());
+    }
+
+    @Test
+    void testLimpiar_CadaInstanciaTieneSuPropiaCache() {
+        // Given
+        CachePromociones otra = new CachePromociones();
+        Promocion compartida = cachePromociones.obtener(1, 0, construccion);
+
+        // When
+        otra.obtener(1, 0, construccion);
+        otra.limpiar();
+
+        // Then
+        assertSame(compartida, cachePromociones.obtener(1, 0, construccion));
+        assertEquals(2, construcciones.get());
+    }
+}
@@ -109,21 +109,21 @@ INSERT INTO copc_parte (id_pc, id_componente) VALUES
 ('PC005', 'MON001'); -- Monitor 24 pulgadas FullHD
 
 -- Insertar cotizaciones
-INSERT INTO cocotizacion (fecha, impuestos, subtotal, total) VALUES
-('2025-04-15', 4800.00, 30000.00, 34800.00),
-('2025-04-18', 2400.00, 15000.00, 17400.00),
-('2025-04-20', 5600.00, 35000.00, 40600.00),
-('2025-04-25', 6720.00, 42000.00, 48720.00),
-('2025-04-28', 3840.00, 24000.00, 27840.00),
-('2025-05-02', 1920.00, 12000.00, 13920.00),
-('2025-05-05', 3360.00, 21000.00, 24360.00),
-('2025-05-08', 1440.00, 9000.00, 10440.00),
-('2025-05-10', 2720.00, 17000.00, 19720.00),
-('2025-05-12', 2320.00, 14500.00, 16820.00);
+INSERT INTO cocotizacion (folio, fecha, impuestos, subtotal, total) VALUES
+(1, '2025-04-15', 4800.00, 30000.00, 34800.00),
+(2, '2025-04-18', 2400.00, 15000.00, 17400.00),
+(3, '2025-04-20', 5600.00, 35000.00, 40600.00),
+(4, '2025-04-25', 6720.00, 42000.00, 48720.00),
+(5, '2025-04-28', 3840.00, 24000.00, 27840.00),
+(6, '2025-05-02', 1920.00, 12000.00, 13920.00),
+(7, '2025-05-05', 3360.00, 21000.00, 24360.00),
+(8, '2025-05-08', 1440.00, 9000.00, 10440.00),
+(9, '2025-05-10', 2720.00, 17000.00, 19720.00),
+(10, '2025-05-12', 2320.00, 14500.00, 16820.00);
 
 -- Insertar detalles de cotización
 INSERT INTO codetalle_cotizacion (cantidad, descripcion, folio, id_componente, num_detalle, precio_base) VALUES
--- Cotización 1 (usar el folio que se asignó automáticamente)
+-- Cotización 1
 (1, 'PC Gaming Alto Rendimiento', 1, 'PC001', 1, 32000.00),
 -- Cotización 2
 (1, 'PC Oficina Estándar', 2, 'PC002', 1, 15000.00),
@@ -152,17 +152,17 @@ INSERT INTO codetalle_cotizacion (cantidad, descripcion, folio, id_componente, n
 (1, 'Tarjeta de Video Profesional', 10, 'GPU002', 2, 10200.00);
 
 -- Insertar pedidos
-INSERT INTO copedido (fecha_emision, fecha_entrega, nivel_surtido, cve_proveedor, total) VALUES
-('2025-04-16', '2025-04-30', 1, 'TECH001', 34800.00),
-('2025-04-19', '2025-05-03', 2, 'COMP003', 17400.00),
-('2025-04-21', '2025-05-05', 0, 'HARD002', 40600.00),
-('2025-04-26', '2025-05-10', 1, 'MICR005', 48720.00),
-('2025-04-29', '2025-05-13', 2, 'GLOB004', 27840.00),
-('2025-05-03', '2025-05-17', 1, 'ELEC006', 13920.00),
-('2025-05-06', '2025-05-20', 0, 'PCWA007', 24360.00),
-('2025-05-09', '2025-05-23', 2, 'DIGI008', 10440.00),
-('2025-05-11', '2025-05-25', 1, 'TECH009', 19720.00),
-('2025-05-13', '2025-05-27', 0, 'HARD010', 16820.00);
+INSERT INTO copedido (num_pedido, fecha_emision, fecha_entrega, nivel_surtido, cve_proveedor, total) VALUES
+(1, '2025-04-16', '2025-04-30', 1, 'TECH001', 34800.00),
+(2, '2025-04-19', '2025-05-03', 2, 'COMP003', 17400.00),
+(3, '2025-04-21', '2025-05-05', 0, 'HARD002', 40600.00),
+(4, '2025-04-26', '2025-05-10', 1, 'MICR005', 48720.00),
+(5, '2025-04-29', '2025-05-13', 2, 'GLOB004', 27840.00),
+(6, '2025-05-03', '2025-05-17', 1, 'ELEC006', 13920.00),
+(7, '2025-05-06', '2025-05-20', 0, 'PCWA007', 24360.00),
+(8, '2025-05-09', '2025-05-23', 2, 'DIGI008', 10440.00),
+(9, '2025-05-11', '2025-05-25', 1, 'TECH009', 19720.00),
+(10, '2025-05-13', '2025-05-27', 0, 'HARD010', 16820.00);
 
 -- Insertar detalles de pedido
 INSERT INTO codetalle_pedido (cantidad, id_componente, num_detalle, num_pedido, precio_unitario, total_cotizado) VALUES
@@ -192,4 +192,7 @@ INSERT INTO codetalle_pedido (cantidad, id_componente, num_detalle, num_pedido,
 (1, 'HDD005', 2, 9, 2400.00, 2400.00),
 -- Pedido 10
 (1, 'MON005', 1, 10, 6300.00, 6300.00),
-(1, 'GPU002', 2, 10, 10200.00, 10200.00);
\ No newline at end of file
+(1, 'GPU002', 2, 10, 10200.00, 10200.00);
+
+-- Las llaves de cotizaciones y pedidos provienen de cosecuencia (no hay AUTO_INCREMENT)
+UPDATE cosecuencia SET siguiente_valor = 11 WHERE nombre IN ('cocotizacion', 'copedido');
\ No newline at end of file
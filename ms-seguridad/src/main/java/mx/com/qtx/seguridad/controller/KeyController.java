@@ -3,13 +3,19 @@ package mx.com.qtx.seguridad.controller;
 import mx.com.qtx.seguridad.dto.PublicKeyResponse;
 import mx.com.qtx.seguridad.dto.KeyPairResponse;
 import mx.com.qtx.seguridad.dto.JwksResponse;
+import mx.com.qtx.seguridad.dto.JwkKey;
 import mx.com.qtx.seguridad.service.KeyManagementService;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -36,15 +42,28 @@ public class KeyController {
      * NOTA: Este endpoint tiene rate limiting aplicado para prevenir abuso.
      * Límites: 60 requests/minuto y 1000 requests/hora por IP.
      * 
+     * Devuelve un ETag fuerte calculado sobre las llaves publicadas; si el cliente envía
+     * If-None-Match con el mismo valor se responde 304 sin cuerpo.
+     * 
+     * @param ifNoneMatch ETag que el cliente ya tiene (opcional)
      * @return JwksResponse con llave pública en formato JWKS
      */
     @GetMapping("/jwks")
-    public ResponseEntity<JwksResponse> getPublicKeyAsJwks() {
+    public ResponseEntity<JwksResponse> getPublicKeyAsJwks(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             JwksResponse jwksResponse = keyManagementService.getPublicKeyAsJwks();
             
             if (jwksResponse != null && jwksResponse.hasValidKeys()) {
+                String etag = calcularEtag(jwksResponse);
+                if (etag.equals(ifNoneMatch)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .header("Cache-Control", "public, max-age=300")
+                        .build();
+                }
                 return ResponseEntity.ok()
+                    .eTag(etag)
                     .header("Cache-Control", "public, max-age=300") // Cache por 5 minutos
                     .header("X-Content-Type-Options", "nosniff")
                     .body(jwksResponse);
@@ -63,6 +82,18 @@ public class KeyController {
         }
     }
 
+    /**
+     * Calcula un ETag fuerte (SHA-256) sobre kid, módulo y exponente de cada llave publicada
+     */
+    private String calcularEtag(JwksResponse jwksResponse) throws NoSuchAlgorithmException {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (JwkKey key : jwksResponse.getKeys()) {
+            digest.update((key.getKeyId() + ":" + key.getModulus() + ":" + key.getExponent() + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()) + "\"";
+    }
+
     /**
      * Obtener llave privada (requiere ADMIN)
      * ¡CUIDADO! Endpoint sensible que expone llave privada
@@ -1,21 +1,33 @@
 package mx.com.qtx.seguridad.controller;
 
 import mx.com.qtx.seguridad.dto.SessionValidationResponse;
+import mx.com.qtx.seguridad.dto.SessionBatchValidationRequest;
+import mx.com.qtx.seguridad.dto.SessionBatchValidationResponse;
 import mx.com.qtx.seguridad.dto.SessionCloseResponse;
 import mx.com.qtx.seguridad.dto.SessionInfoResponse;
+import mx.com.qtx.seguridad.dto.RevokedSessionSnapshotResponse;
 import mx.com.qtx.seguridad.entity.Acceso;
+import mx.com.qtx.seguridad.service.RevokedSessionSnapshotService;
+import mx.com.qtx.seguridad.service.SessionRevocationPublisher;
 import mx.com.qtx.seguridad.service.SessionService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.TimeUnit;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Controlador REST para gestión pública de sesiones
@@ -27,9 +39,18 @@ public class SessionController {
 
     private static final Logger logger = LoggerFactory.getLogger(SessionController.class);
     private final SessionService sessionService;
+    private final SessionRevocationPublisher revocationPublisher;
+    private final RevokedSessionSnapshotService snapshotService;
+    private final int maxBatchSize;
 
-    public SessionController(SessionService sessionService) {
+    public SessionController(SessionService sessionService,
+                             SessionRevocationPublisher revocationPublisher,
+                             RevokedSessionSnapshotService snapshotService,
+                             @Value("${session.batch.max-size:500}") int maxBatchSize) {
         this.sessionService = sessionService;
+        this.revocationPublisher = revocationPublisher;
+        this.snapshotService = snapshotService;
+        this.maxBatchSize = maxBatchSize;
     }
 
     /**
@@ -77,6 +98,59 @@ public class SessionController {
         }
     }
 
+    /**
+     * Endpoint público para validar varias sesiones en una sola llamada
+     * Permite a los clientes agrupar validaciones concurrentes y resolverlas
+     * con una sola consulta a la base de datos
+     * 
+     * @param request Lista de IDs de sesión a validar
+     * @return SessionBatchValidationResponse con el estado de cada sesión
+     */
+    @PostMapping("/validate/batch")
+    public ResponseEntity<SessionBatchValidationResponse> validateSessions(
+            @RequestBody SessionBatchValidationRequest request) {
+        
+        try {
+            // Validar parámetros
+            if (request == null || request.getSessionIds() == null || request.getSessionIds().isEmpty()) {
+                logger.warn("Intento de validación en lote sin IDs de sesión");
+                return ResponseEntity.badRequest()
+                    .cacheControl(CacheControl.noCache())
+                    .body(SessionBatchValidationResponse.invalidRequest("La lista de IDs de sesión es requerida"));
+            }
+
+            Set<String> sessionIds = new LinkedHashSet<>();
+            for (String sessionId : request.getSessionIds()) {
+                if (sessionId != null && !sessionId.trim().isEmpty()) {
+                    sessionIds.add(sessionId);
+                }
+            }
+            
+            if (sessionIds.size() > maxBatchSize) {
+                logger.warn("Lote de validación excede el máximo permitido: {} > {}", sessionIds.size(), maxBatchSize);
+                return ResponseEntity.badRequest()
+                    .cacheControl(CacheControl.noCache())
+                    .body(SessionBatchValidationResponse.invalidRequest(
+                        "El lote excede el máximo de " + maxBatchSize + " sesiones"));
+            }
+
+            logger.info("Validando lote de {} sesiones", sessionIds.size());
+            
+            // Validar sesiones
+            Map<String, Boolean> sessions = sessionService.areSessionsActive(sessionIds);
+            
+            return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(SessionBatchValidationResponse.of(sessions));
+                
+        } catch (Exception e) {
+            logger.error("Error al validar lote de sesiones: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .cacheControl(CacheControl.noCache())
+                .body(SessionBatchValidationResponse.error("Error interno al validar sesiones"));
+        }
+    }
+
     /**
      * Endpoint público para cerrar una sesión específica
      * 
@@ -181,6 +255,45 @@ public class SessionController {
         }
     }
 
+    /**
+     * Endpoint público de suscripción al flujo de revocaciones de sesión
+     * Mantiene abierta la conexión y envía un evento "session-revoked" cada vez
+     * que se cierran o expiran sesiones, para que los clientes invaliden sus cachés
+     * 
+     * El máximo por dirección usa la dirección de la conexión, no encabezados de proxy
+     * que el cliente podría falsificar
+     * 
+     * @param request Petición HTTP del suscriptor
+     * @return SseEmitter con el flujo de eventos, o 503 si no se admiten más suscriptores
+     */
+    @GetMapping(value = "/revocations", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeRevocations(HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(revocationPublisher.subscribe(request.getRemoteAddr()));
+        } catch (IllegalStateException e) {
+            logger.warn("Suscripción a revocaciones rechazada: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    /**
+     * Endpoint público con la instantánea de sesiones revocadas
+     * Devuelve un filtro de Bloom con las sesiones revocadas recientes y la lista exacta
+     * de las revocadas después de la versión indicada
+     * 
+     * @param since Última versión de la instantánea que tiene el cliente (0 si ninguna)
+     * @return RevokedSessionSnapshotResponse con el filtro y el delta exacto
+     */
+    @GetMapping("/revocations/snapshot")
+    public ResponseEntity<RevokedSessionSnapshotResponse> getRevocationSnapshot(
+            @RequestParam(value = "since", defaultValue = "0") long since) {
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.noCache())
+            .body(snapshotService.getSnapshot(since));
+    }
+
     /**
      * Endpoint de salud para verificar que el controlador de sesiones está activo
      * 
@@ -0,0 +1,39 @@
+package mx.com.qtx.seguridad.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * DTO para solicitudes de validación de sesiones en lote
+ * Utilizado en el endpoint de validación en lote de sesiones
+ */
+public class SessionBatchValidationRequest {
+
+    @JsonProperty("sessionIds")
+    private List<String> sessionIds;
+
+    // Constructor por defecto
+    public SessionBatchValidationRequest() {
+    }
+
+    public SessionBatchValidationRequest(List<String> sessionIds) {
+        this.sessionIds = sessionIds;
+    }
+
+    // Getters y Setters
+    public List<String> getSessionIds() {
+        return sessionIds;
+    }
+
+    public void setSessionIds(List<String> sessionIds) {
+        this.sessionIds = sessionIds;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionBatchValidationRequest{" +
+                "sessionIds=" + (sessionIds != null ? sessionIds.size() : 0) +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package mx.com.qtx.seguridad.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * DTO para respuestas de validación de sesiones en lote
+ * Contiene el estado (activa o no) de cada sesión solicitada
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SessionBatchValidationResponse {
+
+    @JsonProperty("sessions")
+    private Map<String, Boolean> sessions;
+
+    @JsonProperty("message")
+    private String message;
+
+    @JsonProperty("timestamp")
+    private LocalDateTime timestamp;
+
+    @JsonProperty("success")
+    private Boolean success;
+
+    // Constructor por defecto
+    public SessionBatchValidationResponse() {
+        this.timestamp = LocalDateTime.now();
+        this.success = true;
+    }
+
+    // Constructor para respuesta exitosa
+    public SessionBatchValidationResponse(Map<String, Boolean> sessions) {
+        this();
+        this.sessions = sessions;
+    }
+
+    // Constructor para respuesta de error
+    public SessionBatchValidationResponse(String message, Boolean success) {
+        this();
+        this.message = message;
+        this.success = success;
+    }
+
+    // Getters y Setters
+    public Map<String, Boolean> getSessions() {
+        return sessions;
+    }
+
+    public void setSessions(Map<String, Boolean> sessions) {
+        this.sessions = sessions;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public Boolean getSuccess() {
+        return success;
+    }
+
+    public void setSuccess(Boolean success) {
+        this.success = success;
+    }
+
+    // Métodos de utilidad
+    public boolean isSuccessful() {
+        return success != null && success;
+    }
+
+    // Métodos para construir respuestas específicas
+    public static SessionBatchValidationResponse of(Map<String, Boolean> sessions) {
+        return new SessionBatchValidationResponse(sessions);
+    }
+
+    public static SessionBatchValidationResponse invalidRequest(String message) {
+        return new SessionBatchValidationResponse(message, false);
+    }
+
+    public static SessionBatchValidationResponse error(String message) {
+        return new SessionBatchValidationResponse(message, false);
+    }
+
+    @Override
+    public String toString() {
+        return "SessionBatchValidationResponse{" +
+                "sessions=" + (sessions != null ? sessions.size() : 0) +
+                ", message='" + message + '\'' +
+                ", timestamp=" + timestamp +
+                ", success=" + success +
+                '}';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package mx.com.qtx.seguridad.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO enviado por el flujo de revocaciones de sesión (server-sent events)
+ * Cada mensaje lista las sesiones que dejaron de estar activas
+ */
+public class SessionRevocationMessage {
+
+    @JsonProperty("sessionIds")
+    private List<String> sessionIds;
+
+    @JsonProperty("reason")
+    private String reason;
+
+    @JsonProperty("timestamp")
+    private LocalDateTime timestamp;
+
+    // Constructor por defecto
+    public SessionRevocationMessage() {
+        this.timestamp = LocalDateTime.now();
+    }
+
+    public SessionRevocationMessage(List<String> sessionIds, String reason) {
+        this();
+        this.sessionIds = sessionIds;
+        this.reason = reason;
+    }
+
+    // Getters y Setters
+    public List<String> getSessionIds() {
+        return sessionIds;
+    }
+
+    public void setSessionIds(List<String> sessionIds) {
+        this.sessionIds = sessionIds;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionRevocationMessage{" +
+                "sessionIds=" + (sessionIds != null ? sessionIds.size() : 0) +
+                ", reason='" + reason + '\'' +
+                ", timestamp=" + timestamp +
+                '}';
+    }
+}
\ No newline at end of file
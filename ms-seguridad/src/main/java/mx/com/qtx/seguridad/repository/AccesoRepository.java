@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +22,14 @@ public interface AccesoRepository extends JpaRepository<Acceso, Long> {
      */
     Optional<Acceso> findByIdSesion(String idSesion);
 
+    /**
+     * Buscar accesos por varios IDs de sesión en una sola consulta
+     * 
+     * @param idsSesion IDs únicos de las sesiones
+     * @return List<Acceso> con los accesos encontrados
+     */
+    List<Acceso> findByIdSesionIn(Collection<String> idsSesion);
+
     /**
      * Buscar accesos activos por usuario ID
      * 
@@ -163,7 +172,16 @@ public interface AccesoRepository extends JpaRepository<Acceso, Long> {
      */
     List<Acceso> findByActivoTrueAndFechaInicioBefore(java.time.LocalDateTime fechaLimite);
 
+    /**
+     * Buscar sesiones cerradas después de una fecha
+     * 
+     * @param fechaDesde Fecha a partir de la cual buscar cierres
+     * @return List<Acceso> con las sesiones inactivas cuya fecha de fin es posterior
+     */
+    List<Acceso> findByActivoFalseAndFechaFinAfter(java.time.LocalDateTime fechaDesde);
+
     @Modifying
-    @Query("UPDATE Acceso a SET a.activo = false WHERE a.usuarioId = :usuarioId AND a.activo = true")
+    @Query("UPDATE Acceso a SET a.activo = false, a.fechaFin = CURRENT_TIMESTAMP " +
+           "WHERE a.usuarioId = :usuarioId AND a.activo = true")
     void closeAllActiveUserSessions(@Param("usuarioId") Integer usuarioId);
 }
\ No newline at end of file
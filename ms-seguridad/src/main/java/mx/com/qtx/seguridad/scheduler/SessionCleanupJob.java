@@ -2,6 +2,7 @@ package mx.com.qtx.seguridad.scheduler;
 
 import mx.com.qtx.seguridad.repository.AccesoRepository;
 import mx.com.qtx.seguridad.entity.Acceso;
+import mx.com.qtx.seguridad.service.SessionRevokedEvent;
 import org.quartz.Job;
 import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
@@ -9,10 +10,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -28,6 +31,9 @@ public class SessionCleanupJob implements Job {
     @Autowired
     private AccesoRepository accesoRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Value("${jwt.access-token.expiration:300000}")
     private long accessTokenDurationMs;
 
@@ -56,6 +62,7 @@ public class SessionCleanupJob implements Job {
             
             // Marcar sesiones como inactivas
             int sesionesLimpiadas = 0;
+            List<String> sesionesRevocadas = new ArrayList<>();
             LocalDateTime ahora = LocalDateTime.now();
             
             for (Acceso sesion : sesionesExpiradas) {
@@ -66,6 +73,7 @@ public class SessionCleanupJob implements Job {
                     sesion.setActivo(false);
                     sesion.setFechaFin(ahora);
                     sesionesLimpiadas++;
+                    sesionesRevocadas.add(sesion.getIdSesion());
                     
                     logger.debug("Sesión {} marcada como inactiva - Usuario: {}, Iniciada: {}, Tiempo transcurrido: {}ms", 
                         sesion.getIdSesion(), 
@@ -78,6 +86,8 @@ public class SessionCleanupJob implements Job {
             // Guardar cambios
             if (sesionesLimpiadas > 0) {
                 accesoRepository.saveAll(sesionesExpiradas);
+                // Se difunde a los suscriptores al confirmar la transacción
+                eventPublisher.publishEvent(new SessionRevokedEvent(sesionesRevocadas, "expired"));
                 logger.info("🎯 Limpieza de sesiones completada - {} sesiones marcadas como inactivas", sesionesLimpiadas);
             } else {
                 logger.info("⚠️ No se encontraron sesiones que necesiten limpieza después de la verificación detallada");
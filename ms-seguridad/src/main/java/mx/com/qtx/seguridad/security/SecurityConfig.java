@@ -66,9 +66,13 @@ public class SecurityConfig {
                 
                 // URLs públicas de gestión de sesiones
                 .requestMatchers(HttpMethod.GET, "/session/validate/**").permitAll()
+                .requestMatchers(HttpMethod.POST, "/session/validate/batch").permitAll()
                 .requestMatchers(HttpMethod.POST, "/session/close/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/session/info/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/session/health").permitAll()
+                // El flujo de revocaciones limita los suscriptores por dirección remota (SessionRevocationPublisher)
+                .requestMatchers(HttpMethod.GET, "/session/revocations").permitAll()
+                .requestMatchers(HttpMethod.GET, "/session/revocations/snapshot").permitAll()
                 
                 .requestMatchers("/error").permitAll()
                 
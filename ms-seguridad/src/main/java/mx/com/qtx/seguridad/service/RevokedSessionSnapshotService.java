@@ -0,0 +1,240 @@
+package mx.com.qtx.seguridad.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import mx.com.qtx.seguridad.dto.RevokedSessionSnapshotResponse;
+import mx.com.qtx.seguridad.entity.Acceso;
+import mx.com.qtx.seguridad.repository.AccesoRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Servicio que publica periódicamente una instantánea compacta de las sesiones revocadas
+ * Cada instantánea contiene un filtro de Bloom con todas las sesiones revocadas dentro de la
+ * ventana de retención (mientras sus tokens podrían seguir vigentes) y la lista exacta de las
+ * revocadas después de la versión que indique el cliente. La retención por defecto es la duración
+ * del access token más el desfase de reloj permitido, y no se acepta una menor.
+ * La instantánea se construye sólo desde la base de datos: cada reconstrucción lee los accesos
+ * cerrados desde la marca de agua (la fecha de cierre más reciente ya leída, menos un margen
+ * para transacciones que confirman tarde o relojes desfasados), de modo que todas las
+ * instancias sirven el mismo conjunto y la misma versión, sin importar en cuál se revocó la
+ * sesión. La versión es esa marca de agua; el delta de una versión son las sesiones cerradas
+ * después de ella menos el mismo margen, así que un cliente puede alternar entre instancias.
+ */
+@Service
+public class RevokedSessionSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RevokedSessionSnapshotService.class);
+
+    private final AccesoRepository accesoRepository;
+    private final long retentionMs;
+    private final long overlapMs;
+    private final double falsePositiveRate;
+    private final int maxDelta;
+
+    // Estado protegido por el monitor de la instancia (sólo lo modifica rebuild)
+    private final Map<String, Long> retained = new HashMap<>();
+    private long watermarkMs;
+
+    private volatile Snapshot current;
+
+    public RevokedSessionSnapshotService(
+            AccesoRepository accesoRepository,
+            MeterRegistry meterRegistry,
+            @Value("${jwt.access-token.expiration:3600000}") long accessTokenExpirationMs,
+            @Value("${session.revocation.snapshot.retention-ms:0}") long retentionMs,
+            @Value("${session.revocation.snapshot.clock-skew-ms:60000}") long clockSkewMs,
+            @Value("${session.revocation.snapshot.overlap-ms:30000}") long overlapMs,
+            @Value("${session.revocation.snapshot.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${session.revocation.snapshot.max-delta:10000}") int maxDelta) {
+        // Un token emitido justo antes de cerrar la sesión sigue vigente durante toda su duración
+        long minimumRetentionMs = accessTokenExpirationMs + clockSkewMs;
+        if (retentionMs > 0 && retentionMs < minimumRetentionMs) {
+            throw new IllegalStateException("session.revocation.snapshot.retention-ms (" + retentionMs
+                    + "ms) es menor que la duración del access token más el desfase de reloj (" + minimumRetentionMs
+                    + "ms); las sesiones saldrían del filtro con tokens todavía vigentes");
+        }
+        this.accesoRepository = accesoRepository;
+        this.retentionMs = retentionMs > 0 ? retentionMs : minimumRetentionMs;
+        this.overlapMs = overlapMs;
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxDelta = maxDelta;
+        this.current = Snapshot.empty(System.currentTimeMillis(), falsePositiveRate);
+
+        Gauge.builder("seguridad.sesiones.revocadas.snapshot.entradas", this, s -> s.current.entries)
+                .description("Sesiones revocadas incluidas en la instantánea")
+                .register(meterRegistry);
+        Gauge.builder("seguridad.sesiones.revocadas.snapshot.bytes", this, s -> s.current.filter.getSizeBytes())
+                .description("Tamaño del filtro de Bloom de la instantánea")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("seguridad.sesiones.revocadas.snapshot.version", this, s -> s.current.version)
+                .description("Versión de la instantánea de sesiones revocadas")
+                .register(meterRegistry);
+
+        logger.info("RevokedSessionSnapshotService inicializado - retención: {}ms, margen: {}ms, falsos positivos: {}, máximo delta: {}",
+                    this.retentionMs, overlapMs, falsePositiveRate, maxDelta);
+    }
+
+    /**
+     * Construye la primera instantánea al arrancar con las sesiones cerradas dentro de la ventana
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRecentRevocations() {
+        rebuild();
+        logger.info("Instantánea de sesiones revocadas inicializada con {} sesiones cerradas", current.entries);
+    }
+
+    /**
+     * Incorpora los accesos cerrados desde la marca de agua y descarta los que salieron de la ventana
+     * Si la consulta falla se conserva la instantánea anterior
+     */
+    @Scheduled(fixedDelayString = "${session.revocation.snapshot.interval-ms:5000}")
+    public synchronized void rebuild() {
+        long now = System.currentTimeMillis();
+        long cutoff = now - retentionMs;
+
+        List<Acceso> cerradas;
+        try {
+            long desde = watermarkMs > 0 ? Math.max(cutoff, watermarkMs - overlapMs) : cutoff;
+            cerradas = accesoRepository.findByActivoFalseAndFechaFinAfter(toLocalDateTime(desde));
+        } catch (Exception e) {
+            logger.error("Error leyendo sesiones cerradas para la instantánea: {}", e.getMessage(), e);
+            return;
+        }
+
+        // Descartar lo que ya no puede tener tokens vigentes
+        boolean changed = retained.values().removeIf(closedAtMs -> closedAtMs < cutoff);
+
+        // Incorporar los cierres nuevos; los ya conocidos dentro del margen se ignoran
+        int added = 0;
+        for (Acceso acceso : cerradas) {
+            long closedAtMs = toEpochMilli(acceso.getFechaFin());
+            if (closedAtMs >= cutoff && retained.putIfAbsent(acceso.getIdSesion(), closedAtMs) == null) {
+                added++;
+                watermarkMs = Math.max(watermarkMs, closedAtMs);
+            }
+        }
+
+        if (!changed && added == 0) {
+            return;
+        }
+
+        current = Snapshot.of(watermarkMs, now, retained, falsePositiveRate);
+        logger.debug("Instantánea de sesiones revocadas v{}: {} sesiones, {} nuevas, filtro de {} bytes",
+                watermarkMs, retained.size(), added, current.filter.getSizeBytes());
+    }
+
+    /**
+     * Obtiene la instantánea vigente con las revocaciones exactas posteriores a una versión
+     *
+     * @param since última versión conocida por el cliente (0 si no tiene ninguna)
+     * @return instantánea con filtro de Bloom y delta exacto
+     */
+    public RevokedSessionSnapshotResponse getSnapshot(long since) {
+        Snapshot snapshot = current;
+        List<String> delta = List.of();
+        long deltaSince = 0;
+
+        // Sin versión previa el cliente sólo recibe el filtro
+        if (since > 0) {
+            int from = snapshot.firstClosedAfter(since - overlapMs);
+            if (snapshot.sessionIds.length - from <= maxDelta) {
+                delta = Arrays.asList(snapshot.sessionIds).subList(from, snapshot.sessionIds.length);
+                deltaSince = since;
+            }
+        }
+
+        return new RevokedSessionSnapshotResponse(
+                snapshot.version,
+                snapshot.generatedAt,
+                retentionMs,
+                snapshot.entries,
+                SessionBloomFilter.HASH_ALGORITHM,
+                snapshot.filter.getNumBits(),
+                snapshot.filter.getNumHashes(),
+                snapshot.encodedBits,
+                deltaSince,
+                delta);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMilli) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMilli), ZoneId.systemDefault());
+    }
+
+    private static long toEpochMilli(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Instantánea inmutable publicada a los clientes
+     * Las sesiones se guardan ordenadas por fecha de cierre para obtener el delta con una búsqueda binaria
+     */
+    private static final class Snapshot {
+        final long version;
+        final long generatedAt;
+        final int entries;
+        final SessionBloomFilter filter;
+        final String encodedBits;
+        final long[] closedAtMs;
+        final String[] sessionIds;
+
+        private Snapshot(long version, long generatedAt, SessionBloomFilter filter, long[] closedAtMs, String[] sessionIds) {
+            this.version = version;
+            this.generatedAt = generatedAt;
+            this.entries = sessionIds.length;
+            this.filter = filter;
+            this.encodedBits = filter.toBase64();
+            this.closedAtMs = closedAtMs;
+            this.sessionIds = sessionIds;
+        }
+
+        static Snapshot of(long version, long generatedAt, Map<String, Long> retained, double falsePositiveRate) {
+            List<Map.Entry<String, Long>> ordered = new ArrayList<>(retained.entrySet());
+            ordered.sort(Map.Entry.comparingByValue());
+            long[] closedAtMs = new long[ordered.size()];
+            String[] sessionIds = new String[ordered.size()];
+            for (int i = 0; i < ordered.size(); i++) {
+                closedAtMs[i] = ordered.get(i).getValue();
+                sessionIds[i] = ordered.get(i).getKey();
+            }
+            return new Snapshot(version, generatedAt, SessionBloomFilter.of(retained.keySet(), falsePositiveRate),
+                    closedAtMs, sessionIds);
+        }
+
+        static Snapshot empty(long now, double falsePositiveRate) {
+            return new Snapshot(0, now, SessionBloomFilter.of(List.of(), falsePositiveRate), new long[0], new String[0]);
+        }
+
+        /**
+         * Posición de la primera sesión cerrada después del instante indicado
+         */
+        int firstClosedAfter(long epochMilli) {
+            int low = 0;
+            int high = closedAtMs.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (closedAtMs[mid] <= epochMilli) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package mx.com.qtx.seguridad.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * Filtro de Bloom de IDs de sesión para la instantánea de sesiones revocadas
+ * El tamaño se calcula a partir del número de IDs y la tasa de falsos positivos deseada.
+ * Los índices se obtienen con doble hashing (Kirsch-Mitzenmacher) sobre un hash de 64 bits
+ * (FNV-1a seguido del mezclador final de MurmurHash3); los clientes deben calcularlos igual.
+ */
+public final class SessionBloomFilter {
+
+    public static final String HASH_ALGORITHM = "fnv1a64-fmix64";
+
+    private static final int MAX_HASHES = 16;
+
+    private final long[] words;
+    private final int numBits;
+    private final int numHashes;
+
+    private SessionBloomFilter(int numBits, int numHashes) {
+        this.words = new long[numBits / Long.SIZE];
+        this.numBits = numBits;
+        this.numHashes = numHashes;
+    }
+
+    /**
+     * Construye un filtro con todos los IDs indicados
+     * 
+     * @param sessionIds IDs de sesión a incluir
+     * @param falsePositiveRate tasa de falsos positivos deseada (0 a 1, exclusivo)
+     * @return filtro con los IDs agregados
+     */
+    public static SessionBloomFilter of(Collection<String> sessionIds, double falsePositiveRate) {
+        int entries = Math.max(1, sessionIds.size());
+        double bits = -entries * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        // Múltiplo de 64 para serializar en palabras completas
+        int numBits = (int) Math.min(Integer.MAX_VALUE - Long.SIZE, Math.max(Long.SIZE, Math.ceil(bits)));
+        numBits = (numBits + Long.SIZE - 1) / Long.SIZE * Long.SIZE;
+        int numHashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round((double) numBits / entries * Math.log(2))));
+
+        SessionBloomFilter filter = new SessionBloomFilter(numBits, numHashes);
+        for (String sessionId : sessionIds) {
+            filter.add(sessionId);
+        }
+        return filter;
+    }
+
+    private void add(String sessionId) {
+        long hash = hash64(sessionId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < numHashes; i++) {
+            int index = (int) Math.floorMod(h1 + (long) i * h2, (long) numBits);
+            words[index >>> 6] |= 1L << index;
+        }
+    }
+
+    /**
+     * Hash de 64 bits del ID de sesión en UTF-8
+     */
+    static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Bits del filtro en Base64 (palabras de 64 bits big-endian)
+     */
+    public String toBase64() {
+        ByteBuffer buffer = ByteBuffer.allocate(words.length * Long.BYTES);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+
+    public int getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+    public int getSizeBytes() {
+        return words.length * Long.BYTES;
+    }
+}
@@ -0,0 +1,176 @@
+package mx.com.qtx.seguridad.service;
+
+import mx.com.qtx.seguridad.dto.SessionRevocationMessage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servicio que difunde las revocaciones de sesión a los microservicios suscritos
+ * mediante server-sent events sobre una conexión HTTP de larga duración.
+ * Los eventos se envían sólo después de confirmar la transacción que cerró las
+ * sesiones, desde un hilo propio para no retrasar la petición que las cerró.
+ * Un latido periódico mantiene viva la conexión y descarta suscriptores caídos.
+ * Además del máximo global, cada dirección remota tiene su propio máximo para que
+ * un solo cliente no pueda ocupar todos los lugares.
+ */
+@Service
+public class SessionRevocationPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionRevocationPublisher.class);
+
+    public static final String EVENT_CONNECTED = "connected";
+    public static final String EVENT_SESSION_REVOKED = "session-revoked";
+
+    // Suscriptores y la dirección remota de cada uno
+    private final Map<SseEmitter, String> emitters = new ConcurrentHashMap<>();
+    // Suscriptores por dirección remota; protegido por el monitor de esta instancia
+    private final Map<String, Integer> subscribersByAddress = new HashMap<>();
+    private final ExecutorService sender = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "session-revocation-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long emitterTimeoutMs;
+    private final int maxSubscribers;
+    private final int maxSubscribersPerAddress;
+
+    public SessionRevocationPublisher(
+            @Value("${session.revocation.emitter-timeout-ms:3600000}") long emitterTimeoutMs,
+            @Value("${session.revocation.max-subscribers:100}") int maxSubscribers,
+            @Value("${session.revocation.max-subscribers-per-address:4}") int maxSubscribersPerAddress) {
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxSubscribers = maxSubscribers;
+        this.maxSubscribersPerAddress = maxSubscribersPerAddress;
+    }
+
+    /**
+     * Registra un nuevo suscriptor del flujo de revocaciones
+     * 
+     * @param remoteAddress Dirección remota de la conexión del suscriptor
+     * @return SseEmitter asociado a la conexión del suscriptor
+     * @throws IllegalStateException si se alcanzó el máximo de suscriptores global o de la dirección
+     */
+    public SseEmitter subscribe(String remoteAddress) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        emitter.onCompletion(() -> release(emitter));
+        emitter.onTimeout(() -> {
+            release(emitter);
+            emitter.complete();
+        });
+        emitter.onError(error -> release(emitter));
+
+        // La verificación y el registro son atómicos para no rebasar los máximos con suscripciones concurrentes
+        synchronized (this) {
+            if (emitters.size() >= maxSubscribers) {
+                throw new IllegalStateException("Se alcanzó el máximo de " + maxSubscribers + " suscriptores");
+            }
+            int fromAddress = subscribersByAddress.getOrDefault(remoteAddress, 0);
+            if (fromAddress >= maxSubscribersPerAddress) {
+                throw new IllegalStateException("Se alcanzó el máximo de " + maxSubscribersPerAddress
+                        + " suscriptores para " + remoteAddress);
+            }
+            subscribersByAddress.put(remoteAddress, fromAddress + 1);
+            emitters.put(emitter, remoteAddress);
+        }
+
+        // El evento inicial confirma la suscripción; el cliente lo usa para saber que está al día
+        send(emitter, SseEmitter.event().name(EVENT_CONNECTED).data("ok"));
+        logger.info("Nuevo suscriptor de revocaciones de sesión - total: {}", emitters.size());
+        return emitter;
+    }
+
+    /**
+     * Difunde las sesiones revocadas una vez confirmada la transacción
+     * 
+     * @param event Evento con los IDs de las sesiones revocadas
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionRevoked(SessionRevokedEvent event) {
+        if (event.getSessionIds().isEmpty() || emitters.isEmpty()) {
+            return;
+        }
+
+        SessionRevocationMessage message = new SessionRevocationMessage(event.getSessionIds(), event.getReason());
+        sender.execute(() -> {
+            for (SseEmitter emitter : emitters.keySet()) {
+                send(emitter, SseEmitter.event()
+                        .name(EVENT_SESSION_REVOKED)
+                        .data(message, MediaType.APPLICATION_JSON));
+            }
+            logger.debug("Revocación de {} sesiones difundida a {} suscriptores ({})",
+                    event.getSessionIds().size(), emitters.size(), event.getReason());
+        });
+    }
+
+    /**
+     * Envía un latido a todos los suscriptores para mantener la conexión abierta
+     * y detectar conexiones cerradas por el otro extremo
+     */
+    @Scheduled(fixedRateString = "${session.revocation.heartbeat-ms:15000}")
+    public void heartbeat() {
+        if (emitters.isEmpty()) {
+            return;
+        }
+
+        sender.execute(() -> {
+            for (SseEmitter emitter : emitters.keySet()) {
+                send(emitter, SseEmitter.event().comment("heartbeat"));
+            }
+        });
+    }
+
+    /**
+     * Obtiene el número de suscriptores conectados
+     */
+    public int getSubscriberCount() {
+        return emitters.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        for (SseEmitter emitter : emitters.keySet()) {
+            emitter.complete();
+        }
+        synchronized (this) {
+            emitters.clear();
+            subscribersByAddress.clear();
+        }
+    }
+
+    /**
+     * Libera el lugar del suscriptor; es idempotente porque varias devoluciones
+     * de llamada del emisor pueden dispararse para la misma conexión
+     */
+    private synchronized void release(SseEmitter emitter) {
+        String remoteAddress = emitters.remove(emitter);
+        if (remoteAddress != null) {
+            subscribersByAddress.computeIfPresent(remoteAddress, (address, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // Conexión cerrada por el suscriptor: se descarta
+            release(emitter);
+            emitter.completeWithError(e);
+            logger.debug("Suscriptor de revocaciones descartado: {}", e.getMessage());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package mx.com.qtx.seguridad.service;
+
+import java.util.List;
+
+/**
+ * Evento de aplicación publicado cuando una o más sesiones dejan de estar activas
+ * (cierre explícito, cierre de todas las sesiones de un usuario o limpieza por expiración)
+ */
+public class SessionRevokedEvent {
+
+    private final List<String> sessionIds;
+    private final String reason;
+
+    public SessionRevokedEvent(List<String> sessionIds, String reason) {
+        this.sessionIds = List.copyOf(sessionIds);
+        this.reason = reason;
+    }
+
+    public List<String> getSessionIds() {
+        return sessionIds;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionRevokedEvent{" +
+                "sessionIds=" + sessionIds.size() +
+                ", reason='" + reason + '\'' +
+                '}';
+    }
+}
\ No newline at end of file
@@ -4,11 +4,15 @@ import mx.com.qtx.seguridad.entity.Acceso;
 import mx.com.qtx.seguridad.repository.AccesoRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -19,9 +23,11 @@ public class SessionService {
     private static final Logger logger = LoggerFactory.getLogger(SessionService.class);
 
     private final AccesoRepository accesoRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public SessionService(AccesoRepository accesoRepository) {
+    public SessionService(AccesoRepository accesoRepository, ApplicationEventPublisher eventPublisher) {
         this.accesoRepository = accesoRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -104,6 +110,7 @@ public class SessionService {
             // Cerrar sesión
             session.cerrarSesion();
             accesoRepository.save(session);
+            eventPublisher.publishEvent(new SessionRevokedEvent(List.of(idSesion), "closed"));
             
             logger.info("Sesión cerrada exitosamente - ID: {}, Usuario: {}", 
                        idSesion, session.getUsuarioId());
@@ -144,6 +151,8 @@ public class SessionService {
             }
             
             accesoRepository.closeAllActiveUserSessions(usuarioId);
+            eventPublisher.publishEvent(new SessionRevokedEvent(
+                    sessionesActivas.stream().map(Acceso::getIdSesion).toList(), "user-sessions-closed"));
             
             logger.info("Se cerraron {} sesiones activas para usuario ID: {}", sessionesActivas.size(), usuarioId);
             
@@ -195,6 +204,30 @@ public class SessionService {
         }
     }
 
+    /**
+     * Verificar varias sesiones con una sola consulta a la base de datos
+     * 
+     * @param idsSesion IDs de las sesiones a verificar
+     * @return Map<String, Boolean> con el estado de cada sesión (false si no existe)
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Boolean> areSessionsActive(Collection<String> idsSesion) {
+        Map<String, Boolean> resultado = new LinkedHashMap<>();
+        for (String idSesion : idsSesion) {
+            resultado.put(idSesion, false);
+        }
+        if (resultado.isEmpty()) {
+            return resultado;
+        }
+
+        for (Acceso session : accesoRepository.findByIdSesionIn(resultado.keySet())) {
+            resultado.put(session.getIdSesion(), session.isSesionVigente());
+        }
+
+        logger.debug("Verificadas {} sesiones en lote", resultado.size());
+        return resultado;
+    }
+
     /**
      * Verificar si un usuario tiene al menos una sesión activa
      * 
@@ -378,6 +411,8 @@ public class SessionService {
             
             // Guardar cambios
             accesoRepository.saveAll(sessionesExpiradas);
+            eventPublisher.publishEvent(new SessionRevokedEvent(
+                    sessionesExpiradas.stream().map(Acceso::getIdSesion).toList(), "expired"));
             
             int sessionesLimpiadas = sessionesExpiradas.size();
             logger.info("Se limpiaron {} sesiones expiradas", sessionesLimpiadas);
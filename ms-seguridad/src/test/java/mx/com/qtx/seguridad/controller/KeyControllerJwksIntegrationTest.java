@@ -13,6 +13,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.test.web.server.LocalServerPort;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.ActiveProfiles;
@@ -108,6 +111,26 @@ class KeyControllerJwksIntegrationTest {
         assertTrue(response.getBody().hasValidKeys());
     }
 
+    @Test
+    @DisplayName("GET /keys/jwks - Debe responder 304 cuando If-None-Match coincide con el ETag")
+    void testGetJwks_ConditionalRequest() {
+        // Arrange
+        ResponseEntity<JwksResponse> first = restTemplate.getForEntity(baseUrl + "/jwks", JwksResponse.class);
+        String etag = first.getHeaders().getETag();
+        assertNotNull(etag);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+
+        // Act
+        ResponseEntity<JwksResponse> second = restTemplate.exchange(
+            baseUrl + "/jwks", HttpMethod.GET, new HttpEntity<>(headers), JwksResponse.class);
+
+        // Assert
+        assertEquals(HttpStatus.NOT_MODIFIED, second.getStatusCode());
+        assertEquals(etag, second.getHeaders().getETag());
+        assertNull(second.getBody());
+    }
+
     @Test
     @DisplayName("GET /keys/jwks - Debe retornar keyId consistente entre peticiones")
     void testGetJwks_ConsistentKeyId() {
@@ -1,6 +1,9 @@
 package mx.com.qtx.seguridad.integration;
 
 import mx.com.qtx.seguridad.dto.SessionValidationResponse;
+import mx.com.qtx.seguridad.dto.SessionBatchValidationRequest;
+import mx.com.qtx.seguridad.dto.SessionBatchValidationResponse;
+import mx.com.qtx.seguridad.entity.Acceso;
 import mx.com.qtx.seguridad.dto.SessionCloseResponse;
 import mx.com.qtx.seguridad.dto.SessionInfoResponse;
 
@@ -9,6 +12,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -24,6 +28,57 @@ public class SessionControllerIntegrationTest extends BaseIntegrationTest {
     // PRUEBAS DE VALIDAR SESIÓN (/session/validate/{sessionId})
     // ===============================
 
+    @Test
+    @DisplayName("POST /session/validate/batch - Debe validar varias sesiones en una llamada")
+    void shouldValidateSessionsInBatch() {
+        // Given - Crear una sesión activa (login) y combinarla con una inexistente
+        String accessToken = performTestLogin("admin", "admin123");
+        assertNotNull(accessToken);
+        
+        List<Acceso> activas = accesoRepository.findByActivoTrue();
+        assertFalse(activas.isEmpty());
+        String activeSessionId = activas.get(0).getIdSesion();
+        String unknownSessionId = "non-existent-batch-session";
+        
+        SessionBatchValidationRequest request =
+                new SessionBatchValidationRequest(List.of(activeSessionId, unknownSessionId, activeSessionId));
+
+        // When
+        ResponseEntity<SessionBatchValidationResponse> response = restTemplate.postForEntity(
+                baseUrl + "/session/validate/batch",
+                createJsonEntity(request),
+                SessionBatchValidationResponse.class
+        );
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        
+        Map<String, Boolean> sessions = response.getBody().getSessions();
+        assertEquals(2, sessions.size());
+        assertTrue(sessions.get(activeSessionId));
+        assertFalse(sessions.get(unknownSessionId));
+    }
+
+    @Test
+    @DisplayName("POST /session/validate/batch - Debe rechazar lista vacía")
+    void shouldRejectEmptyBatch() {
+        // Given
+        SessionBatchValidationRequest request = new SessionBatchValidationRequest(List.of());
+
+        // When
+        ResponseEntity<SessionBatchValidationResponse> response = restTemplate.postForEntity(
+                baseUrl + "/session/validate/batch",
+                createJsonEntity(request),
+                SessionBatchValidationResponse.class
+        );
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertFalse(response.getBody().isSuccessful());
+    }
+
     @Test
     @DisplayName("GET /session/validate/{sessionId} - Debe validar sesión activa")
     void shouldValidateActiveSession() {
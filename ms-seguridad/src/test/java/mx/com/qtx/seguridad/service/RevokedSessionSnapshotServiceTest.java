@@ -0,0 +1,242 @@
+package mx.com.qtx.seguridad.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import mx.com.qtx.seguridad.dto.RevokedSessionSnapshotResponse;
+import mx.com.qtx.seguridad.entity.Acceso;
+import mx.com.qtx.seguridad.repository.AccesoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests unitarios para RevokedSessionSnapshotService
+ */
+@DisplayName("RevokedSessionSnapshotService Tests")
+class RevokedSessionSnapshotServiceTest {
+
+    private final AccesoRepository accesoRepository = mock(AccesoRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // Accesos cerrados visibles en la base de datos compartida por las instancias
+    private final List<Acceso> cerradas = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        when(accesoRepository.findByActivoFalseAndFechaFinAfter(any())).thenAnswer(invocation -> {
+            LocalDateTime desde = invocation.getArgument(0);
+            return cerradas.stream().filter(a -> a.getFechaFin().isAfter(desde)).toList();
+        });
+    }
+
+    private RevokedSessionSnapshotService service(long retentionMs) {
+        return new RevokedSessionSnapshotService(accesoRepository, meterRegistry, 0, retentionMs, 0, 30000, 0.01, 10000);
+    }
+
+    private void cerrar(String idSesion, LocalDateTime fechaFin) {
+        Acceso acceso = new Acceso();
+        acceso.setIdSesion(idSesion);
+        acceso.setActivo(false);
+        acceso.setFechaFin(fechaFin);
+        cerradas.add(acceso);
+    }
+
+    private static long epochMilli(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // Misma verificación que hacen los clientes del filtro
+    private static boolean mightContain(RevokedSessionSnapshotResponse snapshot, String sessionId) {
+        ByteBuffer bits = ByteBuffer.wrap(Base64.getDecoder().decode(snapshot.getBits()));
+        long hash = SessionBloomFilter.hash64(sessionId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < snapshot.getNumHashes(); i++) {
+            int index = (int) Math.floorMod(h1 + (long) i * h2, (long) snapshot.getNumBits());
+            if ((bits.getLong((index >>> 6) * Long.BYTES) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Test
+    @DisplayName("Should include every closed session in the Bloom filter on startup")
+    void shouldIncludeClosedSessionsInFilter() {
+        // Given
+        RevokedSessionSnapshotService service = service(900000);
+        LocalDateTime fechaFin = LocalDateTime.now().minusMinutes(1);
+        List<String> revoked = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            revoked.add("sesion-revocada-" + i);
+            cerrar("sesion-revocada-" + i, fechaFin);
+        }
+
+        // When
+        service.loadRecentRevocations();
+        RevokedSessionSnapshotResponse snapshot = service.getSnapshot(0);
+
+        // Then
+        assertEquals(500, snapshot.getEntries());
+        assertEquals(epochMilli(fechaFin), snapshot.getVersion());
+        assertEquals(SessionBloomFilter.HASH_ALGORITHM, snapshot.getHashAlgorithm());
+        assertTrue(revoked.stream().allMatch(id -> mightContain(snapshot, id)));
+        long falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (mightContain(snapshot, "sesion-activa-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "Falsos positivos: " + falsePositives);
+        assertTrue(snapshot.getDelta().isEmpty());
+        assertEquals(500.0, meterRegistry.get("seguridad.sesiones.revocadas.snapshot.entradas").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should return the sessions closed after the client's version minus the overlap")
+    void shouldReturnExactDeltaSinceVersion() {
+        // Given
+        RevokedSessionSnapshotService service = service(900000);
+        LocalDateTime ahora = LocalDateTime.now();
+        cerrar("sesion-0", ahora.minusMinutes(10));
+        cerrar("sesion-1", ahora.minusMinutes(5));
+        service.rebuild();
+        long version = service.getSnapshot(0).getVersion();
+
+        // When
+        cerrar("sesion-2", ahora.minusMinutes(2));
+        cerrar("sesion-3", ahora.minusMinutes(1));
+        service.rebuild();
+        RevokedSessionSnapshotResponse snapshot = service.getSnapshot(version);
+
+        // Then
+        assertEquals(epochMilli(ahora.minusMinutes(1)), snapshot.getVersion());
+        assertEquals(version, snapshot.getDeltaSince());
+        // sesion-1 se repite porque cerró dentro del margen de la versión del cliente
+        assertEquals(List.of("sesion-1", "sesion-2", "sesion-3"), snapshot.getDelta());
+        assertEquals(4, snapshot.getEntries());
+        assertTrue(service.getSnapshot(snapshot.getVersion() + 30000).getDelta().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should serve the same version and delta from every instance reading the same database")
+    void shouldServeSameSnapshotFromEveryInstance() {
+        // Given: la sesión se cerró a través de otra instancia; ninguna recibe un evento local
+        RevokedSessionSnapshotService instanciaA = service(900000);
+        RevokedSessionSnapshotService instanciaB = service(900000);
+        LocalDateTime ahora = LocalDateTime.now();
+        cerrar("sesion-0", ahora.minusMinutes(10));
+        cerrar("sesion-1", ahora.minusMinutes(5));
+        instanciaA.rebuild();
+        long version = instanciaA.getSnapshot(0).getVersion();
+        cerrar("sesion-2", ahora.minusMinutes(1));
+
+        // When: B arranca después y nunca vio la versión anterior
+        instanciaA.rebuild();
+        instanciaB.loadRecentRevocations();
+        RevokedSessionSnapshotResponse desdeA = instanciaA.getSnapshot(version);
+        RevokedSessionSnapshotResponse desdeB = instanciaB.getSnapshot(version);
+
+        // Then
+        assertEquals(desdeA.getVersion(), desdeB.getVersion());
+        assertEquals(desdeA.getBits(), desdeB.getBits());
+        assertEquals(List.of("sesion-1", "sesion-2"), desdeA.getDelta());
+        assertEquals(desdeA.getDelta(), desdeB.getDelta());
+    }
+
+    @Test
+    @DisplayName("Should pick up a closure committed late within the overlap margin")
+    void shouldPickUpLateClosureWithinOverlap() {
+        // Given
+        RevokedSessionSnapshotService service = service(900000);
+        LocalDateTime ahora = LocalDateTime.now();
+        cerrar("sesion-1", ahora.minusSeconds(10));
+        service.rebuild();
+        long version = service.getSnapshot(0).getVersion();
+
+        // When: otra transacción confirma después un cierre anterior a la marca de agua
+        cerrar("sesion-tardia", ahora.minusSeconds(20));
+        service.rebuild();
+        RevokedSessionSnapshotResponse snapshot = service.getSnapshot(version);
+
+        // Then
+        assertEquals(version, snapshot.getVersion());
+        assertEquals(2, snapshot.getEntries());
+        assertTrue(snapshot.getDelta().contains("sesion-tardia"));
+        ArgumentCaptor<LocalDateTime> desde = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(accesoRepository, times(2)).findByActivoFalseAndFechaFinAfter(desde.capture());
+        assertEquals(ahora.minusSeconds(40).withNano(0), desde.getValue().withNano(0));
+    }
+
+    @Test
+    @DisplayName("Should drop revocations older than the retention window")
+    void shouldDropExpiredRevocations() throws InterruptedException {
+        // Given
+        RevokedSessionSnapshotService service = service(50);
+        cerrar("sesion-1", LocalDateTime.now());
+        service.rebuild();
+        assertEquals(1, service.getSnapshot(0).getEntries());
+        Thread.sleep(80);
+
+        // When
+        service.rebuild();
+
+        // Then
+        assertEquals(0, service.getSnapshot(0).getEntries());
+        assertFalse(mightContain(service.getSnapshot(0), "sesion-1"));
+    }
+
+    @Test
+    @DisplayName("Should keep the previous snapshot when the database query fails")
+    void shouldKeepSnapshotWhenQueryFails() {
+        // Given
+        RevokedSessionSnapshotService service = service(900000);
+        cerrar("sesion-1", LocalDateTime.now().minusMinutes(1));
+        service.rebuild();
+        RevokedSessionSnapshotResponse anterior = service.getSnapshot(0);
+        doThrow(new RuntimeException("sin conexión")).when(accesoRepository).findByActivoFalseAndFechaFinAfter(any());
+
+        // When
+        service.rebuild();
+
+        // Then
+        RevokedSessionSnapshotResponse snapshot = service.getSnapshot(0);
+        assertEquals(anterior.getVersion(), snapshot.getVersion());
+        assertTrue(mightContain(snapshot, "sesion-1"));
+    }
+
+    @Test
+    @DisplayName("Should default the retention to the access token lifetime plus clock skew")
+    void shouldDeriveRetentionFromAccessTokenLifetime() {
+        // When
+        RevokedSessionSnapshotService service = new RevokedSessionSnapshotService(
+                accesoRepository, meterRegistry, 3600000, 0, 60000, 30000, 0.01, 10000);
+
+        // Then
+        assertEquals(3660000, service.getSnapshot(0).getRetentionMs());
+    }
+
+    @Test
+    @DisplayName("Should refuse to start with a retention shorter than the access token lifetime")
+    void shouldRejectRetentionShorterThanAccessToken() {
+        // When / Then
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> new RevokedSessionSnapshotService(
+                accesoRepository, meterRegistry, 3600000, 900000, 60000, 30000, 0.01, 10000));
+        assertTrue(error.getMessage().contains("3660000"));
+    }
+}
@@ -0,0 +1,41 @@
+package mx.com.qtx.seguridad.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para SessionBloomFilter
+ */
+@DisplayName("SessionBloomFilter Tests")
+class SessionBloomFilterTest {
+
+    @Test
+    @DisplayName("Should hash session ids exactly like ms-cotizador")
+    void shouldMatchClientHashVectors() {
+        // Los mismos vectores se verifican en RevokedSessionFilterTest de ms-cotizador
+        assertEquals(0xefd01f60ba992926L, SessionBloomFilter.hash64(""));
+        assertEquals(0x1832b9b1a3e815d4L, SessionBloomFilter.hash64("sesion-1"));
+        assertEquals(0x7d919f02b6e5e450L, SessionBloomFilter.hash64("5f0e8a9c-3b1d-4e2f-8a7c-6d9b0e1f2a3b"));
+    }
+
+    @Test
+    @DisplayName("Should size the filter from the entry count and target rate")
+    void shouldSizeFilterFromEntries() {
+        // When
+        SessionBloomFilter empty = SessionBloomFilter.of(List.of(), 0.01);
+        SessionBloomFilter thousand = SessionBloomFilter.of(
+                IntStream.range(0, 1000).mapToObj(i -> "sesion-" + i).toList(), 0.01);
+
+        // Then
+        assertEquals(64, empty.getNumBits());
+        assertEquals(0, thousand.getNumBits() % 64);
+        assertTrue(thousand.getNumBits() >= 9585 && thousand.getNumBits() < 9700, "Bits: " + thousand.getNumBits());
+        assertEquals(7, thousand.getNumHashes());
+        assertEquals(thousand.getNumBits() / 8, thousand.getSizeBytes());
+    }
+}
@@ -0,0 +1,108 @@
+package mx.com.qtx.seguridad.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para SessionRevocationPublisher
+ */
+@DisplayName("SessionRevocationPublisher Tests")
+class SessionRevocationPublisherTest {
+
+    private SessionRevocationPublisher publisher;
+
+    @AfterEach
+    void tearDown() {
+        if (publisher != null) {
+            publisher.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should register subscribers up to the configured maximum")
+    void shouldRegisterSubscribersUpToMaximum() {
+        // Given
+        publisher = new SessionRevocationPublisher(60000, 2, 10);
+
+        // When
+        SseEmitter first = publisher.subscribe("10.0.0.1");
+        SseEmitter second = publisher.subscribe("10.0.0.2");
+
+        // Then
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(2, publisher.getSubscriberCount());
+        assertThrows(IllegalStateException.class, () -> publisher.subscribe("10.0.0.3"));
+    }
+
+    @Test
+    @DisplayName("Should release subscriber slots on shutdown")
+    void shouldReleaseSubscribersOnShutdown() {
+        // Given
+        publisher = new SessionRevocationPublisher(60000, 10, 10);
+        publisher.subscribe("10.0.0.1");
+        publisher.onSessionRevoked(new SessionRevokedEvent(List.of("sesion-1"), "closed"));
+
+        // When
+        publisher.shutdown();
+
+        // Then
+        assertEquals(0, publisher.getSubscriberCount());
+    }
+
+    @Test
+    @DisplayName("Should cap subscribers per remote address")
+    void shouldCapSubscribersPerRemoteAddress() {
+        // Given
+        publisher = new SessionRevocationPublisher(60000, 100, 2);
+        publisher.subscribe("10.0.0.1");
+        publisher.subscribe("10.0.0.1");
+
+        // When / Then
+        assertThrows(IllegalStateException.class, () -> publisher.subscribe("10.0.0.1"));
+        assertNotNull(publisher.subscribe("10.0.0.2"));
+        assertEquals(3, publisher.getSubscriberCount());
+    }
+
+    @Test
+    @DisplayName("Should not overshoot the maximum with concurrent subscriptions")
+    void shouldNotOvershootMaximumUnderConcurrency() throws InterruptedException {
+        // Given
+        publisher = new SessionRevocationPublisher(60000, 5, 100);
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+
+        // When
+        for (int i = 0; i < 64; i++) {
+            String address = "10.0.0." + i;
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    publisher.subscribe(address);
+                    accepted.incrementAndGet();
+                } catch (IllegalStateException | InterruptedException e) {
+                    // Rechazada por el máximo
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(5, accepted.get());
+        assertEquals(5, publisher.getSubscriberCount());
+    }
+}